@@ -0,0 +1,51 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.api;
+
+/**
+ * An analyzer which can, under certain circumstances, be fed with the
+ * distinct combinations of its input values and their counts, as produced by
+ * an aggregate query (SELECT ..., COUNT(*) ... GROUP BY ...), instead of with
+ * every row of the source table. This allows the work of the analyzer to be
+ * "pushed down" to a database, which avoids streaming every row.
+ *
+ * Implementing this interface is a promise that the result of the analyzer
+ * only depends on the values of its input columns and the distinct count
+ * passed to {@link #run(InputRow, int)}, and not on eg. row ids or the order
+ * of the rows. The rows passed to the analyzer when it is fed from an
+ * aggregate query only contain the input columns of the analyzer, so an
+ * analyzer that records sample records (eg. for drill-down) should not allow
+ * it, see {@link #isQueryAggregatable()}.
+ *
+ * @param <R>
+ *            the {@link AnalyzerResult} type of this analyzer.
+ */
+public interface QueryAggregatableAnalyzer<R extends AnalyzerResult> extends Analyzer<R> {
+
+    /**
+     * Inquires the analyzer if it can be fed from an aggregate query given its
+     * current configuration. Should return false if the analyzer is configured
+     * to record sample records, since these would be incomplete.
+     *
+     * @return a boolean indicating whether or not the analyzer may be fed from
+     *         an aggregate query.
+     */
+    boolean isQueryAggregatable();
+}
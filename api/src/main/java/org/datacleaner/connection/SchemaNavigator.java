@@ -19,6 +19,8 @@
  */
 package org.datacleaner.connection;
 
+import java.util.List;
+
 import org.apache.metamodel.DataContext;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Schema;
@@ -30,35 +32,164 @@ import org.apache.metamodel.schema.TableType;
  * {@link Datastore}. It is preferred to use this component instead of the
  * {@link DataContext} directly, since it is shared amongst connections while a
  * DataContext may be created per connection (depending on the datastore type).
+ *
+ * A schema navigator can be given previously cached schemas (see
+ * {@link #setCachedSchemas(List, String)}), in which case the schemas, tables
+ * and columns are looked up in the cached schemas before the (possibly
+ * expensive to load) schemas of the {@link DataContext}.
  */
 public final class SchemaNavigator {
 
     private final DataContext dataContext;
+    private volatile List<Schema> cachedSchemas;
+    private volatile String cachedDefaultSchemaName;
 
     public SchemaNavigator(final DataContext dataContext) {
         this.dataContext = dataContext;
     }
 
+    /**
+     * Sets cached schemas to navigate instead of the schemas of the
+     * {@link DataContext}. Schemas, tables and columns that are not found in
+     * the cached schemas are still looked up in the {@link DataContext}.
+     *
+     * @param schemas
+     *            the cached schemas, or null to only navigate the schemas of
+     *            the {@link DataContext}
+     * @param defaultSchemaName
+     *            the name of the default schema of the cached schemas
+     */
+    public void setCachedSchemas(final List<Schema> schemas, final String defaultSchemaName) {
+        cachedDefaultSchemaName = defaultSchemaName;
+        cachedSchemas = schemas;
+    }
+
+    /**
+     * Determines if this schema navigator navigates cached schemas.
+     *
+     * @return true if cached schemas have been set
+     */
+    public boolean isCachedSchemasSet() {
+        return cachedSchemas != null;
+    }
+
     public void refreshSchemas() {
+        cachedSchemas = null;
         dataContext.refreshSchemas();
     }
 
     public Schema convertToSchema(final String schemaName) {
-        return dataContext.getSchemaByName(schemaName);
+        return getSchemaByName(schemaName);
     }
 
     public Schema[] getSchemas() {
+        final List<Schema> schemas = cachedSchemas;
+        if (schemas != null) {
+            return schemas.toArray(new Schema[schemas.size()]);
+        }
         return dataContext.getSchemas().toArray(new Schema[0]);
     }
 
     public Schema getDefaultSchema() {
+        final Schema schema = getCachedSchema(cachedDefaultSchemaName);
+        if (schema != null) {
+            return schema;
+        }
         return dataContext.getDefaultSchema();
     }
 
     public Schema getSchemaByName(final String name) {
+        if (name == null) {
+            return getDefaultSchema();
+        }
+        final Schema schema = getCachedSchema(name);
+        if (schema != null) {
+            return schema;
+        }
         return dataContext.getSchemaByName(name);
     }
 
+    private Schema getCachedSchema(final String name) {
+        final List<Schema> schemas = cachedSchemas;
+        if (schemas == null || name == null) {
+            return null;
+        }
+        for (final Schema schema : schemas) {
+            if (name.equals(schema.getName())) {
+                return schema;
+            }
+        }
+        for (final Schema schema : schemas) {
+            if (name.equalsIgnoreCase(schema.getName())) {
+                return schema;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a table in the cached schemas by its qualified label, ie.
+     * "schema.table" or "table" (in the default schema).
+     */
+    private Table getCachedTable(final String qualifiedLabel) {
+        final List<Schema> schemas = cachedSchemas;
+        if (schemas == null || qualifiedLabel == null) {
+            return null;
+        }
+        for (final Schema schema : schemas) {
+            final String schemaName = schema.getName();
+            if (schemaName != null && qualifiedLabel.startsWith(schemaName + ".")) {
+                final Table table = schema.getTableByName(qualifiedLabel.substring(schemaName.length() + 1));
+                if (table != null) {
+                    return table;
+                }
+            }
+        }
+        final Schema defaultSchema = getCachedSchema(cachedDefaultSchemaName);
+        if (defaultSchema == null) {
+            return null;
+        }
+        return defaultSchema.getTableByName(qualifiedLabel);
+    }
+
+    /**
+     * Finds a column in the cached schemas by its qualified label, ie.
+     * "schema.table.column" or "table.column" (in the default schema).
+     */
+    private Column getCachedColumn(final String qualifiedLabel) {
+        final List<Schema> schemas = cachedSchemas;
+        if (schemas == null || qualifiedLabel == null) {
+            return null;
+        }
+        for (final Schema schema : schemas) {
+            final String schemaName = schema.getName();
+            if (schemaName != null && qualifiedLabel.startsWith(schemaName + ".")) {
+                final Column column = getCachedColumn(schema, qualifiedLabel.substring(schemaName.length() + 1));
+                if (column != null) {
+                    return column;
+                }
+            }
+        }
+        final Schema defaultSchema = getCachedSchema(cachedDefaultSchemaName);
+        if (defaultSchema == null) {
+            return null;
+        }
+        return getCachedColumn(defaultSchema, qualifiedLabel);
+    }
+
+    private Column getCachedColumn(final Schema schema, final String tableAndColumnName) {
+        for (final Table table : schema.getTables()) {
+            final String tableName = table.getName();
+            if (tableName != null && tableAndColumnName.startsWith(tableName + ".")) {
+                final Column column = table.getColumnByName(tableAndColumnName.substring(tableName.length() + 1));
+                if (column != null) {
+                    return column;
+                }
+            }
+        }
+        return null;
+    }
+
     public Table convertToTable(final String schemaName, final String tableName) {
         final Schema schema;
         if (schemaName == null) {
@@ -129,6 +260,10 @@ public final class SchemaNavigator {
     }
 
     public Table convertToTable(final String tableName) {
+        final Table table = getCachedTable(tableName);
+        if (table != null) {
+            return table;
+        }
         return dataContext.getTableByQualifiedLabel(tableName);
     }
 
@@ -141,6 +276,10 @@ public final class SchemaNavigator {
     }
 
     public Column convertToColumn(final String columnName) {
+        final Column column = getCachedColumn(columnName);
+        if (column != null) {
+            return column;
+        }
         return dataContext.getColumnByQualifiedLabel(columnName);
     }
 }
@@ -181,4 +181,36 @@ public class SchemaNavigatorTest extends TestCase {
         final List<String> columnNamesResult = CollectionUtils.map(columnsResult, new HasNameMapper());
         assertEquals("[source_id, BLOB.BLOBNumberMain, BLOB.BLOBNumberBranch]", columnNamesResult.toString());
     }
+
+    public void testCachedSchemas() throws Exception {
+        final MutableSchema schema = new MutableSchema("SCHE");
+        final MutableTable table = new MutableTable("tabl").setSchema(schema);
+        final MutableColumn column = new MutableColumn("BLOB.BLOBNumberMain").setTable(table);
+        table.addColumn(column);
+        schema.addTable(table);
+
+        final DataContext dc = new CsvDataContext(new File("src/test/resources/employees.csv"));
+        final SchemaNavigator sn = new SchemaNavigator(dc);
+        assertFalse(sn.isCachedSchemasSet());
+
+        sn.setCachedSchemas(Arrays.<Schema> asList(schema), "SCHE");
+        assertTrue(sn.isCachedSchemasSet());
+
+        assertSame(schema, sn.getDefaultSchema());
+        assertSame(schema, sn.getSchemaByName("sche"));
+        assertEquals("[Schema[name=SCHE]]", Arrays.toString(sn.getSchemas()));
+        assertSame(table, sn.convertToTable("SCHE.tabl"));
+        assertSame(table, sn.convertToTable("tabl"));
+        assertSame(column, sn.convertToColumn("SCHE.tabl.BLOB.BLOBNumberMain"));
+        assertSame(column, sn.convertToColumn("tabl.BLOB.BLOBNumberMain"));
+
+        // not cached, found in the DataContext
+        assertEquals("Schema[name=resources]", sn.getSchemaByName("resources").toString());
+        assertEquals("Column[name=email,columnNumber=1,type=STRING,nullable=true,nativeType=null,columnSize=null]",
+                sn.convertToColumn("resources.employees.csv.email").toString());
+
+        sn.refreshSchemas();
+        assertFalse(sn.isCachedSchemasSet());
+        assertEquals("Schema[name=resources]", sn.getDefaultSchema().toString());
+    }
 }
@@ -28,17 +28,18 @@ import java.util.TreeSet;
 
 import javax.inject.Named;
 
-import org.datacleaner.api.Analyzer;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
 import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.api.Provided;
+import org.datacleaner.api.QueryAggregatableAnalyzer;
 import org.datacleaner.result.AnnotatedRowsResult;
 import org.datacleaner.result.Crosstab;
 import org.datacleaner.result.CrosstabDimension;
 import org.datacleaner.result.CrosstabNavigator;
+import org.datacleaner.storage.DummyRowAnnotationFactory;
 import org.datacleaner.storage.RowAnnotation;
 import org.datacleaner.storage.RowAnnotationFactory;
 import org.datacleaner.storage.RowAnnotations;
@@ -46,7 +47,7 @@ import org.datacleaner.util.ValueCombination;
 
 @Named("Boolean analyzer")
 @Description("Inspect your boolean values. How is the distribution of true/false? Are there null values?")
-public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
+public class BooleanAnalyzer implements QueryAggregatableAnalyzer<BooleanAnalyzerResult> {
 
     public static final String MEASURE_LEAST_FREQUENT = "Least frequent";
     public static final String MEASURE_MOST_FREQUENT = "Most frequent";
@@ -77,9 +78,17 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
     @Configured
     InputColumn<Boolean>[] _columns;
 
+    @Configured(value = "Record drill-down information", required = false)
+    @Description("Record sample records of the true, false and null values and of the value combinations. When "
+            + "disabled, the analyzer may be fed from an aggregate query instead of from every record of the source "
+            + "table.")
+    boolean _recordDrillDownInformation = true;
+
     @Provided
     RowAnnotationFactory _annotationFactory;
 
+    private RowAnnotationFactory _drillDownAnnotationFactory;
+
     public BooleanAnalyzer(final InputColumn<Boolean>[] columns) {
         _columns = columns;
         _annotationFactory = RowAnnotations.getDefaultFactory();
@@ -90,11 +99,20 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
 
     @Initialize
     public void init() {
+        // without drill-down the annotations are only used for counting
+        _drillDownAnnotationFactory =
+                _recordDrillDownInformation ? _annotationFactory : new DummyRowAnnotationFactory();
         for (final InputColumn<Boolean> col : _columns) {
-            _columnDelegates.put(col, new BooleanAnalyzerColumnDelegate(_annotationFactory));
+            _columnDelegates.put(col, new BooleanAnalyzerColumnDelegate(_drillDownAnnotationFactory));
         }
     }
 
+    @Override
+    public boolean isQueryAggregatable() {
+        // drill-down requires the complete records
+        return !_recordDrillDownInformation;
+    }
+
     @Override
     public void run(final InputRow row, final int distinctCount) {
         final Boolean[] values = new Boolean[_columns.length];
@@ -111,10 +129,10 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
             final ValueCombination<Boolean> valueCombination = new ValueCombination<>(values);
             RowAnnotation annotation = _valueCombinations.get(valueCombination);
             if (annotation == null) {
-                annotation = _annotationFactory.createAnnotation();
+                annotation = _drillDownAnnotationFactory.createAnnotation();
                 _valueCombinations.put(valueCombination, annotation);
             }
-            _annotationFactory.annotate(row, distinctCount, annotation);
+            _drillDownAnnotationFactory.annotate(row, distinctCount, annotation);
         }
     }
 
@@ -141,19 +159,19 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
             final int nullCount = delegate.getNullCount();
             nav.where(measureDimension, MEASURE_NULL_COUNT).put(nullCount);
             if (nullCount > 0) {
-                nav.attach(new AnnotatedRowsResult(delegate.getNullAnnotation(), _annotationFactory, column));
+                nav.attach(createAnnotatedRowsResult(delegate.getNullAnnotation(), column));
             }
 
             RowAnnotation annotation = delegate.getTrueAnnotation();
             nav.where(measureDimension, MEASURE_TRUE_COUNT).put(annotation.getRowCount());
             if (annotation.getRowCount() > 0) {
-                nav.attach(new AnnotatedRowsResult(annotation, _annotationFactory, column));
+                nav.attach(createAnnotatedRowsResult(annotation, column));
             }
 
             annotation = delegate.getFalseAnnotation();
             nav.where(measureDimension, MEASURE_FALSE_COUNT).put(annotation.getRowCount());
             if (annotation.getRowCount() > 0) {
-                nav.attach(new AnnotatedRowsResult(annotation, _annotationFactory, column));
+                nav.attach(createAnnotatedRowsResult(annotation, column));
             }
         }
 
@@ -194,7 +212,7 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
 
                 nav.where(columnDimension, VALUE_COMBINATION_COLUMN_FREQUENCY);
                 nav.put(annotation.getRowCount());
-                nav.attach(new AnnotatedRowsResult(annotation, _annotationFactory, _columns));
+                nav.attach(createAnnotatedRowsResult(annotation, _columns));
 
                 for (int i = 0; i < valueCombination.getValueCount(); i++) {
                     final InputColumn<Boolean> column = _columns[i];
@@ -222,4 +240,12 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
         return new BooleanAnalyzerResult(crosstab, valueCombinationCrosstab);
     }
 
+    private AnnotatedRowsResult createAnnotatedRowsResult(final RowAnnotation annotation,
+            final InputColumn<?>... columns) {
+        if (!_recordDrillDownInformation) {
+            return null;
+        }
+        return new AnnotatedRowsResult(annotation, _annotationFactory, columns);
+    }
+
 }
@@ -27,9 +27,7 @@ import javax.inject.Named;
 
 import org.apache.commons.math.stat.descriptive.DescriptiveStatistics;
 import org.apache.commons.math.stat.descriptive.StatisticalSummary;
-import org.apache.commons.math.stat.descriptive.SummaryStatistics;
 import org.apache.commons.math.stat.descriptive.moment.SecondMoment;
-import org.datacleaner.api.Analyzer;
 import org.datacleaner.api.Concurrent;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
@@ -37,10 +35,13 @@ import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.api.Provided;
+import org.datacleaner.api.QueryAggregatableAnalyzer;
+import org.datacleaner.api.Validate;
 import org.datacleaner.result.AnnotatedRowsResult;
 import org.datacleaner.result.Crosstab;
 import org.datacleaner.result.CrosstabDimension;
 import org.datacleaner.result.CrosstabNavigator;
+import org.datacleaner.storage.DummyRowAnnotationFactory;
 import org.datacleaner.storage.RowAnnotation;
 import org.datacleaner.storage.RowAnnotationFactory;
 import org.datacleaner.storage.RowAnnotations;
@@ -57,11 +58,17 @@ import org.datacleaner.storage.RowAnnotations;
  * <li>Standard deviation</li>
  * <li>Variance</li>
  * </ul>
+ *
+ * Optionally descriptive statistics (median, percentiles, skewness and kurtosis)
+ * can be gathered. By default these are computed exactly, which requires all
+ * values to be kept in memory. Alternatively they can be approximated using a
+ * {@link NumberSketch}, which has a bounded memory footprint and which can be
+ * reduced across distributed/partitioned executions.
  */
 @Named("Number analyzer")
 @Description("Provides insight into number-column values.")
 @Concurrent(true)
-public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
+public class NumberAnalyzer implements QueryAggregatableAnalyzer<NumberAnalyzerResult> {
 
     public static final String DIMENSION_COLUMN = "Column";
     public static final String DIMENSION_MEASURE = "Measure";
@@ -82,6 +89,7 @@ public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
     public static final String MEASURE_PERCENTILE75 = "75th percentile";
     public static final String MEASURE_KURTOSIS = "Kurtosis";
     public static final String MEASURE_SKEWNESS = "Skewness";
+    public static final String MEASURE_PERCENTILE_RANK_ERROR = "Percentile rank error";
     @Inject
     @Configured
     InputColumn<? extends Number>[] _columns;
@@ -91,8 +99,26 @@ public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
             + "which have a larger memory-footprint.")
     boolean descriptiveStatistics = false;
     @Inject
+    @Configured(required = false)
+    @Description("Approximate the descriptive statistics using a bounded-memory sketch instead of keeping all values "
+            + "in memory. The rank error of the percentiles is reported in the '" + MEASURE_PERCENTILE_RANK_ERROR
+            + "' measure.")
+    boolean approximateDescriptiveStatistics = false;
+    @Inject
+    @Configured(required = false)
+    @Description("Accuracy of the approximate descriptive statistics. Higher values yield more accurate percentiles "
+            + "at the cost of memory, eg. 200 yields a rank error of approximately 1.3%.")
+    int sketchAccuracy = NumberSketch.DEFAULT_K;
+    @Inject
+    @Configured(value = "Record drill-down information", required = false)
+    @Description("Record sample records of the highest, lowest and null values. When disabled, the analyzer may be "
+            + "fed from an aggregate query instead of from every record of the source table, unless exact "
+            + "descriptive statistics are gathered.")
+    boolean recordDrillDownInformation = true;
+    @Inject
     @Provided
     RowAnnotationFactory _annotationFactory;
+    private RowAnnotationFactory _drillDownAnnotationFactory;
     private Map<InputColumn<? extends Number>, NumberAnalyzerColumnDelegate> _columnDelegates = new HashMap<>();
 
     public NumberAnalyzer() {
@@ -106,13 +132,31 @@ public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
         init();
     }
 
+    @Validate
+    public void validate() {
+        if (descriptiveStatistics && approximateDescriptiveStatistics && sketchAccuracy < NumberSketch.MIN_K) {
+            throw new IllegalStateException("Sketch accuracy must be at least " + NumberSketch.MIN_K);
+        }
+    }
+
     @Initialize
     public void init() {
+        final int sketchK = descriptiveStatistics && approximateDescriptiveStatistics ? sketchAccuracy : 0;
+        // without drill-down the annotations are only used for counting
+        _drillDownAnnotationFactory = recordDrillDownInformation ? _annotationFactory : new DummyRowAnnotationFactory();
         for (final InputColumn<? extends Number> column : _columns) {
-            _columnDelegates.put(column, new NumberAnalyzerColumnDelegate(descriptiveStatistics, _annotationFactory));
+            _columnDelegates.put(column,
+                    new NumberAnalyzerColumnDelegate(descriptiveStatistics, sketchK, _drillDownAnnotationFactory));
         }
     }
 
+    @Override
+    public boolean isQueryAggregatable() {
+        // drill-down requires the complete records, and exact descriptive
+        // statistics would have to retain every value of every counted row
+        return !recordDrillDownInformation && !(descriptiveStatistics && !approximateDescriptiveStatistics);
+    }
+
     @Override
     public void run(final InputRow row, final int distinctCount) {
         for (final InputColumn<? extends Number> column : _columns) {
@@ -144,6 +188,9 @@ public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
             measureDimension.addCategory(MEASURE_PERCENTILE75);
             measureDimension.addCategory(MEASURE_SKEWNESS);
             measureDimension.addCategory(MEASURE_KURTOSIS);
+            if (approximateDescriptiveStatistics) {
+                measureDimension.addCategory(MEASURE_PERCENTILE_RANK_ERROR);
+            }
         }
 
         final CrosstabDimension columnDimension = new CrosstabDimension(DIMENSION_COLUMN);
@@ -151,10 +198,14 @@ public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
             columnDimension.addCategory(column.getName());
         }
 
+        final Map<String, NumberSketch> sketches = new HashMap<>();
         final Crosstab<Number> crosstab = new Crosstab<>(Number.class, columnDimension, measureDimension);
         for (final InputColumn<? extends Number> column : _columns) {
             final CrosstabNavigator<Number> nav = crosstab.navigate().where(columnDimension, column.getName());
             final NumberAnalyzerColumnDelegate delegate = _columnDelegates.get(column);
+            if (delegate.getSketch() != null) {
+                sketches.put(column.getName(), delegate.getSketch());
+            }
 
             final StatisticalSummary s = delegate.getStatistics();
             final int nullCount = delegate.getNullCount();
@@ -181,13 +232,13 @@ public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
                 final double geometricMean;
                 final double secondMoment;
                 final double sumOfSquares;
-                if (descriptiveStatistics) {
+                if (s instanceof DescriptiveStatistics) {
                     final DescriptiveStatistics descriptiveStats = (DescriptiveStatistics) s;
                     geometricMean = descriptiveStats.getGeometricMean();
                     sumOfSquares = descriptiveStats.getSumsq();
                     secondMoment = new SecondMoment().evaluate(descriptiveStats.getValues());
                 } else {
-                    final SummaryStatistics summaryStats = (SummaryStatistics) s;
+                    final WeightedSummaryStatistics summaryStats = (WeightedSummaryStatistics) s;
                     geometricMean = summaryStats.getGeometricMean();
                     secondMoment = summaryStats.getSecondMoment();
                     sumOfSquares = summaryStats.getSumsq();
@@ -207,7 +258,15 @@ public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
                 nav.where(measureDimension, MEASURE_SUM_OF_SQUARES).put(sumOfSquares);
                 nav.where(measureDimension, MEASURE_SECOND_MOMENT).put(secondMoment);
 
-                if (descriptiveStatistics) {
+                final NumberSketch sketch = delegate.getSketch();
+                if (sketch != null) {
+                    nav.where(measureDimension, MEASURE_MEDIAN).put(sketch.getPercentile(50.0));
+                    nav.where(measureDimension, MEASURE_PERCENTILE25).put(sketch.getPercentile(25.0));
+                    nav.where(measureDimension, MEASURE_PERCENTILE75).put(sketch.getPercentile(75.0));
+                    nav.where(measureDimension, MEASURE_SKEWNESS).put(sketch.getSkewness());
+                    nav.where(measureDimension, MEASURE_KURTOSIS).put(sketch.getKurtosis());
+                    nav.where(measureDimension, MEASURE_PERCENTILE_RANK_ERROR).put(sketch.getNormalizedRankError());
+                } else if (descriptiveStatistics) {
                     final DescriptiveStatistics descriptiveStatistics = (DescriptiveStatistics) s;
                     final double kurtosis = descriptiveStatistics.getKurtosis();
                     final double skewness = descriptiveStatistics.getSkewness();
@@ -223,11 +282,11 @@ public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
                 }
             }
         }
-        return new NumberAnalyzerResult(_columns, crosstab);
+        return new NumberAnalyzerResult(_columns, crosstab, sketches);
     }
 
     private void addAttachment(final CrosstabNavigator<Number> nav, final RowAnnotation annotation,
             final InputColumn<?> column) {
-        nav.attach(AnnotatedRowsResult.createIfSampleRowsAvailable(annotation, _annotationFactory, column));
+        nav.attach(AnnotatedRowsResult.createIfSampleRowsAvailable(annotation, _drillDownAnnotationFactory, column));
     }
 }
@@ -21,7 +21,6 @@ package org.datacleaner.beans;
 
 import org.apache.commons.math.stat.descriptive.DescriptiveStatistics;
 import org.apache.commons.math.stat.descriptive.StatisticalSummary;
-import org.apache.commons.math.stat.descriptive.SummaryStatistics;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.storage.RowAnnotation;
 import org.datacleaner.storage.RowAnnotationFactory;
@@ -34,6 +33,7 @@ final class NumberAnalyzerColumnDelegate {
 
     private final RowAnnotationFactory _annotationFactory;
     private final StatisticalSummary _statistics;
+    private final NumberSketch _sketch;
     private final RowAnnotation _nullAnnotation;
     private final RowAnnotation _maxAnnotation;
     private final RowAnnotation _minAnnotation;
@@ -41,14 +41,33 @@ final class NumberAnalyzerColumnDelegate {
 
     public NumberAnalyzerColumnDelegate(final boolean descriptiveStatistics,
             final RowAnnotationFactory annotationFactory) {
+        this(descriptiveStatistics, 0, annotationFactory);
+    }
+
+    /**
+     *
+     * @param descriptiveStatistics
+     * @param sketchAccuracy
+     *            the accuracy (k) of the {@link NumberSketch} to approximate
+     *            descriptive statistics with, or 0 if descriptive statistics
+     *            should be exact
+     * @param annotationFactory
+     */
+    public NumberAnalyzerColumnDelegate(final boolean descriptiveStatistics, final int sketchAccuracy,
+            final RowAnnotationFactory annotationFactory) {
         _annotationFactory = annotationFactory;
         _nullAnnotation = _annotationFactory.createAnnotation();
         _maxAnnotation = _annotationFactory.createAnnotation();
         _minAnnotation = _annotationFactory.createAnnotation();
-        if (descriptiveStatistics) {
+        if (descriptiveStatistics && sketchAccuracy > 0) {
+            _statistics = new WeightedSummaryStatistics();
+            _sketch = new NumberSketch(sketchAccuracy);
+        } else if (descriptiveStatistics) {
             _statistics = new DescriptiveStatistics();
+            _sketch = null;
         } else {
-            _statistics = new SummaryStatistics();
+            _statistics = new WeightedSummaryStatistics();
+            _sketch = null;
         }
     }
 
@@ -66,12 +85,16 @@ final class NumberAnalyzerColumnDelegate {
                 _annotationFactory.resetAnnotation(_minAnnotation);
             }
 
-            for (int i = 0; i < distinctCount; i++) {
-                if (_statistics instanceof DescriptiveStatistics) {
+            if (_statistics instanceof DescriptiveStatistics) {
+                // exact descriptive statistics need to retain every value
+                for (int i = 0; i < distinctCount; i++) {
                     ((DescriptiveStatistics) _statistics).addValue(doubleValue);
-                } else {
-                    ((SummaryStatistics) _statistics).addValue(doubleValue);
                 }
+            } else {
+                ((WeightedSummaryStatistics) _statistics).addValue(doubleValue, distinctCount);
+            }
+            if (_sketch != null) {
+                _sketch.add(doubleValue, distinctCount);
             }
 
             max = _statistics.getMax();
@@ -96,6 +119,16 @@ final class NumberAnalyzerColumnDelegate {
         return _statistics;
     }
 
+    /**
+     * Gets the sketch used to approximate descriptive statistics, if any.
+     *
+     * @return the sketch, or null if descriptive statistics are either exact or
+     *         not gathered
+     */
+    public NumberSketch getSketch() {
+        return _sketch;
+    }
+
     public int getNullCount() {
         return _nullAnnotation.getRowCount();
     }
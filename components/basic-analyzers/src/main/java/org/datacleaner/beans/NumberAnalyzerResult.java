@@ -19,6 +19,9 @@
  */
 package org.datacleaner.beans;
 
+import java.util.Collections;
+import java.util.Map;
+
 import org.datacleaner.api.Distributed;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.Metric;
@@ -32,15 +35,38 @@ public class NumberAnalyzerResult extends CrosstabResult {
 
     private final InputColumn<? extends Number>[] _columns;
 
+    // added after version 1 of the class, may be null when deserialized
+    private final Map<String, NumberSketch> _sketches;
+
     public NumberAnalyzerResult(final InputColumn<? extends Number>[] columns, final Crosstab<?> crosstab) {
+        this(columns, crosstab, null);
+    }
+
+    public NumberAnalyzerResult(final InputColumn<? extends Number>[] columns, final Crosstab<?> crosstab,
+            final Map<String, NumberSketch> sketches) {
         super(crosstab);
         _columns = columns;
+        _sketches = sketches;
     }
 
     public InputColumn<? extends Number>[] getColumns() {
         return _columns;
     }
 
+    /**
+     * Gets the sketches used to approximate the descriptive statistics, mapped
+     * by column name.
+     *
+     * @return a map of sketches, which will be empty if descriptive statistics
+     *         were not approximated
+     */
+    public Map<String, NumberSketch> getSketches() {
+        if (_sketches == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(_sketches);
+    }
+
     @Metric(order = 1, value = NumberAnalyzer.MEASURE_ROW_COUNT)
     public Number getRowCount(final InputColumn<?> col) {
         return (Number) getCrosstab().where(NumberAnalyzer.DIMENSION_COLUMN, col.getName())
@@ -136,4 +162,10 @@ public class NumberAnalyzerResult extends CrosstabResult {
         return (Number) getCrosstab().where(NumberAnalyzer.DIMENSION_COLUMN, col.getName())
                 .where(NumberAnalyzer.DIMENSION_MEASURE, NumberAnalyzer.MEASURE_SKEWNESS).safeGet(null);
     }
+
+    @Metric(order = 25, value = NumberAnalyzer.MEASURE_PERCENTILE_RANK_ERROR)
+    public Number getPercentileRankError(final InputColumn<?> col) {
+        return (Number) getCrosstab().where(NumberAnalyzer.DIMENSION_COLUMN, col.getName())
+                .where(NumberAnalyzer.DIMENSION_MEASURE, NumberAnalyzer.MEASURE_PERCENTILE_RANK_ERROR).safeGet(null);
+    }
 }
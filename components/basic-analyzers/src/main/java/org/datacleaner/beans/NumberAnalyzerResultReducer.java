@@ -23,8 +23,10 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.math.stat.descriptive.AggregateSummaryStatistics;
@@ -45,6 +47,10 @@ import org.slf4j.LoggerFactory;
  * on a configuration property), we take the optimistic approach and reduce what
  * we can.
  *
+ * The descriptive statistics (median, percentiles, skewness and kurtosis) are
+ * reduceable if they were approximated using {@link NumberSketch}es, in which
+ * case the sketches are merged.
+ *
  * Warnings will be raised if non-reduceable metrics are encountered.
  */
 public class NumberAnalyzerResultReducer extends AbstractCrosstabResultReducer<NumberAnalyzerResult> {
@@ -55,6 +61,11 @@ public class NumberAnalyzerResultReducer extends AbstractCrosstabResultReducer<N
             Arrays.asList(NumberAnalyzer.MEASURE_SUM, NumberAnalyzer.MEASURE_ROW_COUNT,
                     NumberAnalyzer.MEASURE_NULL_COUNT));
 
+    private static final Set<String> SKETCH_MEASURES = new HashSet<>(
+            Arrays.asList(NumberAnalyzer.MEASURE_MEDIAN, NumberAnalyzer.MEASURE_PERCENTILE25,
+                    NumberAnalyzer.MEASURE_PERCENTILE75, NumberAnalyzer.MEASURE_SKEWNESS,
+                    NumberAnalyzer.MEASURE_KURTOSIS, NumberAnalyzer.MEASURE_PERCENTILE_RANK_ERROR));
+
     @Override
     protected Serializable reduceValues(final List<Object> slaveValues, final String column, final String measure,
             final Collection<? extends NumberAnalyzerResult> results, final Class<?> valueClass) {
@@ -74,12 +85,59 @@ public class NumberAnalyzerResultReducer extends AbstractCrosstabResultReducer<N
         } else if (NumberAnalyzer.MEASURE_VARIANCE.equals(measure)) {
             final StatisticalSummary summary = getSummary(column, results);
             return summary.getVariance();
+        } else if (SKETCH_MEASURES.contains(measure)) {
+            final NumberSketch sketch = getMergedSketch(column, results);
+            if (sketch != null) {
+                return getSketchValue(sketch, measure);
+            }
         }
 
         logger.warn("Encountered non-reduceable measure '{}'. Slave values are: {}", measure, slaveValues);
         return null;
     }
 
+    private Double getSketchValue(final NumberSketch sketch, final String measure) {
+        switch (measure) {
+        case NumberAnalyzer.MEASURE_MEDIAN:
+            return sketch.getPercentile(50.0);
+        case NumberAnalyzer.MEASURE_PERCENTILE25:
+            return sketch.getPercentile(25.0);
+        case NumberAnalyzer.MEASURE_PERCENTILE75:
+            return sketch.getPercentile(75.0);
+        case NumberAnalyzer.MEASURE_SKEWNESS:
+            return sketch.getSkewness();
+        case NumberAnalyzer.MEASURE_KURTOSIS:
+            return sketch.getKurtosis();
+        default:
+            return sketch.getNormalizedRankError();
+        }
+    }
+
+    /**
+     * Merges the sketches of a column.
+     *
+     * @param column
+     * @param results
+     * @return the merged sketch, or null if one or more of the results did not
+     *         contain a sketch
+     */
+    private NumberSketch getMergedSketch(final String column,
+            final Collection<? extends NumberAnalyzerResult> results) {
+        NumberSketch mergedSketch = null;
+        for (final NumberAnalyzerResult analyzerResult : results) {
+            final NumberSketch sketch = analyzerResult.getSketches().get(column);
+            if (sketch == null) {
+                // the descriptive statistics of this result are not mergeable
+                return null;
+            }
+            if (mergedSketch == null) {
+                mergedSketch = new NumberSketch(sketch.getK());
+            }
+            mergedSketch.merge(sketch);
+        }
+        return mergedSketch;
+    }
+
     private StatisticalSummary getSummary(final String column,
             final Collection<? extends NumberAnalyzerResult> results) {
         final List<SummaryStatistics> statistics = new ArrayList<>(results.size());
@@ -154,7 +212,18 @@ public class NumberAnalyzerResultReducer extends AbstractCrosstabResultReducer<N
         final NumberAnalyzerResult firstResult = results.iterator().next();
 
         final InputColumn<? extends Number>[] columns = firstResult.getColumns();
-        return new NumberAnalyzerResult(columns, crosstab);
+        if (firstResult.getSketches().isEmpty()) {
+            return new NumberAnalyzerResult(columns, crosstab);
+        }
+
+        final Map<String, NumberSketch> sketches = new HashMap<>();
+        for (final InputColumn<? extends Number> column : columns) {
+            final NumberSketch sketch = getMergedSketch(column.getName(), results);
+            if (sketch != null) {
+                sketches.put(column.getName(), sketch);
+            }
+        }
+        return new NumberAnalyzerResult(columns, crosstab, sketches);
     }
 
 }
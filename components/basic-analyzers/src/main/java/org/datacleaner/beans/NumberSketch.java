@@ -0,0 +1,397 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.math.stat.descriptive.rank.Percentile;
+
+/**
+ * A bounded-memory, mergeable summary of a stream of numbers, used by the
+ * {@link NumberAnalyzer} for approximate descriptive statistics.
+ *
+ * Percentiles are estimated using a KLL quantile sketch with accuracy parameter
+ * k. The sketch retains roughly 3k values regardless of the number of values
+ * added. As long as no more than k values have been added, percentiles are
+ * exact. Beyond that, the normalized rank error of an estimated percentile is
+ * bounded by {@link #getNormalizedRankError()} with 99% confidence, ie. the
+ * 50th percentile estimate will have a true rank between 50% - error and 50% +
+ * error.
+ *
+ * A value that is added a number of times at once is inserted as one item per
+ * set bit of the count, at the level whose weight matches that bit, so weighted
+ * inserts take time logarithmic in the count.
+ *
+ * Skewness and kurtosis are computed exactly from the central moments of the
+ * values, which are merged using the pairwise update formulas of Pébay.
+ *
+ * Instances are not thread-safe.
+ */
+public final class NumberSketch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_K = 200;
+    public static final int MIN_K = 8;
+
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final double LEVEL_CAPACITY_DECAY = 2d / 3d;
+
+    private final int _k;
+
+    // level h holds values each representing 2^h values of the stream
+    private double[][] _levels;
+    private int[] _levelSizes;
+    private int _levelCount;
+    private int _retainedCount;
+    private int _totalCapacity;
+    private boolean _compacted;
+
+    // central moments
+    private long _n;
+    private double _mean;
+    private double _m2;
+    private double _m3;
+    private double _m4;
+
+    public NumberSketch() {
+        this(DEFAULT_K);
+    }
+
+    public NumberSketch(final int k) {
+        if (k < MIN_K) {
+            throw new IllegalArgumentException("Sketch accuracy (k) must be at least " + MIN_K);
+        }
+        _k = k;
+        _levels = new double[1][];
+        _levelSizes = new int[1];
+        addLevel();
+    }
+
+    /**
+     * Gets the accuracy parameter (k) of this sketch.
+     *
+     * @return
+     */
+    public int getK() {
+        return _k;
+    }
+
+    /**
+     * Gets the number of values that has been added to this sketch.
+     *
+     * @return
+     */
+    public long getN() {
+        return _n;
+    }
+
+    /**
+     * Determines whether or not estimates of this sketch are exact, which is
+     * the case until the sketch has had to discard any values.
+     *
+     * @return
+     */
+    public boolean isExact() {
+        return !_compacted;
+    }
+
+    /**
+     * Gets the normalized rank error of percentile estimates (at 99%
+     * confidence), eg. 0.0133 for k=200. The error is 0 while the sketch is
+     * exact.
+     *
+     * @return
+     */
+    public double getNormalizedRankError() {
+        if (isExact()) {
+            return 0d;
+        }
+        return getNormalizedRankError(_k);
+    }
+
+    /**
+     * Gets the normalized rank error of percentile estimates (at 99%
+     * confidence) for a particular accuracy parameter (k).
+     *
+     * @param k
+     * @return
+     */
+    public static double getNormalizedRankError(final int k) {
+        // empirically determined bound for KLL sketches
+        return 2.296 / Math.pow(k, 0.9723);
+    }
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value
+     */
+    public void add(final double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Adds a value to the sketch a number of times.
+     *
+     * @param value
+     * @param count
+     */
+    public void add(final double value, final int count) {
+        if (count <= 0) {
+            return;
+        }
+        mergeMoments(count, value, 0d, 0d, 0d);
+        if (count == 1 || (isLevelZeroOnly() && _retainedCount + count <= _totalCapacity)) {
+            // keep small inputs at level 0, where percentiles are interpolated exactly
+            for (int i = 0; i < count; i++) {
+                append(0, value);
+            }
+        } else {
+            for (int h = 0; (count >>> h) != 0; h++) {
+                if (((count >>> h) & 1) == 1) {
+                    append(h, value);
+                }
+            }
+        }
+        while (_retainedCount > _totalCapacity) {
+            compress();
+        }
+    }
+
+    /**
+     * Merges another sketch into this sketch. The other sketch is not
+     * modified.
+     *
+     * @param other
+     */
+    public void merge(final NumberSketch other) {
+        if (other == null || other._n == 0) {
+            return;
+        }
+        mergeMoments(other._n, other._mean, other._m2, other._m3, other._m4);
+        for (int h = 0; h < other._levelCount; h++) {
+            final double[] items = other._levels[h];
+            final int size = other._levelSizes[h];
+            for (int i = 0; i < size; i++) {
+                append(h, items[i]);
+            }
+        }
+        _compacted = _compacted || other._compacted;
+        while (_retainedCount > _totalCapacity) {
+            compress();
+        }
+    }
+
+    /**
+     * Estimates a percentile of the values added to this sketch.
+     *
+     * @param percentile
+     *            the percentile, between 0 (exclusive) and 100 (inclusive),
+     *            like {@link Percentile}.
+     * @return the percentile, or {@link Double#NaN} if the sketch is empty
+     */
+    public double getPercentile(final double percentile) {
+        if (_n == 0) {
+            return Double.NaN;
+        }
+
+        if (isExact() && isLevelZeroOnly()) {
+            // level 0 holds all the values
+            final double[] values = Arrays.copyOf(_levels[0], _levelSizes[0]);
+            return new Percentile().evaluate(values, percentile);
+        }
+
+        final int retained = _retainedCount;
+        final double[] values = new double[retained];
+        final long[] weights = new long[retained];
+        int index = 0;
+        for (int h = 0; h < _levelCount; h++) {
+            final double[] items = _levels[h];
+            final int size = _levelSizes[h];
+            for (int i = 0; i < size; i++) {
+                values[index] = items[i];
+                weights[index] = 1L << h;
+                index++;
+            }
+        }
+
+        final Integer[] order = new Integer[retained];
+        for (int i = 0; i < retained; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (o1, o2) -> Double.compare(values[o1], values[o2]));
+
+        long totalWeight = 0;
+        for (final long weight : weights) {
+            totalWeight += weight;
+        }
+
+        final double targetRank = percentile / 100d * totalWeight;
+        long cumulativeWeight = 0;
+        for (final Integer i : order) {
+            cumulativeWeight += weights[i];
+            if (cumulativeWeight >= targetRank) {
+                return values[i];
+            }
+        }
+        return values[order[retained - 1]];
+    }
+
+    public double getSkewness() {
+        if (_n < 3 || _m2 == 0d) {
+            return Double.NaN;
+        }
+        // same (bias corrected) definition as commons-math's Skewness
+        final double n = _n;
+        final double variance = _m2 / (n - 1);
+        final double standardDeviation = Math.sqrt(variance);
+        return (n / ((n - 1) * (n - 2))) * (_m3 / (variance * standardDeviation));
+    }
+
+    public double getKurtosis() {
+        if (_n < 4 || _m2 == 0d) {
+            return Double.NaN;
+        }
+        // same (bias corrected) definition as commons-math's Kurtosis
+        final double n = _n;
+        final double variance = _m2 / (n - 1);
+        final double multiplier = (n * (n + 1)) / ((n - 1) * (n - 2) * (n - 3));
+        final double term1 = _m4 / (variance * variance);
+        final double term2 = (3 * (n - 1) * (n - 1)) / ((n - 2) * (n - 3));
+        return multiplier * term1 - term2;
+    }
+
+    private void mergeMoments(final long nb, final double meanb, final double m2b, final double m3b,
+            final double m4b) {
+        if (_n == 0) {
+            _n = nb;
+            _mean = meanb;
+            _m2 = m2b;
+            _m3 = m3b;
+            _m4 = m4b;
+            return;
+        }
+
+        final double na = _n;
+        final double n = na + nb;
+        final double delta = meanb - _mean;
+        final double delta2 = delta * delta;
+        final double delta3 = delta2 * delta;
+        final double delta4 = delta2 * delta2;
+
+        final double m4 = _m4 + m4b + delta4 * na * nb * (na * na - na * nb + nb * nb) / (n * n * n)
+                + 6 * delta2 * (na * na * m2b + nb * nb * _m2) / (n * n) + 4 * delta * (na * m3b - nb * _m3) / n;
+        final double m3 =
+                _m3 + m3b + delta3 * na * nb * (na - nb) / (n * n) + 3 * delta * (na * m2b - nb * _m2) / n;
+        final double m2 = _m2 + m2b + delta2 * na * nb / n;
+
+        _n = _n + nb;
+        _mean = _mean + delta * nb / n;
+        _m2 = m2;
+        _m3 = m3;
+        _m4 = m4;
+    }
+
+    private boolean isLevelZeroOnly() {
+        return _levelSizes[0] == _retainedCount;
+    }
+
+    /**
+     * Adds a level on top of the existing ones. Since level capacities depend
+     * on the depth below the top level, the total capacity is recomputed.
+     */
+    private void addLevel() {
+        if (_levelCount == _levels.length) {
+            _levels = Arrays.copyOf(_levels, _levelCount * 2);
+            _levelSizes = Arrays.copyOf(_levelSizes, _levelCount * 2);
+        }
+        _levels[_levelCount] = new double[MIN_LEVEL_CAPACITY];
+        _levelSizes[_levelCount] = 0;
+        _levelCount++;
+
+        int capacity = 0;
+        for (int h = 0; h < _levelCount; h++) {
+            capacity += getLevelCapacity(h);
+        }
+        _totalCapacity = capacity;
+    }
+
+    private void append(final int level, final double value) {
+        while (_levelCount <= level) {
+            addLevel();
+        }
+        double[] items = _levels[level];
+        final int size = _levelSizes[level];
+        if (size == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            _levels[level] = items;
+        }
+        items[size] = value;
+        _levelSizes[level] = size + 1;
+        _retainedCount++;
+    }
+
+    private int getLevelCapacity(final int level) {
+        final int depth = _levelCount - level - 1;
+        final int capacity = (int) Math.ceil(_k * Math.pow(LEVEL_CAPACITY_DECAY, depth));
+        return Math.max(MIN_LEVEL_CAPACITY, capacity);
+    }
+
+    /**
+     * Compacts the lowest level that exceeds its capacity: it is sorted and
+     * every second value (starting randomly at offset 0 or 1) is promoted to
+     * the next level, representing twice the weight.
+     */
+    private void compress() {
+        for (int h = 0; h < _levelCount; h++) {
+            final int size = _levelSizes[h];
+            if (size >= getLevelCapacity(h)) {
+                final double[] items = _levels[h];
+                Arrays.sort(items, 0, size);
+
+                // an odd value out stays at this level
+                final int pairs = size / 2;
+                final int offset = ThreadLocalRandom.current().nextBoolean() ? 1 : 0;
+                for (int i = 0; i < pairs; i++) {
+                    append(h + 1, items[2 * i + offset]);
+                }
+                // the promoted values are counted again by append()
+                _retainedCount -= size;
+                if (size % 2 == 1) {
+                    items[0] = items[size - 1];
+                    _levelSizes[h] = 1;
+                    _retainedCount++;
+                } else {
+                    _levelSizes[h] = 0;
+                }
+                _compacted = true;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NumberSketch[k=" + _k + ",n=" + _n + ",retained=" + _retainedCount + "]";
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans;
+
+import org.apache.commons.math.stat.descriptive.StatisticalSummary;
+import org.apache.commons.math.stat.descriptive.SummaryStatistics;
+
+/**
+ * Storeless summary statistics like {@link SummaryStatistics}, but which also
+ * accepts a value with a count (eg. a row of an aggregate query) as a single
+ * weighted update of the moments and sums.
+ *
+ * For values added one at a time, the same incremental formulas as
+ * {@link SummaryStatistics} are used.
+ */
+final class WeightedSummaryStatistics implements StatisticalSummary {
+
+    private long _n;
+    private double _mean = Double.NaN;
+    private double _m2 = Double.NaN;
+    private double _sum;
+    private double _sumOfSquares;
+    private double _sumOfLogs;
+    private double _min = Double.NaN;
+    private double _max = Double.NaN;
+
+    public void addValue(final double value) {
+        addValue(value, 1);
+    }
+
+    public void addValue(final double value, final int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (_n == 0) {
+            _mean = 0d;
+            _m2 = 0d;
+        }
+        final double n = _n;
+        _n += count;
+        final double dev = value - _mean;
+        final double nDev = dev * count / _n;
+        _mean += nDev;
+        _m2 += n * dev * nDev;
+
+        _sum += value * count;
+        _sumOfSquares += value * value * count;
+        _sumOfLogs += Math.log(value) * count;
+        if (value < _min || Double.isNaN(_min)) {
+            _min = value;
+        }
+        if (value > _max || Double.isNaN(_max)) {
+            _max = value;
+        }
+    }
+
+    @Override
+    public long getN() {
+        return _n;
+    }
+
+    @Override
+    public double getMean() {
+        return _mean;
+    }
+
+    @Override
+    public double getVariance() {
+        if (_n == 0) {
+            return Double.NaN;
+        }
+        if (_n == 1) {
+            return 0d;
+        }
+        return _m2 / (_n - 1d);
+    }
+
+    @Override
+    public double getStandardDeviation() {
+        if (_n == 0) {
+            return Double.NaN;
+        }
+        return Math.sqrt(getVariance());
+    }
+
+    @Override
+    public double getMax() {
+        return _max;
+    }
+
+    @Override
+    public double getMin() {
+        return _min;
+    }
+
+    @Override
+    public double getSum() {
+        return _sum;
+    }
+
+    public double getSumsq() {
+        return _sumOfSquares;
+    }
+
+    public double getSecondMoment() {
+        return _m2;
+    }
+
+    public double getGeometricMean() {
+        if (_n == 0) {
+            return Double.NaN;
+        }
+        return Math.exp(_sumOfLogs / _n);
+    }
+}
@@ -19,10 +19,14 @@
  */
 package org.datacleaner.beans;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.datacleaner.data.MockInputColumn;
 import org.datacleaner.data.MockInputRow;
 import org.datacleaner.result.CrosstabResult;
 import org.datacleaner.result.renderer.CrosstabTextRenderer;
+import org.datacleaner.storage.RowAnnotations;
 
 import junit.framework.TestCase;
 
@@ -107,4 +111,36 @@ public class NumberAnalyzerTest extends TestCase {
         assertEquals("Sum of squares     337624.39 33762440   1300 ", resultLines[11]);
     }
 
+    public void testApproximateDescriptiveStatisticsReduced() throws Exception {
+        final MockInputColumn<Integer> col = new MockInputColumn<>("num", Integer.class);
+        final List<NumberAnalyzerResult> results = new ArrayList<>();
+        for (int partition = 0; partition < 4; partition++) {
+            final NumberAnalyzer analyzer = new NumberAnalyzer();
+            analyzer._columns = new MockInputColumn[] { col };
+            analyzer._annotationFactory = RowAnnotations.getDefaultFactory();
+            analyzer.descriptiveStatistics = true;
+            analyzer.approximateDescriptiveStatistics = true;
+            analyzer.init();
+            for (int i = partition; i < 10000; i += 4) {
+                analyzer.run(new MockInputRow().put(col, i), 1);
+            }
+            results.add(analyzer.getResult());
+        }
+
+        final NumberAnalyzerResult partitionResult = results.get(0);
+        assertEquals(2500, partitionResult.getSketches().get("num").getN());
+        assertTrue(partitionResult.getPercentileRankError(col).doubleValue() > 0);
+
+        final NumberAnalyzerResult result = new NumberAnalyzerResultReducer().reduce(results);
+        assertEquals(10000, result.getRowCount(col).intValue());
+        assertEquals(10000, result.getSketches().get("num").getN());
+
+        final double rankError = result.getPercentileRankError(col).doubleValue();
+        assertEquals(NumberSketch.getNormalizedRankError(NumberSketch.DEFAULT_K), rankError);
+        assertEquals(5000, result.getMedian(col).doubleValue(), 10000 * rankError);
+        assertEquals(2500, result.getPercentile25(col).doubleValue(), 10000 * rankError);
+        assertEquals(7500, result.getPercentile75(col).doubleValue(), 10000 * rankError);
+        assertEquals(0d, result.getSkewness(col).doubleValue(), 0.000001);
+        assertEquals(-1.2, result.getKurtosis(col).doubleValue(), 0.001);
+    }
 }
@@ -0,0 +1,166 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.commons.math.stat.descriptive.DescriptiveStatistics;
+import org.apache.commons.math.stat.descriptive.rank.Percentile;
+
+import junit.framework.TestCase;
+
+public class NumberSketchTest extends TestCase {
+
+    public void testEmpty() throws Exception {
+        final NumberSketch sketch = new NumberSketch();
+        assertEquals(0, sketch.getN());
+        assertTrue(sketch.isExact());
+        assertTrue(Double.isNaN(sketch.getPercentile(50)));
+        assertTrue(Double.isNaN(sketch.getSkewness()));
+    }
+
+    public void testExactWhileSmall() throws Exception {
+        final NumberSketch sketch = new NumberSketch();
+        final DescriptiveStatistics statistics = new DescriptiveStatistics();
+        final Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            final double value = random.nextGaussian();
+            sketch.add(value);
+            statistics.addValue(value);
+        }
+
+        assertTrue(sketch.isExact());
+        assertEquals(0d, sketch.getNormalizedRankError());
+        assertEquals(statistics.getPercentile(25), sketch.getPercentile(25));
+        assertEquals(statistics.getPercentile(50), sketch.getPercentile(50));
+        assertEquals(statistics.getPercentile(75), sketch.getPercentile(75));
+        assertEquals(statistics.getSkewness(), sketch.getSkewness(), 0.000001);
+        assertEquals(statistics.getKurtosis(), sketch.getKurtosis(), 0.000001);
+    }
+
+    public void testRankErrorWithinBounds() throws Exception {
+        final int n = 200000;
+        final double[] values = new double[n];
+        final NumberSketch sketch = new NumberSketch(200);
+        final Random random = new Random(2);
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextDouble() * 1000;
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertFalse(sketch.isExact());
+        assertEquals(n, sketch.getN());
+
+        final double rankError = sketch.getNormalizedRankError();
+        assertTrue("Unexpected rank error: " + rankError, rankError > 0.01 && rankError < 0.02);
+
+        for (final double percentile : new double[] { 1, 25, 50, 75, 99 }) {
+            final double estimate = sketch.getPercentile(percentile);
+            final double actualRank = rank(values, estimate);
+            assertEquals("Percentile " + percentile, percentile / 100, actualRank, rankError);
+        }
+    }
+
+    public void testMerge() throws Exception {
+        final int n = 100000;
+        final double[] values = new double[n];
+        final NumberSketch sketch1 = new NumberSketch(100);
+        final NumberSketch sketch2 = new NumberSketch(100);
+        final DescriptiveStatistics statistics = new DescriptiveStatistics();
+        final Random random = new Random(3);
+        for (int i = 0; i < n; i++) {
+            // exponentially distributed to get a skewed distribution
+            values[i] = -Math.log(1 - random.nextDouble());
+            statistics.addValue(values[i]);
+            if (i % 3 == 0) {
+                sketch1.add(values[i]);
+            } else {
+                sketch2.add(values[i]);
+            }
+        }
+        Arrays.sort(values);
+
+        final NumberSketch merged = new NumberSketch(100);
+        merged.merge(sketch1);
+        merged.merge((NumberSketch) SerializationUtils.clone(sketch2));
+
+        assertEquals(n, merged.getN());
+        assertEquals(statistics.getSkewness(), merged.getSkewness(), 0.000001);
+        assertEquals(statistics.getKurtosis(), merged.getKurtosis(), 0.000001);
+
+        final double rankError = merged.getNormalizedRankError();
+        for (final double percentile : new double[] { 25, 50, 75 }) {
+            final double actualRank = rank(values, merged.getPercentile(percentile));
+            assertEquals("Percentile " + percentile, percentile / 100, actualRank, rankError);
+        }
+    }
+
+    public void testWeightedAdd() throws Exception {
+        final NumberSketch sketch = new NumberSketch(100);
+        final DescriptiveStatistics statistics = new DescriptiveStatistics();
+        final Random random = new Random(4);
+        int n = 0;
+        for (int i = 0; i < 2000; i++) {
+            final double value = random.nextDouble() * 1000;
+            final int count = 1 + random.nextInt(1000);
+            sketch.add(value, count);
+            for (int j = 0; j < count; j++) {
+                statistics.addValue(value);
+            }
+            n += count;
+        }
+        final double[] values = statistics.getSortedValues();
+
+        assertEquals(n, sketch.getN());
+        assertEquals(statistics.getSkewness(), sketch.getSkewness(), 0.000001);
+        assertEquals(statistics.getKurtosis(), sketch.getKurtosis(), 0.000001);
+        assertTrue(sketch.toString(), sketch.toString().matches(".*retained=\\d{1,3}\\]"));
+
+        final double rankError = sketch.getNormalizedRankError();
+        for (final double percentile : new double[] { 1, 25, 50, 75, 99 }) {
+            final double estimate = sketch.getPercentile(percentile);
+            assertEquals("Percentile " + percentile, percentile / 100, rank(values, estimate), rankError);
+        }
+    }
+
+    public void testWeightedAddExactWhileSmall() throws Exception {
+        final NumberSketch sketch = new NumberSketch();
+        sketch.add(1d, 3);
+        sketch.add(2d, 5);
+        sketch.add(4d, 2);
+
+        assertTrue(sketch.isExact());
+        assertEquals(10, sketch.getN());
+        assertEquals(2d, sketch.getPercentile(50));
+        assertEquals(new Percentile().evaluate(new double[] { 1, 1, 1, 2, 2, 2, 2, 2, 4, 4 }, 25),
+                sketch.getPercentile(25));
+    }
+
+    private static double rank(final double[] sortedValues, final double value) {
+        int index = Arrays.binarySearch(sortedValues, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return (double) index / sortedValues.length;
+    }
+}
@@ -19,11 +19,20 @@
  */
 package org.datacleaner.data;
 
-import java.util.List;
+import java.beans.FeatureDescriptor;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.el.CompositeELResolver;
+import javax.el.ELContext;
 import javax.el.ELException;
+import javax.el.ELResolver;
 import javax.el.ExpressionFactory;
+import javax.el.FunctionMapper;
 import javax.el.ValueExpression;
+import javax.el.VariableMapper;
 
 import org.datacleaner.api.ExpressionBasedInputColumn;
 import org.datacleaner.api.InputColumn;
@@ -34,16 +43,132 @@ import org.slf4j.LoggerFactory;
 
 import de.odysseus.el.ExpressionFactoryImpl;
 import de.odysseus.el.util.SimpleContext;
+import de.odysseus.el.util.SimpleResolver;
 
 /**
  * InputColumn that evaluates an EL expression in order to return a computed
  * value. This can be used as a lightweight alternative to eg. JavaScript
  * transformation.
  *
- *
+ * The expression is parsed only once. Identifiers in the expression are
+ * resolved directly against the values of the {@link InputRow} being
+ * evaluated, using a lightweight {@link ELContext} per evaluation. The
+ * {@link InputColumn} that an identifier refers to is looked up once and then
+ * cached. Values are coerced to the data type of their column.
  */
 public class ELInputColumn extends AbstractExpressionBasedInputColumn<String> {
 
+    /**
+     * {@link ELContext} which resolves top-level identifiers against the
+     * {@link InputRow} being evaluated. Since {@link ELContext}s are not
+     * thread-safe, a new instance is created for each evaluation.
+     */
+    private static final class InputRowELContext extends ELContext {
+
+        private final ELResolver _resolver;
+        private final FunctionMapper _functionMapper;
+        private final VariableMapper _variableMapper;
+        private final InputRow _row;
+
+        private InputRowELContext(final ELResolver resolver, final SimpleContext parseContext, final InputRow row) {
+            _resolver = resolver;
+            _functionMapper = parseContext.getFunctionMapper();
+            _variableMapper = parseContext.getVariableMapper();
+            _row = row;
+        }
+
+        @Override
+        public ELResolver getELResolver() {
+            return _resolver;
+        }
+
+        @Override
+        public FunctionMapper getFunctionMapper() {
+            return _functionMapper;
+        }
+
+        @Override
+        public VariableMapper getVariableMapper() {
+            return _variableMapper;
+        }
+    }
+
+    /**
+     * {@link ELResolver} which resolves top-level identifiers as the values of
+     * the columns of an {@link InputRow}. The resolver does not refer to its
+     * {@link ELInputColumn}.
+     */
+    private static final class InputRowELResolver extends ELResolver {
+
+        private final ExpressionFactory _factory;
+        private final Map<String, InputColumn<?>> _variableColumns;
+
+        private InputRowELResolver(final ExpressionFactory factory) {
+            _factory = factory;
+            _variableColumns = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public Object getValue(final ELContext context, final Object base, final Object property) {
+            if (base != null || !(property instanceof String) || !(context instanceof InputRowELContext)) {
+                return null;
+            }
+            final InputRow row = ((InputRowELContext) context)._row;
+            final String variableName = (String) property;
+
+            final InputColumn<?> cachedColumn = _variableColumns.get(variableName);
+            if (cachedColumn != null) {
+                final Object value = row.getValue(cachedColumn);
+                // a null value may also mean that the column is not available
+                if (value != null || row.containsInputColumn(cachedColumn)) {
+                    context.setPropertyResolved(true);
+                    return coerce(value, cachedColumn);
+                }
+            }
+
+            final InputColumn<?> inputColumn = findInputColumn(row, variableName);
+            if (inputColumn == null) {
+                return null;
+            }
+            _variableColumns.put(variableName, inputColumn);
+            context.setPropertyResolved(true);
+            return coerce(row.getValue(inputColumn), inputColumn);
+        }
+
+        private Object coerce(final Object value, final InputColumn<?> inputColumn) {
+            final Class<?> javaType = inputColumn.getDataType();
+            if (javaType == null) {
+                return value;
+            }
+            return _factory.coerceToType(value, javaType);
+        }
+
+        @Override
+        public Class<?> getType(final ELContext context, final Object base, final Object property) {
+            return null;
+        }
+
+        @Override
+        public void setValue(final ELContext context, final Object base, final Object property, final Object value) {
+            // the values of a row cannot be modified
+        }
+
+        @Override
+        public boolean isReadOnly(final ELContext context, final Object base, final Object property) {
+            return true;
+        }
+
+        @Override
+        public Iterator<FeatureDescriptor> getFeatureDescriptors(final ELContext context, final Object base) {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public Class<?> getCommonPropertyType(final ELContext context, final Object base) {
+            return base == null ? String.class : null;
+        }
+    }
+
     private static final long serialVersionUID = 1L;
 
     private static final Logger logger = LoggerFactory.getLogger(ELInputColumn.class);
@@ -51,6 +176,10 @@ public class ELInputColumn extends AbstractExpressionBasedInputColumn<String> {
     private final ExpressionFactory _factory;
     private final String _expression;
 
+    private transient volatile ValueExpression _valueExpression;
+    private transient volatile ELResolver _resolver;
+    private transient volatile SimpleContext _parseContext;
+
     public ELInputColumn(final String expression) {
         _expression = expression;
         _factory = new ExpressionFactoryImpl();
@@ -58,21 +187,9 @@ public class ELInputColumn extends AbstractExpressionBasedInputColumn<String> {
 
     @Override
     public String evaluate(final InputRow row) {
-        final SimpleContext context = new SimpleContext();
-        final List<InputColumn<?>> inputColumns = row.getInputColumns();
-        for (final InputColumn<?> inputColumn : inputColumns) {
-            if (!(inputColumn instanceof ExpressionBasedInputColumn)) {
-                final Object value = row.getValue(inputColumn);
-                final Class<?> javaType = inputColumn.getDataType();
-                final ValueExpression valueExpression = _factory.createValueExpression(value, javaType);
-                String variableName = inputColumn.getName();
-                variableName = StringUtils.replaceWhitespaces(variableName, "_");
-                context.setVariable(variableName, valueExpression);
-            }
-        }
-
+        final InputRowELContext context = createContext(row);
         try {
-            final ValueExpression valueExpression = _factory.createValueExpression(context, _expression, String.class);
+            final ValueExpression valueExpression = getValueExpression(context);
             return (String) valueExpression.getValue(context);
         } catch (final ELException e) {
             logger.error("Could not evaluate EL expression", e);
@@ -80,6 +197,57 @@ public class ELInputColumn extends AbstractExpressionBasedInputColumn<String> {
         }
     }
 
+    private ValueExpression getValueExpression(final InputRowELContext context) {
+        ValueExpression valueExpression = _valueExpression;
+        if (valueExpression == null) {
+            // parsing is idempotent, so a race between threads is harmless
+            valueExpression = _factory.createValueExpression(context, _expression, String.class);
+            _valueExpression = valueExpression;
+        }
+        return valueExpression;
+    }
+
+    private InputRowELContext createContext(final InputRow row) {
+        ELResolver resolver = _resolver;
+        if (resolver == null) {
+            synchronized (this) {
+                resolver = _resolver;
+                if (resolver == null) {
+                    final CompositeELResolver compositeResolver = new CompositeELResolver();
+                    compositeResolver.add(new InputRowELResolver(_factory));
+                    compositeResolver.add(new SimpleResolver(true));
+                    _parseContext = new SimpleContext();
+                    resolver = compositeResolver;
+                    _resolver = resolver;
+                }
+            }
+        }
+        return new InputRowELContext(resolver, _parseContext, row);
+    }
+
+    /**
+     * Finds the (non-expression based) column that a variable name refers to.
+     * Whitespaces in column names are replaced by underscores in variable
+     * names.
+     *
+     * @param row
+     * @param variableName
+     * @return
+     */
+    private static InputColumn<?> findInputColumn(final InputRow row, final String variableName) {
+        // if several columns have the same variable name, the last one wins
+        InputColumn<?> result = null;
+        for (final InputColumn<?> inputColumn : row.getInputColumns()) {
+            if (!(inputColumn instanceof ExpressionBasedInputColumn)) {
+                final String name = StringUtils.replaceWhitespaces(inputColumn.getName(), "_");
+                if (variableName.equals(name)) {
+                    result = inputColumn;
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public String getExpression() {
         return _expression;
@@ -19,6 +19,12 @@
  */
 package org.datacleaner.data;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import junit.framework.TestCase;
 
 public class ELInputColumnTest extends TestCase {
@@ -41,4 +47,53 @@ public class ELInputColumnTest extends TestCase {
         final MockInputColumn<String> fooCol = new MockInputColumn<>("foo bar", String.class);
         assertEquals("Hello World", elCol.evaluate(new MockInputRow().put(fooCol, "World")));
     }
+
+    public void testReuseAcrossRowsAndColumns() throws Exception {
+        final ELInputColumn elCol = new ELInputColumn("#{foo}-#{bar}");
+
+        final MockInputColumn<String> fooCol = new MockInputColumn<>("foo", String.class);
+        final MockInputColumn<Integer> barCol = new MockInputColumn<>("bar", Integer.class);
+        assertEquals("a-1", elCol.evaluate(new MockInputRow().put(fooCol, "a").put(barCol, 1)));
+        assertEquals("b-0", elCol.evaluate(new MockInputRow().put(fooCol, "b").put(barCol, null)));
+
+        // a row with other columns of the same name
+        final MockInputColumn<String> otherFooCol = new MockInputColumn<>("foo", String.class);
+        assertEquals("c-2", elCol.evaluate(new MockInputRow().put(otherFooCol, "c").put(barCol, 2)));
+    }
+
+    public void testValuesAreCoercedToColumnDataType() throws Exception {
+        final ELInputColumn elCol = new ELInputColumn("#{num + 1} #{flag}");
+
+        final MockInputColumn<Integer> numCol = new MockInputColumn<>("num", Integer.class);
+        final MockInputColumn<Boolean> flagCol = new MockInputColumn<>("flag", Boolean.class);
+        assertEquals("42 true", elCol.evaluate(new MockInputRow().put(numCol, 41).put(flagCol, true)));
+        assertEquals("1 false", elCol.evaluate(new MockInputRow().put(numCol, null).put(flagCol, null)));
+    }
+
+    public void testConcurrentEvaluation() throws Exception {
+        final ELInputColumn elCol = new ELInputColumn("Hello #{foo}");
+        final MockInputColumn<String> fooCol = new MockInputColumn<>("foo", String.class);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                final String prefix = "thread" + i + "-";
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        final String value = prefix + j;
+                        if (!("Hello " + value).equals(elCol.evaluate(new MockInputRow().put(fooCol, value)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (final Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
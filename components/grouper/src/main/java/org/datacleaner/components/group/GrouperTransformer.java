@@ -139,11 +139,38 @@ public class GrouperTransformer extends MultiStreamComponent {
     boolean skipNullGroupKeys = true;
     @Configured
     boolean skipNullValues = true;
+    @Configured(required = false)
+    @Description("If set, the amount of memory (in megabytes) that grouped values may occupy before they are "
+            + "spilled to temporary files on disk. Use this for grouping large amounts of records by many keys.")
+    Integer memoryBudgetMegabytes;
     private OutputRowCollector _rowCollector;
+    private SpillingGroupStore _spillingGroupStore;
 
     @Initialize
     public void init() {
         _aggregateBuilders.clear();
+        if (_spillingGroupStore != null) {
+            _spillingGroupStore.close();
+        }
+        if (memoryBudgetMegabytes == null || memoryBudgetMegabytes <= 0) {
+            _spillingGroupStore = null;
+        } else {
+            final PartialAggregates partialAggregates = isPartiallyAggregatable() ? new PartialAggregates() : null;
+            _spillingGroupStore = new SpillingGroupStore(memoryBudgetMegabytes * 1024L * 1024L, partialAggregates);
+        }
+    }
+
+    /**
+     * Determines if all aggregations can be computed from partial aggregates,
+     * so that groups can be spilled without their rows.
+     */
+    private boolean isPartiallyAggregatable() {
+        for (final AggregationType aggregationType : aggregationTypes) {
+            if (aggregationType != AggregationType.SUM && aggregationType != AggregationType.AVG) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
@@ -188,64 +215,199 @@ public class GrouperTransformer extends MultiStreamComponent {
             }
         }
 
-        synchronized (_aggregateBuilders) {
-            final List<AggregateBuilder<?>> aggregateBuilders = getAggregateBuilders(key);
-            final long rowId = row.getId();
+        final long rowId = row.getId();
+        final Object[] values = new Object[aggregatedValues.length];
+        for (int i = 0; i < aggregatedValues.length; i++) {
+            values[i] = row.getValue(aggregatedValues[i]);
+        }
+
+        if (_spillingGroupStore != null) {
+            _spillingGroupStore.add(key == NULL_KEY ? null : key, rowId, values);
+            return;
+        }
 
-            // send rowId to COUNT function
-            aggregateBuilders.get(0).add(rowId);
+        final List<AggregateBuilder<?>> aggregateBuilders =
+                _aggregateBuilders.computeIfAbsent(key, k -> createAggregateBuilders());
 
-            for (int i = 0; i < aggregatedValues.length; i++) {
-                final Object value = row.getValue(aggregatedValues[i]);
-                final AggregateBuilder<?> aggregateBuilder = aggregateBuilders.get(i + 1);
-                if (aggregateBuilder instanceof AbstractRowNumberAwareAggregateBuilder) {
-                    ((AbstractRowNumberAwareAggregateBuilder<?>) aggregateBuilder).add(value, rowId);
-                } else {
-                    aggregateBuilder.add(value);
-                }
-            }
+        // only rows of the same group need to wait for each other
+        synchronized (aggregateBuilders) {
+            addToAggregateBuilders(aggregateBuilders, rowId, values);
         }
     }
 
-    private List<AggregateBuilder<?>> getAggregateBuilders(final Object key) {
-        List<AggregateBuilder<?>> collectionOfAggregateBuilders = _aggregateBuilders.get(key);
-        if (collectionOfAggregateBuilders == null) {
-            final List<AggregateBuilder<?>> newCollectionOfValues = new ArrayList<>(aggregationTypes.length);
+    private List<AggregateBuilder<?>> createAggregateBuilders() {
+        final List<AggregateBuilder<?>> aggregateBuilders = new ArrayList<>(aggregationTypes.length + 1);
 
-            // add COUNT aggregation as first
-            newCollectionOfValues.add(FunctionType.COUNT.createAggregateBuilder());
+        // add COUNT aggregation as first
+        aggregateBuilders.add(FunctionType.COUNT.createAggregateBuilder());
 
-            for (final AggregationType aggregationType : aggregationTypes) {
-                final AggregateBuilder<?> aggregateBuilder =
-                        aggregationType.createAggregateBuilder(valueSortation, skipNullValues, concatenationSeparator);
-                newCollectionOfValues.add(aggregateBuilder);
-            }
+        for (final AggregationType aggregationType : aggregationTypes) {
+            final AggregateBuilder<?> aggregateBuilder =
+                    aggregationType.createAggregateBuilder(valueSortation, skipNullValues, concatenationSeparator);
+            aggregateBuilders.add(aggregateBuilder);
+        }
+        return aggregateBuilders;
+    }
+
+    private void addToAggregateBuilders(final List<AggregateBuilder<?>> aggregateBuilders, final long rowId,
+            final Object[] values) {
+        // send rowId to COUNT function
+        aggregateBuilders.get(0).add(rowId);
 
-            final List<AggregateBuilder<?>> previousCollectionOfValues =
-                    _aggregateBuilders.putIfAbsent(key, newCollectionOfValues);
-            if (previousCollectionOfValues == null) {
-                collectionOfAggregateBuilders = newCollectionOfValues;
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            final AggregateBuilder<?> aggregateBuilder = aggregateBuilders.get(i + 1);
+            if (aggregateBuilder instanceof AbstractRowNumberAwareAggregateBuilder) {
+                ((AbstractRowNumberAwareAggregateBuilder<?>) aggregateBuilder).add(value, rowId);
             } else {
-                collectionOfAggregateBuilders = previousCollectionOfValues;
+                aggregateBuilder.add(value);
             }
         }
-        return collectionOfAggregateBuilders;
+    }
+
+    private void putAggregates(final Object key, final List<AggregateBuilder<?>> aggregateBuilders) {
+        final Object[] values = new Object[2 + aggregatedValues.length];
+        values[0] = key == NULL_KEY ? null : key;
+        values[1] = aggregateBuilders.get(0).getAggregate();
+
+        for (int i = 1; i < aggregateBuilders.size(); i++) {
+            final AggregateBuilder<?> aggregateBuilder = aggregateBuilders.get(i);
+            values[i + 1] = aggregateBuilder.getAggregate();
+        }
+
+        _rowCollector.putValues(values);
     }
 
     @Close
     public void close() {
+        if (_spillingGroupStore != null) {
+            try {
+                if (isPartiallyAggregatable()) {
+                    _spillingGroupStore.emit(new PartialAggregates());
+                } else {
+                    _spillingGroupStore.emit(new RowAggregates());
+                }
+            } finally {
+                _spillingGroupStore.close();
+                _spillingGroupStore = null;
+            }
+            return;
+        }
+
         final Set<Entry<Object, List<AggregateBuilder<?>>>> entrySet = _aggregateBuilders.entrySet();
         for (final Entry<Object, List<AggregateBuilder<?>>> entry : entrySet) {
-            final Object key = entry.getKey();
-            final List<AggregateBuilder<?>> aggregateBuilders = entry.getValue();
+            putAggregates(entry.getKey(), entry.getValue());
+        }
+    }
 
+    /**
+     * Aggregates the spilled rows of each group, run by run.
+     */
+    private final class RowAggregates implements SpillingGroupStore.GroupConsumer<List<AggregateBuilder<?>>> {
+
+        @Override
+        public List<AggregateBuilder<?>> begin(final Object key) {
+            return createAggregateBuilders();
+        }
+
+        @Override
+        public void accept(final List<AggregateBuilder<?>> aggregateBuilders, final List<Object[]> rows) {
+            final Object[] values = new Object[aggregatedValues.length];
+            for (final Object[] row : rows) {
+                System.arraycopy(row, 1, values, 0, values.length);
+                addToAggregateBuilders(aggregateBuilders, (Long) row[0], values);
+            }
+        }
+
+        @Override
+        public void end(final Object key, final List<AggregateBuilder<?>> aggregateBuilders) {
+            putAggregates(key, aggregateBuilders);
+        }
+    }
+
+    /**
+     * Keeps and combines partial aggregates of the row count and of the sums
+     * and averages of the values. A partial aggregate row holds the row count
+     * followed by the sum and the number of non-null values of each aggregated
+     * value.
+     */
+    private final class PartialAggregates
+            implements SpillingGroupStore.RowCombiner, SpillingGroupStore.GroupConsumer<Object[]> {
+
+        @Override
+        public Object[] createPartial(final long rowId, final Object[] values) {
+            final Object[] partial = new Object[1 + 2 * values.length];
+            partial[0] = 1L;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    partial[1 + 2 * i] = 0d;
+                    partial[2 + 2 * i] = 0L;
+                } else {
+                    // converted to a number the same way as by the SUM function
+                    final AggregateBuilder<?> sum = FunctionType.SUM.createAggregateBuilder();
+                    sum.add(values[i]);
+                    partial[1 + 2 * i] = ((Number) sum.getAggregate()).doubleValue();
+                    partial[2 + 2 * i] = 1L;
+                }
+            }
+            return partial;
+        }
+
+        @Override
+        public void combine(final Object[] partial, final Object[] other) {
+            partial[0] = (Long) partial[0] + (Long) other[0];
+            for (int i = 1; i < partial.length; i += 2) {
+                partial[i] = (Double) partial[i] + (Double) other[i];
+                partial[i + 1] = (Long) partial[i + 1] + (Long) other[i + 1];
+            }
+        }
+
+        @Override
+        public Object[] begin(final Object key) {
+            final Object[] partial = new Object[1 + 2 * aggregatedValues.length];
+            partial[0] = 0L;
+            for (int i = 1; i < partial.length; i += 2) {
+                partial[i] = 0d;
+                partial[i + 1] = 0L;
+            }
+            return partial;
+        }
+
+        @Override
+        public void accept(final Object[] group, final List<Object[]> partials) {
+            for (final Object[] partial : partials) {
+                combine(group, partial);
+            }
+        }
+
+        @Override
+        public void end(final Object key, final Object[] group) {
             final Object[] values = new Object[2 + aggregatedValues.length];
             values[0] = key == NULL_KEY ? null : key;
-            values[1] = aggregateBuilders.get(0).getAggregate();
+            values[1] = group[0];
 
-            for (int i = 1; i < aggregateBuilders.size(); i++) {
-                final AggregateBuilder<?> aggregateBuilder = aggregateBuilders.get(i);
-                values[i + 1] = aggregateBuilder.getAggregate();
+            for (int i = 0; i < aggregatedValues.length; i++) {
+                final double sum = (Double) group[1 + 2 * i];
+                final long count = (Long) group[2 + 2 * i];
+
+                // the final aggregate is produced by the aggregate builder
+                // itself, to yield the same type and empty value
+                final AggregateBuilder<?> aggregateBuilder =
+                        aggregationTypes[i].createAggregateBuilder(valueSortation, skipNullValues,
+                                concatenationSeparator);
+                if (count > 0) {
+                    switch (aggregationTypes[i]) {
+                    case SUM:
+                        aggregateBuilder.add(sum);
+                        break;
+                    case AVG:
+                        aggregateBuilder.add(sum / count);
+                        break;
+                    default:
+                        throw new UnsupportedOperationException("Unsupported aggregation type: " + aggregationTypes[i]);
+                    }
+                }
+                values[i + 2] = aggregateBuilder.getAggregate();
             }
 
             _rowCollector.putValues(values);
@@ -0,0 +1,571 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.group;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+
+import org.apache.commons.lang.SerializationException;
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.ObjectComparator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memory-bounded storage of grouped rows for the {@link GrouperTransformer}.
+ *
+ * Rows are collected per group key in memory. When the estimated size of the
+ * collected rows exceeds the memory budget, the groups are sorted by key and
+ * spilled to a temporary file as a run. When emitting, the runs are merged
+ * using a k-way heap merge, similar to
+ * {@link org.datacleaner.util.sort.SortMergeWriter}, so that only the rows of
+ * the current groups of each run need to be in memory at a time. The rows of a
+ * group are passed to the {@link GroupConsumer} run by run, and at most
+ * {@value #MAX_MERGE_FAN_IN} runs are merged at once; more runs are first
+ * merged into intermediate temporary files.
+ *
+ * By default raw values (and their row numbers) are spilled, since the
+ * aggregation types (lists, concatenation, first/last value, sortation) cannot
+ * in general be combined from their final values. If all aggregations can be
+ * computed from partial aggregates, a {@link RowCombiner} can be supplied to
+ * keep only a single partial aggregate row per group in memory and on disk.
+ */
+final class SpillingGroupStore implements Closeable {
+
+    /**
+     * Consumer of the merged groups. The rows of a group are passed run by run,
+     * so that they never need to be in memory all at once.
+     *
+     * @param <G>
+     *            the type of the state that the consumer keeps per group
+     */
+    interface GroupConsumer<G> {
+
+        /**
+         * Begins a group.
+         *
+         * @param key
+         *            the group key
+         * @return the state of the group, passed to
+         *         {@link #accept(Object, List)} and {@link #end(Object, Object)}
+         */
+        G begin(Object key);
+
+        /**
+         * @param group
+         *            the state of the group
+         * @param rows
+         *            rows of the group from a single run, in the order they
+         *            were added. Each row holds the row number followed by the
+         *            values, or is a partial aggregate row if a
+         *            {@link RowCombiner} is used.
+         */
+        void accept(G group, List<Object[]> rows);
+
+        /**
+         * Ends a group, after all its rows have been accepted.
+         *
+         * @param key
+         *            the group key
+         * @param group
+         *            the state of the group
+         */
+        void end(Object key, G group);
+    }
+
+    /**
+     * Combines the rows of a group into a single partial aggregate row, for
+     * aggregations that can be computed from partial aggregates (counts, sums
+     * etc.). Partial aggregate rows must be serializable.
+     */
+    interface RowCombiner {
+
+        /**
+         * @param rowId
+         *            the row number
+         * @param values
+         *            the values to aggregate
+         * @return the partial aggregate row of a single row
+         */
+        Object[] createPartial(long rowId, Object[] values);
+
+        /**
+         * Combines a partial aggregate row into another.
+         *
+         * @param partial
+         *            the partial aggregate row to update
+         * @param other
+         *            the partial aggregate row to combine into it
+         */
+        void combine(Object[] partial, Object[] other);
+    }
+
+    /**
+     * A run of groups, sorted by key, which is read during the merge. Runs
+     * that are merged from other runs may hold consecutive chunks of rows with
+     * the same key.
+     */
+    private interface Run extends Closeable {
+
+        /**
+         * @return the next group of the run, or null if the run is exhausted
+         */
+        Entry<Object, List<Object[]>> next() throws IOException;
+    }
+
+    /**
+     * Receiver of the chunks of rows produced by a merge, in order of their
+     * keys and secondly in order of the runs.
+     */
+    private interface ChunkSink {
+
+        void accept(Object key, List<Object[]> rows) throws IOException;
+
+        /**
+         * Invoked after the chunks of all keys that compare as equal have been
+         * accepted.
+         */
+        void endOfKey() throws IOException;
+    }
+
+    private static final class RunHead {
+
+        private final int _index;
+        private final Run _run;
+        private Entry<Object, List<Object[]>> _current;
+
+        private RunHead(final int index, final Run run, final Entry<Object, List<Object[]>> current) {
+            _index = index;
+            _run = run;
+            _current = current;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(SpillingGroupStore.class);
+
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The maximum number of runs to merge at once, which bounds the number of
+     * open files and read buffers.
+     */
+    static final int MAX_MERGE_FAN_IN = 64;
+
+    private static final Comparator<Object> KEY_COMPARATOR =
+            Comparator.nullsFirst(ObjectComparator.getComparator());
+
+    private final long _memoryBudget;
+    private final RowCombiner _combiner;
+    private final List<File> _tempFiles;
+    private Map<Object, List<Object[]>> _buffer;
+    private long _bufferSize;
+
+    /**
+     * Creates a {@link SpillingGroupStore}
+     *
+     * @param memoryBudget
+     *            the (estimated) number of bytes of rows to collect in memory
+     *            before spilling to disk
+     */
+    public SpillingGroupStore(final long memoryBudget) {
+        this(memoryBudget, null);
+    }
+
+    /**
+     * Creates a {@link SpillingGroupStore}
+     *
+     * @param memoryBudget
+     *            the (estimated) number of bytes of rows to collect in memory
+     *            before spilling to disk
+     * @param combiner
+     *            the combiner to keep partial aggregates instead of rows with,
+     *            or null to keep all rows
+     */
+    public SpillingGroupStore(final long memoryBudget, final RowCombiner combiner) {
+        _memoryBudget = memoryBudget;
+        _combiner = combiner;
+        _tempFiles = new ArrayList<>();
+        _buffer = new HashMap<>();
+    }
+
+    /**
+     * Adds a row to a group.
+     *
+     * @param key
+     *            the group key, may be null
+     * @param rowId
+     *            the row number
+     * @param values
+     *            the values to aggregate
+     */
+    public void add(final Object key, final long rowId, final Object[] values) {
+        final Object[] row;
+        if (_combiner == null) {
+            row = new Object[values.length + 1];
+            row[0] = rowId;
+            System.arraycopy(values, 0, row, 1, values.length);
+        } else {
+            row = _combiner.createPartial(rowId, values);
+        }
+
+        final Map<Object, List<Object[]>> fullBuffer;
+        final int runIndex;
+        synchronized (this) {
+            final List<Object[]> rows = _buffer.get(key);
+            if (rows == null) {
+                final List<Object[]> newRows = new ArrayList<>(2);
+                newRows.add(row);
+                _buffer.put(key, newRows);
+                _bufferSize += 64 + estimateSize(key) + estimateSize(row);
+            } else if (_combiner == null) {
+                rows.add(row);
+                _bufferSize += estimateSize(row);
+            } else {
+                // partial aggregates keep their size
+                _combiner.combine(rows.get(0), row);
+            }
+
+            if (_bufferSize <= _memoryBudget) {
+                return;
+            }
+            fullBuffer = _buffer;
+            _buffer = new HashMap<>();
+            _bufferSize = 0;
+
+            // reserve the position of the run to keep the runs in the order
+            // their rows were added
+            runIndex = _tempFiles.size();
+            _tempFiles.add(null);
+        }
+
+        final File file = spill(fullBuffer);
+        synchronized (this) {
+            _tempFiles.set(runIndex, file);
+        }
+    }
+
+    private static long estimateSize(final Object[] row) {
+        long size = 16 + 8L * row.length;
+        for (final Object value : row) {
+            size += estimateSize(value);
+        }
+        return size;
+    }
+
+    private static long estimateSize(final Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Date) {
+            return 24;
+        }
+        return 64;
+    }
+
+    private File spill(final Map<Object, List<Object[]>> groups) {
+        final List<Entry<Object, List<Object[]>>> entries = sort(groups);
+        try {
+            final File file = createTempFile();
+            logger.info("Writing {} groups to temporary file: {}", entries.size(), file);
+
+            try (DataOutputStream out = createOutputStream(file)) {
+                for (final Entry<Object, List<Object[]>> entry : entries) {
+                    write(out, entry.getKey(), entry.getValue());
+                }
+                out.writeInt(-1);
+            }
+            return file;
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to write groups to temporary file", e);
+        }
+    }
+
+    private static File createTempFile() throws IOException {
+        final File file = File.createTempFile("grouper", ".dat");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static DataOutputStream createOutputStream(final File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER_SIZE));
+    }
+
+    private static void write(final DataOutputStream out, final Object key, final List<Object[]> rows)
+            throws IOException {
+        final Object[] record = { key, rows.toArray() };
+        final byte[] bytes;
+        try {
+            bytes = SerializationUtils.serialize(record);
+        } catch (final SerializationException e) {
+            throw new IllegalStateException("Failed to write group to temporary file, values must be serializable",
+                    e);
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static List<Entry<Object, List<Object[]>>> sort(final Map<Object, List<Object[]>> groups) {
+        final List<Entry<Object, List<Object[]>>> entries = new ArrayList<>(groups.entrySet());
+        entries.sort((o1, o2) -> KEY_COMPARATOR.compare(o1.getKey(), o2.getKey()));
+        return entries;
+    }
+
+    /**
+     * Merges all the collected groups and passes them to a consumer in the
+     * order of their keys.
+     *
+     * @param consumer
+     */
+    public <G> void emit(final GroupConsumer<G> consumer) {
+        final List<Run> runs = new ArrayList<>();
+        try {
+            final List<Entry<Object, List<Object[]>>> memoryRun;
+            synchronized (this) {
+                mergeTempFiles();
+                for (final File file : _tempFiles) {
+                    runs.add(createFileRun(file));
+                }
+                memoryRun = sort(_buffer);
+                _buffer = new HashMap<>();
+                _bufferSize = 0;
+            }
+            runs.add(createMemoryRun(memoryRun));
+
+            // keys that merely compare as equal are kept apart
+            final Map<Object, G> groups = new LinkedHashMap<>();
+            merge(runs, new ChunkSink() {
+                @Override
+                public void accept(final Object key, final List<Object[]> rows) {
+                    consumer.accept(groups.computeIfAbsent(key, consumer::begin), rows);
+                }
+
+                @Override
+                public void endOfKey() {
+                    for (final Entry<Object, G> group : groups.entrySet()) {
+                        consumer.end(group.getKey(), group.getValue());
+                    }
+                    groups.clear();
+                }
+            });
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to read groups from temporary file", e);
+        } finally {
+            for (final Run run : runs) {
+                FileHelper.safeClose(run);
+            }
+        }
+    }
+
+    /**
+     * Merges the oldest temporary files into an intermediate temporary file
+     * until no more than {@link #MAX_MERGE_FAN_IN} are left.
+     */
+    private void mergeTempFiles() throws IOException {
+        while (_tempFiles.size() > MAX_MERGE_FAN_IN) {
+            final List<File> files = new ArrayList<>(_tempFiles.subList(0, MAX_MERGE_FAN_IN));
+            final File mergedFile = createTempFile();
+            logger.info("Merging {} temporary files into: {}", files.size(), mergedFile);
+
+            final List<Run> runs = new ArrayList<>(files.size());
+            try (DataOutputStream out = createOutputStream(mergedFile)) {
+                for (final File file : files) {
+                    runs.add(createFileRun(file));
+                }
+                merge(runs, createFileSink(out));
+                out.writeInt(-1);
+            } finally {
+                for (final Run run : runs) {
+                    FileHelper.safeClose(run);
+                }
+            }
+
+            for (final File file : files) {
+                if (!file.delete()) {
+                    file.deleteOnExit();
+                }
+            }
+            _tempFiles.subList(0, MAX_MERGE_FAN_IN).clear();
+            _tempFiles.add(0, mergedFile);
+        }
+    }
+
+    private ChunkSink createFileSink(final DataOutputStream out) {
+        if (_combiner == null) {
+            return new ChunkSink() {
+                @Override
+                public void accept(final Object key, final List<Object[]> rows) throws IOException {
+                    write(out, key, rows);
+                }
+
+                @Override
+                public void endOfKey() {
+                }
+            };
+        }
+
+        // partial aggregates of the same key are combined into one
+        final Map<Object, Object[]> partials = new LinkedHashMap<>();
+        return new ChunkSink() {
+            @Override
+            public void accept(final Object key, final List<Object[]> rows) {
+                for (final Object[] row : rows) {
+                    final Object[] partial = partials.get(key);
+                    if (partial == null) {
+                        partials.put(key, row);
+                    } else {
+                        _combiner.combine(partial, row);
+                    }
+                }
+            }
+
+            @Override
+            public void endOfKey() throws IOException {
+                for (final Entry<Object, Object[]> partial : partials.entrySet()) {
+                    write(out, partial.getKey(), Collections.singletonList(partial.getValue()));
+                }
+                partials.clear();
+            }
+        };
+    }
+
+    private static void merge(final List<Run> runs, final ChunkSink sink) throws IOException {
+        final PriorityQueue<RunHead> heap = new PriorityQueue<>(runs.size(),
+                (o1, o2) -> KEY_COMPARATOR.compare(o1._current.getKey(), o2._current.getKey()));
+        for (int i = 0; i < runs.size(); i++) {
+            final Run run = runs.get(i);
+            final Entry<Object, List<Object[]>> first = run.next();
+            if (first != null) {
+                heap.add(new RunHead(i, run, first));
+            }
+        }
+
+        while (!heap.isEmpty()) {
+            final List<RunHead> heads = new ArrayList<>();
+            heads.add(heap.poll());
+            final Object key = heads.get(0)._current.getKey();
+            while (!heap.isEmpty() && KEY_COMPARATOR.compare(heap.peek()._current.getKey(), key) == 0) {
+                heads.add(heap.poll());
+            }
+
+            // pass the rows of equal keys in the order of the runs
+            heads.sort(Comparator.comparingInt(head -> head._index));
+            for (final RunHead head : heads) {
+                do {
+                    sink.accept(head._current.getKey(), head._current.getValue());
+                    head._current = head._run.next();
+                } while (head._current != null && KEY_COMPARATOR.compare(head._current.getKey(), key) == 0);
+
+                if (head._current != null) {
+                    heap.add(head);
+                }
+            }
+            sink.endOfKey();
+        }
+    }
+
+    private Run createMemoryRun(final List<Entry<Object, List<Object[]>>> entries) {
+        final Iterator<Entry<Object, List<Object[]>>> iterator = entries.iterator();
+        return new Run() {
+            @Override
+            public Entry<Object, List<Object[]>> next() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private Run createFileRun(final File file) throws IOException {
+        final DataInputStream in =
+                new DataInputStream(new BufferedInputStream(new FileInputStream(file), IO_BUFFER_SIZE));
+        return new Run() {
+            @Override
+            public Entry<Object, List<Object[]>> next() throws IOException {
+                final int length = in.readInt();
+                if (length < 0) {
+                    return null;
+                }
+                final byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                final Object[] record = (Object[]) SerializationUtils.deserialize(bytes);
+                final Object[] rows = (Object[]) record[1];
+                final List<Object[]> list = new ArrayList<>(rows.length);
+                for (final Object row : rows) {
+                    list.add((Object[]) row);
+                }
+                return new SimpleImmutableEntry<>(record[0], list);
+            }
+
+            @Override
+            public void close() {
+                FileHelper.safeClose(in);
+            }
+        };
+    }
+
+    /**
+     * Gets the number of runs spilled to disk
+     *
+     * @return
+     */
+    public synchronized int getSpillCount() {
+        return _tempFiles.size();
+    }
+
+    /**
+     * Discards all collected rows and deletes the temporary files.
+     */
+    @Override
+    public synchronized void close() {
+        for (final File file : _tempFiles) {
+            if (file != null && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+        _tempFiles.clear();
+        _buffer = new HashMap<>();
+        _bufferSize = 0;
+    }
+}
@@ -20,8 +20,11 @@
 package org.datacleaner.components.group;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 import org.datacleaner.api.InputColumn;
@@ -125,4 +128,143 @@ public class GrouperTransformerTest {
         assertEquals("[A, 4, world;there;hi;hello, D;C;B;A]", Arrays.toString(output.get(0)));
         assertEquals("[B, 1, hola, E]", Arrays.toString(output.get(1)));
     }
+
+    @Test
+    public void testMemoryBudgetGivesSameResultAsInMemory() throws Exception {
+        final List<String> inMemoryOutput = runLargeGrouping(null);
+        final List<String> spilledOutput = runLargeGrouping(1);
+
+        assertEquals(1000, inMemoryOutput.size());
+        assertTrue(inMemoryOutput.contains("[key12, 20, 12;1012;2012;3012;4012;5012;6012;7012;8012;9012;10012;11012;"
+                + "12012;13012;14012;15012;16012;17012;18012;19012, value12]"));
+        assertEquals(inMemoryOutput, spilledOutput);
+    }
+
+    private List<String> runLargeGrouping(final Integer memoryBudgetMegabytes) {
+        final GrouperTransformer grouper = new GrouperTransformer();
+        grouper.groupKey = groupKey;
+        grouper.aggregatedValues = new InputColumn[] { value1, value2 };
+        grouper.aggregationTypes =
+                new GrouperTransformer.AggregationType[] { GrouperTransformer.AggregationType.CONCAT_VALUES,
+                        GrouperTransformer.AggregationType.FIRST_VALUE };
+        grouper.valueSortation = SortationType.RECORD_ORDER;
+        grouper.concatenationSeparator = ";";
+        grouper.memoryBudgetMegabytes = memoryBudgetMegabytes;
+
+        grouper.init();
+
+        final MockOutputRowCollector collector = new MockOutputRowCollector();
+        grouper.initializeOutputDataStream(null, null, collector);
+
+        for (int i = 0; i < 20000; i++) {
+            grouper.transform(new MockInputRow(i).put(groupKey, "key" + (i % 1000)).put(value1, "" + i)
+                    .put(value2, "value" + (i % 1000)));
+        }
+
+        grouper.close();
+
+        final List<String> output = new ArrayList<>();
+        for (final Object[] row : collector.getOutput()) {
+            output.add(Arrays.toString(row));
+        }
+        output.sort(Comparator.naturalOrder());
+        return output;
+    }
+
+    @Test
+    public void testSpillingGroupStore() throws Exception {
+        final List<String> output = new ArrayList<>();
+        try (SpillingGroupStore store = new SpillingGroupStore(1000)) {
+            for (int i = 0; i < 100; i++) {
+                store.add(i % 3 == 0 ? null : "key" + (i % 3), i, new Object[] { i });
+            }
+            assertTrue(store.getSpillCount() > 1);
+
+            store.emit(new ValueListConsumer(output));
+        }
+
+        assertEquals("[null=34:0,3,...,99, key1=33:1,4,...,97, key2=33:2,5,...,98]", output.toString());
+    }
+
+    @Test
+    public void testSpillingGroupStoreMergesInPasses() throws Exception {
+        final List<String> output = new ArrayList<>();
+        try (SpillingGroupStore store = new SpillingGroupStore(1000)) {
+            for (int i = 0; i < 3000; i++) {
+                store.add(i % 3 == 0 ? null : "key" + (i % 3), i, new Object[] { i });
+            }
+            assertTrue(store.getSpillCount() > SpillingGroupStore.MAX_MERGE_FAN_IN);
+
+            store.emit(new ValueListConsumer(output));
+            assertTrue(store.getSpillCount() <= SpillingGroupStore.MAX_MERGE_FAN_IN);
+        }
+
+        assertEquals("[null=1000:0,3,...,2997, key1=1000:1,4,...,2998, key2=1000:2,5,...,2999]", output.toString());
+    }
+
+    @Test
+    public void testMemoryBudgetWithPartialAggregates() throws Exception {
+        final List<String> inMemoryOutput = runSumAndAverageGrouping(null);
+        final List<String> spilledOutput = runSumAndAverageGrouping(1);
+
+        // 10000 groups exceed the budget of 1 MB even as partial aggregates
+        assertEquals(10000, inMemoryOutput.size());
+        assertTrue(inMemoryOutput.contains("[key12, 10, 120.0, 12.0]"));
+        assertEquals(inMemoryOutput, spilledOutput);
+    }
+
+    private List<String> runSumAndAverageGrouping(final Integer memoryBudgetMegabytes) {
+        final MockInputColumn<Integer> numberColumn = new MockInputColumn<>("number", Integer.class);
+        final GrouperTransformer grouper = new GrouperTransformer();
+        grouper.groupKey = groupKey;
+        grouper.aggregatedValues = new InputColumn[] { numberColumn, numberColumn };
+        grouper.aggregationTypes = new GrouperTransformer.AggregationType[] { GrouperTransformer.AggregationType.SUM,
+                GrouperTransformer.AggregationType.AVG };
+        grouper.memoryBudgetMegabytes = memoryBudgetMegabytes;
+
+        grouper.init();
+
+        final MockOutputRowCollector collector = new MockOutputRowCollector();
+        grouper.initializeOutputDataStream(null, null, collector);
+
+        for (int i = 0; i < 100000; i++) {
+            grouper.transform(new MockInputRow(i).put(groupKey, "key" + (i % 10000)).put(numberColumn, i % 10000));
+        }
+
+        grouper.close();
+
+        final List<String> output = new ArrayList<>();
+        for (final Object[] row : collector.getOutput()) {
+            output.add(Arrays.toString(row));
+        }
+        output.sort(Comparator.naturalOrder());
+        return output;
+    }
+
+    private static final class ValueListConsumer implements SpillingGroupStore.GroupConsumer<List<Object>> {
+
+        private final List<String> _output;
+
+        private ValueListConsumer(final List<String> output) {
+            _output = output;
+        }
+
+        @Override
+        public List<Object> begin(final Object key) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void accept(final List<Object> values, final List<Object[]> rows) {
+            for (final Object[] row : rows) {
+                values.add(row[1]);
+            }
+        }
+
+        @Override
+        public void end(final Object key, final List<Object> values) {
+            _output.add(key + "=" + values.size() + ":" + values.get(0) + "," + values.get(1) + ",...,"
+                    + values.get(values.size() - 1));
+        }
+    }
 }
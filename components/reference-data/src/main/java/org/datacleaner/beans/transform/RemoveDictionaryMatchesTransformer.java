@@ -24,9 +24,6 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -50,6 +47,7 @@ import org.datacleaner.components.categories.ReferenceDataCategory;
 import org.datacleaner.configuration.DataCleanerConfiguration;
 import org.datacleaner.reference.Dictionary;
 import org.datacleaner.reference.DictionaryConnection;
+import org.datacleaner.reference.MultiTermMatcher;
 import org.datacleaner.util.StringUtils;
 
 import com.google.common.base.Joiner;
@@ -100,7 +98,7 @@ public class RemoveDictionaryMatchesTransformer implements Transformer {
     DataCleanerConfiguration _configuration;
 
     private DictionaryConnection _dictionaryConnection;
-    private Map<String, Pattern> multiWordDictionaryPatterns;
+    private MultiTermMatcher _multiWordMatcher;
 
     public RemoveDictionaryMatchesTransformer() {
     }
@@ -140,21 +138,19 @@ public class RemoveDictionaryMatchesTransformer implements Transformer {
     @Initialize
     public void init() {
         _dictionaryConnection = _dictionary.openConnection(_configuration);
-        multiWordDictionaryPatterns = new LinkedHashMap<>();
 
+        // multi-word values, longest first, are matched in a single pass.
+        // Single words are looked up token by token, so that large
+        // dictionaries of single words are not copied into the matcher.
+        final Map<String, String> multiWordValues = new LinkedHashMap<>();
         final Iterator<String> allValues = _dictionaryConnection.getLengthSortedValues();
         while (allValues.hasNext()) {
             final String value = allValues.next();
             if (!StringUtils.isSingleWord(value)) {
-                final Pattern pattern;
-                if (_dictionary.isCaseSensitive()) {
-                    pattern = Pattern.compile("\\b" + Pattern.quote(value) + "\\b");
-                } else {
-                    pattern = Pattern.compile("\\b" + Pattern.quote(value.toLowerCase()) + "\\b");
-                }
-                multiWordDictionaryPatterns.put(value, pattern);
+                multiWordValues.put(value, value);
             }
         }
+        _multiWordMatcher = new MultiTermMatcher(multiWordValues, _dictionary.isCaseSensitive());
     }
 
     @Close
@@ -174,45 +170,18 @@ public class RemoveDictionaryMatchesTransformer implements Transformer {
     public Object[] transform(String value) {
         final List<String> removedParts = new ArrayList<>(2);
         if (!Strings.isNullOrEmpty(value)) {
-            for (final Entry<String, Pattern> entry : multiWordDictionaryPatterns.entrySet()) {
-                final Pattern pattern = entry.getValue();
-                final Matcher matcher;
-                if (_dictionary.isCaseSensitive()) {
-                    matcher = pattern.matcher(value);
-                } else {
-                    matcher = pattern.matcher(value.toLowerCase());
-                }
-                while (matcher.find()) {
-                    final int start;
-                    final int end;
-                    if (matcher.start() > 0 && value.charAt(matcher.start() - 1) == ' ') {
-                        start = matcher.start() - 1;
-                        end = matcher.end();
-                    } else if (matcher.end() < value.length() && value.charAt(matcher.end()) == ' ') {
-                        start = matcher.start();
-                        end = matcher.end() + 1;
-                    } else {
-                        start = matcher.start();
-                        end = matcher.end();
-                    }
-
-                    value = value.substring(0, start) + value.substring(end);
-                    removedParts.add(entry.getKey());
-                }
+            if (!_multiWordMatcher.isEmpty()) {
+                value = removeMultiWordMatches(value, removedParts);
             }
 
             // do word-by-word dictionary lookups
-            final StringBuilder sb = new StringBuilder();
+            final StringBuilder sb = new StringBuilder(value.length());
             final List<String> tokens = StringUtils.splitOnWordBoundaries(value, true);
             for (final String token : tokens) {
-                if (StringUtils.isSingleWord(token)) {
-                    if (_dictionaryConnection.containsValue(token)) {
-                        removedParts.add(token);
-                    } else {
-                        sb.append(token);
-                    }
+                if (StringUtils.isSingleWord(token) && _dictionaryConnection.containsValue(token)) {
+                    removedParts.add(token);
                 } else {
-                    // this is a delim - just add it
+                    // a delim or a word that is not in the dictionary
                     sb.append(token);
                 }
             }
@@ -229,4 +198,35 @@ public class RemoveDictionaryMatchesTransformer implements Transformer {
             throw new UnsupportedOperationException("Unsupported output type: " + _removedMatchesType);
         }
     }
+
+    private String removeMultiWordMatches(final String value, final List<String> removedParts) {
+        final List<MultiTermMatcher.Match> matches = _multiWordMatcher.findMatches(value);
+        if (matches.isEmpty()) {
+            return value;
+        }
+
+        final boolean[] removed = new boolean[value.length()];
+        for (final MultiTermMatcher.Match match : matches) {
+            // remove multi-word matches including a surrounding space
+            int start = match.getStart();
+            int end = match.getEnd();
+            if (start > 0 && value.charAt(start - 1) == ' ' && !removed[start - 1]) {
+                start--;
+            } else if (end < value.length() && value.charAt(end) == ' ' && !removed[end]) {
+                end++;
+            }
+            for (int i = start; i < end; i++) {
+                removed[i] = true;
+            }
+            removedParts.add(match.getTerm());
+        }
+
+        final StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < removed.length; i++) {
+            if (!removed[i]) {
+                sb.append(value.charAt(i));
+            }
+        }
+        return sb.toString();
+    }
 }
@@ -74,6 +74,22 @@ public class RemoveDictionaryMatchesTransformerTest {
         transformer.close();
     }
 
+    @Test
+    public void testRepeatedAndAdjacentMultiWordMatches() throws Exception {
+        transformer._removedMatchesType = RemovedMatchesType.LIST;
+
+        assertEquals("Guru and guru",
+                transformer.transform("Assistant to the Guru and Assistant to the guru")[0]);
+        assertEquals("[Assistant to the, Assistant to the]",
+                transformer.transform("Assistant to the Guru and Assistant to the guru")[1].toString());
+
+        assertEquals("", transformer.transform("Assistant to Assistant to the")[0]);
+        assertEquals("[Assistant to the, Assistant to]",
+                transformer.transform("Assistant to Assistant to the")[1].toString());
+
+        assertEquals("Assistant tor", transformer.transform("Assistant tor")[0]);
+    }
+
     @Test
     public void testGetOutputColumns() throws Exception {
         transformer._removedMatchesType = RemovedMatchesType.STRING;
@@ -36,6 +36,7 @@ import org.datacleaner.api.Provided;
 import org.datacleaner.api.SchemaProperty;
 import org.datacleaner.api.TableProperty;
 import org.datacleaner.components.tablelookup.TableLookupTransformer;
+import org.datacleaner.components.tablelookup.TableLookupTransformer.LookupStrategy;
 import org.datacleaner.connection.Datastore;
 import org.datacleaner.storage.RowAnnotation;
 import org.datacleaner.storage.RowAnnotationFactory;
@@ -87,6 +88,20 @@ public class ReferentialIntegrityAnalyzer implements Analyzer<ReferentialIntegri
     @Description("Ignore null values")
     boolean ignoreNullValues = true;
 
+    @Inject
+    @Configured(required = false)
+    @Description("Whether to query the referenced table for every value or to read it once into memory and "
+            + "look up locally. The automatic strategy preloads the table if it is small enough. Preloaded lookups "
+            + "compare values in memory instead of in the database, so case-insensitive collations no longer apply, "
+            + "CHAR padding and trailing spaces are significant, and timestamps only equal dates of the same type "
+            + "and precision.")
+    LookupStrategy lookupStrategy = LookupStrategy.QUERY;
+
+    @Inject
+    @Configured(required = false)
+    @Description("The maximum number of records in the referenced table for the automatic strategy to preload it.")
+    int preloadMaxRows = 500000;
+
     @Inject
     @Provided
     RowAnnotation annotation;
@@ -100,7 +115,7 @@ public class ReferentialIntegrityAnalyzer implements Analyzer<ReferentialIntegri
     @Initialize
     public void init() {
         _tableLookup = new TableLookupTransformer(datastore, schemaName, tableName, new String[] { columnName },
-                new InputColumn<?>[] { foreignKey }, new String[] { columnName }, cacheLookups);
+                new InputColumn<?>[] { foreignKey }, new String[] { columnName }, cacheLookups, lookupStrategy, preloadMaxRows);
         _tableLookup.init();
     }
 
@@ -0,0 +1,186 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.uniqueness;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe Bloom filter used by {@link UniqueKeyCheckAnalyzer} to screen
+ * keys before they are spilled to disk. Keys that are definitely new are only
+ * registered in the filter, while keys that may have been seen before are
+ * reported as probable duplicates and verified afterwards.
+ *
+ * Concurrent puts of the same key are serialized by a lock stripe chosen by the
+ * key's hash, so that exactly one of them reports the key as new.
+ *
+ * The filter keeps track of how many of its bits are set, which allows it to
+ * calculate its current false positive probability.
+ */
+final class KeyScreen {
+
+    private static final double LN2 = Math.log(2);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final AtomicLongArray _words;
+    private final long _bitSize;
+    private final int _hashFunctions;
+    private final double _targetFalsePositiveProbability;
+    private final LongAdder _bitsSet;
+    private final Object[] _locks;
+
+    /**
+     * Creates a key screen
+     *
+     * @param expectedKeys
+     *            the expected number of distinct keys
+     * @param falsePositiveProbability
+     *            the tolerated probability that a new key is reported as a
+     *            probable duplicate, once the expected number of keys have
+     *            been added
+     */
+    public KeyScreen(final long expectedKeys, final double falsePositiveProbability) {
+        if (expectedKeys <= 0) {
+            throw new IllegalArgumentException("Expected keys must be a positive number");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1 (exclusive)");
+        }
+        final double optimalBits = -expectedKeys * Math.log(falsePositiveProbability) / (LN2 * LN2);
+        final long words = Math.min(Integer.MAX_VALUE, Math.max(1, (long) Math.ceil(optimalBits / Long.SIZE)));
+        _words = new AtomicLongArray((int) words);
+        _bitSize = words * Long.SIZE;
+        _hashFunctions = Math.max(1, (int) Math.round((double) _bitSize / expectedKeys * LN2));
+        _targetFalsePositiveProbability = falsePositiveProbability;
+        _bitsSet = new LongAdder();
+        _locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            _locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Adds a key to the screen.
+     *
+     * @param key
+     * @return true if the key may have been added before (a probable
+     *         duplicate), false if the key is definitely new
+     */
+    public boolean put(final String key) {
+        final long hash = hash(key);
+        final long hash2 = (hash >>> 32) | (hash << 32);
+
+        // two threads putting the same key must not both see it as new, which
+        // could happen if each of them set some of its bits
+        synchronized (_locks[(int) (hash >>> 58)]) {
+            boolean changed = false;
+            for (int i = 0; i < _hashFunctions; i++) {
+                if (setBit(bitIndex(hash, hash2, i))) {
+                    changed = true;
+                }
+            }
+            return !changed;
+        }
+    }
+
+    /**
+     * Determines if a key may have been added to the screen, without adding
+     * it.
+     *
+     * @param key
+     * @return true if the key may have been added before, false if it
+     *         definitely has not
+     */
+    public boolean mightContain(final String key) {
+        final long hash = hash(key);
+        final long hash2 = (hash >>> 32) | (hash << 32);
+        for (int i = 0; i < _hashFunctions; i++) {
+            final long bit = bitIndex(hash, hash2, i);
+            if ((_words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long bitIndex(final long hash1, final long hash2, final int i) {
+        final long combined = hash1 + i * hash2;
+        return (combined & Long.MAX_VALUE) % _bitSize;
+    }
+
+    private boolean setBit(final long bit) {
+        final int index = (int) (bit >>> 6);
+        final long mask = 1L << bit;
+        while (true) {
+            final long word = _words.get(index);
+            if ((word & mask) != 0) {
+                return false;
+            }
+            if (_words.compareAndSet(index, word, word | mask)) {
+                _bitsSet.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gets the current probability that a new key is reported as a probable
+     * duplicate, based on the fill ratio of the filter.
+     *
+     * @return
+     */
+    public double getFalsePositiveProbability() {
+        final double fillRatio = (double) _bitsSet.sum() / _bitSize;
+        return Math.pow(fillRatio, _hashFunctions);
+    }
+
+    /**
+     * Gets the false positive probability that the screen was sized for.
+     *
+     * @return
+     */
+    public double getTargetFalsePositiveProbability() {
+        return _targetFalsePositiveProbability;
+    }
+
+    public long getBitSize() {
+        return _bitSize;
+    }
+
+    public int getHashFunctions() {
+        return _hashFunctions;
+    }
+
+    private static long hash(final String value) {
+        // FNV-1a, finalized with the MurmurHash3 mixer for good bit dispersion
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
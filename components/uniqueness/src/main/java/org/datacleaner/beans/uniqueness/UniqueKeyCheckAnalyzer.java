@@ -19,9 +19,17 @@
  */
 package org.datacleaner.beans.uniqueness;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -42,6 +50,7 @@ import org.datacleaner.api.Description;
 import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
+import org.datacleaner.api.Validate;
 import org.datacleaner.util.WriteBuffer;
 import org.datacleaner.util.sort.SortMergeWriter;
 
@@ -60,6 +69,24 @@ public class UniqueKeyCheckAnalyzer implements Analyzer<UniqueKeyCheckAnalyzerRe
             + "consider increasing the buffer to minimize the amount of open disk handles.")
     int _bufferSize = 20000;
 
+    @Configured(required = false)
+    @Description("Screen keys with an in-memory Bloom filter and only write probable duplicates to disk. "
+            + "Much faster for (mostly) unique keys, at the risk of a few false positives.")
+    boolean _screenKeys = false;
+
+    @Configured(required = false)
+    @Description("The expected number of keys, used to size the Bloom filter when screening keys.")
+    long _expectedKeyCount = 10000000;
+
+    @Configured(required = false)
+    @Description("The tolerated probability that a unique key is flagged as a probable duplicate "
+            + "when screening keys.")
+    double _falsePositiveProbability = 0.0001;
+
+    private KeyScreen _keyScreen;
+    private File _firstOccurrencesFile;
+    private DataOutputStream _firstOccurrences;
+    private WriteBuffer _firstOccurrencesBuffer;
     private WriteBuffer _writeBuffer;
     private SortMergeWriter<String, Writer> _sorter;
     private AtomicInteger _rowCount;
@@ -72,11 +99,62 @@ public class UniqueKeyCheckAnalyzer implements Analyzer<UniqueKeyCheckAnalyzerRe
         _bufferSize = bufferSize;
     }
 
+    public UniqueKeyCheckAnalyzer(final int bufferSize, final long expectedKeyCount,
+            final double falsePositiveProbability) {
+        this(bufferSize);
+        _screenKeys = true;
+        _expectedKeyCount = expectedKeyCount;
+        _falsePositiveProbability = falsePositiveProbability;
+    }
+
+    @Validate
+    public void validate() {
+        if (_screenKeys) {
+            if (_expectedKeyCount <= 0) {
+                throw new IllegalStateException("Expected key count must be a positive number");
+            }
+            if (_falsePositiveProbability <= 0 || _falsePositiveProbability >= 1) {
+                throw new IllegalStateException("False positive probability must be between 0 and 1");
+            }
+        }
+    }
+
     @Initialize
     public void init() {
         _rowCount = new AtomicInteger();
         _nullCount = new AtomicInteger();
-        _sorter = new SortMergeWriter<String, Writer>(_bufferSize, ToStringComparator.getComparator()) {
+        if (_screenKeys) {
+            _keyScreen = new KeyScreen(_expectedKeyCount, _falsePositiveProbability);
+            _firstOccurrencesFile = createTempFile(".dat");
+            try {
+                _firstOccurrences =
+                        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_firstOccurrencesFile)));
+            } catch (final IOException e) {
+                throw new IllegalStateException("Could not create temporary file for key screening", e);
+            }
+            _firstOccurrencesBuffer = new WriteBuffer(_bufferSize, rows -> {
+                synchronized (_firstOccurrences) {
+                    for (final Object[] objects : rows) {
+                        writeKey(_firstOccurrences, (String) objects[0]);
+                    }
+                }
+            });
+            // all probable duplicates are written, they are verified later on
+            _sorter = createSorter(1);
+        } else {
+            _keyScreen = null;
+            _sorter = createSorter(2);
+        }
+        _writeBuffer = new WriteBuffer(_bufferSize, rows -> {
+            for (final Object[] objects : rows) {
+                final String string = (String) objects[0];
+                _sorter.append(string);
+            }
+        });
+    }
+
+    private SortMergeWriter<String, Writer> createSorter(final int minimumCount) {
+        return new SortMergeWriter<String, Writer>(_bufferSize, ToStringComparator.getComparator()) {
             private final CsvWriter csvWriter = new CsvWriter(CSV_CONFIGURATION);
 
             @Override
@@ -87,7 +165,7 @@ public class UniqueKeyCheckAnalyzer implements Analyzer<UniqueKeyCheckAnalyzerRe
 
             @Override
             protected void writeRow(final Writer writer, final String row, final int count) throws IOException {
-                if (count > 1) {
+                if (count >= minimumCount) {
                     final String line = csvWriter.buildLine(new String[] { row, "" + count });
                     writer.write(line);
                     writer.write('\n');
@@ -99,12 +177,21 @@ public class UniqueKeyCheckAnalyzer implements Analyzer<UniqueKeyCheckAnalyzerRe
                 return FileHelper.getWriter(file.write(), FileHelper.DEFAULT_ENCODING);
             }
         };
-        _writeBuffer = new WriteBuffer(_bufferSize, rows -> {
-            for (final Object[] objects : rows) {
-                final String string = (String) objects[0];
-                _sorter.append(string);
-            }
-        });
+    }
+
+    private static File createTempFile(final String suffix) {
+        try {
+            return File.createTempFile("UniqueKeyCheckAnalyzer", suffix);
+        } catch (final Exception e) {
+            final File tempDir = FileHelper.getTempDir();
+            return new File(tempDir, "UniqueKeyCheckAnalyzer-" + System.nanoTime() + suffix);
+        }
+    }
+
+    private static void writeKey(final DataOutputStream out, final String key) throws IOException {
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
     }
 
     @Override
@@ -118,8 +205,25 @@ public class UniqueKeyCheckAnalyzer implements Analyzer<UniqueKeyCheckAnalyzerRe
         } else {
             final String str = value.toString();
 
-            for (int i = 0; i < distinctCount; i++) {
-                _writeBuffer.addToBuffer(new Object[] { str });
+            if (_keyScreen == null) {
+                for (int i = 0; i < distinctCount; i++) {
+                    _writeBuffer.addToBuffer(new Object[] { str });
+                }
+            } else {
+                // the first occurrence is only written as a candidate if it may
+                // have been seen before, all further occurrences are
+                // duplicates anyway. Definitely new keys are kept aside to
+                // verify the candidates with.
+                final int duplicates;
+                if (_keyScreen.put(str)) {
+                    duplicates = distinctCount;
+                } else {
+                    _firstOccurrencesBuffer.addToBuffer(new Object[] { str });
+                    duplicates = distinctCount - 1;
+                }
+                for (int i = 0; i < duplicates; i++) {
+                    _writeBuffer.addToBuffer(new Object[] { str });
+                }
             }
         }
     }
@@ -128,34 +232,37 @@ public class UniqueKeyCheckAnalyzer implements Analyzer<UniqueKeyCheckAnalyzerRe
     public UniqueKeyCheckAnalyzerResult getResult() {
         _writeBuffer.flushBuffer();
 
-        File file;
-        try {
-            file = File.createTempFile("UniqueKeyCheckAnalyzer", ".txt");
-        } catch (final Exception e) {
-            final File tempDir = FileHelper.getTempDir();
-            file = new File(tempDir, "UniqueKeyCheckAnalyzer-" + System.currentTimeMillis() + ".txt");
+        final SortMergeWriter<String, Writer> sorter;
+        final int candidateCount;
+        if (_keyScreen == null) {
+            sorter = _sorter;
+            candidateCount = 0;
+        } else {
+            sorter = createSorter(2);
+            candidateCount = verifyCandidates(sorter);
         }
 
-        _sorter.write(file);
+        final File file = createTempFile(".txt");
+        sorter.write(file);
 
         final AtomicInteger nonUniques = new AtomicInteger();
+        int nonUniqueKeys = 0;
 
         final Map<String, Integer> samples = new LinkedHashMap<>();
 
         final CsvDataContext dataContext = new CsvDataContext(file, CSV_CONFIGURATION);
         try (DataSet dataSet = dataContext.query().from(dataContext.getDefaultSchema().getTable(0))
                 .select("text", "count").execute()) {
-            int i = 0;
             while (dataSet.next()) {
                 final String text = (String) dataSet.getRow().getValue(0);
                 final String countStr = (String) dataSet.getRow().getValue(1);
                 final int count = Integer.parseInt(countStr);
-                if (i < 1000) {
+                if (nonUniqueKeys < 1000) {
                     // only build up to 1000 records in the sample
                     samples.put(text, count);
                 }
                 nonUniques.addAndGet(count);
-                i++;
+                nonUniqueKeys++;
             }
         }
 
@@ -167,6 +274,71 @@ public class UniqueKeyCheckAnalyzer implements Analyzer<UniqueKeyCheckAnalyzerRe
         // delete the temporary file
         file.delete();
 
-        return new UniqueKeyCheckAnalyzerResult(rowCount, uniqueCount, nonUniqueCount, nullCount, samples);
+        if (_keyScreen == null) {
+            return new UniqueKeyCheckAnalyzerResult(rowCount, uniqueCount, nonUniqueCount, nullCount, samples);
+        }
+        return new UniqueKeyCheckAnalyzerResult(rowCount, uniqueCount, nonUniqueCount, nullCount, samples,
+                candidateCount - nonUniqueKeys, _keyScreen.getFalsePositiveProbability());
+    }
+
+    /**
+     * Verifies the probable duplicates found by the key screen. The candidates
+     * and their written counts are appended to the verifying sorter, together
+     * with those first occurrences (that passed the screen as new keys) that
+     * match a candidate. The verifying sorter thereby sums up the exact count
+     * of every candidate, and false positives end up with a count of 1.
+     *
+     * @param verifier
+     * @return the number of distinct candidate keys
+     */
+    private int verifyCandidates(final SortMergeWriter<String, Writer> verifier) {
+        _firstOccurrencesBuffer.flushBuffer();
+        try {
+            _firstOccurrences.close();
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not write temporary file for key screening", e);
+        }
+
+        final File candidatesFile = createTempFile(".txt");
+        final int candidateCount = _sorter.write(candidatesFile);
+
+        // the candidates are usually few, so they are screened with a new,
+        // small filter when looking for their first occurrences
+        final KeyScreen candidateScreen = new KeyScreen(Math.max(1, candidateCount), _falsePositiveProbability);
+        final CsvDataContext dataContext = new CsvDataContext(candidatesFile, CSV_CONFIGURATION);
+        try (DataSet dataSet = dataContext.query().from(dataContext.getDefaultSchema().getTable(0))
+                .select("text", "count").execute()) {
+            while (dataSet.next()) {
+                final String text = (String) dataSet.getRow().getValue(0);
+                final int writtenCount = Integer.parseInt((String) dataSet.getRow().getValue(1));
+                candidateScreen.put(text);
+                verifier.append(text, writtenCount);
+            }
+        }
+        candidatesFile.delete();
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(_firstOccurrencesFile)))) {
+            while (true) {
+                final int length;
+                try {
+                    length = in.readInt();
+                } catch (final EOFException e) {
+                    break;
+                }
+                final byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                final String key = new String(bytes, StandardCharsets.UTF_8);
+                if (candidateScreen.mightContain(key)) {
+                    verifier.append(key);
+                }
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not read temporary file for key screening", e);
+        } finally {
+            _firstOccurrencesFile.delete();
+        }
+
+        return candidateCount;
     }
 }
@@ -36,6 +36,9 @@ public class UniqueKeyCheckAnalyzerResult implements AnalyzerResult {
     private final int _uniqueCount;
     private final int _nullCount;
     private final Map<String, Integer> _nonUniqueSamples;
+    private final boolean _screened;
+    private final int _falsePositiveCount;
+    private final double _falsePositiveProbability;
 
     public UniqueKeyCheckAnalyzerResult(final int rowCount, final int uniqueCount, final int nonUniqueCount,
             final int nullCount, final Map<String, Integer> samples) {
@@ -44,6 +47,39 @@ public class UniqueKeyCheckAnalyzerResult implements AnalyzerResult {
         _nonUniqueCount = nonUniqueCount;
         _nullCount = nullCount;
         _nonUniqueSamples = samples;
+        _screened = false;
+        _falsePositiveCount = 0;
+        _falsePositiveProbability = 0;
+    }
+
+    /**
+     * Creates a result of a check where keys were screened by a Bloom filter
+     * before being verified.
+     *
+     * @param rowCount
+     * @param uniqueCount
+     * @param nonUniqueCount
+     * @param nullCount
+     * @param samples
+     * @param falsePositiveCount
+     *            the number of unique keys that were flagged as probable
+     *            duplicates by the screening, and turned out to be unique when
+     *            verified
+     * @param falsePositiveProbability
+     *            the false positive probability of the screening at the end
+     *            of the check
+     */
+    public UniqueKeyCheckAnalyzerResult(final int rowCount, final int uniqueCount, final int nonUniqueCount,
+            final int nullCount, final Map<String, Integer> samples, final int falsePositiveCount,
+            final double falsePositiveProbability) {
+        _rowCount = rowCount;
+        _uniqueCount = uniqueCount;
+        _nonUniqueCount = nonUniqueCount;
+        _nullCount = nullCount;
+        _nonUniqueSamples = samples;
+        _screened = true;
+        _falsePositiveCount = falsePositiveCount;
+        _falsePositiveProbability = falsePositiveProbability;
     }
 
     @Metric("Row count")
@@ -66,6 +102,39 @@ public class UniqueKeyCheckAnalyzerResult implements AnalyzerResult {
         return _nonUniqueCount;
     }
 
+    /**
+     * Gets the number of unique keys that were flagged as probable duplicates
+     * by the key screening, and which were found to be unique when verified.
+     * Always zero if keys were not screened.
+     *
+     * @return
+     */
+    @Metric("Screening false positives")
+    public int getFalsePositiveCount() {
+        return _falsePositiveCount;
+    }
+
+    /**
+     * Gets the false positive probability of the key screening at the end of
+     * the check, which can be compared to the configured probability to see
+     * how much of the false positive budget was used.
+     *
+     * @return
+     */
+    public double getFalsePositiveProbability() {
+        return _falsePositiveProbability;
+    }
+
+    /**
+     * Determines if keys were screened by a Bloom filter before being
+     * verified.
+     *
+     * @return
+     */
+    public boolean isScreened() {
+        return _screened;
+    }
+
     /**
      * Gets samples of the non-unique values
      *
@@ -78,7 +147,8 @@ public class UniqueKeyCheckAnalyzerResult implements AnalyzerResult {
     @Override
     public String toString() {
         return "Unique key check result:" + "\n - Row count: " + getRowCount() + "\n - Null count: " + getNullCount()
-                + "" + "\n - Unique count: " + getUniqueCount() + "\n - Non-unique count: " + getNonUniqueCount();
+                + "" + "\n - Unique count: " + getUniqueCount() + "\n - Non-unique count: " + getNonUniqueCount()
+                + (_screened ? "\n - Screening false positives: " + getFalsePositiveCount() : "");
     }
 
 }
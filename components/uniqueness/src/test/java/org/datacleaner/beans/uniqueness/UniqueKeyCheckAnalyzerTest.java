@@ -69,4 +69,93 @@ public class UniqueKeyCheckAnalyzerTest extends TestCase {
                 "Unique key check result:\n" + " - Row count: 73\n" + " - Null count: 0\n" + " - Unique count: 60\n"
                         + " - Non-unique count: 13", result.toString());
     }
+
+    @Test
+    public void testScreenedScenario() throws Exception {
+        final MockInputColumn<String> col = new MockInputColumn<>("foo");
+        final UniqueKeyCheckAnalyzer analyzer = new UniqueKeyCheckAnalyzer(20, 1000, 0.000001);
+        analyzer.column = col;
+
+        analyzer.validate();
+        analyzer.init();
+
+        analyzer.run(new MockInputRow().put(col, "foo"), 1);
+        analyzer.run(new MockInputRow().put(col, "bar"), 2);
+        analyzer.run(new MockInputRow().put(col, null), 1);
+
+        final Splitter splitter = Splitter.on(' ').omitEmptyStrings();
+        final Iterable<String> it =
+                splitter.split(FileHelper.readFileAsString(new File("src/test/resources/loremipsum.txt")));
+        for (final String str : it) {
+            analyzer.run(new MockInputRow().put(col, str), 1);
+        }
+
+        analyzer.run(new MockInputRow().put(col, "foo"), 1);
+
+        final UniqueKeyCheckAnalyzerResult result = analyzer.getResult();
+        assertTrue(result.isScreened());
+        assertEquals(74, result.getRowCount());
+        assertEquals(60, result.getUniqueCount());
+        assertEquals(1, result.getNullCount());
+        assertEquals(13, result.getNonUniqueCount());
+
+        // the first occurrences are not written by the screening, but the
+        // verification adds them to the counts
+        assertEquals(0, result.getFalsePositiveCount());
+
+        final Map<String, Integer> samples = result.getNonUniqueSamples();
+        assertEquals("{bar=2, dolor=2, dolore=2, foo=2, in=3, ut=2}", samples.toString());
+    }
+
+    @Test
+    public void testScreenedUniqueKeys() throws Exception {
+        final MockInputColumn<String> col = new MockInputColumn<>("foo");
+        final UniqueKeyCheckAnalyzer analyzer = new UniqueKeyCheckAnalyzer(1000, 100000, 0.001);
+        analyzer.column = col;
+        analyzer.init();
+
+        for (int i = 0; i < 100000; i++) {
+            analyzer.run(new MockInputRow().put(col, "key" + i), 1);
+        }
+
+        final UniqueKeyCheckAnalyzerResult result = analyzer.getResult();
+        assertEquals(100000, result.getRowCount());
+
+        // false positives of the screening are verified to be unique
+        assertEquals(0, result.getNonUniqueCount());
+        assertEquals(100000, result.getUniqueCount());
+        assertTrue(result.getNonUniqueSamples().isEmpty());
+        final int falsePositives = result.getFalsePositiveCount();
+        assertTrue("False positives: " + falsePositives, falsePositives > 0 && falsePositives < 100);
+        assertTrue(result.getFalsePositiveProbability() < 0.002);
+    }
+
+    @Test
+    public void testScreenedConcurrentDuplicates() throws Exception {
+        final MockInputColumn<String> col = new MockInputColumn<>("foo");
+        final UniqueKeyCheckAnalyzer analyzer = new UniqueKeyCheckAnalyzer(100, 100000, 0.000001);
+        analyzer.column = col;
+        analyzer.init();
+
+        // every thread puts the same keys at (roughly) the same time
+        final int threadCount = 4;
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    analyzer.run(new MockInputRow().put(col, "key" + i), 1);
+                }
+            });
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        final UniqueKeyCheckAnalyzerResult result = analyzer.getResult();
+        assertEquals(40000, result.getRowCount());
+        assertEquals(0, result.getUniqueCount());
+        assertEquals(40000, result.getNonUniqueCount());
+        assertEquals(Integer.valueOf(threadCount), result.getNonUniqueSamples().get("key0"));
+    }
 }
@@ -0,0 +1,119 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.valuedist;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.beans.valuedist.ValueDistributionSketch.Counter;
+import org.datacleaner.result.SingleValueFrequency;
+import org.datacleaner.result.ValueCountListImpl;
+import org.datacleaner.storage.RowAnnotation;
+import org.datacleaner.storage.RowAnnotationFactory;
+
+/**
+ * A {@link SingleValueDistributionResult} of an approximated value
+ * distribution, based on a {@link ValueDistributionSketch}.
+ *
+ * The top values are the values monitored by the sketch (except those counted
+ * only once), with counts that may be overestimated by up to
+ * {@link #getMaximumCountError()}. The distinct and unique counts are
+ * estimates. Drill-down to the rows of a value is not available.
+ */
+public class ApproximateValueDistributionResult extends SingleValueDistributionResult {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ValueDistributionSketch _sketch;
+
+    private ApproximateValueDistributionResult(final String groupName, final ValueCountListImpl topValues,
+            final int uniqueValueCount, final int distinctCount, final int totalCount,
+            final RowAnnotation nullValueAnnotation, final RowAnnotationFactory annotationFactory,
+            final InputColumn<?>[] highlightedColumns, final ValueDistributionSketch sketch) {
+        super(groupName, topValues, uniqueValueCount, distinctCount, totalCount, null, nullValueAnnotation,
+                annotationFactory, highlightedColumns);
+        _sketch = sketch;
+    }
+
+    /**
+     * Creates a result based on a sketch.
+     *
+     * @param groupName
+     * @param sketch
+     *            the sketch of the non-null values
+     * @param nullValueAnnotation
+     *            the annotation of the null values
+     * @param annotationFactory
+     * @param highlightedColumns
+     * @return
+     */
+    public static ApproximateValueDistributionResult create(final String groupName,
+            final ValueDistributionSketch sketch, final RowAnnotation nullValueAnnotation,
+            final RowAnnotationFactory annotationFactory, final InputColumn<?>[] highlightedColumns) {
+        final ValueCountListImpl topValues = ValueCountListImpl.createFullList();
+        for (final Counter counter : sketch.getCounters()) {
+            if (counter.getCount() > 1) {
+                topValues.register(new SingleValueFrequency(counter.getValue(), (int) counter.getCount()));
+            }
+        }
+
+        final int nullCount = nullValueAnnotation.getRowCount();
+        final int uniqueCount = (int) sketch.getEstimatedUniqueCount();
+        final int totalCount = (int) sketch.getTotalCount() + nullCount;
+        int distinctCount = (int) sketch.getEstimatedDistinctCount();
+        if (nullCount > 0) {
+            distinctCount++;
+        }
+
+        return new ApproximateValueDistributionResult(groupName, topValues, uniqueCount, distinctCount, totalCount,
+                nullValueAnnotation, annotationFactory, highlightedColumns, sketch);
+    }
+
+    public ValueDistributionSketch getSketch() {
+        return _sketch;
+    }
+
+    /**
+     * Determines whether the approximated distribution is in fact exact, which
+     * is the case when the number of distinct values did not exceed the
+     * capacity of the sketch.
+     *
+     * @return
+     */
+    public boolean isExact() {
+        return _sketch.isExact();
+    }
+
+    /**
+     * Gets the maximum overestimation of the count of the top values.
+     *
+     * @return
+     */
+    public long getMaximumCountError() {
+        return _sketch.getMaximumCountError();
+    }
+
+    /**
+     * Gets the relative standard error of the distinct and unique counts.
+     *
+     * @return
+     */
+    public double getDistinctCountRelativeError() {
+        return _sketch.getDistinctCountRelativeError();
+    }
+}
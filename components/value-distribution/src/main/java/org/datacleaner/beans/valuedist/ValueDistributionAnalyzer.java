@@ -27,7 +27,6 @@ import java.util.TreeSet;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.datacleaner.api.Analyzer;
 import org.datacleaner.api.ColumnProperty;
 import org.datacleaner.api.Concurrent;
 import org.datacleaner.api.Configured;
@@ -38,6 +37,8 @@ import org.datacleaner.api.ExternalDocumentation.DocumentationType;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.api.Provided;
+import org.datacleaner.api.QueryAggregatableAnalyzer;
+import org.datacleaner.api.Validate;
 import org.datacleaner.storage.CollectionFactory;
 import org.datacleaner.storage.RowAnnotationFactory;
 import org.datacleaner.storage.RowAnnotations;
@@ -53,12 +54,14 @@ import org.slf4j.LoggerFactory;
         { @DocumentationLink(title = "Analyzer rundown", url = "https://www.youtube.com/watch?v=hZWxB_eu_A0",
                 type = DocumentationType.VIDEO, version = "4.0") })
 @Concurrent(true)
-public class ValueDistributionAnalyzer implements Analyzer<ValueDistributionAnalyzerResult> {
+public class ValueDistributionAnalyzer implements QueryAggregatableAnalyzer<ValueDistributionAnalyzerResult> {
 
     public static final String PROPERTY_COLUMN = "Column";
     public static final String PROPERTY_GROUP_COLUMN = "Group column";
     public static final String PROPERTY_RECORD_UNIQUE_VALUES = "Record unique values";
     public static final String PROPERTY_RECORD_DRILL_DOWN_INFORMATION = "Record drill-down information";
+    public static final String PROPERTY_APPROXIMATE = "Approximate distribution";
+    public static final String PROPERTY_APPROXIMATION_CAPACITY = "Approximation capacity";
 
     private static final Logger logger = LoggerFactory.getLogger(ValueDistributionAnalyzer.class);
     private final Map<String, ValueDistributionGroup> _valueDistributionGroups;
@@ -86,6 +89,19 @@ public class ValueDistributionAnalyzer implements Analyzer<ValueDistributionAnal
     @Deprecated
     Integer _bottomFrequentValues;
     @Inject
+    @Configured(value = PROPERTY_APPROXIMATE, required = false, order = 7)
+    @Description("Approximate the distribution within a bounded memory budget, eg. for columns with a very large "
+            + "number of distinct values. Only the most frequent values are reported, the distinct and unique counts "
+            + "are estimated and drill-down information is not recorded. A sketch takes roughly 0.5 MB with the "
+            + "default capacity. When grouping, each group (and thread) has its own, smaller sketch of roughly 70 KB "
+            + "with a capacity of 100, at the cost of a less accurate distinct count (about 2.3% instead of 0.8%).")
+    boolean _approximate = false;
+    @Inject
+    @Configured(value = PROPERTY_APPROXIMATION_CAPACITY, required = false, order = 8)
+    @Description("The number of most frequent values to monitor when approximating the distribution. The count of a "
+            + "reported value is overestimated by at most the total count divided by this capacity.")
+    int _approximationCapacity = ValueDistributionSketch.DEFAULT_CAPACITY;
+    @Inject
     @Provided
     RowAnnotationFactory _annotationFactory;
 
@@ -122,6 +138,19 @@ public class ValueDistributionAnalyzer implements Analyzer<ValueDistributionAnal
         _valueDistributionGroups = new TreeMap<>(NullTolerableComparator.get(String.class));
     }
 
+    @Validate
+    public void validate() {
+        if (_approximate && _approximationCapacity <= 0) {
+            throw new IllegalStateException("Approximation capacity must be a positive number");
+        }
+    }
+
+    @Override
+    public boolean isQueryAggregatable() {
+        // drill-down requires the complete records
+        return !_recordDrillDownInformation;
+    }
+
     @Override
     public void run(final InputRow row, final int distinctCount) {
         final Object value = row.getValue(_column);
@@ -161,9 +190,22 @@ public class ValueDistributionAnalyzer implements Analyzer<ValueDistributionAnal
                     } else {
                         inputColumns = new InputColumn[] { _column, _groupColumn };
                     }
-                    valueDistributionGroup =
-                            new ValueDistributionGroup(group, _annotationFactory, _recordDrillDownInformation,
-                                    inputColumns);
+                    if (_approximate) {
+                        // there is a sketch per group, so use smaller ones
+                        // when grouping
+                        final ValueDistributionSketch sketch;
+                        if (_groupColumn == null) {
+                            sketch = new ValueDistributionSketch(_approximationCapacity);
+                        } else {
+                            sketch = ValueDistributionSketch.createGroupSketch(_approximationCapacity);
+                        }
+                        valueDistributionGroup =
+                                new ValueDistributionGroup(group, _annotationFactory, false, inputColumns, sketch);
+                    } else {
+                        valueDistributionGroup =
+                                new ValueDistributionGroup(group, _annotationFactory, _recordDrillDownInformation,
+                                        inputColumns);
+                    }
                     _valueDistributionGroups.put(group, valueDistributionGroup);
                 }
             }
@@ -222,4 +264,12 @@ public class ValueDistributionAnalyzer implements Analyzer<ValueDistributionAnal
     public void setRecordUniqueValues(final boolean recordUniqueValues) {
         _recordUniqueValues = recordUniqueValues;
     }
+
+    public void setApproximate(final boolean approximate) {
+        _approximate = approximate;
+    }
+
+    public void setApproximationCapacity(final int approximationCapacity) {
+        _approximationCapacity = approximationCapacity;
+    }
 }
@@ -34,9 +34,13 @@ import org.datacleaner.result.ReducedSingleValueDistributionResult;
 import org.datacleaner.result.ValueCountingAnalyzerResult;
 import org.datacleaner.result.ValueFrequency;
 import org.datacleaner.storage.RowAnnotationFactory;
+import org.datacleaner.storage.RowAnnotationImpl;
 
 /**
  * A reducer of {@link ValueDistributionAnalyzerResult}s.
+ *
+ * Approximated results ({@link ApproximateValueDistributionResult}s) are
+ * reduced by merging their sketches, yielding an approximated result again.
  */
 public class ValueDistributionAnalyzerResultReducer implements AnalyzerResultReducer<ValueDistributionAnalyzerResult> {
 
@@ -56,6 +60,10 @@ public class ValueDistributionAnalyzerResultReducer implements AnalyzerResultRed
 
     private ValueDistributionAnalyzerResult reduceSingleResults(
             final Collection<? extends ValueDistributionAnalyzerResult> analyzerResults) {
+        if (hasOnlyApproximateResults(analyzerResults)) {
+            return reduceApproximateResults(analyzerResults);
+        }
+
         final Map<String, Integer> reducedValueCounts = new HashMap<>();
         Integer nullCount = 0;
 
@@ -75,6 +83,32 @@ public class ValueDistributionAnalyzerResultReducer implements AnalyzerResultRed
         return new ReducedSingleValueDistributionResult(first.getName(), reducedValueCounts, nullCount);
     }
 
+    private boolean hasOnlyApproximateResults(
+            final Collection<? extends ValueDistributionAnalyzerResult> analyzerResults) {
+        for (final ValueDistributionAnalyzerResult valueDistributionAnalyzerResult : analyzerResults) {
+            if (!(valueDistributionAnalyzerResult instanceof ApproximateValueDistributionResult)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ValueDistributionAnalyzerResult reduceApproximateResults(
+            final Collection<? extends ValueDistributionAnalyzerResult> analyzerResults) {
+        final ApproximateValueDistributionResult first =
+                (ApproximateValueDistributionResult) analyzerResults.iterator().next();
+
+        final ValueDistributionSketch sketch = first.getSketch().createEmpty();
+        final RowAnnotationImpl nullValueAnnotation = new RowAnnotationImpl();
+        for (final ValueDistributionAnalyzerResult partialResult : analyzerResults) {
+            sketch.merge(((ApproximateValueDistributionResult) partialResult).getSketch());
+            nullValueAnnotation.incrementRowCount(partialResult.getNullCount());
+        }
+
+        return ApproximateValueDistributionResult.create(first.getName(), sketch, nullValueAnnotation,
+                _rowAnnotationFactory, first.getHighlightedColumns());
+    }
+
     private boolean hasGroupedResults(final Collection<? extends ValueDistributionAnalyzerResult> analyzerResults) {
         for (final ValueDistributionAnalyzerResult valueDistributionAnalyzerResult : analyzerResults) {
             if (valueDistributionAnalyzerResult instanceof GroupedValueDistributionResult) {
@@ -20,12 +20,13 @@
 package org.datacleaner.beans.valuedist;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
@@ -43,7 +44,21 @@ import org.slf4j.LoggerFactory;
  * {@link ValueDistributionGroup} contains the counted values within a single
  * group.
  *
+ * The group is safe for concurrent use without any group-wide locking: values
+ * are counted in a {@link ConcurrentHashMap} of (atomic) row annotations and
+ * the total count is kept in a {@link LongAdder}, so that threads only contend
+ * when they count the very same value.
  *
+ * Alternatively the distribution of non-null values can be approximated within
+ * a bounded memory budget using a {@link ValueDistributionSketch}. Since
+ * sketches are not thread-safe, a thread borrows a sketch from a pool for every
+ * value it adds, creating a new one if all of them are in use. The pooled
+ * sketches are merged when the result is created. The pool never holds more
+ * sketches than the number of threads that added values concurrently, so the
+ * memory used by a group is bounded by that number times the footprint of a
+ * single sketch (see {@link ValueDistributionSketch}). Pooled sketches are
+ * created like the initial sketch, which for grouped distributions is a
+ * {@link ValueDistributionSketch#createGroupSketch(int) group sketch}.
  */
 class ValueDistributionGroup {
 
@@ -55,20 +70,42 @@ class ValueDistributionGroup {
     private final String _groupName;
     private final boolean _recordAnnotations;
     private final InputColumn<?>[] _inputColumns;
-    private final AtomicInteger _totalCount;
+    private final LongAdder _totalCount;
+    private final ConcurrentLinkedDeque<ValueDistributionSketch> _sketches;
+    private final ValueDistributionSketch _initialSketch;
 
     public ValueDistributionGroup(final String groupName, final RowAnnotationFactory annotationFactory,
             final boolean recordAnnotations, final InputColumn<?>[] inputColumns) {
+        this(groupName, annotationFactory, recordAnnotations, inputColumns, null);
+    }
+
+    /**
+     *
+     * @param groupName
+     * @param annotationFactory
+     * @param recordAnnotations
+     * @param inputColumns
+     * @param sketch
+     *            a sketch to approximate the distribution of non-null values
+     *            with, or null if the distribution should be exact
+     */
+    public ValueDistributionGroup(final String groupName, final RowAnnotationFactory annotationFactory,
+            final boolean recordAnnotations, final InputColumn<?>[] inputColumns,
+            final ValueDistributionSketch sketch) {
         _groupName = groupName;
         _annotationFactory = annotationFactory;
         _recordAnnotations = recordAnnotations;
         _inputColumns = inputColumns;
-        _totalCount = new AtomicInteger();
-        _annotationMap = new HashMap<>();
-        if (recordAnnotations) {
-            _nullValueAnnotation = _annotationFactory.createAnnotation();
+        _totalCount = new LongAdder();
+        _annotationMap = new ConcurrentHashMap<>();
+        _nullValueAnnotation = createAnnotation();
+        if (sketch == null) {
+            _sketches = null;
+            _initialSketch = null;
         } else {
-            _nullValueAnnotation = new RowAnnotationImpl();
+            _sketches = new ConcurrentLinkedDeque<>();
+            _sketches.add(sketch);
+            _initialSketch = sketch;
         }
     }
 
@@ -79,18 +116,19 @@ class ValueDistributionGroup {
             } else {
                 ((RowAnnotationImpl) _nullValueAnnotation).incrementRowCount(distinctCount);
             }
+        } else if (_sketches != null) {
+            ValueDistributionSketch sketch = _sketches.pollFirst();
+            if (sketch == null) {
+                sketch = _initialSketch.createEmpty();
+            }
+            sketch.add(value, distinctCount);
+            _sketches.addFirst(sketch);
         } else {
-            RowAnnotation annotation;
-            synchronized (this) {
-                annotation = _annotationMap.get(value);
-                if (annotation == null) {
-                    if (_recordAnnotations) {
-                        annotation = _annotationFactory.createAnnotation();
-                    } else {
-                        annotation = new RowAnnotationImpl();
-                    }
-                    _annotationMap.put(value, annotation);
-                }
+            // plain get() first since computeIfAbsent(...) locks the hash bin
+            // even when the value is already present
+            RowAnnotation annotation = _annotationMap.get(value);
+            if (annotation == null) {
+                annotation = _annotationMap.computeIfAbsent(value, key -> createAnnotation());
             }
 
             if (_recordAnnotations) {
@@ -99,10 +137,32 @@ class ValueDistributionGroup {
                 ((RowAnnotationImpl) annotation).incrementRowCount(distinctCount);
             }
         }
-        _totalCount.addAndGet(distinctCount);
+        _totalCount.add(distinctCount);
+    }
+
+    private RowAnnotation createAnnotation() {
+        if (_recordAnnotations) {
+            return _annotationFactory.createAnnotation();
+        } else {
+            return new RowAnnotationImpl();
+        }
     }
 
     public SingleValueDistributionResult createResult(final boolean recordUniqueValues) {
+        if (_sketches != null) {
+            final ValueDistributionSketch sketch;
+            if (_sketches.size() == 1) {
+                sketch = _sketches.getFirst();
+            } else {
+                sketch = _initialSketch.createEmpty();
+                for (final ValueDistributionSketch threadSketch : _sketches) {
+                    sketch.merge(threadSketch);
+                }
+            }
+            return ApproximateValueDistributionResult.create(_groupName, sketch, _nullValueAnnotation,
+                    _annotationFactory, _inputColumns);
+        }
+
         final ValueCountListImpl topValues = ValueCountListImpl.createFullList();
 
         final List<String> uniqueValues;
@@ -137,10 +197,10 @@ class ValueDistributionGroup {
 
         if (recordUniqueValues) {
             return new SingleValueDistributionResult(_groupName, topValues, uniqueValues, uniqueCount, distinctCount,
-                    _totalCount.get(), _annotationMap, _nullValueAnnotation, _annotationFactory, _inputColumns);
+                    _totalCount.intValue(), _annotationMap, _nullValueAnnotation, _annotationFactory, _inputColumns);
         } else {
             return new SingleValueDistributionResult(_groupName, topValues, uniqueCount, distinctCount,
-                    _totalCount.get(), _annotationMap, _nullValueAnnotation, _annotationFactory, _inputColumns);
+                    _totalCount.intValue(), _annotationMap, _nullValueAnnotation, _annotationFactory, _inputColumns);
         }
     }
 
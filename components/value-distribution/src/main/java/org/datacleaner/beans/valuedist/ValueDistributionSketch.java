@@ -0,0 +1,545 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.valuedist;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A bounded-memory, mergeable summary of a value distribution, used by the
+ * {@link ValueDistributionAnalyzer} when the distribution is approximated.
+ *
+ * The sketch consists of three parts:
+ *
+ * <ul>
+ * <li>A Space-Saving summary which monitors the (estimated) most frequent
+ * values. The count of a monitored value is an upper bound and overestimates
+ * the actual count by at most the error of the value, which in turn is at most
+ * total count / capacity.</li>
+ * <li>A HyperLogLog counter with 2^precision registers which estimates the
+ * distinct count with a relative standard error of approximately 1.04 /
+ * sqrt(2^precision), ie. 0.8% with the default precision of 14.</li>
+ * <li>A hash-based sample of distinct values with exact counts, which is used
+ * to estimate the unique count (values occurring only once).</li>
+ * </ul>
+ *
+ * As long as the number of distinct values does not exceed the capacity and
+ * the sample capacity, all estimates are exact. Until the sample overflows it
+ * contains the hash of every distinct value, so the HyperLogLog registers are
+ * only allocated (from the sample) at that point.
+ *
+ * The memory footprint of a sketch is therefore bounded by roughly
+ * min(distinct, capacity) * (200 bytes + value size) for the monitored values,
+ * plus min(distinct, sample capacity) * 80 bytes for the sample, plus
+ * 2^precision bytes once the number of distinct values exceeds the sample
+ * capacity. With the defaults this is about 0.5 MB, with the
+ * {@link #createGroupSketch(int) group defaults} and a capacity of 100 it is
+ * about 70 KB.
+ *
+ * Instances are not thread-safe.
+ */
+public final class ValueDistributionSketch implements Serializable {
+
+    /**
+     * A value monitored by the Space-Saving summary.
+     */
+    public static final class Counter implements Serializable, Comparable<Counter> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String _value;
+        private final long _id;
+        private long _count;
+        private long _error;
+
+        private Counter(final String value, final long id, final long count, final long error) {
+            _value = value;
+            _id = id;
+            _count = count;
+            _error = error;
+        }
+
+        public String getValue() {
+            return _value;
+        }
+
+        /**
+         * Gets the estimated count of the value, which is an upper bound of the
+         * actual count.
+         *
+         * @return
+         */
+        public long getCount() {
+            return _count;
+        }
+
+        /**
+         * Gets the maximum overestimation of the count, ie. the actual count of
+         * the value is between {@link #getCount()} - error and
+         * {@link #getCount()}.
+         *
+         * @return
+         */
+        public long getError() {
+            return _error;
+        }
+
+        @Override
+        public int compareTo(final Counter o) {
+            final int diff = Long.compare(_count, o._count);
+            if (diff != 0) {
+                return diff;
+            }
+            return Long.compare(_id, o._id);
+        }
+
+        @Override
+        public String toString() {
+            return "Counter[" + _value + "=" + _count + "±" + _error + "]";
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    public static final int DEFAULT_HLL_PRECISION = 14;
+    public static final int DEFAULT_SAMPLE_CAPACITY = 4096;
+
+    /**
+     * The HyperLogLog precision of sketches per group, which gives 2 KB of
+     * registers and a relative standard error of approximately 2.3%.
+     */
+    public static final int GROUP_HLL_PRECISION = 11;
+    public static final int GROUP_SAMPLE_CAPACITY = 512;
+
+    private static final int MIN_HLL_PRECISION = 4;
+    private static final int MAX_HLL_PRECISION = 18;
+
+    private final int _capacity;
+    private final Map<String, Counter> _counters;
+    private transient TreeSet<Counter> _countersByCount;
+    private long _nextId;
+    private long _totalCount;
+
+    private final int _hllPrecision;
+    private final int _sampleCapacity;
+
+    // null as long as the sample contains all distinct values
+    private byte[] _registers;
+
+    // exact counts of the values with a hash that has at least _sampleLevel
+    // trailing zero bits
+    private final Map<Long, Integer> _sample;
+    private int _sampleLevel;
+
+    public ValueDistributionSketch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ValueDistributionSketch(final int capacity) {
+        this(capacity, DEFAULT_HLL_PRECISION, DEFAULT_SAMPLE_CAPACITY);
+    }
+
+    /**
+     *
+     * @param capacity
+     *            the number of values monitored by the Space-Saving summary
+     * @param hllPrecision
+     *            the HyperLogLog precision, ie. the base 2 logarithm of the
+     *            number of registers
+     * @param sampleCapacity
+     *            the maximum number of distinct values in the sample
+     */
+    public ValueDistributionSketch(final int capacity, final int hllPrecision, final int sampleCapacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be a positive number");
+        }
+        if (hllPrecision < MIN_HLL_PRECISION || hllPrecision > MAX_HLL_PRECISION) {
+            throw new IllegalArgumentException(
+                    "HyperLogLog precision must be between " + MIN_HLL_PRECISION + " and " + MAX_HLL_PRECISION);
+        }
+        if (sampleCapacity <= 0) {
+            throw new IllegalArgumentException("Sample capacity must be a positive number");
+        }
+        _capacity = capacity;
+        _hllPrecision = hllPrecision;
+        _sampleCapacity = sampleCapacity;
+        _counters = new HashMap<>();
+        _countersByCount = new TreeSet<>();
+        _sample = new HashMap<>();
+    }
+
+    /**
+     * Creates a sketch for a single group of a grouped distribution, which
+     * uses a lower HyperLogLog precision and a smaller sample than the
+     * defaults since there is a sketch per group (and per thread).
+     *
+     * @param capacity
+     * @return
+     */
+    public static ValueDistributionSketch createGroupSketch(final int capacity) {
+        return new ValueDistributionSketch(capacity, GROUP_HLL_PRECISION, GROUP_SAMPLE_CAPACITY);
+    }
+
+    /**
+     * Creates an empty sketch with the same capacity, precision and sample
+     * capacity as this sketch, which can be merged with this sketch.
+     *
+     * @return
+     */
+    public ValueDistributionSketch createEmpty() {
+        return new ValueDistributionSketch(_capacity, _hllPrecision, _sampleCapacity);
+    }
+
+    /**
+     * Gets the number of values monitored by the Space-Saving summary.
+     *
+     * @return
+     */
+    public int getCapacity() {
+        return _capacity;
+    }
+
+    public int getHllPrecision() {
+        return _hllPrecision;
+    }
+
+    public int getSampleCapacity() {
+        return _sampleCapacity;
+    }
+
+    /**
+     * Adds a (non-null) value to the sketch.
+     *
+     * @param value
+     * @param count
+     */
+    public void add(final String value, final int count) {
+        if (count <= 0) {
+            return;
+        }
+        _totalCount += count;
+        addToCounters(value, count, 0);
+
+        final long hash = hash(value);
+        addToRegisters(hash);
+        addToSample(hash, count);
+    }
+
+    /**
+     * Merges another sketch into this sketch. The other sketch is not
+     * modified.
+     *
+     * @param other
+     *            a sketch with the same HyperLogLog precision
+     */
+    public void merge(final ValueDistributionSketch other) {
+        if (other == null) {
+            return;
+        }
+        if (other._hllPrecision != _hllPrecision) {
+            throw new IllegalArgumentException(
+                    "Cannot merge sketches with HyperLogLog precision " + _hllPrecision + " and "
+                            + other._hllPrecision);
+        }
+
+        // a value that is not monitored by one of the sketches may have
+        // occurred up to the minimum count of that sketch (if it is full)
+        final long thisMinimum = getMinimumCount();
+        final long otherMinimum = other.getMinimumCount();
+
+        final Set<String> values = new HashSet<>(_counters.keySet());
+        values.addAll(other._counters.keySet());
+
+        final List<Counter> mergedCounters = new ArrayList<>(values.size());
+        for (final String value : values) {
+            final Counter thisCounter = _counters.get(value);
+            final Counter otherCounter = other._counters.get(value);
+            long count = 0;
+            long error = 0;
+            if (thisCounter == null) {
+                count += thisMinimum;
+                error += thisMinimum;
+            } else {
+                count += thisCounter._count;
+                error += thisCounter._error;
+            }
+            if (otherCounter == null) {
+                count += otherMinimum;
+                error += otherMinimum;
+            } else {
+                count += otherCounter._count;
+                error += otherCounter._error;
+            }
+            mergedCounters.add(new Counter(value, _nextId++, count, error));
+        }
+
+        _counters.clear();
+        _countersByCount.clear();
+        mergedCounters.sort((o1, o2) -> o2.compareTo(o1));
+        for (final Counter counter : mergedCounters) {
+            if (_counters.size() == _capacity) {
+                break;
+            }
+            _counters.put(counter._value, counter);
+            _countersByCount.add(counter);
+        }
+
+        _totalCount += other._totalCount;
+
+        if (other._registers != null) {
+            if (_registers == null) {
+                initRegisters();
+            }
+            for (int i = 0; i < _registers.length; i++) {
+                _registers[i] = (byte) Math.max(_registers[i], other._registers[i]);
+            }
+        } else if (_registers != null) {
+            // the sample of the other sketch contains all of its values
+            for (final Long hash : other._sample.keySet()) {
+                addToRegisters(hash);
+            }
+        }
+
+        if (other._sampleLevel > _sampleLevel) {
+            // values below the other sketch's level may be in this sample, but
+            // not in the other one, so they are not a uniform sample anymore
+            _sampleLevel = other._sampleLevel;
+            removeFromSampleBelowLevel();
+        }
+        for (final Map.Entry<Long, Integer> entry : other._sample.entrySet()) {
+            addToSample(entry.getKey(), entry.getValue());
+        }
+        shrinkSample();
+    }
+
+    /**
+     * Gets the total count of (non-null) values added to the sketch.
+     *
+     * @return
+     */
+    public long getTotalCount() {
+        return _totalCount;
+    }
+
+    /**
+     * Gets the monitored values, ordered by descending estimated count.
+     *
+     * @return
+     */
+    public List<Counter> getCounters() {
+        final List<Counter> result = new ArrayList<>(_countersByCount.descendingSet());
+        return result;
+    }
+
+    /**
+     * Gets the maximum overestimation of a monitored value's count.
+     *
+     * @return
+     */
+    public long getMaximumCountError() {
+        long maximumError = 0;
+        for (final Counter counter : _counters.values()) {
+            maximumError = Math.max(maximumError, counter._error);
+        }
+        return maximumError;
+    }
+
+    /**
+     * Determines whether the estimated counts, distinct count and unique count
+     * are exact.
+     *
+     * @return
+     */
+    public boolean isExact() {
+        return _sampleLevel == 0 && getMaximumCountError() == 0 && _counters.size() < _capacity;
+    }
+
+    /**
+     * Gets the relative standard error of {@link #getEstimatedDistinctCount()}
+     * if it is not exact.
+     *
+     * @return
+     */
+    public double getDistinctCountRelativeError() {
+        if (_sampleLevel == 0) {
+            return 0d;
+        }
+        return 1.04 / Math.sqrt(1 << _hllPrecision);
+    }
+
+    /**
+     * Gets the estimated number of distinct (non-null) values.
+     *
+     * @return
+     */
+    public long getEstimatedDistinctCount() {
+        if (_sampleLevel == 0) {
+            // all values are in the sample
+            return _sample.size();
+        }
+
+        double sum = 0;
+        int zeroRegisters = 0;
+        for (final byte register : _registers) {
+            sum += 1d / (1L << register);
+            if (register == 0) {
+                zeroRegisters++;
+            }
+        }
+
+        final double m = _registers.length;
+        final double alpha = 0.7213 / (1 + 1.079 / m);
+        final double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeroRegisters > 0) {
+            // small range correction (linear counting)
+            return Math.round(m * Math.log(m / zeroRegisters));
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Gets the estimated number of unique (non-null) values, ie. values that
+     * occurred only once.
+     *
+     * @return
+     */
+    public long getEstimatedUniqueCount() {
+        long sampledUniqueCount = 0;
+        for (final Integer count : _sample.values()) {
+            if (count.intValue() == 1) {
+                sampledUniqueCount++;
+            }
+        }
+        if (_sampleLevel == 0 || _sample.isEmpty()) {
+            return sampledUniqueCount;
+        }
+        // scale the unique ratio of the sample to the estimated distinct count
+        return Math.round((double) sampledUniqueCount / _sample.size() * getEstimatedDistinctCount());
+    }
+
+    private long getMinimumCount() {
+        if (_counters.size() < _capacity) {
+            return 0;
+        }
+        return _countersByCount.first()._count;
+    }
+
+    private void addToCounters(final String value, final long count, final long error) {
+        Counter counter = _counters.get(value);
+        if (counter != null) {
+            _countersByCount.remove(counter);
+            counter._count += count;
+            counter._error += error;
+        } else if (_counters.size() < _capacity) {
+            counter = new Counter(value, _nextId++, count, error);
+            _counters.put(value, counter);
+        } else {
+            // replace the least frequent value
+            final Counter evicted = _countersByCount.pollFirst();
+            _counters.remove(evicted._value);
+            counter = new Counter(value, _nextId++, evicted._count + count, evicted._count + error);
+            _counters.put(value, counter);
+        }
+        _countersByCount.add(counter);
+    }
+
+    private void initRegisters() {
+        _registers = new byte[1 << _hllPrecision];
+        for (final Long hash : _sample.keySet()) {
+            addToRegisters(hash);
+        }
+    }
+
+    private void addToRegisters(final long hash) {
+        if (_registers == null) {
+            return;
+        }
+        final int index = (int) (hash >>> (64 - _hllPrecision));
+        final long remainder = (hash << _hllPrecision) | (1L << (_hllPrecision - 1));
+        final byte rank = (byte) (Long.numberOfLeadingZeros(remainder) + 1);
+        if (_registers[index] < rank) {
+            _registers[index] = rank;
+        }
+    }
+
+    private void addToSample(final long hash, final int count) {
+        if (Long.numberOfTrailingZeros(mix(hash)) < _sampleLevel) {
+            return;
+        }
+        _sample.merge(hash, count, Integer::sum);
+        shrinkSample();
+    }
+
+    private void shrinkSample() {
+        while (_sample.size() > _sampleCapacity) {
+            if (_registers == null) {
+                // the sample is about to lose values, so from now on the
+                // distinct count is estimated
+                initRegisters();
+            }
+            _sampleLevel++;
+            removeFromSampleBelowLevel();
+        }
+    }
+
+    private void removeFromSampleBelowLevel() {
+        _sample.keySet().removeIf(hash -> Long.numberOfTrailingZeros(mix(hash)) < _sampleLevel);
+    }
+
+    private static long hash(final String value) {
+        // FNV-1a, finalized with the MurmurHash3 mixer for good bit dispersion
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private void readObject(final ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        _countersByCount = new TreeSet<>(_counters.values());
+    }
+
+    @Override
+    public String toString() {
+        return "ValueDistributionSketch[capacity=" + _capacity + ",hllPrecision=" + _hllPrecision + ",totalCount="
+                + _totalCount + ",monitored=" + _counters.size() + "]";
+    }
+}
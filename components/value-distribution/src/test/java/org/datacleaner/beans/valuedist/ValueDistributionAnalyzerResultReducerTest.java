@@ -98,6 +98,46 @@ public class ValueDistributionAnalyzerResultReducerTest {
         assertEquals("[hello->8]", reducedTopValues.getValueCounts().get(1).toString());
     }
 
+    @Test
+    public void testReduceApproximateResults() throws Exception {
+        final List<ValueDistributionAnalyzerResult> partialResults = new ArrayList<>();
+        for (int partition = 0; partition < 3; partition++) {
+            final ValueDistributionAnalyzer valueDist =
+                    new ValueDistributionAnalyzer(new MetaModelInputColumn(new MutableColumn("col")), true);
+            valueDist.setApproximate(true);
+            valueDist.setApproximationCapacity(50);
+
+            valueDist.runInternal(new MockInputRow(), "hello", 100);
+            valueDist.runInternal(new MockInputRow(), "world", 50);
+            valueDist.runInternal(new MockInputRow(), null, 2);
+            for (int i = 0; i < 1000; i++) {
+                valueDist.runInternal(new MockInputRow(), "unique" + partition + "_" + i, 1);
+            }
+            partialResults.add(valueDist.getResult());
+        }
+
+        final ApproximateValueDistributionResult partialResult =
+                (ApproximateValueDistributionResult) partialResults.get(0);
+        assertEquals(1152, partialResult.getTotalCount());
+        assertEquals(2, partialResult.getNullCount());
+        assertTrue(partialResult.getMaximumCountError() > 0);
+
+        final ValueDistributionAnalyzerResultReducer reducer = new ValueDistributionAnalyzerResultReducer();
+        final ApproximateValueDistributionResult reducedResult =
+                (ApproximateValueDistributionResult) reducer.reduce(partialResults);
+
+        assertEquals(6, reducedResult.getNullCount());
+        assertEquals(3456, reducedResult.getTotalCount());
+        assertEquals(3003, reducedResult.getDistinctCount().intValue());
+        assertEquals(3000, reducedResult.getUniqueCount().intValue());
+
+        final ValueCountList reducedTopValues = reducedResult.getTopValues();
+        assertEquals("hello", reducedTopValues.getValueCounts().get(0).getValue());
+        assertEquals("world", reducedTopValues.getValueCounts().get(1).getValue());
+        final int helloCount = reducedTopValues.getValueCounts().get(0).getCount();
+        assertTrue(helloCount >= 300 && helloCount - reducedResult.getMaximumCountError() <= 300);
+    }
+
     @Test
     public void testReduceGroupedResults() throws Exception {
         final ValueDistributionAnalyzer valueDist1 =
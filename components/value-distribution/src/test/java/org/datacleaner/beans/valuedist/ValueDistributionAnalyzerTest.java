@@ -22,7 +22,13 @@ package org.datacleaner.beans.valuedist;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.metamodel.schema.MutableColumn;
 import org.datacleaner.configuration.DataCleanerConfigurationImpl;
@@ -68,7 +74,7 @@ public class ValueDistributionAnalyzerTest {
     public void testDescriptor() {
         final AnalyzerDescriptor<?> desc = Descriptors.ofAnalyzer(ValueDistributionAnalyzer.class);
         assertEquals(0, desc.getInitializeMethods().size());
-        assertEquals(6, desc.getConfiguredProperties().size());
+        assertEquals(8, desc.getConfiguredProperties().size());
         assertEquals(1, desc.getProvidedProperties().size());
         assertEquals("Value distribution", desc.getDisplayName());
     }
@@ -207,4 +213,77 @@ public class ValueDistributionAnalyzerTest {
         assertEquals("Group: 2200", resultLines[i++]);
         assertEquals(" - Copenhagen N: 3", resultLines[i++]);
     }
+
+    @Test
+    public void testConcurrentCounting() throws Exception {
+        final ValueDistributionAnalyzer vd = new ValueDistributionAnalyzer(new MockInputColumn<>("foo"), true);
+
+        final int threads = 8;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        // 1000 values counted 10 times per thread, and 1 hot value
+                        vd.runInternal(new MockInputRow(), "v" + (i % 1000), 1);
+                        vd.runInternal(new MockInputRow(), "hot", 1);
+                        if (i % 100 == 0) {
+                            vd.runInternal(new MockInputRow(), null, 2);
+                        }
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+            executorService.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        final ValueCountingAnalyzerResult result = vd.getResult();
+        assertEquals(threads * 20200, result.getTotalCount());
+        assertEquals(1002, result.getDistinctCount().intValue());
+        assertEquals(0, result.getUniqueCount().intValue());
+        assertEquals(threads * 200, result.getNullCount());
+        assertEquals(threads * 10000, result.getCount("hot").intValue());
+        assertEquals(threads * 10, result.getCount("v42").intValue());
+    }
+
+    @Test
+    public void testConcurrentApproximateCounting() throws Exception {
+        final ValueDistributionAnalyzer vd = new ValueDistributionAnalyzer(new MockInputColumn<>("foo"), false);
+        vd.setApproximate(true);
+        vd.setApproximationCapacity(2000);
+
+        final int threads = 8;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        vd.runInternal(new MockInputRow(), "v" + (i % 1000), 1);
+                        vd.runInternal(new MockInputRow(), "hot", 1);
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+            executorService.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        // the sketches of the threads are merged, and stay exact within
+        // their capacity
+        final ApproximateValueDistributionResult result = (ApproximateValueDistributionResult) vd.getResult();
+        assertTrue(result.getSketch().isExact());
+        assertEquals(threads * 20000, result.getTotalCount());
+        assertEquals(0, result.getUniqueCount().intValue());
+        assertEquals(threads * 10000, result.getCount("hot").intValue());
+        assertEquals(threads * 10, result.getCount("v42").intValue());
+    }
 }
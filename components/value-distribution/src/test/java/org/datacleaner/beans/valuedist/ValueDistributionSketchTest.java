@@ -0,0 +1,165 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.valuedist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.datacleaner.beans.valuedist.ValueDistributionSketch.Counter;
+import org.junit.Test;
+
+public class ValueDistributionSketchTest {
+
+    @Test
+    public void testExactWithinCapacity() throws Exception {
+        final ValueDistributionSketch sketch = new ValueDistributionSketch(10);
+        sketch.add("foo", 3);
+        sketch.add("bar", 1);
+        sketch.add("foo", 1);
+        sketch.add("baz", 1);
+
+        assertTrue(sketch.isExact());
+        assertEquals(6, sketch.getTotalCount());
+        assertEquals(3, sketch.getEstimatedDistinctCount());
+        assertEquals(2, sketch.getEstimatedUniqueCount());
+        assertEquals(0, sketch.getMaximumCountError());
+
+        final List<Counter> counters = sketch.getCounters();
+        assertEquals("foo", counters.get(0).getValue());
+        assertEquals(4, counters.get(0).getCount());
+    }
+
+    @Test
+    public void testHeavyHittersAndEstimates() throws Exception {
+        final ValueDistributionSketch sketch = new ValueDistributionSketch(1000);
+        addSkewedValues(sketch, 0, 200000);
+
+        assertFalse(sketch.isExact());
+        assertEquals(220000, sketch.getTotalCount());
+
+        // the heavy hitters (more frequent than total count / capacity) are
+        // found, with bounded overestimation
+        final List<Counter> counters = sketch.getCounters();
+        for (int i = 0; i < 10; i++) {
+            final Counter counter = counters.get(i);
+            assertTrue(counter.getValue(), counter.getValue().startsWith("hot"));
+            final long actualCount = 2000;
+            assertTrue(counter.getCount() >= actualCount);
+            assertTrue(counter.getCount() - counter.getError() <= actualCount);
+            assertTrue(counter.getError() <= sketch.getTotalCount() / sketch.getCapacity());
+        }
+
+        // 200000 unique values + 10 hot values
+        assertEquals(200010, sketch.getEstimatedDistinctCount(), 200010 * 0.03);
+        assertEquals(200000, sketch.getEstimatedUniqueCount(), 200000 * 0.05);
+        assertTrue(sketch.getDistinctCountRelativeError() > 0);
+    }
+
+    @Test
+    public void testMergeAndSerialize() throws Exception {
+        final ValueDistributionSketch sketch1 = new ValueDistributionSketch(1000);
+        addSkewedValues(sketch1, 0, 50000);
+        final ValueDistributionSketch sketch2 = new ValueDistributionSketch(1000);
+        addSkewedValues(sketch2, 50000, 100000);
+
+        final ValueDistributionSketch merged = new ValueDistributionSketch(1000);
+        merged.merge(sketch1);
+        merged.merge((ValueDistributionSketch) SerializationUtils.clone(sketch2));
+
+        assertEquals(110000, merged.getTotalCount());
+        assertEquals(100010, merged.getEstimatedDistinctCount(), 100010 * 0.03);
+        assertEquals(100000, merged.getEstimatedUniqueCount(), 100000 * 0.05);
+
+        final List<Counter> counters = merged.getCounters();
+        for (int i = 0; i < 10; i++) {
+            final Counter counter = counters.get(i);
+            assertTrue(counter.getValue(), counter.getValue().startsWith("hot"));
+            assertTrue(counter.getCount() >= 1000);
+            assertTrue(counter.getCount() - counter.getError() <= 1000);
+        }
+    }
+
+    @Test
+    public void testMergeIntoExactSketch() throws Exception {
+        // an exact sketch with only non-unique values
+        final ValueDistributionSketch merged = new ValueDistributionSketch(1000);
+        for (int i = 0; i < 500; i++) {
+            merged.add("duplicate" + i, 2);
+        }
+        assertTrue(merged.isExact());
+
+        final ValueDistributionSketch sketch = new ValueDistributionSketch(1000);
+        for (int i = 0; i < 100000; i++) {
+            sketch.add("unique" + i, 1);
+        }
+        merged.merge(sketch);
+
+        // the sampled duplicates below the merged sample level must not
+        // distort the unique ratio of the sample
+        assertEquals(100500, merged.getEstimatedDistinctCount(), 100500 * 0.03);
+        assertEquals(100000, merged.getEstimatedUniqueCount(), 100000 * 0.05);
+    }
+
+    @Test
+    public void testGroupSketch() throws Exception {
+        final ValueDistributionSketch sketch = ValueDistributionSketch.createGroupSketch(100);
+        assertEquals(ValueDistributionSketch.GROUP_HLL_PRECISION, sketch.getHllPrecision());
+        addSkewedValues(sketch, 0, 100000);
+
+        assertFalse(sketch.isExact());
+        assertEquals(100010, sketch.getEstimatedDistinctCount(), 100010 * 0.07);
+        assertEquals(100000, sketch.getEstimatedUniqueCount(), 100000 * 0.15);
+        assertEquals(0.023, sketch.getDistinctCountRelativeError(), 0.001);
+
+        // a small sketch is still exact and is merged into the estimates
+        final ValueDistributionSketch small = sketch.createEmpty();
+        for (int i = 0; i < 50; i++) {
+            small.add("small" + i, 1);
+        }
+        assertTrue(small.isExact());
+        assertEquals(50, small.getEstimatedDistinctCount());
+
+        sketch.merge(small);
+        assertEquals(100060, sketch.getEstimatedDistinctCount(), 100060 * 0.07);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentPrecisions() throws Exception {
+        final ValueDistributionSketch sketch = new ValueDistributionSketch(100);
+        sketch.merge(ValueDistributionSketch.createGroupSketch(100));
+    }
+
+    /**
+     * Adds unique values in the range [from, to) interleaved with 10 "hot"
+     * values, each hot value occurring (to - from) / 100 times.
+     */
+    private static void addSkewedValues(final ValueDistributionSketch sketch, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            sketch.add("unique" + i, 1);
+            if (i % 10 == 0) {
+                sketch.add("hot" + (i / 10 % 10), 1);
+            }
+        }
+    }
+}
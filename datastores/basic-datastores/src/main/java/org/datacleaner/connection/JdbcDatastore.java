@@ -24,7 +24,9 @@ import java.io.ObjectInputStream;
 import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
@@ -55,6 +57,16 @@ public class JdbcDatastore extends UsageAwareDatastore<UpdateableDataContext>
             "datastore.jdbc.connection.pool.idle.timeout";
     public static final String SYSTEM_PROPERTY_CONNECTION_POOL_TIME_BETWEEN_EVICTION_RUNS_MILLIS =
             "datastore.jdbc.connection.pool.eviction.period.millis";
+
+    /**
+     * System property for a query that is used to validate cached schema
+     * metadata (see {@link SchemaMetadataCache}), eg. a query for the time of
+     * the last schema change. The cached metadata is only used if the result
+     * of the query is unchanged. The property can be suffixed with
+     * ".&lt;datastore name&gt;" to configure the query of a single datastore.
+     */
+    public static final String SYSTEM_PROPERTY_SCHEMA_CACHE_VALIDATION_QUERY =
+            "datastore.jdbc.schema.cache.validation.query";
     private static final long serialVersionUID = 1L;
     private static final Logger logger = LoggerFactory.getLogger(JdbcDatastore.class);
 
@@ -290,6 +302,51 @@ public class JdbcDatastore extends UsageAwareDatastore<UpdateableDataContext>
         }
     }
 
+    @Override
+    protected void decorateSchemaMetadataCacheIdentity(final List<Object> identifiers) {
+        super.decorateSchemaMetadataCacheIdentity(identifiers);
+        identifiers.add(_catalogName);
+    }
+
+    @Override
+    protected boolean isSchemaMetadataCacheable() {
+        return !StringUtils.isNullOrEmpty(_jdbcUrl) || !StringUtils.isNullOrEmpty(_datasourceJndiUrl);
+    }
+
+    @Override
+    protected String getSchemaMetadataValidationToken() {
+        final String query = System.getProperty(SYSTEM_PROPERTY_SCHEMA_CACHE_VALIDATION_QUERY + "." + getName(),
+                System.getProperty(SYSTEM_PROPERTY_SCHEMA_CACHE_VALIDATION_QUERY));
+        if (StringUtils.isNullOrEmpty(query)) {
+            return null;
+        }
+
+        try (Connection connection = createValidationConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(query)) {
+            final int columnCount = resultSet.getMetaData().getColumnCount();
+            final StringBuilder sb = new StringBuilder();
+            while (resultSet.next()) {
+                for (int i = 1; i <= columnCount; i++) {
+                    sb.append(resultSet.getString(i));
+                    sb.append('\t');
+                }
+                sb.append('\n');
+            }
+            return sb.toString();
+        } catch (final SQLException | NamingException e) {
+            throw new IllegalStateException("Could not execute schema cache validation query: " + query, e);
+        }
+    }
+
+    private Connection createValidationConnection() throws SQLException, NamingException {
+        if (StringUtils.isNullOrEmpty(_datasourceJndiUrl)) {
+            return createConnection();
+        }
+        final DataSource dataSource = (DataSource) getJndiNamingContext().lookup(_datasourceJndiUrl);
+        return dataSource.getConnection();
+    }
+
     protected Context getJndiNamingContext() throws NamingException {
         return new InitialContext();
     }
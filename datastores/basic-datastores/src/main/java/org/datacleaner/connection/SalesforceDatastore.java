@@ -99,6 +99,11 @@ public class SalesforceDatastore extends UsageAwareDatastore<SalesforceDataConte
         return new PerformanceCharacteristicsImpl(true, false);
     }
 
+    @Override
+    protected boolean isSchemaMetadataCacheable() {
+        return true;
+    }
+
     @Override
     protected UsageAwareDatastoreConnection<SalesforceDataContext> createDatastoreConnection() {
         final SalesforceDataContext dataContext;
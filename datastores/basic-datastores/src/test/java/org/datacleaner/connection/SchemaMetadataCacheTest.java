@@ -0,0 +1,138 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.MutableTable;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.schema.TableType;
+import org.apache.metamodel.util.FileHelper;
+
+import junit.framework.TestCase;
+
+public class SchemaMetadataCacheTest extends TestCase {
+
+    private File _directory;
+    private SchemaMetadataCache _cache;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        _directory = Files.createTempDirectory("schema_metadata_cache").toFile();
+        _cache = new SchemaMetadataCache(_directory);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        final File[] files = _directory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+        _directory.delete();
+    }
+
+    private JdbcDatastore createDatastore(final String name) {
+        return new JdbcDatastore(name, "jdbc:hsqldb:res:orderdb;readonly=true", "org.hsqldb.jdbcDriver") {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected SchemaMetadataCache getSchemaMetadataCache() {
+                return _cache;
+            }
+        };
+    }
+
+    public void testCacheKey() throws Exception {
+        final JdbcDatastore datastore = createDatastore("my orderdb");
+        final String key = datastore.getSchemaMetadataCacheKey();
+        assertTrue(key, key.startsWith("my_orderdb_"));
+        assertEquals(key, createDatastore("my orderdb").getSchemaMetadataCacheKey());
+        assertFalse(key.equals(createDatastore("other").getSchemaMetadataCacheKey()));
+
+        final JdbcDatastore datastoreWithPassword =
+                new JdbcDatastore("my orderdb", "url", "driver", "username", "secret", true);
+        assertFalse(datastoreWithPassword.getSchemaMetadataCacheKey().contains("secret"));
+    }
+
+    public void testRefreshAndUseCachedMetadata() throws Exception {
+        final JdbcDatastore datastore = createDatastore("orderdb");
+        assertFalse(_cache.isCached(datastore));
+
+        _cache.refresh(datastore);
+        assertTrue(_cache.isCached(datastore));
+
+        // a new datastore instance creates a new connection, which gets the cached metadata
+        final JdbcDatastore cachedDatastore = createDatastore("orderdb");
+        try (DatastoreConnection connection = cachedDatastore.openConnection()) {
+            final SchemaNavigator schemaNavigator = connection.getSchemaNavigator();
+            assertTrue(schemaNavigator.isCachedSchemasSet());
+            assertEquals("PUBLIC", schemaNavigator.getDefaultSchema().getName());
+
+            final Table table = schemaNavigator.convertToTable("PUBLIC.EMPLOYEES");
+            assertTrue(table instanceof MutableTable);
+            assertEquals(TableType.TABLE, table.getType());
+
+            final Column column = schemaNavigator.convertToColumn("PUBLIC.EMPLOYEES.EMAIL");
+            assertNotNull(column);
+            assertSame(table, column.getTable());
+
+            final Column liveColumn = connection.getDataContext().getColumnByQualifiedLabel("PUBLIC.EMPLOYEES.EMAIL");
+            assertEquals(liveColumn.getType(), column.getType());
+            assertEquals(liveColumn.getColumnNumber(), column.getColumnNumber());
+            assertEquals(liveColumn.getNativeType(), column.getNativeType());
+
+            // queries can be built on the cached metadata
+            try (DataSet dataSet = connection.getDataContext().query().from(table).selectCount().execute()) {
+                assertTrue(dataSet.next());
+                assertEquals(23, ((Number) dataSet.getRow().getValue(0)).intValue());
+            }
+        }
+    }
+
+    public void testInvalidate() throws Exception {
+        final JdbcDatastore datastore = createDatastore("orderdb");
+        _cache.refresh(datastore);
+        _cache.refresh(createDatastore("orderdb2"));
+
+        assertTrue(_cache.invalidate(datastore));
+        assertFalse(_cache.isCached(datastore));
+        assertFalse(_cache.invalidate(datastore));
+
+        assertEquals(1, _cache.invalidateAll());
+        assertEquals(0, _cache.invalidateAll());
+    }
+
+    public void testUnreadableCacheFileIsIgnored() throws Exception {
+        final JdbcDatastore datastore = createDatastore("orderdb");
+        FileHelper.writeStringAsFile(_cache.getCacheFile(datastore), "foobar");
+
+        try (DatastoreConnection connection = datastore.openConnection()) {
+            assertFalse(connection.getSchemaNavigator().isCachedSchemasSet());
+            assertNotNull(connection.getSchemaNavigator().convertToTable("PUBLIC.EMPLOYEES"));
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.MutableColumn;
+import org.apache.metamodel.schema.MutableSchema;
+import org.apache.metamodel.schema.MutableTable;
+import org.apache.metamodel.schema.Schema;
+import org.apache.metamodel.schema.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An on-disk cache of the schema metadata (schemas, tables and columns) of
+ * datastores where loading the metadata is expensive, eg. databases or
+ * Salesforce.com accounts with thousands of tables.
+ *
+ * When a {@link UsageAwareDatastore} that supports caching creates a
+ * connection, the cached metadata is set on the {@link SchemaNavigator} of the
+ * connection, so that jobs can be built without loading the metadata. The
+ * cached metadata is refreshed in the background when it is missing, has
+ * expired (see {@link #getTimeToLiveMillis()}) or if the validation token of
+ * the datastore (eg. the result of a configured validation query) has changed.
+ *
+ * Relationships between tables are not cached.
+ */
+public class SchemaMetadataCache {
+
+    /**
+     * System property for the directory of the cache. The cache is only
+     * enabled if this property is set.
+     */
+    public static final String SYSTEM_PROPERTY_CACHE_DIRECTORY = "datastore.schema.cache.dir";
+
+    /**
+     * System property for the number of milliseconds after which cached
+     * metadata is refreshed.
+     */
+    public static final String SYSTEM_PROPERTY_TIME_TO_LIVE_MILLIS = "datastore.schema.cache.ttl.millis";
+
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final String FILE_EXTENSION = ".schemacache";
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMetadataCache.class);
+
+    // the cache files that are currently being refreshed (by any cache instance)
+    private static final Set<String> refreshingFiles = ConcurrentHashMap.newKeySet();
+
+    private final File _directory;
+    private final long _timeToLiveMillis;
+
+    public SchemaMetadataCache(final File directory) {
+        this(directory, DEFAULT_TIME_TO_LIVE_MILLIS);
+    }
+
+    public SchemaMetadataCache(final File directory, final long timeToLiveMillis) {
+        _directory = directory;
+        _timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * Gets the cache configured by the system properties
+     * {@link #SYSTEM_PROPERTY_CACHE_DIRECTORY} and
+     * {@link #SYSTEM_PROPERTY_TIME_TO_LIVE_MILLIS}.
+     *
+     * @return the configured cache, or null if no cache is configured
+     */
+    public static SchemaMetadataCache getDefault() {
+        final String directory = System.getProperty(SYSTEM_PROPERTY_CACHE_DIRECTORY);
+        if (directory == null || directory.trim().isEmpty()) {
+            return null;
+        }
+
+        long timeToLiveMillis = DEFAULT_TIME_TO_LIVE_MILLIS;
+        final String timeToLive = System.getProperty(SYSTEM_PROPERTY_TIME_TO_LIVE_MILLIS);
+        if (timeToLive != null) {
+            try {
+                timeToLiveMillis = Long.parseLong(timeToLive.trim());
+            } catch (final NumberFormatException e) {
+                logger.debug("Failed to parse system property '{}': '{}'", SYSTEM_PROPERTY_TIME_TO_LIVE_MILLIS,
+                        timeToLive);
+            }
+        }
+        return new SchemaMetadataCache(new File(directory.trim()), timeToLiveMillis);
+    }
+
+    public File getDirectory() {
+        return _directory;
+    }
+
+    public long getTimeToLiveMillis() {
+        return _timeToLiveMillis;
+    }
+
+    /**
+     * Gets the file that the schema metadata of a datastore is cached in.
+     */
+    public File getCacheFile(final UsageAwareDatastore<?> datastore) {
+        return new File(_directory, datastore.getSchemaMetadataCacheKey() + FILE_EXTENSION);
+    }
+
+    /**
+     * Determines if schema metadata of a datastore is cached.
+     */
+    public boolean isCached(final Datastore datastore) {
+        return datastore instanceof UsageAwareDatastore && getCacheFile((UsageAwareDatastore<?>) datastore).exists();
+    }
+
+    /**
+     * Removes the cached schema metadata of a datastore.
+     *
+     * @return whether any cached metadata was removed
+     */
+    public boolean invalidate(final Datastore datastore) {
+        if (!(datastore instanceof UsageAwareDatastore)) {
+            return false;
+        }
+        final File file = getCacheFile((UsageAwareDatastore<?>) datastore);
+        return file.exists() && file.delete();
+    }
+
+    /**
+     * Removes the cached schema metadata of all datastores.
+     *
+     * @return the number of datastores that cached metadata was removed for
+     */
+    public int invalidateAll() {
+        final File[] files = _directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (files == null) {
+            return 0;
+        }
+        int count = 0;
+        for (final File file : files) {
+            if (file.delete()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets the cached schema metadata of a datastore on a newly created
+     * connection, and schedules a refresh of the cache if necessary.
+     */
+    void attach(final UsageAwareDatastore<?> datastore, final DatastoreConnection connection) {
+        final CacheEntry entry = read(getCacheFile(datastore));
+        if (entry == null) {
+            scheduleRefresh(datastore);
+            return;
+        }
+
+        final String validationToken;
+        try {
+            validationToken = datastore.getSchemaMetadataValidationToken();
+        } catch (final RuntimeException e) {
+            logger.warn("Could not validate cached schema metadata of datastore '{}'", datastore.getName(), e);
+            scheduleRefresh(datastore);
+            return;
+        }
+
+        if (validationToken != null && !validationToken.equals(entry._validationToken)) {
+            logger.info("Cached schema metadata of datastore '{}' is outdated", datastore.getName());
+            scheduleRefresh(datastore);
+            return;
+        }
+
+        logger.debug("Using cached schema metadata of datastore '{}'", datastore.getName());
+        connection.getSchemaNavigator().setCachedSchemas(entry._schemas, entry._defaultSchemaName);
+
+        if (System.currentTimeMillis() - entry._created > _timeToLiveMillis) {
+            scheduleRefresh(datastore);
+        }
+    }
+
+    private void scheduleRefresh(final UsageAwareDatastore<?> datastore) {
+        final String path = getCacheFile(datastore).getAbsolutePath();
+        if (!refreshingFiles.add(path)) {
+            return;
+        }
+
+        // not a daemon thread, so that short running processes still leave a
+        // usable cache behind
+        final Thread thread = new Thread(() -> {
+            try {
+                refresh(datastore);
+            } catch (final RuntimeException e) {
+                logger.warn("Could not refresh cached schema metadata of datastore '{}'", datastore.getName(), e);
+            } finally {
+                refreshingFiles.remove(path);
+            }
+        }, "SchemaMetadataCache[" + datastore.getName() + "]");
+        thread.start();
+    }
+
+    /**
+     * Loads the schema metadata of a datastore and writes it to the cache.
+     */
+    public void refresh(final UsageAwareDatastore<?> datastore) {
+        logger.info("Refreshing cached schema metadata of datastore '{}'", datastore.getName());
+
+        // the validation token is determined before the metadata is loaded, so
+        // that changes while loading will be detected the next time
+        final String validationToken = datastore.getSchemaMetadataValidationToken();
+
+        final List<Schema> schemas = new ArrayList<>();
+        final String defaultSchemaName;
+        try (DatastoreConnection connection = datastore.openConnection()) {
+            final DataContext dataContext = connection.getDataContext();
+            for (final Schema schema : dataContext.getSchemas()) {
+                schemas.add(copySchema(schema));
+            }
+            final Schema defaultSchema = dataContext.getDefaultSchema();
+            defaultSchemaName = defaultSchema == null ? null : defaultSchema.getName();
+        }
+
+        write(getCacheFile(datastore),
+                new CacheEntry(System.currentTimeMillis(), validationToken, defaultSchemaName, schemas));
+    }
+
+    private static Schema copySchema(final Schema schema) {
+        final CachedSchema schemaCopy = new CachedSchema(schema.getName(), schema.getQuote());
+        for (final Table table : schema.getTables()) {
+            final MutableTable tableCopy = new MutableTable(table.getName(), table.getType(), schemaCopy);
+            tableCopy.setRemarks(table.getRemarks());
+            for (final Column column : table.getColumns()) {
+                final MutableColumn columnCopy = new MutableColumn(column.getName(), column.getType(), tableCopy,
+                        column.getColumnNumber(), column.isNullable());
+                columnCopy.setNativeType(column.getNativeType());
+                columnCopy.setColumnSize(column.getColumnSize());
+                columnCopy.setRemarks(column.getRemarks());
+                columnCopy.setPrimaryKey(column.isPrimaryKey());
+                columnCopy.setIndexed(column.isIndexed());
+                columnCopy.setQuote(column.getQuote());
+                tableCopy.addColumn(columnCopy);
+            }
+            schemaCopy.addTable(tableCopy);
+        }
+        return schemaCopy;
+    }
+
+    private void write(final File file, final CacheEntry entry) {
+        if (!_directory.exists() && !_directory.mkdirs()) {
+            throw new IllegalStateException("Could not create schema metadata cache directory: " + _directory);
+        }
+
+        // write to a temporary file first, so that other processes never read
+        // a partially written cache file
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile(file.getName(), ".tmp", _directory);
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeObject(entry);
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException e) {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            throw new IllegalStateException("Could not write schema metadata cache file: " + file, e);
+        }
+    }
+
+    private static CacheEntry read(final File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (ObjectInputStream in = new CacheObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (CacheEntry) in.readObject();
+        } catch (final IOException | ClassNotFoundException | ClassCastException e) {
+            // eg. written by an incompatible version, the cache will be refreshed
+            logger.warn("Could not read schema metadata cache file: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * The contents of a cache file.
+     */
+    private static final class CacheEntry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long _created;
+        private final String _validationToken;
+        private final String _defaultSchemaName;
+        private final List<Schema> _schemas;
+
+        private CacheEntry(final long created, final String validationToken, final String defaultSchemaName,
+                final List<Schema> schemas) {
+            _created = created;
+            _validationToken = validationToken;
+            _defaultSchemaName = defaultSchemaName;
+            _schemas = schemas;
+        }
+    }
+
+    /**
+     * A cached schema, which keeps the quote string of the original schema.
+     */
+    private static final class CachedSchema extends MutableSchema {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String _quote;
+
+        private CachedSchema(final String name, final String quote) {
+            super(name);
+            _quote = quote;
+        }
+
+        @Override
+        public String getQuote() {
+            return _quote;
+        }
+    }
+
+    /**
+     * Only allows the classes of cached metadata to be deserialized.
+     */
+    private static final class CacheObjectInputStream extends ObjectInputStream {
+
+        private CacheObjectInputStream(final InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            final String name = desc.getName();
+            if (name.startsWith("java.") || name.startsWith("[") || name.startsWith("org.apache.metamodel.")
+                    || name.startsWith(SchemaMetadataCache.class.getName())) {
+                return super.resolveClass(desc);
+            }
+            throw new InvalidClassException(name, "Not allowed in schema metadata cache");
+        }
+    }
+}
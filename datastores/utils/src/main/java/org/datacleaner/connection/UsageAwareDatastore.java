@@ -23,6 +23,11 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.metamodel.DataContext;
@@ -117,6 +122,13 @@ public abstract class UsageAwareDatastore<E extends DataContext> extends BaseObj
         }
         _datastoreConnectionRef = new WeakReference<>(datastoreConnection);
 
+        if (isSchemaMetadataCacheable()) {
+            final SchemaMetadataCache schemaMetadataCache = getSchemaMetadataCache();
+            if (schemaMetadataCache != null) {
+                schemaMetadataCache.attach(this, datastoreConnection);
+            }
+        }
+
         return datastoreConnection;
     }
 
@@ -132,6 +144,78 @@ public abstract class UsageAwareDatastore<E extends DataContext> extends BaseObj
 
     protected abstract UsageAwareDatastoreConnection<E> createDatastoreConnection();
 
+    /**
+     * Determines if the schema metadata of this datastore may be cached on
+     * disk by a {@link SchemaMetadataCache}. Datastores where loading the
+     * schema metadata is expensive should override this method.
+     *
+     * @return true if the schema metadata may be cached
+     */
+    protected boolean isSchemaMetadataCacheable() {
+        return false;
+    }
+
+    /**
+     * Gets the cache of schema metadata to use for this datastore, if the
+     * datastore is cacheable.
+     *
+     * @return the cache, or null if no cache is configured
+     */
+    protected SchemaMetadataCache getSchemaMetadataCache() {
+        return SchemaMetadataCache.getDefault();
+    }
+
+    /**
+     * Gets a token that changes when the schema metadata of this datastore
+     * changes. Cached schema metadata is only used if the token has not
+     * changed since the metadata was cached.
+     *
+     * @return a validation token, or null if cached schema metadata should
+     *         only expire by time
+     */
+    protected String getSchemaMetadataValidationToken() {
+        return null;
+    }
+
+    /**
+     * Adds the identifiers that determine which schema metadata the datastore
+     * has. Defaults to the identity of the datastore.
+     */
+    protected void decorateSchemaMetadataCacheIdentity(final List<Object> identifiers) {
+        decorateIdentity(identifiers);
+    }
+
+    /**
+     * Gets the key that identifies the cached schema metadata of this
+     * datastore. The key is made from the name and a digest of the identity of
+     * the datastore (which may contain credentials).
+     */
+    final String getSchemaMetadataCacheKey() {
+        final List<Object> identifiers = new ArrayList<>();
+        decorateSchemaMetadataCacheIdentity(identifiers);
+
+        final StringBuilder identity = new StringBuilder(getClass().getName());
+        for (final Object identifier : identifiers) {
+            identity.append('\n');
+            identity.append(Arrays.deepToString(new Object[] { identifier }));
+        }
+
+        final byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(identity.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        final StringBuilder key = new StringBuilder();
+        key.append(String.valueOf(getName()).replaceAll("[^A-Za-z0-9_\\-]", "_"));
+        key.append('_');
+        for (int i = 0; i < 16; i++) {
+            key.append(String.format("%02x", digest[i]));
+        }
+        return key.toString();
+    }
+
     @Override
     protected void decorateIdentity(final List<Object> identifiers) {
         identifiers.add(getName());
@@ -68,6 +68,9 @@ public class CliArguments {
     private String outputFile;
     @Option(name = "-v", aliases = { "-var", "--variable" }, multiValued = true)
     private Map<String, String> variableOverrides;
+    @Option(name = "-invalidatecache", aliases = { "--invalidate-schema-cache" },
+            usage = "Removes the cached schema metadata of the datastore given by -ds, or of all datastores")
+    private boolean invalidateSchemaCache;
     private boolean usageMode;
     private boolean versionMode;
 
@@ -186,6 +189,10 @@ public class CliArguments {
         return versionMode;
     }
 
+    public boolean isInvalidateSchemaCache() {
+        return invalidateSchemaCache;
+    }
+
     public String getPropertiesFile() {
         return propertiesFile;
     }
@@ -223,6 +230,9 @@ public class CliArguments {
         if (getListType() != null) {
             return true;
         }
+        if (isInvalidateSchemaCache()) {
+            return true;
+        }
         return false;
     }
 }
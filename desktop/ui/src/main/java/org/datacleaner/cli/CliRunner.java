@@ -37,7 +37,6 @@ import java.util.function.Supplier;
 
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
-import org.apache.metamodel.DataContext;
 import org.apache.metamodel.schema.Schema;
 import org.apache.metamodel.schema.Table;
 import org.apache.metamodel.util.FileHelper;
@@ -50,6 +49,8 @@ import org.datacleaner.configuration.DataCleanerConfigurationImpl;
 import org.datacleaner.configuration.JaxbConfigurationReader;
 import org.datacleaner.connection.Datastore;
 import org.datacleaner.connection.DatastoreConnection;
+import org.datacleaner.connection.SchemaMetadataCache;
+import org.datacleaner.connection.SchemaNavigator;
 import org.datacleaner.descriptors.AnalyzerDescriptor;
 import org.datacleaner.descriptors.ComponentDescriptor;
 import org.datacleaner.descriptors.ConfiguredPropertyDescriptor;
@@ -176,6 +177,10 @@ public final class CliRunner implements Closeable {
         final String jobFilePath = _arguments.getJobFile();
         final CliListType listType = _arguments.getListType();
         try {
+            if (_arguments.isInvalidateSchemaCache()) {
+                invalidateSchemaCache(configuration);
+            }
+
             if (jobFilePath != null) {
                 runJob(configuration);
             } else if (listType != null) {
@@ -204,7 +209,7 @@ public final class CliRunner implements Closeable {
                 default:
                     throw new IllegalArgumentException("Unknown list type: " + listType);
                 }
-            } else {
+            } else if (!_arguments.isInvalidateSchemaCache()) {
                 throw new IllegalArgumentException(
                         "Neither --job-file nor --list-type is specified. Try running with -usage to see usage help.");
             }
@@ -219,6 +224,30 @@ public final class CliRunner implements Closeable {
         }
     }
 
+    private void invalidateSchemaCache(final DataCleanerConfiguration configuration) {
+        final SchemaMetadataCache schemaMetadataCache = SchemaMetadataCache.getDefault();
+        if (schemaMetadataCache == null) {
+            System.err.println("No schema metadata cache configured (system property '"
+                    + SchemaMetadataCache.SYSTEM_PROPERTY_CACHE_DIRECTORY + "')");
+            return;
+        }
+
+        final String datastoreName = _arguments.getDatastoreName();
+        if (datastoreName == null) {
+            final int count = schemaMetadataCache.invalidateAll();
+            write("Invalidated cached schema metadata of " + count + " datastore(s)");
+        } else {
+            final Datastore ds = configuration.getDatastoreCatalog().getDatastore(datastoreName);
+            if (ds == null) {
+                System.err.println("No such datastore: " + datastoreName);
+            } else if (schemaMetadataCache.invalidate(ds)) {
+                write("Invalidated cached schema metadata of datastore: " + datastoreName);
+            } else {
+                write("No cached schema metadata of datastore: " + datastoreName);
+            }
+        }
+    }
+
     private void printColumns(final DataCleanerConfiguration configuration) {
         final String datastoreName = _arguments.getDatastoreName();
         final String tableName = _arguments.getTableName();
@@ -234,12 +263,12 @@ public final class CliRunner implements Closeable {
                 System.err.println("No such datastore: " + datastoreName);
             } else {
                 final DatastoreConnection con = ds.openConnection();
-                final DataContext dc = con.getDataContext();
+                final SchemaNavigator schemaNavigator = con.getSchemaNavigator();
                 final Schema schema;
                 if (schemaName == null) {
-                    schema = dc.getDefaultSchema();
+                    schema = schemaNavigator.getDefaultSchema();
                 } else {
-                    schema = dc.getSchemaByName(schemaName);
+                    schema = schemaNavigator.getSchemaByName(schemaName);
                 }
                 if (schema == null) {
                     System.err.println("No such schema: " + schemaName);
@@ -273,12 +302,12 @@ public final class CliRunner implements Closeable {
                 System.err.println("No such datastore: " + datastoreName);
             } else {
                 final DatastoreConnection con = ds.openConnection();
-                final DataContext dc = con.getDataContext();
+                final SchemaNavigator schemaNavigator = con.getSchemaNavigator();
                 final Schema schema;
                 if (schemaName == null) {
-                    schema = dc.getDefaultSchema();
+                    schema = schemaNavigator.getDefaultSchema();
                 } else {
-                    schema = dc.getSchemaByName(schemaName);
+                    schema = schemaNavigator.getSchemaByName(schemaName);
                 }
                 if (schema == null) {
                     System.err.println("No such schema: " + schemaName);
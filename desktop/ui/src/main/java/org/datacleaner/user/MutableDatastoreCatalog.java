@@ -26,6 +26,7 @@ import java.util.List;
 import org.datacleaner.configuration.DomConfigurationWriter;
 import org.datacleaner.connection.Datastore;
 import org.datacleaner.connection.DatastoreCatalog;
+import org.datacleaner.reference.ReferenceDataCache;
 import org.datacleaner.util.StringUtils;
 
 /**
@@ -64,6 +65,7 @@ public class MutableDatastoreCatalog implements DatastoreCatalog, Serializable {
     private synchronized void removeDatastore(final Datastore ds, final boolean externalize) {
         final List<Datastore> datastores = _userPreferences.getUserDatastores();
         if (datastores.remove(ds)) {
+            ReferenceDataCache.invalidateDatastore(ds.getName());
             for (final DatastoreChangeListener listener : _listeners) {
                 listener.onRemove(ds);
             }
@@ -90,6 +92,7 @@ public class MutableDatastoreCatalog implements DatastoreCatalog, Serializable {
             }
         }
         datastores.add(ds);
+        ReferenceDataCache.invalidateDatastore(name);
         for (final DatastoreChangeListener listener : _listeners) {
             listener.onAdd(ds);
         }
@@ -64,6 +64,18 @@ public class CliArgumentsTest extends TestCase {
         assertEquals("foo", args.getDatastoreName());
     }
 
+    public void testInvalidateSchemaCache() throws Exception {
+        CliArguments args;
+        args = CliArguments.parse(new String[] { "-invalidatecache", "-ds", "foo" });
+        assertTrue(args.isInvalidateSchemaCache());
+        assertTrue(args.isSet());
+        assertEquals("foo", args.getDatastoreName());
+
+        args = CliArguments.parse(new String[] { "--invalidate-schema-cache" });
+        assertTrue(args.isInvalidateSchemaCache());
+        assertTrue(args.isSet());
+    }
+
     public void testVariableOverrides() throws Exception {
         final CliArguments args;
         args = CliArguments.parse("-job myjob.xml -conf conf.xml -var foo=bar -v bar=c:\\foo\bar\baz.csv".split(" "));
@@ -0,0 +1,199 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.beans.NumberAnalyzer;
+import org.datacleaner.beans.NumberAnalyzerResult;
+import org.datacleaner.beans.valuedist.ValueDistributionAnalyzer;
+import org.datacleaner.beans.valuedist.ValueDistributionAnalyzerResult;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.DataCleanerConfigurationImpl;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.AnalyzerJob;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.job.builder.AnalysisJobBuilder;
+import org.datacleaner.job.builder.AnalyzerComponentBuilder;
+import org.datacleaner.result.ValueFrequency;
+import org.datacleaner.test.TestHelper;
+import org.datacleaner.util.SystemProperties;
+
+import junit.framework.TestCase;
+
+public class QueryAggregatePushdownTest extends TestCase {
+
+    private final Datastore datastore = TestHelper.createSampleDatabaseDatastore("orderdb");
+    private final DataCleanerConfiguration configuration =
+            new DataCleanerConfigurationImpl().withDatastores(datastore);
+
+    private AnalysisJob job;
+    private AnalyzerJob numberAnalyzerJob;
+    private AnalyzerJob valueDistAnalyzerJob;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        try (AnalysisJobBuilder ajb = new AnalysisJobBuilder(configuration)) {
+            ajb.setDatastore(datastore);
+            ajb.addSourceColumns("PUBLIC.ORDERFACT.QUANTITYORDERED", "PUBLIC.ORDERFACT.PRICEEACH",
+                    "PUBLIC.ORDERFACT.PRODUCTCODE");
+
+            final AnalyzerComponentBuilder<NumberAnalyzer> numberAnalyzer = ajb.addAnalyzer(NumberAnalyzer.class);
+            numberAnalyzer.addInputColumn(ajb.getSourceColumnByName("QUANTITYORDERED"));
+            numberAnalyzer.addInputColumn(ajb.getSourceColumnByName("PRICEEACH"));
+            numberAnalyzer.setConfiguredProperty("Descriptive statistics", true);
+            // a sketch large enough to stay exact, so that the medians are comparable
+            numberAnalyzer.setConfiguredProperty("Approximate descriptive statistics", true);
+            numberAnalyzer.setConfiguredProperty("Sketch accuracy", 4000);
+            numberAnalyzer.setConfiguredProperty("Record drill-down information", false);
+
+            final AnalyzerComponentBuilder<ValueDistributionAnalyzer> valueDistAnalyzer =
+                    ajb.addAnalyzer(ValueDistributionAnalyzer.class);
+            valueDistAnalyzer.addInputColumn(ajb.getSourceColumnByName("PRODUCTCODE"));
+            valueDistAnalyzer.setConfiguredProperty(ValueDistributionAnalyzer.PROPERTY_RECORD_DRILL_DOWN_INFORMATION,
+                    false);
+
+            job = ajb.toAnalysisJob();
+            numberAnalyzerJob = job.getAnalyzerJobs().get(0);
+            valueDistAnalyzerJob = job.getAnalyzerJobs().get(1);
+        }
+    }
+
+    public void testSameResultsWithAndWithoutPushdown() throws Throwable {
+        final Map<ComponentJob, ComponentMetrics> streamedMetrics = new ConcurrentHashMap<>();
+        final Map<ComponentJob, ComponentMetrics> aggregatedMetrics = new ConcurrentHashMap<>();
+        final AnalysisResultFuture streamed = run(false, streamedMetrics);
+        final AnalysisResultFuture aggregated = run(true, aggregatedMetrics);
+
+        // the analyzers are invoked once per record when streamed, and once per
+        // distinct combination of values when fed from the aggregate query
+        for (final AnalyzerJob analyzerJob : job.getAnalyzerJobs()) {
+            assertEquals(2996, streamedMetrics.get(analyzerJob).getInvocationCount());
+            final long aggregatedInvocations = aggregatedMetrics.get(analyzerJob).getInvocationCount();
+            assertTrue("Analyzer " + analyzerJob + " was not fed from an aggregate query: " + aggregatedInvocations,
+                    aggregatedInvocations > 0 && aggregatedInvocations < 2996);
+        }
+
+        final NumberAnalyzerResult streamedNumbers =
+                (NumberAnalyzerResult) streamed.getResult(numberAnalyzerJob);
+        final NumberAnalyzerResult aggregatedNumbers =
+                (NumberAnalyzerResult) aggregated.getResult(numberAnalyzerJob);
+        for (final InputColumn<? extends Number> column : streamedNumbers.getColumns()) {
+            assertEquals(streamedNumbers.getRowCount(column), aggregatedNumbers.getRowCount(column));
+            assertEquals(streamedNumbers.getNullCount(column), aggregatedNumbers.getNullCount(column));
+            assertEquals(streamedNumbers.getHighestValue(column), aggregatedNumbers.getHighestValue(column));
+            assertEquals(streamedNumbers.getLowestValue(column), aggregatedNumbers.getLowestValue(column));
+            assertEquals(streamedNumbers.getSum(column).doubleValue(),
+                    aggregatedNumbers.getSum(column).doubleValue(), 0.0001);
+            assertEquals(streamedNumbers.getMean(column).doubleValue(),
+                    aggregatedNumbers.getMean(column).doubleValue(), 0.0001);
+            assertEquals(streamedNumbers.getVariance(column).doubleValue(),
+                    aggregatedNumbers.getVariance(column).doubleValue(), 0.0001);
+            assertEquals(streamedNumbers.getMedian(column), aggregatedNumbers.getMedian(column));
+        }
+
+        final ValueDistributionAnalyzerResult streamedValues =
+                (ValueDistributionAnalyzerResult) streamed.getResult(valueDistAnalyzerJob);
+        final ValueDistributionAnalyzerResult aggregatedValues =
+                (ValueDistributionAnalyzerResult) aggregated.getResult(valueDistAnalyzerJob);
+        assertEquals(2996, aggregatedValues.getTotalCount());
+        assertEquals(streamedValues.getTotalCount(), aggregatedValues.getTotalCount());
+        assertEquals(streamedValues.getNullCount(), aggregatedValues.getNullCount());
+        assertEquals(streamedValues.getDistinctCount(), aggregatedValues.getDistinctCount());
+        assertEquals(streamedValues.getUniqueCount(), aggregatedValues.getUniqueCount());
+        for (final ValueFrequency valueFrequency : streamedValues.getValueCounts()) {
+            if (!valueFrequency.isComposite()) {
+                assertEquals(Integer.valueOf(valueFrequency.getCount()),
+                        aggregatedValues.getCount(valueFrequency.getValue()));
+            }
+        }
+    }
+
+    public void testNotPushedDownWhenRecordingDrillDownInformation() throws Throwable {
+        final AnalysisJob drillDownJob;
+        try (AnalysisJobBuilder ajb = new AnalysisJobBuilder(configuration)) {
+            ajb.setDatastore(datastore);
+            ajb.addSourceColumns("PUBLIC.ORDERFACT.QUANTITYORDERED");
+            ajb.addAnalyzer(NumberAnalyzer.class).addInputColumn(ajb.getSourceColumnByName("QUANTITYORDERED"));
+            drillDownJob = ajb.toAnalysisJob();
+        }
+
+        final Map<ComponentJob, ComponentMetrics> metrics = new ConcurrentHashMap<>();
+        final AnalysisResultFuture result = run(drillDownJob, true, metrics);
+
+        final AnalyzerJob analyzerJob = drillDownJob.getAnalyzerJobs().get(0);
+        assertEquals(2996, metrics.get(analyzerJob).getInvocationCount());
+        final NumberAnalyzerResult numberResult = (NumberAnalyzerResult) result.getResult(analyzerJob);
+        final InputColumn<? extends Number> column = numberResult.getColumns()[0];
+        assertEquals(2996, numberResult.getRowCount(column).intValue());
+    }
+
+    public void testNotPushedDownWithExactDescriptiveStatistics() throws Throwable {
+        final AnalysisJob exactJob;
+        try (AnalysisJobBuilder ajb = new AnalysisJobBuilder(configuration)) {
+            ajb.setDatastore(datastore);
+            ajb.addSourceColumns("PUBLIC.ORDERFACT.QUANTITYORDERED");
+            final AnalyzerComponentBuilder<NumberAnalyzer> numberAnalyzer = ajb.addAnalyzer(NumberAnalyzer.class);
+            numberAnalyzer.addInputColumn(ajb.getSourceColumnByName("QUANTITYORDERED"));
+            numberAnalyzer.setConfiguredProperty("Descriptive statistics", true);
+            numberAnalyzer.setConfiguredProperty("Record drill-down information", false);
+            exactJob = ajb.toAnalysisJob();
+        }
+
+        final Map<ComponentJob, ComponentMetrics> metrics = new ConcurrentHashMap<>();
+        run(exactJob, true, metrics);
+
+        assertEquals(2996, metrics.get(exactJob.getAnalyzerJobs().get(0)).getInvocationCount());
+    }
+
+    private AnalysisResultFuture run(final boolean pushdown, final Map<ComponentJob, ComponentMetrics> metrics)
+            throws Throwable {
+        return run(job, pushdown, metrics);
+    }
+
+    private AnalysisResultFuture run(final AnalysisJob analysisJob, final boolean pushdown,
+            final Map<ComponentJob, ComponentMetrics> metrics) throws Throwable {
+        final AnalysisListener listener = new AnalysisListenerAdaptor() {
+            @Override
+            public void componentMetrics(final AnalysisJob job, final ComponentJob componentJob,
+                    final ComponentMetrics componentMetrics) {
+                metrics.put(componentJob, componentMetrics);
+            }
+        };
+
+        System.setProperty(SystemProperties.QUERY_AGGREGATE_PUSHDOWN, Boolean.toString(pushdown));
+        System.setProperty(SystemProperties.ROW_PROCESSING_INSTRUMENTATION, "true");
+        try {
+            final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(configuration, listener).run(analysisJob);
+            resultFuture.await();
+            if (!resultFuture.isSuccessful()) {
+                throw resultFuture.getErrors().get(0);
+            }
+            return resultFuture;
+        } finally {
+            System.clearProperty(SystemProperties.QUERY_AGGREGATE_PUSHDOWN);
+            System.clearProperty(SystemProperties.ROW_PROCESSING_INSTRUMENTATION);
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.datacleaner.job.runner;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.schema.Column;
@@ -34,6 +35,7 @@ import org.datacleaner.beans.filter.NullCheckFilter;
 import org.datacleaner.beans.filter.NullCheckFilter.NullCheckCategory;
 import org.datacleaner.beans.standardize.EmailStandardizerTransformer;
 import org.datacleaner.beans.stringpattern.PatternFinderAnalyzer;
+import org.datacleaner.beans.valuedist.ValueDistributionAnalyzer;
 import org.datacleaner.components.maxrows.MaxRowsFilter;
 import org.datacleaner.configuration.DataCleanerConfiguration;
 import org.datacleaner.configuration.DataCleanerConfigurationImpl;
@@ -56,6 +58,7 @@ import org.datacleaner.job.concurrent.SingleThreadedTaskRunner;
 import org.datacleaner.job.concurrent.TaskRunner;
 import org.datacleaner.lifecycle.LifeCycleHelper;
 import org.datacleaner.test.TestHelper;
+import org.datacleaner.util.SystemProperties;
 
 import junit.framework.TestCase;
 
@@ -256,6 +259,67 @@ public class RowProcessingQueryOptimizerTest extends TestCase {
         assertFalse(optimizer.isOptimizable());
     }
 
+    public void testAggregateQueryPushdown() throws Exception {
+        final AnalyzerComponentBuilder<ValueDistributionAnalyzer> valueDistBuilder =
+                ajb.addAnalyzer(ValueDistributionAnalyzer.class);
+        valueDistBuilder.addInputColumn(lastNameInputColumn);
+        valueDistBuilder.setConfiguredProperty(ValueDistributionAnalyzer.PROPERTY_RECORD_DRILL_DOWN_INFORMATION,
+                false);
+        publisher = createPublisher();
+        consumers.add(createConsumer(stringAnalyzerBuilder, publisher));
+        consumers.add(createConsumer(valueDistBuilder, publisher));
+
+        System.setProperty(SystemProperties.QUERY_AGGREGATE_PUSHDOWN, "true");
+        try {
+            final RowProcessingQueryOptimizer optimizer =
+                    new RowProcessingQueryOptimizerImpl(datastore, consumers, baseQuery);
+            assertTrue(optimizer.isOptimizable());
+
+            final Map<AnalyzerConsumer, Query> aggregateQueries = optimizer.getAggregateQueries();
+            assertEquals(1, aggregateQueries.size());
+            assertSame(consumers.get(1), aggregateQueries.keySet().iterator().next());
+            assertEquals("SELECT \"EMPLOYEES\".\"LASTNAME\", COUNT(*) FROM PUBLIC.\"EMPLOYEES\" "
+                    + "GROUP BY \"EMPLOYEES\".\"LASTNAME\"", aggregateQueries.values().iterator().next().toSql());
+
+            final List<RowProcessingConsumer> optimizedConsumers = optimizer.getOptimizedConsumers();
+            assertEquals(1, optimizedConsumers.size());
+            assertSame(consumers.get(0), optimizedConsumers.get(0));
+        } finally {
+            System.clearProperty(SystemProperties.QUERY_AGGREGATE_PUSHDOWN);
+        }
+    }
+
+    public void testNoAggregateQueryPushdownWithDrillDownOrMaxRows() throws Exception {
+        final AnalyzerComponentBuilder<ValueDistributionAnalyzer> valueDistBuilder =
+                ajb.addAnalyzer(ValueDistributionAnalyzer.class);
+        valueDistBuilder.addInputColumn(lastNameInputColumn);
+        publisher = createPublisher();
+        consumers.add(createConsumer(valueDistBuilder, publisher));
+
+        System.setProperty(SystemProperties.QUERY_AGGREGATE_PUSHDOWN, "true");
+        try {
+            // drill-down information requires the complete records
+            RowProcessingQueryOptimizer optimizer =
+                    new RowProcessingQueryOptimizerImpl(datastore, consumers, baseQuery);
+            assertTrue(optimizer.getAggregateQueries().isEmpty());
+            assertFalse(optimizer.isOptimizable());
+
+            valueDistBuilder.setConfiguredProperty(ValueDistributionAnalyzer.PROPERTY_RECORD_DRILL_DOWN_INFORMATION,
+                    false);
+            valueDistBuilder.setRequirement(maxRowsBuilder, MaxRowsFilter.Category.VALID);
+            consumers.clear();
+            publisher = createPublisher();
+            consumers.add(createConsumer(maxRowsBuilder, publisher));
+            consumers.add(createConsumer(valueDistBuilder, publisher));
+
+            // an aggregate would not reflect the limited set of rows
+            optimizer = new RowProcessingQueryOptimizerImpl(datastore, consumers, baseQuery);
+            assertTrue(optimizer.getAggregateQueries().isEmpty());
+        } finally {
+            System.clearProperty(SystemProperties.QUERY_AGGREGATE_PUSHDOWN);
+        }
+    }
+
     private FilterConsumer createConsumer(final FilterComponentBuilder<?, ?> filterJobBuilder,
             final RowProcessingPublisher publisher) {
         final FilterJob filterJob = filterJobBuilder.toFilterJob();
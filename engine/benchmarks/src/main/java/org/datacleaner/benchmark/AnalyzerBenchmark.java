@@ -0,0 +1,137 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.datacleaner.api.InputRow;
+import org.datacleaner.beans.stringpattern.PatternFinderAnalyzer;
+import org.datacleaner.beans.valuedist.ValueDistributionAnalyzer;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.storage.RowAnnotations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the row processing of core analyzers. Each analyzer is
+ * benchmarked on a single thread and on all available processors, sharing one
+ * analyzer instance as in a multithreaded job, to show how it scales with the
+ * number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    /**
+     * The position of each thread in the rows.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int _index;
+
+        @Setup
+        public void setUp() {
+            // let the threads start at different rows
+            _index = (int) (Thread.currentThread().getId() * 7919) & (ROW_COUNT - 1);
+        }
+
+        private InputRow next(final InputRow[] rows) {
+            final InputRow row = rows[_index];
+            _index = (_index + 1) & (ROW_COUNT - 1);
+            return row;
+        }
+    }
+
+    private static final int ROW_COUNT = 64 * 1024;
+
+    @Param("10000")
+    public int cardinality;
+
+    private final MockInputColumn<String> _valueColumn = new MockInputColumn<>("value", String.class);
+    private final MockInputColumn<String> _textColumn = new MockInputColumn<>("text", String.class);
+    private InputRow[] _rows;
+    private ValueDistributionAnalyzer _valueDistributionAnalyzer;
+    private PatternFinderAnalyzer _patternFinderAnalyzer;
+
+    @Setup(Level.Trial)
+    public void createRows() {
+        final Random random = BenchmarkData.createRandom();
+        _rows = new InputRow[ROW_COUNT];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            final Object[] record = BenchmarkData.createCustomerRecord(random, i);
+            final String value = "value" + random.nextInt(cardinality);
+            // mix names, cities and amounts to get a variety of patterns
+            final String text = record[1 + i % 3].toString();
+            _rows[i] = new MockInputRow(i).put(_valueColumn, value).put(_textColumn, text);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createAnalyzers() {
+        _valueDistributionAnalyzer = new ValueDistributionAnalyzer(_valueColumn, true);
+
+        _patternFinderAnalyzer = new PatternFinderAnalyzer();
+        _patternFinderAnalyzer.setRowAnnotationFactory(RowAnnotations.getDefaultFactory());
+        _patternFinderAnalyzer.setColumn(_textColumn);
+        _patternFinderAnalyzer.init();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void valueDistribution(final Cursor cursor) {
+        _valueDistributionAnalyzer.run(cursor.next(_rows), 1);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void valueDistributionConcurrent(final Cursor cursor) {
+        _valueDistributionAnalyzer.run(cursor.next(_rows), 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void patternFinder(final Cursor cursor) {
+        _patternFinderAnalyzer.run(cursor.next(_rows), 1);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void patternFinderConcurrent(final Cursor cursor) {
+        _patternFinderAnalyzer.run(cursor.next(_rows), 1);
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.metamodel.pojo.ArrayTableDataProvider;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.SimpleTableDef;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.connection.DatastoreConnection;
+import org.datacleaner.connection.PojoDatastore;
+
+/**
+ * Generator of the synthetic data used by the benchmarks.
+ *
+ * All data is generated from a fixed random seed, so that the benchmarks work
+ * on the same data in every run. The generated records have the columns
+ * {@link #CUSTOMER_COLUMNS}: a sequential id, a random name, a city drawn from
+ * a limited set of values and an amount formatted as a decimal string.
+ */
+final class BenchmarkData {
+
+    public static final String CUSTOMER_TABLE = "customers";
+
+    public static final String[] CUSTOMER_COLUMNS = { "id", "name", "city", "amount" };
+
+    private static final long SEED = 42;
+
+    private static final int CITY_COUNT = 500;
+
+    private BenchmarkData() {
+        // prevent instantiation
+    }
+
+    public static Random createRandom() {
+        return new Random(SEED);
+    }
+
+    /**
+     * Creates a random word of lower case letters, starting with an upper case
+     * letter.
+     *
+     * @param random
+     * @param minLength
+     * @param maxLength
+     * @return
+     */
+    public static String createWord(final Random random, final int minLength, final int maxLength) {
+        final int length = minLength + random.nextInt(maxLength - minLength + 1);
+        final char[] chars = new char[length];
+        chars[0] = (char) ('A' + random.nextInt(26));
+        for (int i = 1; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Creates a list of distinct random words.
+     *
+     * @param count
+     * @return
+     */
+    public static List<String> createWords(final int count) {
+        final Random random = createRandom();
+        final List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // the suffix makes the words distinct
+            words.add(createWord(random, 3, 10) + Integer.toString(i, 36));
+        }
+        return words;
+    }
+
+    public static Object[] createCustomerRecord(final Random random, final int id) {
+        final String name = createWord(random, 4, 10) + " " + createWord(random, 4, 12);
+        final String city = "City " + random.nextInt(CITY_COUNT);
+        final String amount = random.nextInt(100000) + "." + (10 + random.nextInt(90));
+        return new Object[] { id, name, city, amount };
+    }
+
+    public static List<Object[]> createCustomerRecords(final int rows) {
+        final Random random = createRandom();
+        final List<Object[]> records = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            records.add(createCustomerRecord(random, i));
+        }
+        return records;
+    }
+
+    /**
+     * Creates an in-memory datastore with a table of customer records.
+     *
+     * @param name
+     * @param rows
+     * @return
+     */
+    public static PojoDatastore createPojoDatastore(final String name, final int rows) {
+        final SimpleTableDef tableDef = new SimpleTableDef(CUSTOMER_TABLE, CUSTOMER_COLUMNS);
+        return new PojoDatastore(name, new ArrayTableDataProvider(tableDef, createCustomerRecords(rows)));
+    }
+
+    /**
+     * Writes customer records to a temporary CSV file, which is deleted on
+     * exit.
+     *
+     * @param rows
+     * @return
+     * @throws IOException
+     */
+    public static File createCsvFile(final int rows) throws IOException {
+        final File file = File.createTempFile(CUSTOMER_TABLE, ".csv");
+        file.deleteOnExit();
+
+        final Random random = createRandom();
+        try (Writer writer = FileHelper.getBufferedWriter(file, FileHelper.UTF_8_ENCODING)) {
+            writer.write(String.join(",", CUSTOMER_COLUMNS));
+            writer.write('\n');
+            for (int i = 0; i < rows; i++) {
+                final Object[] record = createCustomerRecord(random, i);
+                for (int j = 0; j < record.length; j++) {
+                    if (j != 0) {
+                        writer.write(',');
+                    }
+                    writer.write('"');
+                    writer.write(record[j].toString());
+                    writer.write('"');
+                }
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Creates and fills a table of customer records in a database.
+     *
+     * @param connection
+     * @param rows
+     * @throws SQLException
+     */
+    public static void createCustomerTable(final Connection connection, final int rows) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + CUSTOMER_TABLE
+                    + " (id INTEGER PRIMARY KEY, name VARCHAR(255), city VARCHAR(255), amount VARCHAR(255))");
+        }
+
+        final Random random = createRandom();
+        try (PreparedStatement statement = connection
+                .prepareStatement("INSERT INTO " + CUSTOMER_TABLE + " VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                final Object[] record = createCustomerRecord(random, i);
+                for (int j = 0; j < record.length; j++) {
+                    statement.setObject(j + 1, record[j]);
+                }
+                statement.addBatch();
+                if (i % 1000 == 999) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Gets the (single) table of customer records in a datastore.
+     *
+     * @param datastore
+     * @return
+     */
+    public static Table getCustomerTable(final Datastore datastore) {
+        try (DatastoreConnection connection = datastore.openConnection()) {
+            final List<Table> tables = connection.getDataContext().getDefaultSchema().getTables();
+            if (tables.size() != 1) {
+                throw new IllegalStateException("Expected a single table in " + datastore + ", found: " + tables);
+            }
+            return tables.get(0);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
+
+import org.datacleaner.api.ExpressionBasedInputColumn;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.data.ELInputColumn;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.util.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.odysseus.el.ExpressionFactoryImpl;
+import de.odysseus.el.util.SimpleContext;
+
+/**
+ * Benchmarks the evaluation of EL expressions by {@link ELInputColumn},
+ * compared to the previous approach of building a new context and parsing the
+ * expression for every row ({@link #parsePerRow()}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    private static final int ROW_COUNT = 1024;
+
+    @Param("#{name} lives in #{city}")
+    public String expression;
+
+    private ELInputColumn _column;
+    private ExpressionFactory _factory;
+    private InputRow[] _rows;
+    private int _index;
+
+    @Setup
+    public void setUp() {
+        _column = new ELInputColumn(expression);
+        _factory = new ExpressionFactoryImpl();
+
+        final String[] columnNames = BenchmarkData.CUSTOMER_COLUMNS;
+        final InputColumn<?>[] columns = new InputColumn<?>[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columns[i] = new MockInputColumn<Object>(columnNames[i], i == 0 ? Integer.class : String.class);
+        }
+
+        final List<Object[]> records = BenchmarkData.createCustomerRecords(ROW_COUNT);
+        _rows = new InputRow[ROW_COUNT];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            _rows[i] = new MockInputRow(i, columns, records.get(i));
+        }
+    }
+
+    private InputRow nextRow() {
+        final InputRow row = _rows[_index];
+        _index = (_index + 1) & (ROW_COUNT - 1);
+        return row;
+    }
+
+    @Benchmark
+    public String evaluate() {
+        return _column.evaluate(nextRow());
+    }
+
+    @Benchmark
+    public String parsePerRow() {
+        final InputRow row = nextRow();
+        final SimpleContext context = new SimpleContext();
+        for (final InputColumn<?> inputColumn : row.getInputColumns()) {
+            if (!(inputColumn instanceof ExpressionBasedInputColumn)) {
+                final Object value = row.getValue(inputColumn);
+                final ValueExpression valueExpression =
+                        _factory.createValueExpression(value, inputColumn.getDataType());
+                context.setVariable(StringUtils.replaceWhitespaces(inputColumn.getName(), "_"), valueExpression);
+            }
+        }
+        return (String) _factory.createValueExpression(context, expression, String.class).getValue(context);
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.data.DataSetHeader;
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.data.SimpleDataSetHeader;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.MutableColumn;
+import org.apache.metamodel.schema.MutableTable;
+import org.datacleaner.data.MetaModelInputColumn;
+import org.datacleaner.data.MetaModelInputRow;
+import org.datacleaner.data.MetaModelInputRowLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks reading all the values of wide {@link MetaModelInputRow}s, with
+ * the columns resolved against the header of each row or by the indexes of a
+ * precomputed {@link MetaModelInputRowLayout}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetaModelInputRowBenchmark {
+
+    private static final int ROW_COUNT = 256;
+
+    @Param("200")
+    public int columns;
+
+    @Param({ "header", "layout" })
+    public String resolution;
+
+    private MetaModelInputColumn[] _inputColumns;
+    private Row[] _rows;
+    private MetaModelInputRowLayout _layout;
+    private int _index;
+
+    @Setup
+    public void setUp() {
+        final MutableTable table = new MutableTable("wide");
+        final List<SelectItem> selectItems = new ArrayList<>(columns);
+        final List<MetaModelInputColumn> inputColumns = new ArrayList<>(columns);
+        for (int i = 0; i < columns; i++) {
+            final ColumnType type = i % 4 == 0 ? ColumnType.INTEGER : ColumnType.VARCHAR;
+            final MutableColumn column = new MutableColumn("column" + i, type).setTable(table);
+            table.addColumn(column);
+            selectItems.add(new SelectItem(column));
+            inputColumns.add(new MetaModelInputColumn(column));
+        }
+        _inputColumns = inputColumns.toArray(new MetaModelInputColumn[columns]);
+
+        final DataSetHeader header = new SimpleDataSetHeader(selectItems);
+        final Random random = BenchmarkData.createRandom();
+        _rows = new Row[ROW_COUNT];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            final Object[] values = new Object[columns];
+            for (int j = 0; j < columns; j++) {
+                values[j] = j % 4 == 0 ? random.nextInt() : BenchmarkData.createWord(random, 3, 12);
+            }
+            _rows[i] = new DefaultRow(header, values);
+        }
+
+        _layout = "layout".equals(resolution) ? new MetaModelInputRowLayout(selectItems, inputColumns) : null;
+    }
+
+    @Benchmark
+    public void readAllValues(final Blackhole blackhole) {
+        final int index = _index;
+        _index = (index + 1) & (ROW_COUNT - 1);
+
+        final MetaModelInputRow row = new MetaModelInputRow(index, _rows[index], _layout);
+        for (final MetaModelInputColumn inputColumn : _inputColumns) {
+            blackhole.consume(row.getValue(inputColumn));
+        }
+    }
+}
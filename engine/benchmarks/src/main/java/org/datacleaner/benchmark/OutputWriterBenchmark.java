@@ -0,0 +1,102 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.FileResource;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.output.OutputWriter;
+import org.datacleaner.output.csv.CsvOutputWriterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks writing rows to a CSV file with the {@link OutputWriter} of
+ * {@link CsvOutputWriterFactory}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputWriterBenchmark {
+
+    private static final int ROW_COUNT = 1024;
+
+    private InputColumn<?>[] _columns;
+    private InputRow[] _rows;
+    private File _file;
+    private OutputWriter _outputWriter;
+    private int _index;
+
+    @Setup(Level.Trial)
+    public void createRows() {
+        final String[] columnNames = BenchmarkData.CUSTOMER_COLUMNS;
+        _columns = new InputColumn<?>[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            _columns[i] = new MockInputColumn<>(columnNames[i]);
+        }
+
+        final List<Object[]> records = BenchmarkData.createCustomerRecords(ROW_COUNT);
+        _rows = new InputRow[ROW_COUNT];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            _rows[i] = new MockInputRow(i, _columns, records.get(i));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createOutputWriter() throws IOException {
+        _file = File.createTempFile("output_writer_benchmark", ".csv");
+        _outputWriter = CsvOutputWriterFactory.getWriter(new FileResource(_file), BenchmarkData.CUSTOMER_COLUMNS,
+                FileHelper.UTF_8_ENCODING, ',', '"', '\\', true, _columns);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeOutputWriter() {
+        _outputWriter.close();
+        _file.delete();
+    }
+
+    @Benchmark
+    public void writeRow() {
+        final InputRow row = _rows[_index];
+        _index = (_index + 1) & (ROW_COUNT - 1);
+        _outputWriter.createRow().setValues(row).write();
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.DataCleanerConfigurationImpl;
+import org.datacleaner.reference.DictionaryConnection;
+import org.datacleaner.reference.MultiTermMatcher;
+import org.datacleaner.reference.SimpleDictionary;
+import org.datacleaner.reference.SimpleSynonymCatalog;
+import org.datacleaner.reference.SynonymCatalogConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks lookups in dictionaries and synonym catalogs: single value
+ * lookups, inline replacement of synonyms in sentences and searching
+ * sentences for dictionary terms with a {@link MultiTermMatcher}.
+ *
+ * Half of the looked up values are part of the reference data. Every tenth
+ * synonym consists of two words.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReferenceDataBenchmark {
+
+    private static final int LOOKUP_COUNT = 4096;
+
+    private static final int SENTENCE_WORDS = 8;
+
+    @Param("100000")
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean caseSensitive;
+
+    private DictionaryConnection _dictionaryConnection;
+    private SynonymCatalogConnection _synonymCatalogConnection;
+    private MultiTermMatcher _multiTermMatcher;
+    private String[] _values;
+    private String[] _sentences;
+    private int _index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final List<String> words = BenchmarkData.createWords(size * 2);
+        final List<String> terms = words.subList(0, size);
+
+        final Map<String, String> synonyms = new LinkedHashMap<>();
+        final Map<String, String> termMap = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            final String term = terms.get(i);
+            termMap.put(term, term);
+            if (i % 10 == 0) {
+                synonyms.put(term + " " + words.get(size + i), "MASTER" + i);
+            } else {
+                synonyms.put(term, "MASTER" + i);
+            }
+        }
+
+        final DataCleanerConfiguration configuration = new DataCleanerConfigurationImpl();
+        _dictionaryConnection = new SimpleDictionary("dictionary", terms, caseSensitive).openConnection(configuration);
+        _synonymCatalogConnection =
+                new SimpleSynonymCatalog("synonyms", synonyms, caseSensitive).openConnection(configuration);
+        _multiTermMatcher = new MultiTermMatcher(termMap, caseSensitive);
+
+        // looked up values are drawn from both the terms and the other words,
+        // upper-cased if the lookups are case insensitive
+        final Random random = BenchmarkData.createRandom();
+        _values = new String[LOOKUP_COUNT];
+        _sentences = new String[LOOKUP_COUNT];
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            _values[i] = randomWord(random, words);
+
+            final StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < SENTENCE_WORDS; j++) {
+                if (j != 0) {
+                    sb.append(' ');
+                }
+                sb.append(randomWord(random, words));
+            }
+            _sentences[i] = sb.toString();
+        }
+    }
+
+    private String randomWord(final Random random, final List<String> words) {
+        final String word = words.get(random.nextInt(words.size()));
+        return caseSensitive ? word : word.toUpperCase();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        _dictionaryConnection.close();
+        _synonymCatalogConnection.close();
+    }
+
+    private int nextIndex() {
+        final int index = _index;
+        _index = (index + 1) & (LOOKUP_COUNT - 1);
+        return index;
+    }
+
+    @Benchmark
+    public boolean dictionaryContainsValue() {
+        return _dictionaryConnection.containsValue(_values[nextIndex()]);
+    }
+
+    @Benchmark
+    public String synonymMasterTerm() {
+        return _synonymCatalogConnection.getMasterTerm(_values[nextIndex()]);
+    }
+
+    @Benchmark
+    public SynonymCatalogConnection.Replacement synonymReplaceInline() {
+        return _synonymCatalogConnection.replaceInline(_sentences[nextIndex()]);
+    }
+
+    @Benchmark
+    public List<MultiTermMatcher.Match> multiTermMatcherFindMatches() {
+        return _multiTermMatcher.findMatches(_sentences[nextIndex()]);
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.benchmark;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.datacleaner.beans.NumberAnalyzer;
+import org.datacleaner.beans.valuedist.ValueDistributionAnalyzer;
+import org.datacleaner.components.convert.ConvertToNumberTransformer;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.DataCleanerConfigurationImpl;
+import org.datacleaner.configuration.DataCleanerEnvironmentImpl;
+import org.datacleaner.connection.CsvDatastore;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.connection.JdbcDatastore;
+import org.datacleaner.data.MetaModelInputColumn;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.builder.AnalysisJobBuilder;
+import org.datacleaner.job.builder.TransformerComponentBuilder;
+import org.datacleaner.job.concurrent.MultiThreadedTaskRunner;
+import org.datacleaner.job.runner.AnalysisResultFuture;
+import org.datacleaner.job.runner.AnalysisRunnerImpl;
+import org.datacleaner.result.AnalyzerResult;
+import org.datacleaner.util.SystemProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks complete runs of a small job (a transformer and two analyzers)
+ * on source tables of different datastores. This covers row dispatch from
+ * the source table publisher to the task runner and the consumers, comparing
+ * per-row dispatch to batched dispatch (see
+ * {@link SystemProperties#ROW_PROCESSING_BATCH_SIZE}) and the overhead of
+ * component instrumentation (see
+ * {@link SystemProperties#ROW_PROCESSING_INSTRUMENTATION}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RowProcessingBenchmark {
+
+    private static final String H2_URL = "jdbc:h2:mem:rowprocessingbenchmark;DB_CLOSE_DELAY=-1";
+
+    @Param({ "pojo", "csv", "h2" })
+    public String source;
+
+    @Param({ "1", "1000" })
+    public int batchSize;
+
+    @Param({ "false", "true" })
+    public boolean instrumentation;
+
+    @Param("100000")
+    public int rows;
+
+    private File _csvFile;
+    private MultiThreadedTaskRunner _taskRunner;
+    private DataCleanerConfiguration _configuration;
+    private AnalysisJob _job;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty(SystemProperties.ROW_PROCESSING_BATCH_SIZE, Integer.toString(batchSize));
+        System.setProperty(SystemProperties.ROW_PROCESSING_INSTRUMENTATION, Boolean.toString(instrumentation));
+
+        final Datastore datastore = createDatastore();
+        _taskRunner = new MultiThreadedTaskRunner(Runtime.getRuntime().availableProcessors());
+        _configuration = new DataCleanerConfigurationImpl().withDatastores(datastore)
+                .withEnvironment(new DataCleanerEnvironmentImpl().withTaskRunner(_taskRunner));
+
+        try (AnalysisJobBuilder ajb = new AnalysisJobBuilder(_configuration)) {
+            ajb.setDatastore(datastore);
+            ajb.addSourceColumns(BenchmarkData.getCustomerTable(datastore).getColumns());
+
+            final List<MetaModelInputColumn> sourceColumns = ajb.getSourceColumns();
+            final MetaModelInputColumn cityColumn = sourceColumns.get(2);
+            final MetaModelInputColumn amountColumn = sourceColumns.get(3);
+
+            final TransformerComponentBuilder<ConvertToNumberTransformer> convert =
+                    ajb.addTransformer(ConvertToNumberTransformer.class);
+            convert.addInputColumn(amountColumn);
+
+            ajb.addAnalyzer(ValueDistributionAnalyzer.class).addInputColumn(cityColumn);
+            ajb.addAnalyzer(NumberAnalyzer.class).addInputColumn(convert.getOutputColumns().get(0));
+
+            _job = ajb.toAnalysisJob();
+        }
+    }
+
+    private Datastore createDatastore() throws Exception {
+        switch (source) {
+        case "pojo":
+            return BenchmarkData.createPojoDatastore("pojo", rows);
+        case "csv":
+            _csvFile = BenchmarkData.createCsvFile(rows);
+            return new CsvDatastore("csv", _csvFile.getPath());
+        case "h2":
+            try (Connection connection = DriverManager.getConnection(H2_URL)) {
+                BenchmarkData.createCustomerTable(connection, rows);
+            }
+            return new JdbcDatastore("h2", H2_URL, "org.h2.Driver");
+        default:
+            throw new IllegalArgumentException("Unsupported source: " + source);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        _taskRunner.shutdown();
+        System.clearProperty(SystemProperties.ROW_PROCESSING_BATCH_SIZE);
+        System.clearProperty(SystemProperties.ROW_PROCESSING_INSTRUMENTATION);
+
+        if (_csvFile != null) {
+            _csvFile.delete();
+        }
+        if ("h2".equals(source)) {
+            try (Connection connection = DriverManager.getConnection(H2_URL);
+                    Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+
+    @Benchmark
+    public List<AnalyzerResult> runJob() {
+        final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(_configuration).run(_job);
+        resultFuture.await();
+        if (resultFuture.isErrornous()) {
+            throw new IllegalStateException("Job failed", resultFuture.getErrors().get(0));
+        }
+        return resultFuture.getResults();
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.Resource;
+import org.apache.metamodel.util.ToStringComparator;
+import org.datacleaner.util.sort.SortMergeWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks sorting, deduplicating and writing strings with a
+ * {@link SortMergeWriter}, the way the uniqueness and CSV writer components
+ * use it.
+ *
+ * The default number of strings keeps the benchmark short. To benchmark a
+ * large external sort, run with eg. <code>-p count=50000000</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SortMergeBenchmark {
+
+    @Param("2000000")
+    public int count;
+
+    @Param("50000")
+    public int bufferSize;
+
+    @Param({ "false", "true" })
+    public boolean compressTempFiles;
+
+    private File _outputFile;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        _outputFile = File.createTempFile("sort_merge_benchmark", ".txt");
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        _outputFile.delete();
+    }
+
+    @Benchmark
+    public int sortAndWrite() {
+        final SortMergeWriter<String, Writer> writer =
+                new SortMergeWriter<String, Writer>(bufferSize, ToStringComparator.getComparator()) {
+
+                    @Override
+                    protected Writer createWriter(final Resource resource) {
+                        return FileHelper.getWriter(resource.write(), FileHelper.UTF_8_ENCODING);
+                    }
+
+                    @Override
+                    protected void writeHeader(final Writer writer) throws IOException {
+                        writer.write("value,count\n");
+                    }
+
+                    @Override
+                    protected void writeRow(final Writer writer, final String row, final int count)
+                            throws IOException {
+                        writer.write(row + "," + count + "\n");
+                    }
+                };
+        writer.setCompressTempFiles(compressTempFiles);
+
+        // roughly two thirds of the strings are distinct
+        final Random random = BenchmarkData.createRandom();
+        for (int i = 0; i < count; i++) {
+            writer.append("value" + random.nextInt(count));
+        }
+        return writer.write(_outputFile);
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.beans.valuedist.ValueDistributionAnalyzer;
+import org.datacleaner.components.convert.ConvertToStringTransformer;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.DataCleanerConfigurationImpl;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.data.TransformedInputColumn;
+import org.datacleaner.data.TransformedInputRow;
+import org.datacleaner.data.TransformedInputRowLayout;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.builder.AnalysisJobBuilder;
+import org.datacleaner.job.builder.TransformerComponentBuilder;
+import org.datacleaner.job.runner.AnalysisListenerAdaptor;
+import org.datacleaner.job.runner.ConsumeRowHandler;
+import org.datacleaner.job.runner.ConsumeRowResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a chain of transformers, each consuming the output of the
+ * previous one.
+ *
+ * {@link #consumeRow()} runs a chain of real transformers through a
+ * {@link ConsumeRowHandler}. {@link #transformedInputRow(RowStorage)} isolates
+ * the storage of the transformed values, doing what the transformers of such a
+ * chain do to a {@link TransformedInputRow}, either with values stored in a
+ * map or in the slots of a {@link TransformedInputRowLayout}. Run with
+ * <code>-prof gc</code> to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformerChainBenchmark {
+
+    /**
+     * The rows and columns used by {@link TransformerChainBenchmark#transformedInputRow(RowStorage)}.
+     */
+    @State(Scope.Benchmark)
+    public static class RowStorage {
+
+        @Param({ "map", "layout" })
+        public String storage;
+
+        private InputRow[] _rows;
+        private InputColumn<?> _column;
+        private InputColumn<?>[] _chainColumns;
+        private TransformedInputRowLayout _layout;
+        private int _index;
+
+        @Setup
+        public void setUp(final TransformerChainBenchmark benchmark) {
+            final List<String> names = BenchmarkData.createWords(ROW_COUNT);
+            _column = new MockInputColumn<>("name", String.class);
+            _rows = new InputRow[ROW_COUNT];
+            for (int i = 0; i < ROW_COUNT; i++) {
+                _rows[i] = new MockInputRow(i).put(_column, names.get(i));
+            }
+
+            final List<InputColumn<?>> chainColumns = new ArrayList<>(benchmark.transformers);
+            for (int i = 0; i < benchmark.transformers; i++) {
+                chainColumns.add(new TransformedInputColumn<>("output " + i, "trans-" + i));
+            }
+            _chainColumns = chainColumns.toArray(new InputColumn<?>[chainColumns.size()]);
+            _layout = "layout".equals(storage) ? new TransformedInputRowLayout(chainColumns) : null;
+        }
+
+        private InputRow nextRow() {
+            final InputRow row = _rows[_index];
+            _index = (_index + 1) & (ROW_COUNT - 1);
+            return row;
+        }
+    }
+
+    private static final int ROW_COUNT = 1024;
+
+    @Param("20")
+    public int transformers;
+
+    private ConsumeRowHandler _consumeRowHandler;
+    private InputRow[] _sourceRows;
+    private int _index;
+
+    @Setup
+    public void setUp() {
+        _consumeRowHandler = createConsumeRowHandler(BenchmarkData.createWords(ROW_COUNT));
+    }
+
+    private ConsumeRowHandler createConsumeRowHandler(final List<String> names) {
+        final Datastore datastore = BenchmarkData.createPojoDatastore("pojo", 0);
+        final DataCleanerConfiguration configuration = new DataCleanerConfigurationImpl().withDatastores(datastore);
+
+        final AnalysisJob job;
+        try (AnalysisJobBuilder ajb = new AnalysisJobBuilder(configuration)) {
+            ajb.setDatastore(datastore);
+            ajb.addSourceColumns(BenchmarkData.getCustomerTable(datastore).getColumns());
+            final InputColumn<?> nameColumn = ajb.getSourceColumns().get(1);
+
+            InputColumn<?> column = nameColumn;
+            for (int i = 0; i < transformers; i++) {
+                final TransformerComponentBuilder<ConvertToStringTransformer> transformer =
+                        ajb.addTransformer(ConvertToStringTransformer.class);
+                transformer.addInputColumn(column);
+                column = transformer.getOutputColumns().get(0);
+            }
+
+            // an analyzer is needed for the job to be valid, but it is not
+            // part of the benchmark
+            ajb.addAnalyzer(ValueDistributionAnalyzer.class).addInputColumn(column);
+
+            job = ajb.toAnalysisJob();
+
+            _sourceRows = new InputRow[ROW_COUNT];
+            for (int i = 0; i < ROW_COUNT; i++) {
+                _sourceRows[i] = new MockInputRow(i).put(nameColumn, names.get(i));
+            }
+        }
+
+        final ConsumeRowHandler.Configuration handlerConfiguration = new ConsumeRowHandler.Configuration();
+        handlerConfiguration.includeAnalyzers = false;
+        handlerConfiguration.analysisListener = new AnalysisListenerAdaptor();
+        return new ConsumeRowHandler(job, configuration, handlerConfiguration);
+    }
+
+    @Benchmark
+    public ConsumeRowResult consumeRow() {
+        final InputRow row = _sourceRows[_index];
+        _index = (_index + 1) & (ROW_COUNT - 1);
+        return _consumeRowHandler.consumeRow(row);
+    }
+
+    @Benchmark
+    public Object transformedInputRow(final RowStorage state) {
+        final InputRow plainRow = state.nextRow();
+        final TransformedInputRow row = new TransformedInputRow(plainRow, plainRow.getId(), state._layout);
+
+        InputColumn<?> inputColumn = state._column;
+        for (final InputColumn<?> outputColumn : state._chainColumns) {
+            row.addValue(outputColumn, row.getValue(inputColumn));
+            inputColumn = outputColumn;
+        }
+        return row.getValue(inputColumn);
+    }
+}
@@ -26,6 +26,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -45,11 +46,15 @@ import org.datacleaner.util.convert.ShiftedToday;
 import org.datacleaner.util.convert.TodayDate;
 import org.datacleaner.util.convert.YesterdayDate;
 import org.joda.time.DateTimeZone;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
 
 /**
- * Attempts to convert anything to a Date value
+ * Attempts to convert anything to a Date value.
+ *
+ * Strings are parsed with the first of the date masks that can parse them. To
+ * avoid trying (and failing) every mask for every value, the shape of a value
+ * is checked before it is parsed with a mask, and the mask that last parsed a
+ * value of a column is tried first, as long as none of the masks before it
+ * could parse the value.
  */
 @Named("Convert to date")
 @Description("Converts anything to a date (or null).")
@@ -58,6 +63,10 @@ public class ConvertToDateTransformer implements Transformer {
 
     private static final String[] prototypePatterns = { "yyyy-MM-dd", "dd-MM-yyyy", "MM-dd-yyyy" };
 
+    private static final String SHIFTED_TODAY_PREFIX = "shifted_today";
+
+    private static final String FALLBACK_DATE_MASK = "yyyy-MM-dd hh:mm:ss.S";
+
     private static ConvertToDateTransformer internalInstance;
 
     @Inject
@@ -79,9 +88,14 @@ public class ConvertToDateTransformer implements Transformer {
     @Description("A sequence of date masks that will be tested from first to last until a match is found.")
     String[] dateMasks;
 
-    private DateTimeFormatter[] _dateTimeFormatters;
-    private DateTimeFormatter _numberBasedDateTimeFormatterLong;
-    private DateTimeFormatter _numberBasedDateTimeFormatterShort;
+    private DateMask[] _dateMasks;
+    private DateMask _numberBasedDateMaskLong;
+    private DateMask _numberBasedDateMaskShort;
+    private ThreadLocal<SimpleDateFormat> _fallbackDateFormat;
+
+    // the index of the preferred date mask of each input column, and (in the
+    // last slot) of values converted outside of transform(...)
+    private AtomicIntegerArray _preferredDateMasks;
 
     public ConvertToDateTransformer() {
         dateMasks = getDefaultDateMasks();
@@ -115,14 +129,23 @@ public class ConvertToDateTransformer implements Transformer {
 
         final DateTimeZone zone = DateTimeZone.forID(timeZone);
 
-        _numberBasedDateTimeFormatterLong = DateTimeFormat.forPattern("yyyyMMdd").withZone(zone);
-        _numberBasedDateTimeFormatterShort = DateTimeFormat.forPattern("yyMMdd").withZone(zone);
+        _numberBasedDateMaskLong = new DateMask("yyyyMMdd", zone);
+        _numberBasedDateMaskShort = new DateMask("yyMMdd", zone);
 
-        _dateTimeFormatters = new DateTimeFormatter[dateMasks.length];
+        _dateMasks = new DateMask[dateMasks.length];
         for (int i = 0; i < dateMasks.length; i++) {
-            final String dateMask = dateMasks[i];
-            _dateTimeFormatters[i] = DateTimeFormat.forPattern(dateMask).withZone(zone);
+            _dateMasks[i] = new DateMask(dateMasks[i], zone);
         }
+
+        final TimeZone fallbackTimeZone = TimeZone.getTimeZone(timeZone);
+        _fallbackDateFormat = ThreadLocal.withInitial(() -> {
+            final SimpleDateFormat format = new SimpleDateFormat(FALLBACK_DATE_MASK);
+            format.setTimeZone(fallbackTimeZone);
+            return format;
+        });
+
+        final int columns = input == null ? 0 : input.length;
+        _preferredDateMasks = new AtomicIntegerArray(columns + 1);
     }
 
     @Override
@@ -139,7 +162,7 @@ public class ConvertToDateTransformer implements Transformer {
         final Date[] result = new Date[input.length];
         for (int i = 0; i < input.length; i++) {
             final Object value = inputRow.getValue(input[i]);
-            Date d = transformValue(value);
+            Date d = transformValue(value, i);
             if (d == null) {
                 d = nullReplacement;
             }
@@ -149,6 +172,10 @@ public class ConvertToDateTransformer implements Transformer {
     }
 
     public Date transformValue(final Object value) {
+        return transformValue(value, _preferredDateMasks.length() - 1);
+    }
+
+    private Date transformValue(final Object value, final int preferenceSlot) {
         Date d = null;
         if (value != null) {
             if (value instanceof Date) {
@@ -156,7 +183,7 @@ public class ConvertToDateTransformer implements Transformer {
             } else if (value instanceof Calendar) {
                 d = ((Calendar) value).getTime();
             } else if (value instanceof String) {
-                d = convertFromString((String) value);
+                d = convertFromString((String) value, preferenceSlot);
             } else if (value instanceof Number) {
                 d = convertFromNumber((Number) value, true);
             }
@@ -165,6 +192,10 @@ public class ConvertToDateTransformer implements Transformer {
     }
 
     protected Date convertFromString(final String value) {
+        return convertFromString(value, _preferredDateMasks.length() - 1);
+    }
+
+    private Date convertFromString(final String value, final int preferenceSlot) {
         if (value == null) {
             return null;
         }
@@ -178,31 +209,28 @@ public class ConvertToDateTransformer implements Transformer {
         if ("yesterday()".equalsIgnoreCase(value)) {
             return new YesterdayDate();
         }
-        if (value.matches("shifted_today(.+)")) {
+        if (value.length() > SHIFTED_TODAY_PREFIX.length() && value.startsWith(SHIFTED_TODAY_PREFIX)) {
             return new ShiftedToday(value);
         }
 
-        for (final DateTimeFormatter formatter : _dateTimeFormatters) {
-            try {
-                return formatter.parseDateTime(value).toDate();
-            } catch (final Exception e) {
-                // proceed to next formatter
-            }
+        final Date date = parseWithDateMasks(value, preferenceSlot);
+        if (date != null) {
+            return date;
         }
 
-        try {
-            final long longValue = Long.parseLong(value);
-            return convertFromNumber(longValue, false);
-        } catch (final NumberFormatException e) {
-            // do nothing, proceed to dateFormat parsing
+        if (isPotentialLong(value)) {
+            try {
+                final long longValue = Long.parseLong(value);
+                return convertFromNumber(longValue, false);
+            } catch (final NumberFormatException e) {
+                // do nothing, proceed to dateFormat parsing
+            }
         }
 
         // try also with SimpleDateFormat since it is more fault tolerant in
         // millisecond parsing
-        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss.S");
-        format.setTimeZone(TimeZone.getTimeZone(timeZone));
         try {
-            return format.parse(value);
+            return _fallbackDateFormat.get().parse(value);
         } catch (final ParseException e) {
             // do nothing
         }
@@ -210,6 +238,68 @@ public class ConvertToDateTransformer implements Transformer {
         return null;
     }
 
+    private Date parseWithDateMasks(final String value, final int preferenceSlot) {
+        if (_dateMasks.length == 0) {
+            return null;
+        }
+
+        final int preferred = _preferredDateMasks.get(preferenceSlot);
+
+        // the preferred mask can only be tried first if none of the masks
+        // before it can parse the value
+        boolean earlierCandidate = false;
+        for (int i = 0; i < preferred; i++) {
+            if (_dateMasks[i].accepts(value)) {
+                earlierCandidate = true;
+                break;
+            }
+        }
+
+        int start = 0;
+        if (!earlierCandidate) {
+            final DateMask dateMask = _dateMasks[preferred];
+            if (dateMask.accepts(value)) {
+                final Date date = dateMask.parse(value);
+                if (date != null) {
+                    return date;
+                }
+            }
+            start = preferred + 1;
+        }
+
+        for (int i = start; i < _dateMasks.length; i++) {
+            final DateMask dateMask = _dateMasks[i];
+            if (dateMask.accepts(value)) {
+                final Date date = dateMask.parse(value);
+                if (date != null) {
+                    if (i != preferred) {
+                        _preferredDateMasks.set(preferenceSlot, i);
+                    }
+                    return date;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isPotentialLong(final String value) {
+        final int length = value.length();
+        if (length == 0) {
+            return false;
+        }
+        final char first = value.charAt(0);
+        final int start = first == '-' || first == '+' ? 1 : 0;
+        if (start == length) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected Date convertFromNumber(final Number value) {
         return convertFromNumber(value, true);
     }
@@ -220,16 +310,11 @@ public class ConvertToDateTransformer implements Transformer {
         final String stringValue = Long.toString(longValue);
 
         if (tryDateTimeFormatters) {
-            for (int i = 0; i < _dateTimeFormatters.length; i++) {
-                final String dateMask = dateMasks[i];
-                final boolean isPotentialNumberDateMask =
-                        !dateMask.contains("-") && !dateMask.contains(".") && !dateMask.contains("/");
-                if (isPotentialNumberDateMask) {
-                    final DateTimeFormatter formatter = _dateTimeFormatters[i];
-                    try {
-                        return formatter.parseDateTime(stringValue).toDate();
-                    } catch (final Exception e) {
-                        // proceed to next formatter
+            for (final DateMask dateMask : _dateMasks) {
+                if (dateMask.isNumberOnly() && dateMask.accepts(stringValue)) {
+                    final Date date = dateMask.parse(stringValue);
+                    if (date != null) {
+                        return date;
                     }
                 }
             }
@@ -237,19 +322,17 @@ public class ConvertToDateTransformer implements Transformer {
 
         // test if the number is actually a format of the type yyyyMMdd
         if (stringValue.length() == 8 && (stringValue.startsWith("1") || stringValue.startsWith("2"))) {
-            try {
-                return _numberBasedDateTimeFormatterLong.parseDateTime(stringValue).toDate();
-            } catch (final Exception e) {
-                // do nothing, proceed to next method of conversion
+            final Date date = _numberBasedDateMaskLong.parse(stringValue);
+            if (date != null) {
+                return date;
             }
         }
 
         // test if the number is actually a format of the type yyMMdd
         if (stringValue.length() == 6) {
-            try {
-                return _numberBasedDateTimeFormatterShort.parseDateTime(stringValue).toDate();
-            } catch (final Exception e) {
-                // do nothing, proceed to next method of conversion
+            final Date date = _numberBasedDateMaskShort.parse(stringValue);
+            if (date != null) {
+                return date;
             }
         }
 
@@ -0,0 +1,304 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.convert;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+/**
+ * A date mask of the {@link ConvertToDateTransformer}. Besides parsing, a date
+ * mask can cheaply check if a value has a shape that the mask can possibly
+ * parse (the separators, the number of digits of the numeric fields and the
+ * range of single fields), so that values can be matched against many masks
+ * without the cost of failing (and throwing) parse attempts.
+ *
+ * The shape check never rejects a value that the mask can parse. Parts of the
+ * mask that the shape check does not understand (text fields, time zones,
+ * quoted literals) make it accept anything from that point on.
+ */
+final class DateMask {
+
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    /**
+     * A part of the shape of a mask. Either a literal character or a run of
+     * digits, made up by one or more adjacent numeric fields.
+     */
+    private static final class Segment {
+
+        private final char _literal;
+        private final int _minDigits;
+        private final int _maxDigits;
+        private final boolean _signed;
+        private final int _minValue;
+        private final int _maxValue;
+
+        private Segment(final char literal) {
+            this(literal, 0, 0, false, 0, UNBOUNDED);
+        }
+
+        private Segment(final char literal, final int minDigits, final int maxDigits, final boolean signed,
+                final int minValue, final int maxValue) {
+            _literal = literal;
+            _minDigits = minDigits;
+            _maxDigits = maxDigits;
+            _signed = signed;
+            _minValue = minValue;
+            _maxValue = maxValue;
+        }
+
+        private boolean isDigits() {
+            return _minDigits > 0;
+        }
+    }
+
+    private final String _pattern;
+    private final DateTimeFormatter _formatter;
+    private final boolean _numberOnly;
+    private final Segment[] _segments;
+    private final boolean _openEnded;
+
+    DateMask(final String pattern, final DateTimeZone zone) {
+        _pattern = pattern;
+        _formatter = DateTimeFormat.forPattern(pattern).withZone(zone);
+        _numberOnly = !pattern.contains("-") && !pattern.contains(".") && !pattern.contains("/");
+
+        final List<Segment> segments = new ArrayList<>();
+        _openEnded = createSegments(pattern, segments);
+        if (_openEnded && !segments.isEmpty()) {
+            final Segment last = segments.get(segments.size() - 1);
+            if (last.isDigits()) {
+                // the unchecked part that follows may start with digits too
+                segments.set(segments.size() - 1,
+                        new Segment('\0', last._minDigits, UNBOUNDED, last._signed, 0, UNBOUNDED));
+            }
+        }
+        _segments = segments.toArray(new Segment[segments.size()]);
+    }
+
+    /**
+     * Builds the segments of a pattern.
+     *
+     * @return whether the shape check stops before the end of the pattern
+     */
+    private static boolean createSegments(final String pattern, final List<Segment> segments) {
+        final int length = pattern.length();
+        int i = 0;
+        while (i < length) {
+            final char c = pattern.charAt(i);
+            if (isPatternLetter(c)) {
+                int fields = 0;
+                int minDigits = 0;
+                int maxDigits = 0;
+                boolean signed = false;
+                int minValue = 0;
+                int maxValue = UNBOUNDED;
+                boolean openEnded = false;
+                while (i < length && isPatternLetter(pattern.charAt(i))) {
+                    final char letter = pattern.charAt(i);
+                    int tokenLength = 1;
+                    while (i + tokenLength < length && pattern.charAt(i + tokenLength) == letter) {
+                        tokenLength++;
+                    }
+
+                    final int fieldDigits = getMaxDigits(letter, tokenLength);
+                    if (fieldDigits == 0 || (letter == 'y' && fields > 0)) {
+                        // a signed year is only checked at the start of a run
+                        openEnded = true;
+                        break;
+                    }
+
+                    fields++;
+                    minDigits++;
+                    if (maxDigits != UNBOUNDED) {
+                        maxDigits = fieldDigits == UNBOUNDED ? UNBOUNDED : maxDigits + fieldDigits;
+                    }
+                    if (fields == 1) {
+                        signed = letter == 'y';
+                        minValue = getMinValue(letter);
+                        maxValue = getMaxValue(letter);
+                    } else {
+                        // the value range only applies to a single field
+                        minValue = 0;
+                        maxValue = UNBOUNDED;
+                    }
+                    i += tokenLength;
+                }
+
+                if (fields > 0) {
+                    segments.add(new Segment('\0', minDigits, maxDigits, signed, minValue, maxValue));
+                }
+                if (openEnded) {
+                    return true;
+                }
+            } else if (c == '\'' || isDigit(c)) {
+                return true;
+            } else {
+                segments.add(new Segment(c));
+                i++;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPatternLetter(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Gets the maximum number of digits that a numeric field is parsed from,
+     * or 0 if the field is not (only) numeric.
+     */
+    private static int getMaxDigits(final char letter, final int tokenLength) {
+        switch (letter) {
+        case 'y':
+        case 'S':
+            return UNBOUNDED;
+        case 'M':
+            return tokenLength <= 2 ? 2 : 0;
+        case 'd':
+        case 'H':
+        case 'h':
+        case 'k':
+        case 'K':
+        case 'm':
+        case 's':
+            return Math.max(tokenLength, 2);
+        case 'D':
+            return Math.max(tokenLength, 3);
+        default:
+            return 0;
+        }
+    }
+
+    private static int getMinValue(final char letter) {
+        switch (letter) {
+        case 'M':
+        case 'd':
+        case 'h':
+        case 'k':
+        case 'D':
+            return 1;
+        default:
+            return 0;
+        }
+    }
+
+    private static int getMaxValue(final char letter) {
+        switch (letter) {
+        case 'M':
+        case 'h':
+            return 12;
+        case 'd':
+            return 31;
+        case 'H':
+            return 23;
+        case 'k':
+            return 24;
+        case 'K':
+            return 11;
+        case 'm':
+        case 's':
+            return 59;
+        case 'D':
+            return 366;
+        default:
+            return UNBOUNDED;
+        }
+    }
+
+    public String getPattern() {
+        return _pattern;
+    }
+
+    /**
+     * Determines if the mask has no separators, ie. if it may parse numbers.
+     */
+    public boolean isNumberOnly() {
+        return _numberOnly;
+    }
+
+    /**
+     * Determines if the shape of a value allows it to be parsed by this mask.
+     * If false, {@link #parse(String)} will certainly return null.
+     */
+    public boolean accepts(final String value) {
+        final int length = value.length();
+        int position = 0;
+        for (final Segment segment : _segments) {
+            if (segment.isDigits()) {
+                if (segment._signed && position < length) {
+                    final char sign = value.charAt(position);
+                    if (sign == '-' || sign == '+') {
+                        position++;
+                    }
+                }
+                int digits = 0;
+                long number = 0;
+                while (position < length && isDigit(value.charAt(position))) {
+                    digits++;
+                    if (number <= Integer.MAX_VALUE) {
+                        number = number * 10 + (value.charAt(position) - '0');
+                    }
+                    position++;
+                }
+                if (digits < segment._minDigits || digits > segment._maxDigits) {
+                    return false;
+                }
+                if (segment._maxValue != UNBOUNDED && (number < segment._minValue || number > segment._maxValue)) {
+                    return false;
+                }
+            } else {
+                if (position == length || value.charAt(position) != segment._literal) {
+                    return false;
+                }
+                position++;
+            }
+        }
+        return _openEnded || position == length;
+    }
+
+    /**
+     * Parses a value.
+     *
+     * @return the parsed date, or null if the value could not be parsed
+     */
+    public Date parse(final String value) {
+        try {
+            return _formatter.parseDateTime(value).toDate();
+        } catch (final Exception e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DateMask[" + _pattern + "]";
+    }
+}
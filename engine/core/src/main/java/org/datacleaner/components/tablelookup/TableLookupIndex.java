@@ -0,0 +1,173 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.tablelookup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.Table;
+import org.datacleaner.components.convert.ConvertToNumberTransformer;
+import org.datacleaner.components.convert.ConvertToStringTransformer;
+
+/**
+ * An in-memory hash index of a lookup table, keyed on the condition columns of
+ * a {@link TableLookupTransformer}. The index is built by streaming the lookup
+ * table once, after which it is immutable and thus safe to use from multiple
+ * threads.
+ *
+ * Since a database would apply type conversion when comparing values in a
+ * WHERE clause, keys are normalized according to the type of the condition
+ * columns, e.g. so that the string "42" and the integer 42 match a numeric
+ * column equally.
+ */
+final class TableLookupIndex {
+
+    private static final List<Object[]> NO_MATCHES = Collections.emptyList();
+
+    private final Column[] _conditionColumns;
+    private final Map<List<Object>, List<Object[]>> _index;
+    private final int _rowCount;
+
+    private TableLookupIndex(final Column[] conditionColumns, final Map<List<Object>, List<Object[]>> index,
+            final int rowCount) {
+        _conditionColumns = conditionColumns;
+        _index = index;
+        _rowCount = rowCount;
+    }
+
+    /**
+     * Builds an index by reading the lookup table.
+     *
+     * @param dataContext
+     * @param conditionColumns
+     *            the columns to key the index on, may be empty
+     * @param outputColumns
+     *            the columns to keep for each record in the index
+     * @param maxOneRecord
+     *            whether only the first record of each key should be kept
+     * @return
+     */
+    public static TableLookupIndex build(final DataContext dataContext, final Column[] conditionColumns,
+            final Column[] outputColumns, final boolean maxOneRecord) {
+        final Table table = outputColumns[0].getTable();
+        final Query query = new Query().from(table).select(conditionColumns).select(outputColumns);
+
+        final Map<List<Object>, List<Object[]>> index = new HashMap<>();
+        int rowCount = 0;
+        try (DataSet dataSet = dataContext.executeQuery(query)) {
+            while (dataSet.next()) {
+                final Row row = dataSet.getRow();
+                final Object[] key = new Object[conditionColumns.length];
+                for (int i = 0; i < conditionColumns.length; i++) {
+                    key[i] = normalize(conditionColumns[i], row.getValue(i));
+                }
+                final Object[] values = new Object[outputColumns.length];
+                for (int i = 0; i < outputColumns.length; i++) {
+                    values[i] = row.getValue(conditionColumns.length + i);
+                }
+
+                final List<Object[]> records = index.computeIfAbsent(Arrays.asList(key), k -> new ArrayList<>(1));
+                if (!maxOneRecord || records.isEmpty()) {
+                    records.add(values);
+                }
+                rowCount++;
+            }
+        }
+        return new TableLookupIndex(conditionColumns, index, rowCount);
+    }
+
+    private static Object normalize(final Column column, final Object value) {
+        if (value == null) {
+            return null;
+        }
+        final ColumnType type = column.getType();
+        if (type == null) {
+            return value;
+        }
+        if (type.isNumber()) {
+            final Number number = ConvertToNumberTransformer.transformValue(value);
+            if (number == null) {
+                return value;
+            }
+            try {
+                return new BigDecimal(number.toString()).stripTrailingZeros();
+            } catch (final NumberFormatException e) {
+                // NaN or infinity
+                return number;
+            }
+        }
+        if (type.isLiteral()) {
+            return ConvertToStringTransformer.transformValue(value);
+        }
+        return value;
+    }
+
+    /**
+     * Gets the records matching a set of condition values.
+     *
+     * @param conditionValues
+     * @return the matching records, or an empty list if there is no match
+     */
+    public List<Object[]> lookup(final List<Object> conditionValues) {
+        final Object[] key = new Object[_conditionColumns.length];
+        for (int i = 0; i < key.length; i++) {
+            final Object value = normalize(_conditionColumns[i], conditionValues.get(i));
+            if (value == null) {
+                // like in SQL, null is never equal to anything
+                return NO_MATCHES;
+            }
+            key[i] = value;
+        }
+        final List<Object[]> records = _index.get(Arrays.asList(key));
+        if (records == null) {
+            return NO_MATCHES;
+        }
+        return records;
+    }
+
+    /**
+     * Gets the number of records read from the lookup table
+     *
+     * @return
+     */
+    public int getRowCount() {
+        return _rowCount;
+    }
+
+    /**
+     * Gets the number of distinct keys in the index
+     *
+     * @return
+     */
+    public int getKeyCount() {
+        return _index.size();
+    }
+}
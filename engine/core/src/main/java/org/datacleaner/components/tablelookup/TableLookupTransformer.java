@@ -110,10 +110,30 @@ public class TableLookupTransformer implements Transformer, HasLabelAdvice, HasA
         }
     }
 
+    public enum LookupStrategy implements HasName {
+        AUTO("Automatic"),
+
+        QUERY("Query per lookup"),
+
+        PRELOAD("Preload lookup table");
+
+        private final String _name;
+
+        LookupStrategy(final String name) {
+            _name = name;
+        }
+
+        @Override
+        public String getName() {
+            return _name;
+        }
+    }
+
     private static final Logger logger = LoggerFactory.getLogger(TableLookupTransformer.class);
     private static final String PROPERTY_NAME_DATASTORE = "Datastore";
     private static final String PROPERTY_NAME_SCHEMA_NAME = "Schema name";
     private static final String PROPERTY_NAME_TABLE_NAME = "Table name";
+    private static final int DEFAULT_PRELOAD_MAX_ROWS = 500000;
     private final Cache<List<Object>, Object[]> cache = CollectionUtils2.createCache(10000, 5 * 60);
 
     @Inject
@@ -153,6 +173,19 @@ public class TableLookupTransformer implements Transformer, HasLabelAdvice, HasA
     @Description("Which kind of semantic to apply to the lookup, compared to a SQL JOIN.")
     JoinSemantic joinSemantic = JoinSemantic.LEFT_JOIN_MAX_ONE;
     @Inject
+    @Configured(required = false)
+    @Description("Whether to query the lookup table for every lookup or to read it once into memory and look up "
+            + "locally. The automatic strategy preloads the table if it is small enough. Preloaded lookups compare "
+            + "values in memory instead of in the database, so matches may differ from the query strategy: "
+            + "case-insensitive collations (e.g. MySQL, SQL Server) no longer apply, CHAR padding and trailing "
+            + "spaces are significant, and timestamps only equal dates of the same type and precision. The "
+            + "'Cached' and 'Queried' categories are not reported when the table is preloaded.")
+    LookupStrategy lookupStrategy = LookupStrategy.QUERY;
+    @Inject
+    @Configured(required = false)
+    @Description("The maximum number of records in the lookup table for the automatic strategy to preload it.")
+    int preloadMaxRows = DEFAULT_PRELOAD_MAX_ROWS;
+    @Inject
     @Provided
     OutputRowCollector outputRowCollector;
     @Inject
@@ -167,10 +200,15 @@ public class TableLookupTransformer implements Transformer, HasLabelAdvice, HasA
     @Inject
     @Provided
     RowAnnotation _cached;
+    @Inject
+    @Provided
+    RowAnnotation _queried;
     private Column[] queryOutputColumns;
     private Column[] queryConditionColumns;
     private DatastoreConnection datastoreConnection;
     private CompiledQuery lookupQuery;
+    private TableLookupIndex lookupIndex;
+    private boolean preloaded;
 
     /**
      * Default constructor
@@ -206,6 +244,30 @@ public class TableLookupTransformer implements Transformer, HasLabelAdvice, HasA
         _matches = _annotationFactory.createAnnotation();
         _cached = _annotationFactory.createAnnotation();
         _misses = _annotationFactory.createAnnotation();
+        _queried = _annotationFactory.createAnnotation();
+    }
+
+    /**
+     * Constructor for direct usage within e.g. other components where we always
+     * expect to do LEFT JOIN (max one record) semantic lookups, with a specific
+     * {@link LookupStrategy}.
+     *
+     * @param datastore
+     * @param schemaName
+     * @param tableName
+     * @param conditionColumns
+     * @param conditionValues
+     * @param outputColumns
+     * @param cacheLookups
+     * @param lookupStrategy
+     * @param preloadMaxRows
+     */
+    public TableLookupTransformer(final Datastore datastore, final String schemaName, final String tableName,
+            final String[] conditionColumns, final InputColumn<?>[] conditionValues, final String[] outputColumns,
+            final boolean cacheLookups, final LookupStrategy lookupStrategy, final int preloadMaxRows) {
+        this(datastore, schemaName, tableName, conditionColumns, conditionValues, outputColumns, cacheLookups);
+        this.lookupStrategy = lookupStrategy;
+        this.preloadMaxRows = preloadMaxRows;
     }
 
     @Override
@@ -284,7 +346,45 @@ public class TableLookupTransformer implements Transformer, HasLabelAdvice, HasA
         datastoreConnection = datastore.openConnection();
         resetCachedColumns();
         cache.invalidateAll();
-        compileLookupQuery();
+        lookupIndex = null;
+        preloaded = isPreload();
+        if (preloaded) {
+            buildLookupIndex();
+        } else {
+            compileLookupQuery();
+        }
+    }
+
+    private boolean isPreload() {
+        switch (lookupStrategy == null ? LookupStrategy.QUERY : lookupStrategy) {
+        case PRELOAD:
+            return true;
+        case QUERY:
+            return false;
+        default:
+            final Table table = getQueryOutputColumns(false)[0].getTable();
+            final Query countQuery = new Query().from(table).selectCount();
+            try (DataSet dataSet = datastoreConnection.getDataContext().executeQuery(countQuery)) {
+                if (!dataSet.next()) {
+                    return false;
+                }
+                final Number count = (Number) dataSet.getRow().getValue(0);
+                logger.debug("Lookup table {} has {} records", table.getName(), count);
+                return count != null && count.longValue() <= preloadMaxRows;
+            }
+        }
+    }
+
+    private void buildLookupIndex() {
+        try {
+            lookupIndex = TableLookupIndex.build(datastoreConnection.getDataContext(), getQueryConditionColumns(),
+                    getQueryOutputColumns(false), joinSemantic == JoinSemantic.LEFT_JOIN_MAX_ONE);
+            logger.info("Preloaded {} records with {} distinct keys from lookup table", lookupIndex.getRowCount(),
+                    lookupIndex.getKeyCount());
+        } catch (final RuntimeException e) {
+            logger.error("Error occurred while preloading lookup table", e);
+            throw e;
+        }
     }
 
     private void compileLookupQuery() {
@@ -368,7 +468,11 @@ public class TableLookupTransformer implements Transformer, HasLabelAdvice, HasA
             }
         }
 
-        logger.info("Looking up based on condition values: {}", queryInput);
+        logger.debug("Looking up based on condition values: {}", queryInput);
+
+        if (lookupIndex != null) {
+            return handleRecords(inputRow, lookupIndex.lookup(queryInput));
+        }
 
         Object[] result;
         if (cacheLookups && joinSemantic.isCacheable()) {
@@ -401,6 +505,8 @@ public class TableLookupTransformer implements Transformer, HasLabelAdvice, HasA
                 parameterValues[i] = queryInput.get(i);
             }
 
+            _annotationFactory.annotate(row, 1, _queried);
+
             try (DataSet dataSet = datastoreConnection.getDataContext().executeQuery(lookupQuery, parameterValues)) {
                 return handleDataSet(row, dataSet);
             }
@@ -444,6 +550,31 @@ public class TableLookupTransformer implements Transformer, HasLabelAdvice, HasA
         return null;
     }
 
+    private Object[] handleRecords(final InputRow row, final List<Object[]> records) {
+        if (records.isEmpty()) {
+            _annotationFactory.annotate(row, 1, _misses);
+
+            switch (joinSemantic) {
+            case LEFT_JOIN_MAX_ONE:
+            case LEFT_JOIN:
+                return new Object[outputColumns.length];
+            default:
+                return null;
+            }
+        }
+
+        _annotationFactory.annotate(row, 1, _matches);
+
+        if (joinSemantic == JoinSemantic.LEFT_JOIN_MAX_ONE) {
+            // copy to prevent changes to the shared index
+            return records.get(0).clone();
+        }
+        for (final Object[] record : records) {
+            outputRowCollector.putValues(record.clone());
+        }
+        return null;
+    }
+
     @Close
     public void close() {
         if (lookupQuery != null) {
@@ -455,6 +586,7 @@ public class TableLookupTransformer implements Transformer, HasLabelAdvice, HasA
             datastoreConnection = null;
         }
         cache.invalidateAll();
+        lookupIndex = null;
         queryOutputColumns = null;
         queryConditionColumns = null;
     }
@@ -464,8 +596,11 @@ public class TableLookupTransformer implements Transformer, HasLabelAdvice, HasA
         final Map<String, RowAnnotation> categories = new LinkedHashMap<>();
         categories.put("Match", _matches);
         categories.put("Miss", _misses);
-        if (cacheLookups) {
-            categories.put("Cached", _cached);
+        if (!preloaded) {
+            if (cacheLookups) {
+                categories.put("Cached", _cached);
+            }
+            categories.put("Queried", _queried);
         }
         return new CategorizationResult(_annotationFactory, categories);
     }
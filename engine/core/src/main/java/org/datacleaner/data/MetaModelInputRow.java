@@ -42,6 +42,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * A physical {@link InputRow} originating from a MetaModel {@link Row} object.
+ *
+ * If the row is created with a {@link MetaModelInputRowLayout}, values are read
+ * by their precomputed index in the {@link Row}.
  */
 public final class MetaModelInputRow extends AbstractLegacyAwareInputRow {
 
@@ -51,10 +54,26 @@ public final class MetaModelInputRow extends AbstractLegacyAwareInputRow {
 
     private final Row _row;
     private final long _id;
+    private final transient MetaModelInputRowLayout _layout;
 
     public MetaModelInputRow(final long rowNumber, final Row row) {
+        this(rowNumber, row, null);
+    }
+
+    /**
+     * Creates a {@link MetaModelInputRow} with a {@link MetaModelInputRowLayout}
+     * that matches the select items of the row.
+     *
+     * @param rowNumber
+     * @param row
+     * @param layout
+     *            the layout of the row, or null to resolve columns against the
+     *            row header
+     */
+    public MetaModelInputRow(final long rowNumber, final Row row, final MetaModelInputRowLayout layout) {
         _id = rowNumber;
         _row = row;
+        _layout = layout;
     }
 
     @Override
@@ -90,6 +109,9 @@ public final class MetaModelInputRow extends AbstractLegacyAwareInputRow {
         if (!inputColumn.isPhysicalColumn()) {
             return false;
         }
+        if (_layout != null) {
+            return _layout.getIndex(inputColumn) != -1;
+        }
         final Column physicalColumn = inputColumn.getPhysicalColumn();
         final List<SelectItem> selectItems = _row.getSelectItems();
         for (final SelectItem selectItem : selectItems) {
@@ -109,6 +131,17 @@ public final class MetaModelInputRow extends AbstractLegacyAwareInputRow {
         if (!column.isPhysicalColumn()) {
             return null;
         }
+        if (_layout != null) {
+            final int index = _layout.getIndex(column);
+            if (index == -1) {
+                return null;
+            }
+            final Object value = _row.getValue(index);
+            if (_layout.isLargeObject(index)) {
+                return (E) convertValue(value);
+            }
+            return (E) value;
+        }
         final Column physicalColumn = column.getPhysicalColumn();
         Object value = _row.getValue(physicalColumn);
 
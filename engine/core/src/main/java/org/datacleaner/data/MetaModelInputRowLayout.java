@@ -0,0 +1,135 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.data;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.datacleaner.api.InputColumn;
+
+/**
+ * A compiled layout of the select items of the {@link Row}s that a
+ * {@link MetaModelInputRow} wraps. Every physical column is resolved to its
+ * positional index once, which allows the {@link MetaModelInputRow} to read
+ * its values by index instead of resolving the column against the row header
+ * on every access.
+ *
+ * The layout also determines which columns may hold large objects (CLOBs and
+ * BLOBs) that need to be converted, so that other values are passed on
+ * directly.
+ *
+ * Layouts are immutable and can be shared by all rows (and threads) of a
+ * query.
+ */
+public final class MetaModelInputRowLayout {
+
+    private final Map<InputColumn<?>, Integer> _inputColumnIndexes;
+    private final Map<Column, Integer> _columnIndexes;
+    private final boolean[] _largeObjects;
+
+    /**
+     * Creates a {@link MetaModelInputRowLayout}.
+     *
+     * @param selectItems
+     *            the select items of the rows, eg. of the data set of a query
+     * @param inputColumns
+     *            the input columns that are expected to be requested from the
+     *            rows. These are resolved up front, other columns are resolved
+     *            by their physical column.
+     */
+    public MetaModelInputRowLayout(final List<SelectItem> selectItems,
+            final Collection<? extends InputColumn<?>> inputColumns) {
+        _columnIndexes = new HashMap<>();
+        _largeObjects = new boolean[selectItems.size()];
+        for (int i = 0; i < selectItems.size(); i++) {
+            final SelectItem selectItem = selectItems.get(i);
+            final Column column = selectItem.getColumn();
+            if (column != null && selectItem.getAggregateFunction() == null) {
+                _columnIndexes.putIfAbsent(column, i);
+                _largeObjects[i] = isLargeObject(column.getType());
+            }
+        }
+
+        _inputColumnIndexes = new IdentityHashMap<>();
+        for (final InputColumn<?> inputColumn : inputColumns) {
+            if (inputColumn.isPhysicalColumn()) {
+                final Integer index = _columnIndexes.get(inputColumn.getPhysicalColumn());
+                if (index != null) {
+                    _inputColumnIndexes.put(inputColumn, index);
+                }
+            }
+        }
+    }
+
+    private static boolean isLargeObject(final ColumnType type) {
+        if (type == null) {
+            // unknown type, we need to check the values
+            return true;
+        }
+        if (type == ColumnType.CLOB || type == ColumnType.NCLOB || type == ColumnType.BLOB) {
+            return true;
+        }
+        return !(type.isLiteral() || type.isNumber() || type.isTimeBased());
+    }
+
+    /**
+     * Gets the index of a column in the rows, or -1 if the column is not part
+     * of the layout.
+     *
+     * @param inputColumn
+     * @return
+     */
+    public int getIndex(final InputColumn<?> inputColumn) {
+        Integer index = _inputColumnIndexes.get(inputColumn);
+        if (index == null) {
+            if (!inputColumn.isPhysicalColumn()) {
+                return -1;
+            }
+            index = _columnIndexes.get(inputColumn.getPhysicalColumn());
+            if (index == null) {
+                return -1;
+            }
+        }
+        return index.intValue();
+    }
+
+    /**
+     * Determines if the values of a particular index may be large objects that
+     * need conversion.
+     *
+     * @param index
+     * @return
+     */
+    public boolean isLargeObject(final int index) {
+        return _largeObjects[index];
+    }
+
+    @Override
+    public String toString() {
+        return "MetaModelInputRowLayout[columns=" + _columnIndexes.size() + "]";
+    }
+}
@@ -21,6 +21,7 @@ package org.datacleaner.data;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashMap;
@@ -36,6 +37,10 @@ import org.slf4j.LoggerFactory;
 /**
  * Represents a row with transformed values as well as a delegate row (typically
  * a {@link MetaModelInputRow} delegate).
+ *
+ * If the row is created with a {@link TransformedInputRowLayout}, values of
+ * columns in the layout are stored in a flat array, indexed by the slots of the
+ * layout. Values of any other (ad-hoc) columns are stored in a map.
  */
 public final class TransformedInputRow extends AbstractLegacyAwareInputRow {
 
@@ -43,9 +48,17 @@ public final class TransformedInputRow extends AbstractLegacyAwareInputRow {
 
     private static final Logger logger = LoggerFactory.getLogger(TransformedInputRow.class);
 
+    /**
+     * Marker for slots that have been assigned a null value, to distinguish
+     * them from slots that have not been assigned.
+     */
+    private static final Object NULL_VALUE = new Object();
+
     private final InputRow _delegate;
-    private final Map<InputColumn<?>, Object> _values;
     private final long _id;
+    private final transient TransformedInputRowLayout _layout;
+    private final transient Object[] _slotValues;
+    private Map<InputColumn<?>, Object> _values;
 
     /**
      * Constructs a {@link TransformedInputRow} based on another row and a row
@@ -55,25 +68,45 @@ public final class TransformedInputRow extends AbstractLegacyAwareInputRow {
      * @param rowId
      */
     public TransformedInputRow(final InputRow delegate, final Number rowId) {
+        this(delegate, rowId == null ? getDelegateId(delegate) : rowId.longValue(), null);
+    }
+
+    public TransformedInputRow(final InputRow delegate, final long rowId) {
+        this(delegate, rowId, null);
+    }
+
+    /**
+     * Constructs a {@link TransformedInputRow} based on another row, a row ID
+     * and a {@link TransformedInputRowLayout}.
+     *
+     * @param delegate
+     * @param rowId
+     * @param layout
+     *            the layout to use for storing values, or null if values
+     *            should be stored in a map
+     */
+    public TransformedInputRow(final InputRow delegate, final long rowId, final TransformedInputRowLayout layout) {
         if (delegate == null) {
             throw new IllegalArgumentException("Delegate cannot be null");
         }
         _delegate = delegate;
-        if (rowId == null) {
-            _id = delegate.getId();
+        _id = rowId;
+        if (layout == null || layout.getSlotCount() == 0) {
+            _layout = null;
+            _slotValues = null;
+            _values = new LinkedHashMap<>();
         } else {
-            _id = rowId.longValue();
+            _layout = layout;
+            _slotValues = new Object[layout.getSlotCount()];
+            _values = null;
         }
-        _values = new LinkedHashMap<>();
     }
 
-    public TransformedInputRow(final InputRow delegate, final long rowId) {
+    private static long getDelegateId(final InputRow delegate) {
         if (delegate == null) {
             throw new IllegalArgumentException("Delegate cannot be null");
         }
-        _delegate = delegate;
-        _id = rowId;
-        _values = new LinkedHashMap<>();
+        return delegate.getId();
     }
 
     /**
@@ -84,11 +117,24 @@ public final class TransformedInputRow extends AbstractLegacyAwareInputRow {
      * @return
      */
     public static TransformedInputRow of(final InputRow row) {
+        return of(row, null);
+    }
+
+    /**
+     * Constructs a {@link TransformedInputRow} with a particular
+     * {@link TransformedInputRowLayout} based on another row, or returns the
+     * row if it is already a {@link TransformedInputRow}.
+     *
+     * @param row
+     * @param layout
+     * @return
+     */
+    public static TransformedInputRow of(final InputRow row, final TransformedInputRowLayout layout) {
         if (row instanceof TransformedInputRow) {
             // re-use existing transformed input row.
             return (TransformedInputRow) row;
         } else {
-            return new TransformedInputRow(row, row.getId());
+            return new TransformedInputRow(row, row.getId(), layout);
         }
     }
 
@@ -111,6 +157,15 @@ public final class TransformedInputRow extends AbstractLegacyAwareInputRow {
         doReadObject(stream);
     }
 
+    private void writeObject(final ObjectOutputStream stream) throws IOException {
+        // always write values as a map to keep the serialized form stable
+        final ObjectOutputStream.PutField fields = stream.putFields();
+        fields.put("_delegate", _delegate);
+        fields.put("_values", getValueMap());
+        fields.put("_id", _id);
+        stream.writeFields();
+    }
+
     @Override
     public long getId() {
         return _id;
@@ -118,8 +173,15 @@ public final class TransformedInputRow extends AbstractLegacyAwareInputRow {
 
     @Override
     public boolean containsInputColumn(final InputColumn<?> inputColumn) {
-        if (inputColumn.isVirtualColumn() && _values.containsKey(inputColumn)) {
-            return true;
+        if (inputColumn.isVirtualColumn()) {
+            final int slot = getSlot(inputColumn);
+            if (slot != -1) {
+                if (_slotValues[slot] != null) {
+                    return true;
+                }
+            } else if (_values != null && _values.containsKey(inputColumn)) {
+                return true;
+            }
         }
         return _delegate.containsInputColumn(inputColumn);
     }
@@ -128,6 +190,14 @@ public final class TransformedInputRow extends AbstractLegacyAwareInputRow {
         if (inputColumn.isPhysicalColumn()) {
             throw new IllegalArgumentException("Cannot add physical column values to transformed InputRow.");
         }
+        final int slot = getSlot(inputColumn);
+        if (slot != -1) {
+            _slotValues[slot] = value == null ? NULL_VALUE : value;
+            return;
+        }
+        if (_values == null) {
+            _values = new LinkedHashMap<>();
+        }
         _values.put(inputColumn, value);
     }
 
@@ -138,12 +208,25 @@ public final class TransformedInputRow extends AbstractLegacyAwareInputRow {
             logger.debug("Column is physical, delegating.");
             return _delegate.getValue(column);
         }
-        if (_values.containsKey(column)) {
+        final int slot = getSlot(column);
+        if (slot != -1) {
+            final Object value = _slotValues[slot];
+            if (value != null) {
+                return value == NULL_VALUE ? null : (E) value;
+            }
+        } else if (_values != null && _values.containsKey(column)) {
             return (E) _values.get(column);
         }
         return _delegate.getValue(column);
     }
 
+    private int getSlot(final InputColumn<?> column) {
+        if (_layout == null) {
+            return -1;
+        }
+        return _layout.getSlot(column);
+    }
+
     public InputRow getDelegate() {
         return _delegate;
     }
@@ -151,16 +234,42 @@ public final class TransformedInputRow extends AbstractLegacyAwareInputRow {
     @Override
     public List<InputColumn<?>> getInputColumns() {
         final List<InputColumn<?>> inputColumns = _delegate.getInputColumns();
-        inputColumns.addAll(_values.keySet());
+        inputColumns.addAll(getTransformedInputColumns());
         return inputColumns;
     }
 
     public Set<InputColumn<?>> getTransformedInputColumns() {
-        return _values.keySet();
+        if (_layout == null) {
+            return _values.keySet();
+        }
+        return getValueMap().keySet();
+    }
+
+    /**
+     * Gets the transformed values of this row as a map, with the values of
+     * the layout slots first (in slot order), followed by any other values.
+     *
+     * @return
+     */
+    private Map<InputColumn<?>, Object> getValueMap() {
+        if (_layout == null) {
+            return _values;
+        }
+        final Map<InputColumn<?>, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < _slotValues.length; i++) {
+            final Object value = _slotValues[i];
+            if (value != null) {
+                result.put(_layout.getColumn(i), value == NULL_VALUE ? null : value);
+            }
+        }
+        if (_values != null) {
+            result.putAll(_values);
+        }
+        return result;
     }
 
     @Override
     public String toString() {
-        return "TransformedInputRow[values=" + _values + ",delegate=" + _delegate + "]";
+        return "TransformedInputRow[values=" + getValueMap() + ",delegate=" + _delegate + "]";
     }
 }
@@ -0,0 +1,101 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.datacleaner.api.InputColumn;
+
+/**
+ * A compiled layout of the virtual columns that a {@link TransformedInputRow}
+ * is expected to hold. Every column in the layout is assigned a dense slot
+ * index, which allows the {@link TransformedInputRow} to store its values in a
+ * flat array instead of a map.
+ *
+ * Layouts are immutable and can be shared by all rows (and threads) of a row
+ * processing stream.
+ */
+public final class TransformedInputRowLayout {
+
+    private final Map<InputColumn<?>, Integer> _slots;
+    private final InputColumn<?>[] _columns;
+
+    /**
+     * Creates a {@link TransformedInputRowLayout} for a collection of columns.
+     * Physical columns and duplicates are ignored. The order of the columns
+     * determines the order in which values are presented by the rows.
+     *
+     * @param columns
+     */
+    public TransformedInputRowLayout(final Collection<? extends InputColumn<?>> columns) {
+        _slots = new HashMap<>();
+        final List<InputColumn<?>> slotColumns = new ArrayList<>(columns.size());
+        for (final InputColumn<?> column : columns) {
+            if (column != null && column.isVirtualColumn() && !_slots.containsKey(column)) {
+                _slots.put(column, slotColumns.size());
+                slotColumns.add(column);
+            }
+        }
+        _columns = slotColumns.toArray(new InputColumn<?>[slotColumns.size()]);
+    }
+
+    /**
+     * Gets the slot index of a column, or -1 if the column is not part of the
+     * layout.
+     *
+     * @param column
+     * @return
+     */
+    public int getSlot(final InputColumn<?> column) {
+        final Integer slot = _slots.get(column);
+        if (slot == null) {
+            return -1;
+        }
+        return slot.intValue();
+    }
+
+    /**
+     * Gets the column of a particular slot index.
+     *
+     * @param slot
+     * @return
+     */
+    public InputColumn<?> getColumn(final int slot) {
+        return _columns[slot];
+    }
+
+    /**
+     * Gets the number of slots in this layout.
+     *
+     * @return
+     */
+    public int getSlotCount() {
+        return _columns.length;
+    }
+
+    @Override
+    public String toString() {
+        return "TransformedInputRowLayout[slots=" + _columns.length + "]";
+    }
+}
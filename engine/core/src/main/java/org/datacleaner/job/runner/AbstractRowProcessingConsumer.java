@@ -64,6 +64,7 @@ abstract class AbstractRowProcessingConsumer implements RowProcessingConsumer {
     private final AtomicInteger _publishersRegisteredCount;
     private final AtomicInteger _publishersInitializedCount;
     private final AtomicInteger _publishersClosedCount;
+    private final ComponentInstrumentation _instrumentation;
 
     protected AbstractRowProcessingConsumer(final RowProcessingPublisher publisher,
             final HasComponentRequirement outcomeSinkJob, final InputColumnSinkJob inputColumnSinkJob) {
@@ -89,6 +90,7 @@ abstract class AbstractRowProcessingConsumer implements RowProcessingConsumer {
         _publishersRegisteredCount = new AtomicInteger(0);
         _publishersInitializedCount = new AtomicInteger(0);
         _publishersClosedCount = new AtomicInteger(0);
+        _instrumentation = ComponentInstrumentation.createIfEnabled();
     }
 
     private static Set<HasComponentRequirement> buildSourceJobsOfInputColumns(
@@ -154,19 +156,80 @@ abstract class AbstractRowProcessingConsumer implements RowProcessingConsumer {
         return getComponent() instanceof HasAnalyzerResult;
     }
 
+    @Override
+    public ComponentInstrumentation getInstrumentation() {
+        return _instrumentation;
+    }
+
     @Override
     public final void consume(final InputRow row, final int distinctCount, final FilterOutcomes outcomes,
             final RowProcessingChain chain) {
+        if (_instrumentation != null) {
+            consumeInstrumented(row, distinctCount, outcomes, chain);
+            return;
+        }
         try {
             consumeInternal(row, distinctCount, outcomes, chain);
         } catch (final RuntimeException e) {
-            final ComponentJob componentJob = getComponentJob();
-            if (_analysisListener == null) {
-                logger.error("Error occurred in component '" + componentJob + "' and no AnalysisListener is available",
-                        e);
-                throw e;
+            onConsumeError(row, e);
+        }
+    }
+
+    private void consumeInstrumented(final InputRow row, final int distinctCount, final FilterOutcomes outcomes,
+            final RowProcessingChain chain) {
+        final InstrumentedRowProcessingChain instrumentedChain = new InstrumentedRowProcessingChain(chain);
+        final long start = System.nanoTime();
+        try {
+            consumeInternal(row, distinctCount, outcomes, instrumentedChain);
+        } catch (final RuntimeException e) {
+            _instrumentation.recordError();
+            onConsumeError(row, e);
+        } finally {
+            final long nanos = System.nanoTime() - start - instrumentedChain._nestedNanos;
+            _instrumentation.recordInvocation(nanos, instrumentedChain._emittedRows);
+        }
+    }
+
+    private void onConsumeError(final InputRow row, final RuntimeException e) {
+        final ComponentJob componentJob = getComponentJob();
+        if (_analysisListener == null) {
+            logger.error("Error occurred in component '" + componentJob + "' and no AnalysisListener is available", e);
+            throw e;
+        } else {
+            _analysisListener.errorInComponent(_analysisJob, componentJob, row, e);
+        }
+    }
+
+    /**
+     * {@link RowProcessingChain} wrapper which counts the rows passed on by a
+     * consumer. When the chain invokes the subsequent consumers directly (as
+     * opposed to just recording the row), the time spent in them is tracked so
+     * that it can be subtracted from the consumer's own processing time.
+     */
+    private static final class InstrumentedRowProcessingChain implements RowProcessingChain {
+
+        private final RowProcessingChain _delegate;
+        private final boolean _nested;
+        private int _emittedRows;
+        private long _nestedNanos;
+
+        private InstrumentedRowProcessingChain(final RowProcessingChain delegate) {
+            _delegate = delegate;
+            _nested = delegate instanceof ConsumeRowHandlerDelegate;
+        }
+
+        @Override
+        public void processNext(final InputRow row, final int distinctCount, final FilterOutcomes outcomes) {
+            _emittedRows++;
+            if (_nested) {
+                final long start = System.nanoTime();
+                try {
+                    _delegate.processNext(row, distinctCount, outcomes);
+                } finally {
+                    _nestedNanos += System.nanoTime() - start;
+                }
             } else {
-                _analysisListener.errorInComponent(_analysisJob, componentJob, row, e);
+                _delegate.processNext(row, distinctCount, outcomes);
             }
         }
     }
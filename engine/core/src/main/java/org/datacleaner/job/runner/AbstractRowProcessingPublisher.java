@@ -20,6 +20,7 @@
 package org.datacleaner.job.runner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
@@ -27,6 +28,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.metamodel.query.Query;
 import org.datacleaner.api.HasAnalyzerResult;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.data.TransformedInputRowLayout;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.ComponentJob;
 import org.datacleaner.job.FilterOutcome;
@@ -171,14 +174,44 @@ public abstract class AbstractRowProcessingPublisher implements RowProcessingPub
         }
         final List<RowProcessingConsumer> consumers = queryOptimizer.getOptimizedConsumers();
         final Collection<? extends FilterOutcome> availableOutcomes = queryOptimizer.getOptimizedAvailableOutcomes();
+
+        final TransformedInputRowLayout rowLayout = createRowLayout(consumers);
+        for (final RowProcessingConsumer consumer : consumers) {
+            if (consumer instanceof TransformerConsumer) {
+                ((TransformerConsumer) consumer).setRowLayout(rowLayout);
+            }
+        }
+
         return new ConsumeRowHandler(consumers, availableOutcomes);
     }
 
+    /**
+     * Creates a {@link TransformedInputRowLayout} which assigns a slot to every
+     * output column of the transformers, in processing order.
+     *
+     * @param consumers
+     * @return
+     */
+    private TransformedInputRowLayout createRowLayout(final List<RowProcessingConsumer> consumers) {
+        final List<InputColumn<?>> outputColumns = new ArrayList<>();
+        for (final RowProcessingConsumer consumer : consumers) {
+            if (consumer instanceof TransformerConsumer) {
+                outputColumns.addAll(Arrays.asList(consumer.getOutputColumns()));
+            }
+        }
+        return new TransformedInputRowLayout(outputColumns);
+    }
+
     protected final Task createCollectResultTask(final RowProcessingConsumer consumer,
             final Queue<JobAndResult> resultQueue) {
         final Object component = consumer.getComponent();
         if (component instanceof HasAnalyzerResult) {
-            final HasAnalyzerResult<?> hasAnalyzerResult = (HasAnalyzerResult<?>) component;
+            final HasAnalyzerResult<?> hasAnalyzerResult;
+            if (consumer instanceof AnalyzerConsumer) {
+                hasAnalyzerResult = ((AnalyzerConsumer) consumer).getResultProducer();
+            } else {
+                hasAnalyzerResult = (HasAnalyzerResult<?>) component;
+            }
             final AnalysisListener analysisListener = _publishers.getAnalysisListener();
             return new CollectResultsTask(hasAnalyzerResult, _stream.getAnalysisJob(), consumer.getComponentJob(),
                     resultQueue, analysisListener);
@@ -212,6 +245,16 @@ public abstract class AbstractRowProcessingPublisher implements RowProcessingPub
             return;
         }
 
+        for (final RowProcessingConsumer consumer : getConsumers()) {
+            final ComponentInstrumentation instrumentation = consumer.getInstrumentation();
+            if (instrumentation != null) {
+                final ComponentJob componentJob = consumer.getComponentJob();
+                final ComponentMetrics metrics =
+                        new ComponentMetricsImpl(rowProcessingMetrics, componentJob, instrumentation);
+                analysisListener.componentMetrics(getAnalysisJob(), componentJob, metrics);
+            }
+        }
+
         analysisListener.rowProcessingSuccess(getAnalysisJob(), rowProcessingMetrics);
     }
 
@@ -268,7 +311,8 @@ public abstract class AbstractRowProcessingPublisher implements RowProcessingPub
         return getClass().getSimpleName() + "[stream=" + getStream() + ", consumers=" + _consumers.size() + "]";
     }
 
-    protected final TaskRunner getTaskRunner() {
+    @Override
+    public final TaskRunner getTaskRunner() {
         return getPublishers().getTaskRunner();
     }
 
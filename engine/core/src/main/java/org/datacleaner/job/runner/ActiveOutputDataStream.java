@@ -22,6 +22,8 @@ package org.datacleaner.job.runner;
 import java.io.Closeable;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.query.SelectItem;
@@ -29,14 +31,19 @@ import org.apache.metamodel.schema.Table;
 import org.datacleaner.api.HasOutputDataStreams;
 import org.datacleaner.api.OutputDataStream;
 import org.datacleaner.job.OutputDataStreamJob;
+import org.datacleaner.job.concurrent.TaskRunner;
 import org.datacleaner.util.ConcurrencyUtils;
+import org.datacleaner.util.SystemProperties;
 
 public class ActiveOutputDataStream implements Closeable {
 
+    private static final long AWAIT_INTERVAL_MILLIS = 10;
+
     private final OutputDataStreamJob _outputDataStreamJob;
     private final RowProcessingPublisher _publisher;
     private final HasOutputDataStreams _component;
     private final CountDownLatch _countDownLatch;
+    private final AtomicBoolean _closed;
     private OutputDataStreamRowCollector _outputRowCollector;
 
     public ActiveOutputDataStream(final OutputDataStreamJob outputDataStreamJob, final RowProcessingPublisher publisher,
@@ -45,6 +52,7 @@ public class ActiveOutputDataStream implements Closeable {
         _publisher = publisher;
         _component = component;
         _countDownLatch = new CountDownLatch(1);
+        _closed = new AtomicBoolean(false);
     }
 
     public RowProcessingPublisher getPublisher() {
@@ -66,7 +74,10 @@ public class ActiveOutputDataStream implements Closeable {
 
         final List<SelectItem> selectItems = query.getSelectClause().getItems();
         final ConsumeRowHandler consumeRowHandler = _publisher.createConsumeRowHandler();
-        _outputRowCollector = new OutputDataStreamRowCollector(_publisher, selectItems, consumeRowHandler);
+        final int batchSize = SystemProperties.getInt(SystemProperties.OUTPUT_DATA_STREAM_BATCH_SIZE, 0);
+        final int queueSize = SystemProperties.getInt(SystemProperties.OUTPUT_DATA_STREAM_QUEUE_SIZE, 16);
+        _outputRowCollector = new OutputDataStreamRowCollector(_publisher, selectItems, consumeRowHandler, batchSize,
+                queueSize, _countDownLatch::countDown);
         final OutputDataStream outputDataStream = _outputDataStreamJob.getOutputDataStream();
         _component.initializeOutputDataStream(outputDataStream, query, _outputRowCollector);
 
@@ -74,12 +85,90 @@ public class ActiveOutputDataStream implements Closeable {
                 .rowProcessingBegin(_publisher.getAnalysisJob(), _publisher.getRowProcessingMetrics());
     }
 
+    /**
+     * Awaits the stream to be closed and all its records to be consumed. While
+     * records are still queued, the calling thread assists the task runner in
+     * consuming them.
+     *
+     * @throws InterruptedException
+     */
     public void await() throws InterruptedException {
-        ConcurrencyUtils.awaitCountDown(_countDownLatch, "stream: " + _outputDataStreamJob.getOutputDataStream());
+        if (_outputRowCollector == null) {
+            ConcurrencyUtils.awaitCountDown(_countDownLatch, "stream: " + _outputDataStreamJob.getOutputDataStream());
+            return;
+        }
+        final TaskRunner taskRunner = _publisher.getTaskRunner();
+        while (!_countDownLatch.await(AWAIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (_outputRowCollector.getQueueDepth() > 0) {
+                taskRunner.assistExecution();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of record batches that are currently queued or being
+     * consumed by the consumers of the stream.
+     *
+     * @return
+     */
+    public int getQueueDepth() {
+        if (_outputRowCollector == null) {
+            return 0;
+        }
+        return _outputRowCollector.getQueueDepth();
+    }
+
+    /**
+     * Gets the number of records that the consumers of the stream have
+     * consumed per second.
+     *
+     * @return
+     */
+    public double getThroughput() {
+        if (_outputRowCollector == null) {
+            return 0;
+        }
+        return _outputRowCollector.getThroughput();
+    }
+
+    /**
+     * Gets the number of records that have been produced by the component.
+     *
+     * @return
+     */
+    public int getProducedRowCount() {
+        if (_outputRowCollector == null) {
+            return 0;
+        }
+        return _outputRowCollector.getProducedRowCount();
+    }
+
+    /**
+     * Gets the number of records that have been consumed by the consumers of
+     * the stream.
+     *
+     * @return
+     */
+    public long getConsumedRowCount() {
+        if (_outputRowCollector == null) {
+            return 0;
+        }
+        return _outputRowCollector.getConsumedRowCount();
     }
 
+    /**
+     * Closes the stream. Any records still queued will be consumed before
+     * {@link #await()} returns.
+     */
     @Override
     public void close() {
-        _countDownLatch.countDown();
+        if (!_closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (_outputRowCollector == null) {
+            _countDownLatch.countDown();
+        } else {
+            _outputRowCollector.close();
+        }
     }
 }
@@ -42,8 +42,14 @@ final class AnalysisJobMetricsImpl implements AnalysisJobMetrics {
     @Override
     public ComponentMetrics getComponentMetrics(final ComponentJob componentJob) {
         final Table table = getRowProcessingTable(componentJob);
-        final RowProcessingMetrics rowProcessingMetrics = getRowProcessingMetrics(table);
-        return new ComponentMetricsImpl(rowProcessingMetrics, componentJob);
+        final RowProcessingStream stream = _publishers.getStream(table);
+        final RowProcessingPublisher publisher = _publishers.getRowProcessingPublisher(stream);
+        if (publisher == null) {
+            return new ComponentMetricsImpl(null, componentJob, null);
+        }
+        final RowProcessingConsumer consumer = publisher.getConsumer(componentJob);
+        final ComponentInstrumentation instrumentation = consumer == null ? null : consumer.getInstrumentation();
+        return new ComponentMetricsImpl(publisher.getRowProcessingMetrics(), componentJob, instrumentation);
     }
 
     @SuppressWarnings("deprecation")
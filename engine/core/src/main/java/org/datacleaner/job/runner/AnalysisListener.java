@@ -106,6 +106,19 @@ public interface AnalysisListener {
      */
     void componentSuccess(AnalysisJob job, ComponentJob componentJob, AnalyzerResult result);
 
+    /**
+     * Notifies the listener about the processing metrics (invocation counts,
+     * timings etc.) of a component, once the row processing that it took part
+     * in has finished. Only invoked for components that are instrumented.
+     *
+     * @param job
+     * @param componentJob
+     * @param metrics
+     *
+     * @see ComponentMetrics#isInstrumented()
+     */
+    void componentMetrics(AnalysisJob job, ComponentJob componentJob, ComponentMetrics metrics);
+
     void errorInComponent(AnalysisJob job, ComponentJob componentJob, InputRow row, Throwable throwable);
 
     void errorUnknown(AnalysisJob job, Throwable throwable);
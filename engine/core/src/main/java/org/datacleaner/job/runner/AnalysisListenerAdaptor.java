@@ -86,6 +86,11 @@ public class AnalysisListenerAdaptor implements AnalysisListener {
     public void componentSuccess(final AnalysisJob job, final ComponentJob componentJob, final AnalyzerResult result) {
     }
 
+    @Override
+    public void componentMetrics(final AnalysisJob job, final ComponentJob componentJob,
+            final ComponentMetrics metrics) {
+    }
+
     @Override
     public void errorInComponent(final AnalysisJob job, final ComponentJob componentJob, final InputRow row,
             final Throwable throwable) {
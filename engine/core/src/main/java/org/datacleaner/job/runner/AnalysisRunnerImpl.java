@@ -64,6 +64,16 @@ public class AnalysisRunnerImpl implements AnalysisRunner {
 
     @Override
     public AnalysisResultFuture run(final AnalysisJob job) {
+        return createDelegate(job).run();
+    }
+
+    /**
+     * Creates the delegate which holds the state of a single job execution.
+     *
+     * @param job
+     * @return
+     */
+    final AnalysisRunnerJobDelegate createDelegate(final AnalysisJob job) {
         final Queue<JobAndResult> resultQueue = new LinkedBlockingQueue<>();
 
         // This analysis listener will keep track of all collected errors
@@ -87,10 +97,12 @@ public class AnalysisRunnerImpl implements AnalysisRunner {
         final boolean includedNonDistributed = isNonDistributedTasksIncluded();
 
         // the delegate will do all the actual work
-        final AnalysisRunnerJobDelegate delegate =
-                new AnalysisRunnerJobDelegate(job, _configuration, taskRunner, analysisListener, resultQueue,
-                        errorListener, includedNonDistributed);
-        return delegate.run();
+        return new AnalysisRunnerJobDelegate(job, _configuration, taskRunner, analysisListener, resultQueue,
+                errorListener, includedNonDistributed);
+    }
+
+    final DataCleanerConfiguration getConfiguration() {
+        return _configuration;
     }
 
     /**
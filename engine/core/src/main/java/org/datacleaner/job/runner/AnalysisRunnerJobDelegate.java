@@ -92,6 +92,16 @@ final class AnalysisRunnerJobDelegate {
      * @return
      */
     public AnalysisResultFuture run() {
+        return run(createPublishers());
+    }
+
+    /**
+     * Creates the {@link RowProcessingPublishers} of the job, without starting
+     * any row processing.
+     *
+     * @return
+     */
+    RowProcessingPublishers createPublishers() {
         try {
             // the injection manager is job scoped
             final InjectionManager injectionManager = _configuration.getEnvironment().getInjectionManagerFactory()
@@ -100,10 +110,37 @@ final class AnalysisRunnerJobDelegate {
             final LifeCycleHelper rowProcessingLifeCycleHelper =
                     new LifeCycleHelper(injectionManager, _includeNonDistributedTasks);
 
-            final RowProcessingPublishers publishers =
-                    new RowProcessingPublishers(_job, _analysisListener, _errorAware, _taskRunner,
-                            rowProcessingLifeCycleHelper);
+            return new RowProcessingPublishers(_job, _analysisListener, _errorAware, _taskRunner,
+                    rowProcessingLifeCycleHelper);
+        } catch (final RuntimeException e) {
+            _analysisListener.errorUnknown(_job, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Validates the job without running it. The same validation is done by
+     * {@link #run(RowProcessingPublishers)}, but validating several jobs up
+     * front makes it possible to not start any of them if one is invalid.
+     */
+    void validate() {
+        try {
+            validateSingleTableInput(_job);
+        } catch (final RuntimeException e) {
+            _analysisListener.errorUnknown(_job, e);
+            throw e;
+        }
+    }
 
+    /**
+     * Runs the job using a set of publishers created by
+     * {@link #createPublishers()}.
+     *
+     * @param publishers
+     * @return
+     */
+    AnalysisResultFuture run(final RowProcessingPublishers publishers) {
+        try {
             final AnalysisJobMetrics analysisJobMetrics = publishers.getAnalysisJobMetrics();
 
             // A task listener that will register either succesfull executions
@@ -117,8 +154,7 @@ final class AnalysisRunnerJobDelegate {
             validateSingleTableInput(_job);
 
             // at this point we are done validating the job, it will run.
-            scheduleRowProcessing(publishers, rowProcessingLifeCycleHelper, jobCompletionTaskListener,
-                    analysisJobMetrics);
+            scheduleRowProcessing(publishers, jobCompletionTaskListener, analysisJobMetrics);
 
             return new AnalysisResultFutureImpl(_resultQueue, jobCompletionTaskListener, _errorAware);
         } catch (final RuntimeException e) {
@@ -132,11 +168,10 @@ final class AnalysisRunnerJobDelegate {
      * Starts row processing job flows.
      *
      * @param publishers
+     * @param jobCompletionTaskListener
      * @param analysisJobMetrics
-     *
-     * @param injectionManager
      */
-    private void scheduleRowProcessing(final RowProcessingPublishers publishers, final LifeCycleHelper lifeCycleHelper,
+    private void scheduleRowProcessing(final RowProcessingPublishers publishers,
             final JobCompletionTaskListener jobCompletionTaskListener, final AnalysisJobMetrics analysisJobMetrics) {
 
         logger.info("Created {} row processor publisher(s)", publishers.size());
@@ -19,19 +19,43 @@
  */
 package org.datacleaner.job.runner;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.datacleaner.api.Analyzer;
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.api.AnalyzerResultReducer;
 import org.datacleaner.api.Concurrent;
+import org.datacleaner.api.HasAnalyzerResult;
+import org.datacleaner.api.HasDistributionAdvice;
+import org.datacleaner.api.HasOutputDataStreams;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
+import org.datacleaner.descriptors.AnalyzerDescriptor;
+import org.datacleaner.descriptors.ComponentDescriptor;
+import org.datacleaner.descriptors.Descriptors;
 import org.datacleaner.job.AnalyzerJob;
 import org.datacleaner.job.FilterOutcomes;
+import org.datacleaner.lifecycle.LifeCycleHelper;
+import org.datacleaner.util.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 final class AnalyzerConsumer extends AbstractRowProcessingConsumer implements RowProcessingConsumer {
 
+    private static final Logger logger = LoggerFactory.getLogger(AnalyzerConsumer.class);
+
     private final AnalyzerJob _analyzerJob;
     private final Analyzer<?> _analyzer;
     private final InputColumn<?>[] _inputColumns;
     private final boolean _concurrent;
+    private final RowProcessingPublisher _publisher;
+    private final Map<Thread, Analyzer<?>> _perThreadAnalyzers;
+    private final AtomicBoolean _primaryAnalyzerClaimed;
 
     public AnalyzerConsumer(final Analyzer<?> analyzer, final AnalyzerJob analyzerJob,
             final InputColumn<?>[] inputColumns, final RowProcessingPublisher publisher) {
@@ -39,7 +63,15 @@ final class AnalyzerConsumer extends AbstractRowProcessingConsumer implements Ro
         _analyzer = analyzer;
         _analyzerJob = analyzerJob;
         _inputColumns = inputColumns;
+        _publisher = publisher;
         _concurrent = determineConcurrent();
+        if (!_concurrent && determinePerThreadInstances()) {
+            _perThreadAnalyzers = new ConcurrentHashMap<>();
+            _primaryAnalyzerClaimed = new AtomicBoolean(false);
+        } else {
+            _perThreadAnalyzers = null;
+            _primaryAnalyzerClaimed = null;
+        }
     }
 
     private boolean determineConcurrent() {
@@ -51,6 +83,36 @@ final class AnalyzerConsumer extends AbstractRowProcessingConsumer implements Ro
         return concurrent.value();
     }
 
+    /**
+     * Determines if the analyzer can run as a set of per-thread instances
+     * whose results are combined using the analyzer's
+     * {@link AnalyzerResultReducer}. This is only done for analyzers that are
+     * not explicitly marked as non-concurrent, that are distributable, have a
+     * reducer and have no close methods or other side effects that would
+     * conflict with having multiple instances.
+     *
+     * @return
+     */
+    private boolean determinePerThreadInstances() {
+        if (!SystemProperties.getBoolean(SystemProperties.ANALYZER_PER_THREAD_INSTANCES, false)) {
+            return false;
+        }
+        final AnalyzerDescriptor<?> descriptor = _analyzerJob.getDescriptor();
+        if (descriptor.getAnnotation(Concurrent.class) != null) {
+            return false;
+        }
+        if (!descriptor.isDistributable() || descriptor.getResultReducerClass() == null) {
+            return false;
+        }
+        if (!descriptor.getCloseMethods().isEmpty()) {
+            return false;
+        }
+        if (_analyzer instanceof HasDistributionAdvice || _analyzer instanceof HasOutputDataStreams) {
+            return false;
+        }
+        return true;
+    }
+
     @Override
     public Analyzer<?> getComponent() {
         return _analyzer;
@@ -58,7 +120,18 @@ final class AnalyzerConsumer extends AbstractRowProcessingConsumer implements Ro
 
     @Override
     public boolean isConcurrent() {
-        return _concurrent;
+        // per-thread instances do not need to be synchronized
+        return _concurrent || isPerThreadInstances();
+    }
+
+    /**
+     * Determines if this consumer runs a separate analyzer instance per
+     * worker thread, see {@link SystemProperties#ANALYZER_PER_THREAD_INSTANCES}.
+     *
+     * @return
+     */
+    public boolean isPerThreadInstances() {
+        return _perThreadAnalyzers != null;
     }
 
     @Override
@@ -69,10 +142,91 @@ final class AnalyzerConsumer extends AbstractRowProcessingConsumer implements Ro
     @Override
     public void consumeInternal(final InputRow row, final int distinctCount, final FilterOutcomes outcomes,
             final RowProcessingChain chain) {
-        _analyzer.run(row, distinctCount);
+        if (isPerThreadInstances()) {
+            getPerThreadAnalyzer().run(row, distinctCount);
+        } else {
+            _analyzer.run(row, distinctCount);
+        }
         chain.processNext(row, distinctCount, outcomes);
     }
 
+    private Analyzer<?> getPerThreadAnalyzer() {
+        final Thread thread = Thread.currentThread();
+        Analyzer<?> analyzer = _perThreadAnalyzers.get(thread);
+        if (analyzer == null) {
+            if (_primaryAnalyzerClaimed.compareAndSet(false, true)) {
+                // the primary analyzer is initialized by the InitializeTask
+                analyzer = _analyzer;
+            } else {
+                analyzer = createAnalyzer();
+            }
+            _perThreadAnalyzers.put(thread, analyzer);
+        }
+        return analyzer;
+    }
+
+    private Analyzer<?> createAnalyzer() {
+        final AnalyzerDescriptor<?> descriptor = _analyzerJob.getDescriptor();
+        final LifeCycleHelper lifeCycleHelper = _publisher.getPublishers().getConsumerSpecificLifeCycleHelper(this);
+
+        final Analyzer<?> analyzer = descriptor.newInstance();
+        lifeCycleHelper.assignConfiguredProperties(descriptor, analyzer, _analyzerJob.getConfiguration());
+        lifeCycleHelper.assignProvidedProperties(descriptor, analyzer);
+        lifeCycleHelper.validate(descriptor, analyzer);
+        lifeCycleHelper.initialize(descriptor, analyzer);
+        return analyzer;
+    }
+
+    /**
+     * Gets the {@link HasAnalyzerResult} to collect the result of this
+     * consumer from. When per-thread instances are used, the results of all
+     * instances are reduced into a single result.
+     *
+     * @return
+     */
+    public HasAnalyzerResult<?> getResultProducer() {
+        if (!isPerThreadInstances()) {
+            return _analyzer;
+        }
+        return this::getReducedResult;
+    }
+
+    @SuppressWarnings("unchecked")
+    private AnalyzerResult getReducedResult() {
+        final Collection<Analyzer<?>> analyzers = new ArrayList<>(_perThreadAnalyzers.values());
+        if (analyzers.isEmpty()) {
+            // no rows were processed
+            return _analyzer.getResult();
+        }
+        if (analyzers.size() == 1) {
+            return analyzers.iterator().next().getResult();
+        }
+
+        final List<AnalyzerResult> results = new ArrayList<>(analyzers.size());
+        for (final Analyzer<?> analyzer : analyzers) {
+            results.add(analyzer.getResult());
+        }
+
+        logger.debug("Reducing {} per-thread results for component: {}", results.size(), _analyzerJob);
+
+        final LifeCycleHelper lifeCycleHelper = _publisher.getPublishers().getConsumerSpecificLifeCycleHelper(this);
+        final ComponentDescriptor<? extends AnalyzerResultReducer<?>> reducerDescriptor =
+                Descriptors.ofComponent(_analyzerJob.getDescriptor().getResultReducerClass());
+
+        final AnalyzerResultReducer<AnalyzerResult> reducer =
+                (AnalyzerResultReducer<AnalyzerResult>) reducerDescriptor.newInstance();
+        boolean success = false;
+        try {
+            lifeCycleHelper.assignProvidedProperties(reducerDescriptor, reducer);
+            lifeCycleHelper.initialize(reducerDescriptor, reducer);
+            final AnalyzerResult reducedResult = reducer.reduce(results);
+            success = true;
+            return reducedResult;
+        } finally {
+            lifeCycleHelper.close(reducerDescriptor, reducer, success);
+        }
+    }
+
     @Override
     public AnalyzerJob getComponentJob() {
         return _analyzerJob;
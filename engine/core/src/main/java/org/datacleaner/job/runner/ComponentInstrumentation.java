@@ -0,0 +1,116 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.datacleaner.util.SystemProperties;
+
+/**
+ * Collects timing and throughput counters for a single
+ * {@link RowProcessingConsumer}. All counters are striped ({@link LongAdder}s),
+ * so that recording from many worker threads does not cause contention.
+ *
+ * Instrumentation is only enabled when the
+ * {@link SystemProperties#ROW_PROCESSING_INSTRUMENTATION} system property is
+ * set to "true". When it is disabled no {@link ComponentInstrumentation} is
+ * created and consumers skip all timing.
+ */
+public final class ComponentInstrumentation {
+
+    private final LongAdder _invocations;
+    private final LongAdder _processingNanos;
+    private final LongAdder _emittedRows;
+    private final LongAdder _lockWaitNanos;
+    private final LongAdder _errors;
+
+    public ComponentInstrumentation() {
+        _invocations = new LongAdder();
+        _processingNanos = new LongAdder();
+        _emittedRows = new LongAdder();
+        _lockWaitNanos = new LongAdder();
+        _errors = new LongAdder();
+    }
+
+    /**
+     * Creates a {@link ComponentInstrumentation} if instrumentation is enabled.
+     *
+     * @return a new {@link ComponentInstrumentation}, or null if
+     *         instrumentation is disabled
+     */
+    public static ComponentInstrumentation createIfEnabled() {
+        if (SystemProperties.getBoolean(SystemProperties.ROW_PROCESSING_INSTRUMENTATION, false)) {
+            return new ComponentInstrumentation();
+        }
+        return null;
+    }
+
+    /**
+     * Records a single invocation of the component.
+     *
+     * @param nanos
+     *            the time spent in the component itself, excluding any
+     *            subsequent components that were invoked by it
+     * @param emittedRows
+     *            the number of rows that the component passed on
+     */
+    public void recordInvocation(final long nanos, final int emittedRows) {
+        _invocations.increment();
+        _processingNanos.add(nanos);
+        if (emittedRows != 0) {
+            _emittedRows.add(emittedRows);
+        }
+    }
+
+    public void recordLockWait(final long nanos) {
+        _lockWaitNanos.add(nanos);
+    }
+
+    public void recordError() {
+        _errors.increment();
+    }
+
+    public long getInvocationCount() {
+        return _invocations.sum();
+    }
+
+    public long getProcessingNanos() {
+        return _processingNanos.sum();
+    }
+
+    public long getEmittedRowCount() {
+        return _emittedRows.sum();
+    }
+
+    public long getLockWaitNanos() {
+        return _lockWaitNanos.sum();
+    }
+
+    public long getErrorCount() {
+        return _errors.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ComponentInstrumentation[invocations=" + getInvocationCount() + ",processingNanos="
+                + getProcessingNanos() + ",emittedRows=" + getEmittedRowCount() + ",lockWaitNanos="
+                + getLockWaitNanos() + ",errors=" + getErrorCount() + "]";
+    }
+}
@@ -20,10 +20,53 @@
 package org.datacleaner.job.runner;
 
 import org.datacleaner.job.ComponentJob;
+import org.datacleaner.util.SystemProperties;
 
 public interface ComponentMetrics {
 
     ComponentJob getComponentJob();
 
     RowProcessingMetrics getRowProcessingMetrics();
+
+    /**
+     * Determines if the component is instrumented, ie. if the counters and
+     * timings of this {@link ComponentMetrics} are being recorded.
+     *
+     * @return
+     *
+     * @see SystemProperties#ROW_PROCESSING_INSTRUMENTATION
+     */
+    boolean isInstrumented();
+
+    /**
+     * @return the number of times the component has been invoked with a row,
+     *         or 0 if the component is not instrumented.
+     */
+    long getInvocationCount();
+
+    /**
+     * @return the cumulative time (in nanoseconds) spent in the component
+     *         itself, or 0 if the component is not instrumented.
+     */
+    long getProcessingNanos();
+
+    /**
+     * @return the number of rows that the component has passed on to
+     *         subsequent components, or 0 if the component is not
+     *         instrumented.
+     */
+    long getEmittedRowCount();
+
+    /**
+     * @return the cumulative time (in nanoseconds) that threads have waited to
+     *         invoke the component, if it is not concurrent, or 0 if the
+     *         component is not instrumented.
+     */
+    long getLockWaitNanos();
+
+    /**
+     * @return the number of invocations of the component that failed, or 0 if
+     *         the component is not instrumented.
+     */
+    long getErrorCount();
 }
@@ -25,10 +25,13 @@ final class ComponentMetricsImpl implements ComponentMetrics {
 
     private final RowProcessingMetrics _rowProcessingMetrics;
     private final ComponentJob _componentJob;
+    private final ComponentInstrumentation _instrumentation;
 
-    public ComponentMetricsImpl(final RowProcessingMetrics rowProcessingMetrics, final ComponentJob componentJob) {
+    public ComponentMetricsImpl(final RowProcessingMetrics rowProcessingMetrics, final ComponentJob componentJob,
+            final ComponentInstrumentation instrumentation) {
         _rowProcessingMetrics = rowProcessingMetrics;
         _componentJob = componentJob;
+        _instrumentation = instrumentation;
     }
 
     @Override
@@ -41,4 +44,34 @@ final class ComponentMetricsImpl implements ComponentMetrics {
         return _rowProcessingMetrics;
     }
 
+    @Override
+    public boolean isInstrumented() {
+        return _instrumentation != null;
+    }
+
+    @Override
+    public long getInvocationCount() {
+        return _instrumentation == null ? 0 : _instrumentation.getInvocationCount();
+    }
+
+    @Override
+    public long getProcessingNanos() {
+        return _instrumentation == null ? 0 : _instrumentation.getProcessingNanos();
+    }
+
+    @Override
+    public long getEmittedRowCount() {
+        return _instrumentation == null ? 0 : _instrumentation.getEmittedRowCount();
+    }
+
+    @Override
+    public long getLockWaitNanos() {
+        return _instrumentation == null ? 0 : _instrumentation.getLockWaitNanos();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return _instrumentation == null ? 0 : _instrumentation.getErrorCount();
+    }
+
 }
@@ -190,6 +190,18 @@ public final class CompositeAnalysisListener implements AnalysisListener {
         }
     }
 
+    @Override
+    public void componentMetrics(final AnalysisJob job, final ComponentJob componentJob,
+            final ComponentMetrics metrics) {
+        for (final AnalysisListener delegate : _delegates) {
+            try {
+                delegate.componentMetrics(job, componentJob, metrics);
+            } catch (final Exception e) {
+                logFailure(delegate, e);
+            }
+        }
+    }
+
     @Override
     public void errorInComponent(final AnalysisJob job, final ComponentJob componentJob, final InputRow row,
             final Throwable throwable) {
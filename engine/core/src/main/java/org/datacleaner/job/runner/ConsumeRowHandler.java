@@ -57,9 +57,32 @@ public class ConsumeRowHandler {
         public Table table;
     }
 
+    /**
+     * {@link RowProcessingChain} used when consumers are executed iteratively.
+     * Instead of processing the next consumers recursively it simply captures
+     * the row that was passed on.
+     */
+    private static final class CapturingRowProcessingChain implements RowProcessingChain {
+
+        private InputRow _row;
+        private FilterOutcomes _outcomes;
+
+        @Override
+        public void processNext(final InputRow row, final int distinctCount, final FilterOutcomes outcomes) {
+            _row = row;
+            _outcomes = outcomes;
+        }
+
+        private void reset() {
+            _row = null;
+            _outcomes = null;
+        }
+    }
+
     private static final Logger logger = LoggerFactory.getLogger(ConsumeRowHandler.class);
     private final List<RowProcessingConsumer> _consumers;
     private final Collection<? extends FilterOutcome> _alwaysSatisfiedOutcomes;
+    private final boolean[] _singleRowConsumers;
 
     /**
      * Builds a {@link ConsumeRowHandler} based on a job, and the configuration
@@ -73,6 +96,7 @@ public class ConsumeRowHandler {
             final Configuration rowConsumerConfiguration) {
         _consumers = extractConsumers(job, configuration, rowConsumerConfiguration);
         _alwaysSatisfiedOutcomes = rowConsumerConfiguration.alwaysSatisfiedOutcomes;
+        _singleRowConsumers = determineSingleRowConsumers(_consumers);
     }
 
     /**
@@ -95,6 +119,28 @@ public class ConsumeRowHandler {
             final Collection<? extends FilterOutcome> alwaysSatisfiedOutcomes) {
         _consumers = consumers;
         _alwaysSatisfiedOutcomes = alwaysSatisfiedOutcomes;
+        _singleRowConsumers = determineSingleRowConsumers(_consumers);
+    }
+
+    /**
+     * Determines which consumers are known to pass on exactly one row (or no
+     * rows) for each row they consume. Such consumers can be executed
+     * iteratively rather than recursively.
+     *
+     * @param consumers
+     * @return
+     */
+    private static boolean[] determineSingleRowConsumers(final List<RowProcessingConsumer> consumers) {
+        final boolean[] result = new boolean[consumers.size()];
+        for (int i = 0; i < result.length; i++) {
+            final RowProcessingConsumer consumer = consumers.get(i);
+            if (consumer instanceof AnalyzerConsumer || consumer instanceof FilterConsumer) {
+                result[i] = true;
+            } else if (consumer instanceof TransformerConsumer) {
+                result[i] = !((TransformerConsumer) consumer).isMultiRowEmitting();
+            }
+        }
+        return result;
     }
 
     /**
@@ -140,9 +186,57 @@ public class ConsumeRowHandler {
      * @return
      */
     public ConsumeRowResult consumeRow(final InputRow row) {
-        final FilterOutcomes outcomes = new FilterOutcomesImpl(_alwaysSatisfiedOutcomes);
-        final ConsumeRowHandlerDelegate delegate = new ConsumeRowHandlerDelegate(_consumers, row, 0, outcomes);
-        return delegate.consume();
+        final CapturingRowProcessingChain chain = new CapturingRowProcessingChain();
+
+        InputRow currentRow = row;
+        FilterOutcomes outcomes = new FilterOutcomesImpl(_alwaysSatisfiedOutcomes);
+
+        final int numConsumers = _consumers.size();
+        for (int i = 0; i < numConsumers; i++) {
+            if (!_singleRowConsumers[i]) {
+                // fall back to recursive processing for the remainder of the
+                // chain, since the consumer may emit multiple rows
+                final ConsumeRowHandlerDelegate delegate =
+                        new ConsumeRowHandlerDelegate(_consumers, currentRow, i, outcomes);
+                return delegate.consume();
+            }
+
+            final RowProcessingConsumer consumer = _consumers.get(i);
+            if (!consumer.satisfiedForConsume(outcomes, currentRow)) {
+                continue;
+            }
+
+            chain.reset();
+            if (consumer.isConcurrent()) {
+                consumer.consume(currentRow, 1, outcomes, chain);
+            } else {
+                final ComponentInstrumentation instrumentation = consumer.getInstrumentation();
+                if (instrumentation == null) {
+                    synchronized (consumer) {
+                        consumer.consume(currentRow, 1, outcomes, chain);
+                    }
+                } else {
+                    final long lockStart = System.nanoTime();
+                    synchronized (consumer) {
+                        instrumentation.recordLockWait(System.nanoTime() - lockStart);
+                        consumer.consume(currentRow, 1, outcomes, chain);
+                    }
+                }
+            }
+
+            if (chain._row == null) {
+                // the row was not passed on
+                return new ConsumeRowResult(new ArrayList<>(0), new ArrayList<>(0));
+            }
+            currentRow = chain._row;
+            outcomes = chain._outcomes;
+        }
+
+        final List<InputRow> resultRecords = new ArrayList<>(1);
+        resultRecords.add(currentRow);
+        final List<FilterOutcomes> resultOutcomes = new ArrayList<>(1);
+        resultOutcomes.add(outcomes);
+        return new ConsumeRowResult(resultRecords, resultOutcomes);
     }
 
     private List<RowProcessingConsumer> extractConsumers(final AnalysisJob analysisJob,
@@ -63,8 +63,17 @@ final class ConsumeRowHandlerDelegate implements RowProcessingChain {
             if (consumer.isConcurrent()) {
                 consumer.consume(_row, 1, _outcomes, this);
             } else {
-                synchronized (consumer) {
-                    consumer.consume(_row, 1, _outcomes, this);
+                final ComponentInstrumentation instrumentation = consumer.getInstrumentation();
+                if (instrumentation == null) {
+                    synchronized (consumer) {
+                        consumer.consume(_row, 1, _outcomes, this);
+                    }
+                } else {
+                    final long lockStart = System.nanoTime();
+                    synchronized (consumer) {
+                        instrumentation.recordLockWait(System.nanoTime() - lockStart);
+                        consumer.consume(_row, 1, _outcomes, this);
+                    }
                 }
             }
         } else {
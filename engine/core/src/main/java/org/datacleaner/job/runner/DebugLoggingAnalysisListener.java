@@ -81,6 +81,13 @@ public class DebugLoggingAnalysisListener extends AnalysisListenerAdaptor {
         logger.debug("componentSuccess({}, {})", new Object[] { job, componentJob, result });
     }
 
+    @Override
+    public void componentMetrics(final AnalysisJob job, final ComponentJob componentJob,
+            final ComponentMetrics metrics) {
+        logger.debug("componentMetrics({}, {}, invocations={}, nanos={})",
+                new Object[] { job, componentJob, metrics.getInvocationCount(), metrics.getProcessingNanos() });
+    }
+
     @Override
     public void errorInComponent(final AnalysisJob job, final ComponentJob componentJob, final InputRow row,
             final Throwable throwable) {
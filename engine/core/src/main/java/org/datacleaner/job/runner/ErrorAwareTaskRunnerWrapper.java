@@ -69,6 +69,15 @@ final class ErrorAwareTaskRunnerWrapper implements TaskRunner, ErrorAware {
         run(taskRunnable.getTask(), taskRunnable.getListener());
     }
 
+    /**
+     * Gets the {@link TaskRunner} that this wrapper delegates to
+     *
+     * @return
+     */
+    public TaskRunner getWrappedTaskRunner() {
+        return _taskRunner;
+    }
+
     @Override
     public void shutdown() {
         _taskRunner.shutdown();
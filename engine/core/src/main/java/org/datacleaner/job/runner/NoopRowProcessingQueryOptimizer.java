@@ -22,6 +22,7 @@ package org.datacleaner.job.runner;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.metamodel.query.Query;
@@ -60,6 +61,11 @@ public class NoopRowProcessingQueryOptimizer implements RowProcessingQueryOptimi
         return Collections.emptySet();
     }
 
+    @Override
+    public Map<AnalyzerConsumer, Query> getAggregateQueries() {
+        return Collections.emptyMap();
+    }
+
     @Override
     public boolean isOptimizable() {
         return false;
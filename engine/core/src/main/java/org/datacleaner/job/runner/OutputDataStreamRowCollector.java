@@ -19,8 +19,11 @@
  */
 package org.datacleaner.job.runner;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.metamodel.data.CachingDataSetHeader;
 import org.apache.metamodel.data.DefaultRow;
@@ -28,49 +31,253 @@ import org.apache.metamodel.data.Row;
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.query.SelectItem;
 import org.datacleaner.api.HasOutputDataStreams;
+import org.datacleaner.api.InputRow;
 import org.datacleaner.api.OutputDataStream;
 import org.datacleaner.api.OutputRowCollector;
 import org.datacleaner.data.MetaModelInputRow;
+import org.datacleaner.data.MetaModelInputRowLayout;
 import org.datacleaner.job.OutputDataStreamJob;
 import org.datacleaner.job.concurrent.PreviousErrorsExistException;
+import org.datacleaner.job.concurrent.TaskListener;
+import org.datacleaner.job.tasks.Task;
 
 /**
  * The type of {@link OutputRowCollector} used for {@link OutputDataStreamJob}
  * execution. This instance will eventually be passed into the
  * {@link HasOutputDataStreams#initializeOutputDataStream(OutputDataStream, Query, OutputRowCollector)}
+ *
+ * Records are collected in batches which are handed to the task runner of the
+ * {@link RowProcessingPublisher}, so that the consumers of the stream run in
+ * parallel with the component producing it. The number of queued batches is
+ * bounded - when the queue is full the producing thread consumes the next
+ * batch itself, which slows down the producer without risking a deadlock in
+ * the task runner.
  */
 public class OutputDataStreamRowCollector implements OutputRowCollector {
 
     private final CachingDataSetHeader _dataSetHeader;
+    private final MetaModelInputRowLayout _rowLayout;
     private final AtomicInteger _rowCounter;
     private final ConsumeRowHandler _consumeRowHandler;
     private final RowProcessingPublisher _publisher;
+    private final int _batchSize;
+    private final int _queueSize;
+    private final Semaphore _queuePermits;
+    private final AtomicInteger _pendingBatches;
+    private final AtomicLong _consumedRows;
+    private final AtomicLong _firstRowNanos;
+    private final Runnable _drainedListener;
+    private List<InputRow> _batch;
 
     public OutputDataStreamRowCollector(final RowProcessingPublisher publisher, final List<SelectItem> selectItems,
             final ConsumeRowHandler consumeRowHandler) {
+        this(publisher, selectItems, consumeRowHandler, 0, 1, null);
+    }
+
+    /**
+     * Creates an {@link OutputDataStreamRowCollector}
+     *
+     * @param publisher
+     * @param selectItems
+     * @param consumeRowHandler
+     * @param batchSize
+     *            the number of records to dispatch in each task, or 0 to
+     *            consume records synchronously
+     * @param queueSize
+     *            the maximum number of batches queued in the task runner
+     * @param drainedListener
+     *            an optional callback which is invoked once the collector has
+     *            been closed and all batches have been consumed
+     */
+    public OutputDataStreamRowCollector(final RowProcessingPublisher publisher, final List<SelectItem> selectItems,
+            final ConsumeRowHandler consumeRowHandler, final int batchSize, final int queueSize,
+            final Runnable drainedListener) {
         _publisher = publisher;
         _dataSetHeader = new CachingDataSetHeader(selectItems);
+        _rowLayout = new MetaModelInputRowLayout(selectItems, publisher.getAnalysisJob().getSourceColumns());
         _consumeRowHandler = consumeRowHandler;
         _rowCounter = new AtomicInteger();
+        _batchSize = batchSize;
+        _queueSize = Math.max(1, queueSize);
+        _queuePermits = new Semaphore(_queueSize);
+        // the producer holds a "pending" token itself until the collector is
+        // closed
+        _pendingBatches = new AtomicInteger(1);
+        _consumedRows = new AtomicLong();
+        _firstRowNanos = new AtomicLong();
+        _drainedListener = drainedListener;
     }
 
     @Override
     public void putValues(final Object... values) {
         final DefaultRow row = new DefaultRow(_dataSetHeader, values);
-        putRow(row);
+        putRow(row, _rowLayout);
     }
 
     @Override
     public void putRow(final Row row) {
+        // the row may have been created with another header than our own
+        putRow(row, null);
+    }
+
+    private void putRow(final Row row, final MetaModelInputRowLayout rowLayout) {
         final ErrorAware errorAware = _publisher.getErrorAware();
         if (errorAware.isCancelled() || errorAware.isErrornous()) {
             throw new PreviousErrorsExistException();
         }
         final int rowNumber = _rowCounter.incrementAndGet();
-        final MetaModelInputRow inputRow = new MetaModelInputRow(rowNumber, row);
-        _consumeRowHandler.consumeRow(inputRow);
-        _publisher.getAnalysisListener()
-                .rowProcessingProgress(_publisher.getAnalysisJob(), _publisher.getRowProcessingMetrics(), inputRow,
-                        rowNumber);
+        if (rowNumber == 1) {
+            _firstRowNanos.set(System.nanoTime());
+        }
+        final MetaModelInputRow inputRow = new MetaModelInputRow(rowNumber, row, rowLayout);
+
+        if (_batchSize <= 0) {
+            _consumeRowHandler.consumeRow(inputRow);
+            _consumedRows.incrementAndGet();
+            _publisher.getAnalysisListener()
+                    .rowProcessingProgress(_publisher.getAnalysisJob(), _publisher.getRowProcessingMetrics(),
+                            inputRow, rowNumber);
+            return;
+        }
+
+        final List<InputRow> fullBatch;
+        synchronized (this) {
+            if (_batch == null) {
+                _batch = new ArrayList<>(_batchSize);
+            }
+            _batch.add(inputRow);
+            if (_batch.size() < _batchSize) {
+                return;
+            }
+            fullBatch = _batch;
+            _batch = null;
+        }
+        dispatch(fullBatch);
+    }
+
+    private void dispatch(final List<InputRow> batch) {
+        _pendingBatches.incrementAndGet();
+        final ConsumeBatchTask task = new ConsumeBatchTask(batch);
+        if (_queuePermits.tryAcquire()) {
+            _publisher.getTaskRunner().run(task, new TaskListener() {
+                @Override
+                public void onBegin(final Task task) {
+                }
+
+                @Override
+                public void onComplete(final Task task) {
+                    _queuePermits.release();
+                    onBatchDone();
+                }
+
+                @Override
+                public void onError(final Task task, final Throwable throwable) {
+                    _publisher.getAnalysisListener().errorUnknown(_publisher.getAnalysisJob(), throwable);
+                    _queuePermits.release();
+                    onBatchDone();
+                }
+            });
+        } else {
+            // queue is full - apply backpressure by consuming in the producing
+            // thread
+            try {
+                task.execute();
+            } finally {
+                onBatchDone();
+            }
+        }
+    }
+
+    private void onBatchDone() {
+        if (_pendingBatches.decrementAndGet() == 0 && _drainedListener != null) {
+            _drainedListener.run();
+        }
+    }
+
+    /**
+     * Closes the collector, dispatching any incomplete batch. The drained
+     * listener will be invoked once all batches have been consumed.
+     */
+    public void close() {
+        final List<InputRow> lastBatch;
+        synchronized (this) {
+            lastBatch = _batch;
+            _batch = null;
+        }
+        try {
+            if (lastBatch != null && !lastBatch.isEmpty()) {
+                dispatch(lastBatch);
+            }
+        } finally {
+            onBatchDone();
+        }
+    }
+
+    /**
+     * Gets the number of batches that are currently queued or being consumed.
+     *
+     * @return
+     */
+    public int getQueueDepth() {
+        return _queueSize - _queuePermits.availablePermits();
+    }
+
+    /**
+     * Gets the number of records that have been put into this collector.
+     *
+     * @return
+     */
+    public int getProducedRowCount() {
+        return _rowCounter.get();
+    }
+
+    /**
+     * Gets the number of records that have been consumed by the consumers of
+     * the stream.
+     *
+     * @return
+     */
+    public long getConsumedRowCount() {
+        return _consumedRows.get();
+    }
+
+    /**
+     * Gets the number of records consumed per second since the first record
+     * was put into this collector.
+     *
+     * @return
+     */
+    public double getThroughput() {
+        final long consumedRows = _consumedRows.get();
+        if (consumedRows == 0) {
+            return 0;
+        }
+        final long elapsedNanos = System.nanoTime() - _firstRowNanos.get();
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return consumedRows * 1000000000d / elapsedNanos;
+    }
+
+    private final class ConsumeBatchTask implements Task {
+
+        private final List<InputRow> _rows;
+
+        private ConsumeBatchTask(final List<InputRow> rows) {
+            _rows = rows;
+        }
+
+        @Override
+        public void execute() {
+            for (final InputRow row : _rows) {
+                _consumeRowHandler.consumeRow(row);
+                _consumedRows.incrementAndGet();
+            }
+
+            final InputRow lastRow = _rows.get(_rows.size() - 1);
+            _publisher.getAnalysisListener()
+                    .rowProcessingProgress(_publisher.getAnalysisJob(), _publisher.getRowProcessingMetrics(), lastRow,
+                            (int) lastRow.getId());
+        }
     }
 }
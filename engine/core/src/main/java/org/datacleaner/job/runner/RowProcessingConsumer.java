@@ -57,6 +57,12 @@ public interface RowProcessingConsumer {
      */
     boolean isConcurrent();
 
+    /**
+     * @return the {@link ComponentInstrumentation} which records timings etc.
+     *         of this consumer, or null if instrumentation is disabled.
+     */
+    ComponentInstrumentation getInstrumentation();
+
     /**
      * @return the required input columns for this consumer
      */
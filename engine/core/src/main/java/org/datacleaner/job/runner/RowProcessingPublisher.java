@@ -27,6 +27,7 @@ import org.apache.metamodel.query.Query;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.ComponentJob;
 import org.datacleaner.job.concurrent.TaskListener;
+import org.datacleaner.job.concurrent.TaskRunner;
 import org.datacleaner.util.SourceColumnFinder;
 
 public interface RowProcessingPublisher {
@@ -114,4 +115,12 @@ public interface RowProcessingPublisher {
     ConsumeRowHandler createConsumeRowHandler();
 
     ErrorAware getErrorAware();
+
+    /**
+     * Gets the {@link TaskRunner} which executes the tasks of this
+     * {@link RowProcessingPublisher}.
+     *
+     * @return
+     */
+    TaskRunner getTaskRunner();
 }
@@ -21,6 +21,7 @@ package org.datacleaner.job.runner;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.metamodel.query.Query;
@@ -66,6 +67,16 @@ public interface RowProcessingQueryOptimizer {
      */
     Collection<? extends FilterOutcome> getOptimizedAvailableOutcomes();
 
+    /**
+     * Gets the {@link AnalyzerConsumer}s that should be fed from aggregate
+     * queries instead of from the optimized query, along with those queries.
+     * These consumers are not part of the optimized consumer list (see
+     * {@link #getOptimizedConsumers()}).
+     *
+     * @return
+     */
+    Map<AnalyzerConsumer, Query> getAggregateQueries();
+
     /**
      * Determines if the query has been optimized or not.
      *
@@ -21,8 +21,11 @@ package org.datacleaner.job.runner;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -30,8 +33,11 @@ import java.util.Set;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Column;
 import org.datacleaner.api.Filter;
+import org.datacleaner.api.HasOutputDataStreams;
 import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.QueryAggregatableAnalyzer;
 import org.datacleaner.api.QueryOptimizedFilter;
 import org.datacleaner.components.maxrows.MaxRowsFilter;
 import org.datacleaner.connection.Datastore;
@@ -43,6 +49,7 @@ import org.datacleaner.job.HasComponentRequirement;
 import org.datacleaner.job.HasFilterOutcomes;
 import org.datacleaner.job.InputColumnSinkJob;
 import org.datacleaner.job.InputColumnSourceJob;
+import org.datacleaner.util.SystemProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +65,7 @@ public class RowProcessingQueryOptimizerImpl implements RowProcessingQueryOptimi
     private final Query _baseQuery;
     private final List<RowProcessingConsumer> _consumers;
     private final Map<FilterConsumer, FilterOutcome> _optimizedFilters;
+    private Map<AnalyzerConsumer, Query> _aggregateQueries;
 
     public RowProcessingQueryOptimizerImpl(final Datastore datastore, final List<RowProcessingConsumer> consumers,
             final Query baseQuery) {
@@ -249,9 +257,90 @@ public class RowProcessingQueryOptimizerImpl implements RowProcessingQueryOptimi
                 result.remove(filterConsumer);
             }
         }
+        result.removeAll(getAggregateQueries().keySet());
         return result;
     }
 
+    /**
+     * Gets the aggregate queries of analyzers that can be fed from such
+     * queries. Since the analyzers need to be configured before they can tell
+     * if they support it, this is determined lazily.
+     */
+    @Override
+    public synchronized Map<AnalyzerConsumer, Query> getAggregateQueries() {
+        if (_aggregateQueries == null) {
+            _aggregateQueries = createAggregateQueries();
+        }
+        return _aggregateQueries;
+    }
+
+    private Map<AnalyzerConsumer, Query> createAggregateQueries() {
+        if (!SystemProperties.getBoolean(SystemProperties.QUERY_AGGREGATE_PUSHDOWN, false)) {
+            return Collections.emptyMap();
+        }
+        if (!_datastore.getPerformanceCharacteristics().isQueryOptimizationPreferred()) {
+            logger.debug("Datastore performance characteristics indicate that aggregate queries will not "
+                    + "improve performance");
+            return Collections.emptyMap();
+        }
+
+        final Query query = getOptimizedQuery();
+        if (query.getFirstRow() != null || query.getMaxRows() != null) {
+            // aggregates would not reflect the limited set of rows
+            return Collections.emptyMap();
+        }
+
+        final Map<AnalyzerConsumer, Query> result = new LinkedHashMap<>();
+        for (final RowProcessingConsumer consumer : _consumers) {
+            if (consumer instanceof AnalyzerConsumer && isAggregatable((AnalyzerConsumer) consumer)) {
+                final Column[] columns = getPhysicalColumns(consumer.getRequiredInput());
+
+                final Query aggregateQuery = query.clone();
+                aggregateQuery.getSelectClause().removeItems();
+                aggregateQuery.select(columns).selectCount().groupBy(columns);
+
+                logger.info("Analyzer {} will be fed from aggregate query: {}", consumer, aggregateQuery);
+                result.put((AnalyzerConsumer) consumer, aggregateQuery);
+            }
+        }
+        return result;
+    }
+
+    private boolean isAggregatable(final AnalyzerConsumer consumer) {
+        final Object component = consumer.getComponent();
+        if (!(component instanceof QueryAggregatableAnalyzer) || component instanceof HasOutputDataStreams) {
+            return false;
+        }
+        if (!((QueryAggregatableAnalyzer<?>) component).isQueryAggregatable()) {
+            return false;
+        }
+
+        for (final InputColumn<?> inputColumn : consumer.getRequiredInput()) {
+            if (inputColumn.isVirtualColumn()) {
+                return false;
+            }
+        }
+
+        final ComponentRequirement requirement = consumer.getComponentJob().getComponentRequirement();
+        if (requirement != null) {
+            // only requirements that are fulfilled by the query itself are OK
+            for (final FilterOutcome outcome : requirement.getProcessingDependencies()) {
+                if (!_optimizedFilters.containsValue(outcome)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private Column[] getPhysicalColumns(final InputColumn<?>[] inputColumns) {
+        final Set<Column> columns = new LinkedHashSet<>();
+        for (final InputColumn<?> inputColumn : inputColumns) {
+            columns.add(inputColumn.getPhysicalColumn());
+        }
+        return columns.toArray(new Column[columns.size()]);
+    }
+
     @Override
     public Set<? extends RowProcessingConsumer> getEliminatedConsumers() {
         return _optimizedFilters.keySet();
@@ -264,7 +353,7 @@ public class RowProcessingQueryOptimizerImpl implements RowProcessingQueryOptimi
 
     @Override
     public boolean isOptimizable() {
-        return !_optimizedFilters.isEmpty();
+        return !_optimizedFilters.isEmpty() || !getAggregateQueries().isEmpty();
     }
 
 }
@@ -0,0 +1,154 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.metamodel.schema.Table;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.concurrent.SingleThreadedTaskRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link AnalysisRunner} which can run several jobs at once, sharing the
+ * scans of their source tables. Jobs that read the same table of the same
+ * datastore will have the table queried only once, for the union of the
+ * columns that they need, and each row is passed on to the components of every
+ * job. Each job still produces its own {@link AnalysisResultFuture}.
+ *
+ * Only plain reads of a table are shared. A job whose query has been optimized
+ * (e.g. with a WHERE clause or a maximum number of rows) reads the table on its
+ * own. Since the jobs wait for each other before a shared scan starts, scans are
+ * only shared when the task runner is multi-threaded.
+ */
+public class SharedScanAnalysisRunner extends AnalysisRunnerImpl {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedScanAnalysisRunner.class);
+
+    /**
+     * Creates a {@link SharedScanAnalysisRunner} based on a configuration, with
+     * no listeners
+     *
+     * @param configuration
+     */
+    public SharedScanAnalysisRunner(final DataCleanerConfiguration configuration) {
+        super(configuration);
+    }
+
+    /**
+     * Creates a {@link SharedScanAnalysisRunner} with a set of listeners, based
+     * on a configuration
+     *
+     * @param configuration
+     * @param sharedAnalysisListeners
+     */
+    public SharedScanAnalysisRunner(final DataCleanerConfiguration configuration,
+            final AnalysisListener... sharedAnalysisListeners) {
+        super(configuration, sharedAnalysisListeners);
+    }
+
+    /**
+     * Runs a number of jobs, sharing the scans of their source tables.
+     *
+     * @param jobs
+     * @return the result futures of the jobs, in the same order as the jobs
+     */
+    public List<AnalysisResultFuture> run(final Collection<AnalysisJob> jobs) {
+        final List<AnalysisRunnerJobDelegate> delegates = new ArrayList<>(jobs.size());
+        for (final AnalysisJob job : jobs) {
+            delegates.add(createDelegate(job));
+        }
+
+        // the jobs will wait for each other, so none of them is started
+        // unless all of them are valid
+        for (final AnalysisRunnerJobDelegate delegate : delegates) {
+            delegate.validate();
+        }
+
+        final List<RowProcessingPublishers> publishersList = new ArrayList<>(jobs.size());
+        for (final AnalysisRunnerJobDelegate delegate : delegates) {
+            publishersList.add(delegate.createPublishers());
+        }
+
+        if (getConfiguration().getEnvironment().getTaskRunner() instanceof SingleThreadedTaskRunner) {
+            logger.info("Task runner is single-threaded, source table scans will not be shared");
+        } else {
+            createSharedScans(publishersList);
+        }
+
+        final List<AnalysisResultFuture> resultFutures = new ArrayList<>(delegates.size());
+        try {
+            for (int i = 0; i < delegates.size(); i++) {
+                resultFutures.add(delegates.get(i).run(publishersList.get(i)));
+            }
+        } finally {
+            // if a job could not be started, the jobs that were started must
+            // not wait for it (or the jobs after it) to join the shared scans
+            for (int i = resultFutures.size(); i < delegates.size(); i++) {
+                withdrawFromSharedScans(publishersList.get(i));
+            }
+        }
+        return resultFutures;
+    }
+
+    private void withdrawFromSharedScans(final RowProcessingPublishers publishers) {
+        for (final RowProcessingPublisher publisher : publishers.getRowProcessingPublishers()) {
+            if (publisher instanceof SourceTableRowProcessingPublisher) {
+                ((SourceTableRowProcessingPublisher) publisher).withdrawFromSharedScan();
+            }
+        }
+    }
+
+    private void createSharedScans(final List<RowProcessingPublishers> publishersList) {
+        // group the source table publishers by datastore and table
+        final Map<List<Object>, List<SourceTableRowProcessingPublisher>> groups = new LinkedHashMap<>();
+        for (final RowProcessingPublishers publishers : publishersList) {
+            for (final RowProcessingPublisher publisher : publishers.getRowProcessingPublishers()) {
+                if (publisher instanceof SourceTableRowProcessingPublisher) {
+                    final List<Object> key = Arrays.asList(publisher.getAnalysisJob().getDatastore(),
+                            publisher.getStream().getTable().getQualifiedLabel());
+                    groups.computeIfAbsent(key, k -> new ArrayList<>())
+                            .add((SourceTableRowProcessingPublisher) publisher);
+                }
+            }
+        }
+
+        for (final List<SourceTableRowProcessingPublisher> group : groups.values()) {
+            if (group.size() > 1) {
+                final SourceTableRowProcessingPublisher firstPublisher = group.get(0);
+                final Table table = firstPublisher.getStream().getTable();
+                logger.info("Sharing scan of table '{}' between {} jobs", table.getName(), group.size());
+
+                final SharedSourceTableScan sharedScan =
+                        new SharedSourceTableScan(firstPublisher.getAnalysisJob().getDatastore(), table, group);
+                for (final SourceTableRowProcessingPublisher publisher : group) {
+                    publisher.setSharedScan(sharedScan);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.connection.DatastoreConnection;
+import org.datacleaner.job.concurrent.TaskListener;
+import org.datacleaner.job.concurrent.TaskRunner;
+import org.datacleaner.job.tasks.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A scan of a source table which is shared by the
+ * {@link SourceTableRowProcessingPublisher}s of several jobs, see
+ * {@link SharedScanAnalysisRunner}.
+ *
+ * Publishers join the scan when they are ready to process rows. The last one
+ * to join executes a single query for the union of the participants' columns
+ * and passes each row to all of them, while the others wait (and assist in
+ * executing other tasks) until the scan is finished. Publishers that do not
+ * read the table, e.g. because their query has been optimized or their job
+ * failed, withdraw from the scan so that the others are not kept waiting.
+ */
+final class SharedSourceTableScan {
+
+    /**
+     * Receives the rows of the scan on behalf of a participant.
+     */
+    interface RowReceiver {
+
+        /**
+         * @param row
+         * @return false if the participant does not want to receive any more
+         *         rows
+         */
+        boolean receive(Row row);
+
+        /**
+         * Invoked when all rows have been received.
+         */
+        void finish();
+    }
+
+    private static final class Participant {
+
+        private final Query _query;
+        private final Function<List<SelectItem>, RowReceiver> _receiverFactory;
+
+        private Participant(final Query query, final Function<List<SelectItem>, RowReceiver> receiverFactory) {
+            _query = query;
+            _receiverFactory = receiverFactory;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedSourceTableScan.class);
+
+    private static final long AWAIT_INTERVAL_MILLIS = 10;
+
+    private final Datastore _datastore;
+    private final Table _table;
+    private final Set<RowProcessingPublisher> _pendingPublishers;
+    private final List<Participant> _participants;
+    private final CountDownLatch _finishedLatch;
+    private volatile RuntimeException _error;
+
+    /**
+     * Creates a {@link SharedSourceTableScan}
+     *
+     * @param datastore
+     * @param table
+     * @param publishers
+     *            the publishers that are expected to join or withdraw from the
+     *            scan
+     */
+    SharedSourceTableScan(final Datastore datastore, final Table table,
+            final Collection<? extends RowProcessingPublisher> publishers) {
+        _datastore = datastore;
+        _table = table;
+        _pendingPublishers = Collections.newSetFromMap(new IdentityHashMap<>());
+        _pendingPublishers.addAll(publishers);
+        _participants = new ArrayList<>();
+        _finishedLatch = new CountDownLatch(1);
+    }
+
+    /**
+     * Determines if a row processing query can be served by a shared scan,
+     * which is the case if it plainly selects columns of a table.
+     *
+     * @param query
+     * @return
+     */
+    static boolean isShareable(final Query query) {
+        return query.getWhereClause().isEmpty() && SourceTableSplitter.isPlainTableQuery(query);
+    }
+
+    /**
+     * Joins the scan and receives its rows. If this is the last publisher to
+     * join, the scan is executed by the current thread, otherwise it waits
+     * until the scan has been executed.
+     *
+     * @param publisher
+     * @param query
+     *            the query of the publisher, which must be shareable
+     * @param receiverFactory
+     *            creates the receiver of the rows, given the select items of
+     *            the shared query
+     * @param taskRunner
+     *            the task runner to assist while waiting
+     */
+    void join(final RowProcessingPublisher publisher, final Query query,
+            final Function<List<SelectItem>, RowReceiver> receiverFactory, final TaskRunner taskRunner) {
+        final boolean execute;
+        synchronized (this) {
+            if (!_pendingPublishers.remove(publisher)) {
+                throw new IllegalStateException(
+                        "Publisher cannot join the shared scan of " + _table + ": " + publisher);
+            }
+            _participants.add(new Participant(query, receiverFactory));
+            execute = _pendingPublishers.isEmpty();
+        }
+
+        if (execute) {
+            execute();
+        } else {
+            await(taskRunner);
+        }
+
+        if (_error != null) {
+            throw _error;
+        }
+    }
+
+    /**
+     * Withdraws a publisher from the scan, unless it has already joined or
+     * withdrawn.
+     *
+     * @param publisher
+     */
+    void withdraw(final RowProcessingPublisher publisher) {
+        final boolean execute;
+        synchronized (this) {
+            if (!_pendingPublishers.remove(publisher)) {
+                return;
+            }
+            execute = _pendingPublishers.isEmpty() && !_participants.isEmpty();
+        }
+
+        if (execute) {
+            execute();
+        }
+    }
+
+    /**
+     * Creates a {@link TaskListener} which withdraws a publisher from the scan
+     * if its row processing fails or is skipped.
+     *
+     * @param publisher
+     * @return
+     */
+    TaskListener createWithdrawTaskListener(final RowProcessingPublisher publisher) {
+        return new TaskListener() {
+            @Override
+            public void onBegin(final Task task) {
+            }
+
+            @Override
+            public void onComplete(final Task task) {
+            }
+
+            @Override
+            public void onError(final Task task, final Throwable throwable) {
+                withdraw(publisher);
+            }
+        };
+    }
+
+    private void await(final TaskRunner taskRunner) {
+        try {
+            while (!_finishedLatch.await(AWAIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                // other publishers may depend on queued tasks (such as
+                // initialization) before they can join, so rather than just
+                // blocking the thread, help executing them
+                taskRunner.assistExecution();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shared scan of " + _table, e);
+        }
+    }
+
+    private void execute() {
+        try {
+            final Set<Column> columns = new LinkedHashSet<>();
+            for (final Participant participant : _participants) {
+                for (final SelectItem selectItem : participant._query.getSelectClause().getItems()) {
+                    columns.add(selectItem.getColumn());
+                }
+            }
+            final Query query = new Query().from(_table).select(columns.toArray(new Column[columns.size()]));
+
+            logger.info("Executing shared scan of table '{}' for {} jobs", _table.getName(), _participants.size());
+            logger.debug("Shared scan query: {}", query);
+
+            try (DatastoreConnection con = _datastore.openConnection();
+                    DataSet dataSet = con.getDataContext().executeQuery(query)) {
+                final List<RowReceiver> receivers = new ArrayList<>(_participants.size());
+                for (final Participant participant : _participants) {
+                    receivers.add(participant._receiverFactory.apply(dataSet.getSelectItems()));
+                }
+
+                final List<RowReceiver> activeReceivers = new ArrayList<>(receivers);
+                while (!activeReceivers.isEmpty() && dataSet.next()) {
+                    final Row row = dataSet.getRow();
+                    for (final Iterator<RowReceiver> it = activeReceivers.iterator(); it.hasNext(); ) {
+                        if (!it.next().receive(row)) {
+                            it.remove();
+                        }
+                    }
+                }
+
+                for (final RowReceiver receiver : receivers) {
+                    receiver.finish();
+                }
+            }
+        } catch (final RuntimeException e) {
+            logger.error("Shared scan of table '{}' failed", _table.getName(), e);
+            _error = e;
+        } finally {
+            _finishedLatch.countDown();
+        }
+    }
+}
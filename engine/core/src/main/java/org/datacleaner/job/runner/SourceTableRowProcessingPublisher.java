@@ -20,28 +20,43 @@
 package org.datacleaner.job.runner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.metamodel.DataContext;
 import org.apache.metamodel.data.DataSet;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.jdbc.JdbcDataContext;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Table;
 import org.apache.metamodel.util.CollectionUtils;
 import org.apache.metamodel.util.LazyRef;
 import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
 import org.datacleaner.connection.Datastore;
 import org.datacleaner.connection.DatastoreConnection;
 import org.datacleaner.data.MetaModelInputRow;
+import org.datacleaner.data.MetaModelInputRowLayout;
+import org.datacleaner.job.FilterOutcomes;
+import org.datacleaner.job.concurrent.CompositeTaskListener;
+import org.datacleaner.job.concurrent.DaemonThreadFactory;
 import org.datacleaner.job.concurrent.ForkTaskListener;
 import org.datacleaner.job.concurrent.RunNextTaskTaskListener;
+import org.datacleaner.job.concurrent.SingleThreadedTaskRunner;
 import org.datacleaner.job.concurrent.TaskListener;
 import org.datacleaner.job.concurrent.TaskRunnable;
+import org.datacleaner.job.concurrent.TaskRunner;
+import org.datacleaner.job.tasks.ConsumeRowBatchTask;
 import org.datacleaner.job.tasks.ConsumeRowTask;
 import org.datacleaner.job.tasks.RunRowProcessingPublisherTask;
 import org.datacleaner.util.SystemProperties;
@@ -55,8 +70,11 @@ public final class SourceTableRowProcessingPublisher extends AbstractRowProcessi
 
     private static final Logger logger = LoggerFactory.getLogger(SourceTableRowProcessingPublisher.class);
 
+    private static final long DEFAULT_SPLIT_MIN_SIZE = 16 * 1024 * 1024;
+
     private final Set<Column> _physicalColumns = new LinkedHashSet<>();
     private final LazyRef<RowProcessingQueryOptimizer> _queryOptimizerRef;
+    private SharedSourceTableScan _sharedScan;
 
     /**
      * Constructor to use for creating a
@@ -163,6 +181,26 @@ public final class SourceTableRowProcessingPublisher extends AbstractRowProcessi
         }
     }
 
+    /**
+     * Sets a scan of the source table that is shared with the publishers of
+     * other jobs. Must be set before row processing is started.
+     *
+     * @param sharedScan
+     */
+    void setSharedScan(final SharedSourceTableScan sharedScan) {
+        _sharedScan = sharedScan;
+    }
+
+    /**
+     * Withdraws this publisher from its shared scan (if any), so that the
+     * publishers of other jobs are not kept waiting for it.
+     */
+    void withdrawFromSharedScan() {
+        if (_sharedScan != null) {
+            _sharedScan.withdraw(this);
+        }
+    }
+
     @Override
     protected RowProcessingQueryOptimizer getQueryOptimizer() {
         final RowProcessingQueryOptimizer optimizer = _queryOptimizerRef.get();
@@ -179,6 +217,17 @@ public final class SourceTableRowProcessingPublisher extends AbstractRowProcessi
     @Override
     protected boolean processRowsInternal(final AnalysisListener analysisListener,
             final RowProcessingMetrics rowProcessingMetrics) {
+        try {
+            return readRows(analysisListener, rowProcessingMetrics);
+        } finally {
+            // make sure that the other jobs of the shared scan are not kept
+            // waiting in case this publisher did not join it
+            withdrawFromSharedScan();
+        }
+    }
+
+    private boolean readRows(final AnalysisListener analysisListener,
+            final RowProcessingMetrics rowProcessingMetrics) {
         final RowProcessingQueryOptimizer queryOptimizer = getQueryOptimizer();
         final Query finalQuery = queryOptimizer.getOptimizedQuery();
 
@@ -213,41 +262,179 @@ public final class SourceTableRowProcessingPublisher extends AbstractRowProcessi
                 logger.debug("Final query firstRow={}, maxRows={}", finalQuery.getFirstRow(), finalQuery.getMaxRows());
             }
 
-            // represents the distinct count of rows as well as the number of
-            // tasks to execute
-            int numTasks = 0;
+            for (final Entry<AnalyzerConsumer, Query> entry : queryOptimizer.getAggregateQueries().entrySet()) {
+                if (taskListener.isErrornous()) {
+                    break;
+                }
+                processAggregateQuery(dataContext, entry.getKey(), entry.getValue(), queryOptimizer);
+            }
+
+            if (queryOptimizer.getOptimizedConsumers().isEmpty()) {
+                logger.info("All consumers were fed from aggregate queries, skipping row scan");
+                return !taskListener.isErrornous();
+            }
+
+            final DataSetReader reader =
+                    new DataSetReader(consumeRowHandler, rowProcessingMetrics, analysisListener, taskListener,
+                            idGenerator);
 
-            try (DataSet dataSet = dataContext.executeQuery(finalQuery)) {
-                while (dataSet.next()) {
-                    if (taskListener.isErrornous()) {
-                        break;
+            if (_sharedScan != null && SharedSourceTableScan.isShareable(finalQuery)) {
+                _sharedScan.join(this, finalQuery, reader::createFeed, getTaskRunner());
+            } else {
+                if (_sharedScan != null) {
+                    _sharedScan.withdraw(this);
+                }
+
+                final List<SourceTableSplit> splits = createSplits(datastore, dataContext, finalQuery);
+                if (splits.isEmpty()) {
+                    try (DataSet dataSet = dataContext.executeQuery(finalQuery)) {
+                        reader.read(dataSet);
                     }
+                } else {
+                    readSplits(reader, splits);
+                }
+            }
+
+            taskListener.awaitTasks(reader.getTaskCount());
+        }
 
-                    numTasks++;
+        return !taskListener.isErrornous();
+    }
 
-                    final Row metaModelRow = dataSet.getRow();
-                    final int rowId = idGenerator.nextPhysicalRowId();
+    private List<SourceTableSplit> createSplits(final Datastore datastore, final DataContext dataContext,
+            final Query query) {
+        final int maxSplits = SystemProperties.getInt(SystemProperties.ROW_PROCESSING_SPLITS, 1);
+        if (maxSplits <= 1 || isSingleThreaded()) {
+            return Collections.emptyList();
+        }
 
-                    final MetaModelInputRow inputRow = new MetaModelInputRow(rowId, metaModelRow);
+        final long minSplitSize =
+                SystemProperties.getLong(SystemProperties.ROW_PROCESSING_SPLIT_MIN_SIZE, DEFAULT_SPLIT_MIN_SIZE);
+        final List<SourceTableSplit> splits =
+                SourceTableSplitter.createSplits(datastore, dataContext, query, maxSplits, minSplitSize);
+        if (!splits.isEmpty()) {
+            logger.info("Reading table '{}' in {} concurrent splits", getTable().getName(), splits.size());
+        }
+        return splits;
+    }
 
-                    final ConsumeRowTask task =
-                            new ConsumeRowTask(consumeRowHandler, rowProcessingMetrics, inputRow, analysisListener,
-                                    numTasks);
-                    getTaskRunner().run(task, taskListener);
+    /**
+     * Determines if the rows are processed by a {@link SingleThreadedTaskRunner},
+     * in which case the consumers may not expect to be invoked concurrently.
+     */
+    private boolean isSingleThreaded() {
+        TaskRunner taskRunner = getTaskRunner();
+        if (taskRunner instanceof ErrorAwareTaskRunnerWrapper) {
+            taskRunner = ((ErrorAwareTaskRunnerWrapper) taskRunner).getWrappedTaskRunner();
+        }
+        return taskRunner instanceof SingleThreadedTaskRunner;
+    }
+
+    /**
+     * Reads the splits of the source table concurrently. The first split is
+     * read by the current thread, the rest by separate threads.
+     */
+    private void readSplits(final DataSetReader reader, final List<SourceTableSplit> splits) {
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final ThreadFactory threadFactory = new DaemonThreadFactory();
+
+        final List<Thread> threads = new ArrayList<>(splits.size() - 1);
+        for (final SourceTableSplit split : splits.subList(1, splits.size())) {
+            final Thread thread = threadFactory.newThread(() -> readSplit(reader, split, error));
+            threads.add(thread);
+            thread.start();
+        }
 
+        readSplit(reader, splits.get(0), error);
+
+        for (final Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                reader.stop();
+                error.compareAndSet(null, e);
+                break;
+            }
+        }
+
+        final Throwable throwable = error.get();
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        } else if (throwable != null) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    private void readSplit(final DataSetReader reader, final SourceTableSplit split,
+            final AtomicReference<Throwable> error) {
+        logger.debug("Reading split: {}", split);
+        try (DataSet dataSet = split.execute()) {
+            reader.read(dataSet);
+        } catch (final Throwable e) {
+            reader.stop();
+            error.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * Feeds an analyzer with the result of an aggregate query, passing each
+     * distinct combination of values once together with its row count.
+     */
+    private void processAggregateQuery(final DataContext dataContext, final AnalyzerConsumer consumer,
+            final Query aggregateQuery, final RowProcessingQueryOptimizer queryOptimizer) {
+        logger.debug("Aggregate query: {}", aggregateQuery);
+
+        final int countIndex = aggregateQuery.getSelectClause().getItems().size() - 1;
+        final RowProcessingChain endOfChain = (row, distinctCount, outcomes) -> {
+        };
+
+        int rowId = 0;
+        try (DataSet dataSet = dataContext.executeQuery(aggregateQuery)) {
+            final MetaModelInputRowLayout rowLayout =
+                    new MetaModelInputRowLayout(dataSet.getSelectItems(), Arrays.asList(consumer.getRequiredInput()));
+            while (dataSet.next()) {
+                final Row metaModelRow = dataSet.getRow();
+                final MetaModelInputRow inputRow = new MetaModelInputRow(++rowId, metaModelRow, rowLayout);
+
+                long count = ((Number) metaModelRow.getValue(countIndex)).longValue();
+                while (count > 0) {
+                    final int distinctCount = (int) Math.min(count, Integer.MAX_VALUE);
+                    final FilterOutcomes outcomes =
+                            new FilterOutcomesImpl(queryOptimizer.getOptimizedAvailableOutcomes());
+                    consumer.consume(inputRow, distinctCount, outcomes, endOfChain);
+                    count -= distinctCount;
                 }
             }
-            taskListener.awaitTasks(numTasks);
         }
+    }
 
-        return !taskListener.isErrornous();
+    /**
+     * Gets the number of records to dispatch in each row processing task.
+     *
+     * @return
+     */
+    private int getBatchSize() {
+        return SystemProperties.getInt(SystemProperties.ROW_PROCESSING_BATCH_SIZE, 1);
     }
 
     @Override
     protected boolean runRowProcessingInternal(final List<TaskRunnable> postProcessingTasks) {
-        final TaskListener runCompletionListener =
+        final TaskListener forkTaskListener =
                 new ForkTaskListener("run row processing (" + getStream() + ")", getTaskRunner(), postProcessingTasks);
 
+        final TaskListener runCompletionListener;
+        if (_sharedScan == null) {
+            runCompletionListener = forkTaskListener;
+        } else {
+            // if row processing fails or is skipped, withdraw from the shared
+            // scan so that the other jobs are not kept waiting
+            runCompletionListener =
+                    new CompositeTaskListener(_sharedScan.createWithdrawTaskListener(this), forkTaskListener);
+        }
+
         final RowProcessingMetrics rowProcessingMetrics = getRowProcessingMetrics();
         final RunRowProcessingPublisherTask runTask = new RunRowProcessingPublisherTask(this, rowProcessingMetrics);
 
@@ -259,4 +446,129 @@ public final class SourceTableRowProcessingPublisher extends AbstractRowProcessi
 
         return true;
     }
+
+    /**
+     * Reads the rows of {@link DataSet}s and dispatches them as row processing
+     * tasks. A reader may be used by multiple threads at the same time when a
+     * source table is read in splits.
+     */
+    private final class DataSetReader {
+
+        private final ConsumeRowHandler _consumeRowHandler;
+        private final RowProcessingMetrics _rowProcessingMetrics;
+        private final AnalysisListener _analysisListener;
+        private final RowConsumerTaskListener _taskListener;
+        private final RowIdGenerator _idGenerator;
+        private final int _batchSize;
+
+        // the distinct count of rows
+        private final AtomicInteger _rowCount = new AtomicInteger();
+
+        // the number of tasks to execute
+        private final AtomicInteger _taskCount = new AtomicInteger();
+
+        private volatile boolean _stopped;
+
+        private DataSetReader(final ConsumeRowHandler consumeRowHandler,
+                final RowProcessingMetrics rowProcessingMetrics, final AnalysisListener analysisListener,
+                final RowConsumerTaskListener taskListener, final RowIdGenerator idGenerator) {
+            _consumeRowHandler = consumeRowHandler;
+            _rowProcessingMetrics = rowProcessingMetrics;
+            _analysisListener = analysisListener;
+            _taskListener = taskListener;
+            _idGenerator = idGenerator;
+            _batchSize = getBatchSize();
+        }
+
+        public void read(final DataSet dataSet) {
+            final RowFeed feed = createFeed(dataSet.getSelectItems());
+            while (dataSet.next()) {
+                if (!feed.receive(dataSet.getRow())) {
+                    break;
+                }
+            }
+            feed.finish();
+        }
+
+        /**
+         * Creates a {@link RowFeed} for rows with a particular set of select
+         * items. Each thread that passes rows to the reader needs its own
+         * feed.
+         *
+         * @param selectItems
+         * @return
+         */
+        public RowFeed createFeed(final List<SelectItem> selectItems) {
+            return new RowFeed(selectItems);
+        }
+
+        public void stop() {
+            _stopped = true;
+        }
+
+        public int getTaskCount() {
+            return _taskCount.get();
+        }
+
+        /**
+         * Dispatches the rows passed by a single thread, in batches if
+         * configured.
+         */
+        private final class RowFeed implements SharedSourceTableScan.RowReceiver {
+
+            private final MetaModelInputRowLayout _rowLayout;
+            private List<InputRow> _batch;
+            private int _rowNumber;
+
+            private RowFeed(final List<SelectItem> selectItems) {
+                _rowLayout = new MetaModelInputRowLayout(selectItems, getAnalysisJob().getSourceColumns());
+            }
+
+            @Override
+            public boolean receive(final Row metaModelRow) {
+                if (_stopped || _taskListener.isErrornous()) {
+                    return false;
+                }
+
+                _rowNumber = _rowCount.incrementAndGet();
+
+                final int rowId = _idGenerator.nextPhysicalRowId();
+
+                final MetaModelInputRow inputRow = new MetaModelInputRow(rowId, metaModelRow, _rowLayout);
+
+                if (_batchSize <= 1) {
+                    _taskCount.incrementAndGet();
+                    final ConsumeRowTask task =
+                            new ConsumeRowTask(_consumeRowHandler, _rowProcessingMetrics, inputRow, _analysisListener,
+                                    _rowNumber);
+                    getTaskRunner().run(task, _taskListener);
+                } else {
+                    if (_batch == null) {
+                        _batch = new ArrayList<>(_batchSize);
+                    }
+                    _batch.add(inputRow);
+                    if (_batch.size() == _batchSize) {
+                        dispatchBatch();
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public void finish() {
+                if (_batch != null && !_taskListener.isErrornous()) {
+                    dispatchBatch();
+                }
+            }
+
+            private void dispatchBatch() {
+                _taskCount.incrementAndGet();
+                final ConsumeRowBatchTask task =
+                        new ConsumeRowBatchTask(_consumeRowHandler, _rowProcessingMetrics, _batch, _analysisListener,
+                                _rowNumber);
+                getTaskRunner().run(task, _taskListener);
+                _batch = null;
+            }
+        }
+    }
 }
@@ -0,0 +1,39 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import org.apache.metamodel.data.DataSet;
+
+/**
+ * A part of a source table which can be read independently of (and
+ * concurrently with) the other parts of the table. The rows of a split have
+ * the select items of the query that the split was created for.
+ *
+ * @see SourceTableSplitter
+ */
+public interface SourceTableSplit {
+
+    /**
+     * Executes the query of the split.
+     *
+     * @return
+     */
+    DataSet execute();
+}
@@ -0,0 +1,510 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.MetaModelHelper;
+import org.apache.metamodel.csv.CsvConfiguration;
+import org.apache.metamodel.csv.CsvDataContext;
+import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.CachingDataSetHeader;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetHeader;
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.EmptyDataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.fixedwidth.EbcdicConfiguration;
+import org.apache.metamodel.fixedwidth.FixedWidthConfiguration;
+import org.apache.metamodel.fixedwidth.FixedWidthDataContext;
+import org.apache.metamodel.jdbc.JdbcDataContext;
+import org.apache.metamodel.json.JsonDataContext;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.FunctionType;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.schema.builder.SimpleTableDefSchemaBuilder;
+import org.apache.metamodel.schema.naming.AlphabeticColumnNamingStrategy;
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.Resource;
+import org.apache.metamodel.util.SimpleTableDef;
+import org.datacleaner.connection.CsvDatastore;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.connection.FixedWidthDatastore;
+import org.datacleaner.connection.JdbcDatastore;
+import org.datacleaner.connection.JsonDatastore;
+import org.datacleaner.connection.PerformanceCharacteristics;
+import org.datacleaner.util.LineRangeResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Divides the query of a source table into {@link SourceTableSplit}s which can
+ * be read concurrently.
+ *
+ * Line based files (CSV, fixed width and line-delimited JSON) are split into
+ * byte ranges, each of which is parsed by a separate {@link DataContext} on a
+ * {@link LineRangeResource}. JDBC tables with a single integer primary key are
+ * split into key ranges, each of which is queried separately.
+ *
+ * If a source cannot be split, no splits are created and the query should be
+ * executed as a whole.
+ */
+public final class SourceTableSplitter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceTableSplitter.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * A split of a file, which is parsed by a separate {@link DataContext}.
+     * Since the columns of the split's table may be named differently than in
+     * the original table (e.g. if the original table's column names come from
+     * a header line), the values are mapped onto the original select items.
+     */
+    private static final class FileSplit implements SourceTableSplit {
+
+        private final LineRangeResource _resource;
+        private final Function<Resource, DataContext> _dataContextFactory;
+        private final Table _originalTable;
+        private final List<SelectItem> _selectItems;
+        private final boolean _mapColumnsByName;
+
+        private FileSplit(final LineRangeResource resource, final Function<Resource, DataContext> dataContextFactory,
+                final Table originalTable, final List<SelectItem> selectItems, final boolean mapColumnsByName) {
+            _resource = resource;
+            _dataContextFactory = dataContextFactory;
+            _originalTable = originalTable;
+            _selectItems = selectItems;
+            _mapColumnsByName = mapColumnsByName;
+        }
+
+        @Override
+        public DataSet execute() {
+            final DataContext dataContext = _dataContextFactory.apply(_resource);
+            final Table table = getTable(dataContext);
+
+            final int[] indexes = new int[_selectItems.size()];
+            final List<Column> columns = new ArrayList<>();
+            for (int i = 0; i < indexes.length; i++) {
+                final Column column = getColumn(table, _selectItems.get(i).getColumn());
+                if (column == null) {
+                    indexes[i] = -1;
+                } else {
+                    indexes[i] = columns.size();
+                    columns.add(column);
+                }
+            }
+
+            if (columns.isEmpty()) {
+                return new EmptyDataSet(_selectItems);
+            }
+
+            final Query query = new Query().from(table).select(columns.toArray(new Column[columns.size()]));
+            final DataSet dataSet = dataContext.executeQuery(query);
+            return new FileSplitDataSet(new CachingDataSetHeader(_selectItems), dataSet, indexes);
+        }
+
+        private Table getTable(final DataContext dataContext) {
+            if (_mapColumnsByName) {
+                return dataContext.getDefaultSchema().getTableByName(_originalTable.getName());
+            }
+            if (dataContext.getDefaultSchema().getTableCount() == 0) {
+                return null;
+            }
+            return dataContext.getDefaultSchema().getTable(0);
+        }
+
+        private Column getColumn(final Table table, final Column originalColumn) {
+            if (table == null) {
+                return null;
+            }
+            if (_mapColumnsByName) {
+                return table.getColumnByName(originalColumn.getName());
+            }
+            final int columnNumber = originalColumn.getColumnNumber();
+            if (columnNumber < table.getColumnCount()) {
+                return table.getColumn(columnNumber);
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return "FileSplit[" + _resource + "]";
+        }
+    }
+
+    private static final class FileSplitDataSet extends AbstractDataSet {
+
+        private final DataSetHeader _header;
+        private final DataSet _dataSet;
+        private final int[] _indexes;
+
+        private FileSplitDataSet(final DataSetHeader header, final DataSet dataSet, final int[] indexes) {
+            super(header);
+            _header = header;
+            _dataSet = dataSet;
+            _indexes = indexes;
+        }
+
+        @Override
+        public boolean next() {
+            return _dataSet.next();
+        }
+
+        @Override
+        public Row getRow() {
+            final Row row = _dataSet.getRow();
+            if (row == null) {
+                return null;
+            }
+            final Object[] values = new Object[_indexes.length];
+            for (int i = 0; i < _indexes.length; i++) {
+                if (_indexes[i] != -1) {
+                    values[i] = row.getValue(_indexes[i]);
+                }
+            }
+            return new DefaultRow(_header, values);
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            _dataSet.close();
+        }
+    }
+
+    /**
+     * A split of a JDBC table, bounded by a range of primary key values.
+     */
+    private static final class KeyRangeSplit implements SourceTableSplit {
+
+        private final DataContext _dataContext;
+        private final Query _query;
+
+        private KeyRangeSplit(final DataContext dataContext, final Query query) {
+            _dataContext = dataContext;
+            _query = query;
+        }
+
+        @Override
+        public DataSet execute() {
+            return _dataContext.executeQuery(_query);
+        }
+
+        @Override
+        public String toString() {
+            return "KeyRangeSplit[" + _query.getWhereClause() + "]";
+        }
+    }
+
+    private SourceTableSplitter() {
+        // prevent instantiation
+    }
+
+    /**
+     * Creates splits of a source table query.
+     *
+     * @param datastore
+     *            the datastore of the source table
+     * @param dataContext
+     *            the {@link DataContext} of an open connection to the datastore
+     * @param query
+     *            the query to split
+     * @param maxSplits
+     *            the maximum number of splits to create
+     * @param minSplitSize
+     *            the minimum number of bytes in a split of a file
+     * @return a list of splits which together contain the rows of the query,
+     *         or an empty list if the query cannot be split
+     */
+    public static List<SourceTableSplit> createSplits(final Datastore datastore, final DataContext dataContext,
+            final Query query, final int maxSplits, final long minSplitSize) {
+        if (maxSplits <= 1 || !isPlainTableQuery(query)) {
+            return Collections.emptyList();
+        }
+
+        final Table table = query.getFromClause().getItem(0).getTable();
+        final PerformanceCharacteristics performanceCharacteristics = datastore.getPerformanceCharacteristics();
+
+        try {
+            if (performanceCharacteristics.isNaturalRecordOrderConsistent() && query.getWhereClause().isEmpty()) {
+                if (datastore instanceof CsvDatastore) {
+                    return createCsvSplits((CsvDatastore) datastore, query, table, maxSplits, minSplitSize);
+                }
+                if (datastore instanceof FixedWidthDatastore) {
+                    return createFixedWidthSplits((FixedWidthDatastore) datastore, query, table, maxSplits,
+                            minSplitSize);
+                }
+                if (datastore instanceof JsonDatastore) {
+                    return createJsonSplits((JsonDatastore) datastore, dataContext, query, table, maxSplits,
+                            minSplitSize);
+                }
+            }
+
+            if (performanceCharacteristics.isQueryOptimizationPreferred() && dataContext instanceof JdbcDataContext) {
+                if (datastore instanceof JdbcDatastore && !((JdbcDatastore) datastore).isMultipleConnections()) {
+                    return Collections.emptyList();
+                }
+                return createKeyRangeSplits(dataContext, query, table, maxSplits);
+            }
+        } catch (final RuntimeException e) {
+            logger.warn("Failed to split query, it will be executed as a whole: {}", query, e);
+        }
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * Determines if a query plainly selects the columns of a single table,
+     * without any limits, grouping or ordering. Such queries can be divided
+     * by their rows.
+     *
+     * @param query
+     * @return
+     */
+    static boolean isPlainTableQuery(final Query query) {
+        if (query.getFirstRow() != null || query.getMaxRows() != null) {
+            return false;
+        }
+        if (!query.getGroupByClause().isEmpty() || !query.getHavingClause().isEmpty() || !query.getOrderByClause()
+                .isEmpty()) {
+            return false;
+        }
+        if (query.getFromClause().getItems().size() != 1) {
+            return false;
+        }
+        final Table table = query.getFromClause().getItem(0).getTable();
+        if (table == null) {
+            return false;
+        }
+        for (final SelectItem selectItem : query.getSelectClause().getItems()) {
+            final Column column = selectItem.getColumn();
+            if (column == null || selectItem.getAggregateFunction() != null || selectItem.getScalarFunction() != null
+                    || !table.equals(column.getTable())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<SourceTableSplit> createCsvSplits(final CsvDatastore datastore, final Query query,
+            final Table table, final int maxSplits, final long minSplitSize) {
+        final CsvConfiguration configuration = datastore.getCsvConfiguration();
+        final Resource resource = datastore.getResource();
+        if (resource == null || datastore.isMultilineValues() || !isLineSplittable(configuration.getEncoding())) {
+            return Collections.emptyList();
+        }
+
+        final CsvConfiguration headerlessConfiguration =
+                new CsvConfiguration(CsvConfiguration.NO_COLUMN_NAME_LINE, configuration.getEncoding(),
+                        configuration.getSeparatorChar(), configuration.getQuoteChar(), configuration.getEscapeChar(),
+                        datastore.isFailOnInconsistencies(), false);
+
+        return createFileSplits(resource, maxSplits, minSplitSize, query, table, false, first -> {
+            if (first) {
+                return r -> new CsvDataContext(r, configuration);
+            }
+            return r -> new CsvDataContext(r, headerlessConfiguration);
+        });
+    }
+
+    private static List<SourceTableSplit> createFixedWidthSplits(final FixedWidthDatastore datastore,
+            final Query query, final Table table, final int maxSplits, final long minSplitSize) {
+        final FixedWidthConfiguration configuration = datastore.getConfiguration();
+        final Resource resource = datastore.getResource();
+        if (resource == null || configuration instanceof EbcdicConfiguration || !isLineSplittable(
+                datastore.getEncoding())) {
+            return Collections.emptyList();
+        }
+
+        final FixedWidthConfiguration headerlessConfiguration;
+        if (datastore.getFixedValueWidth() == -1) {
+            headerlessConfiguration = new FixedWidthConfiguration(FixedWidthConfiguration.NO_COLUMN_NAME_LINE,
+                    new AlphabeticColumnNamingStrategy(), datastore.getEncoding(), datastore.getValueWidths(),
+                    datastore.isFailOnInconsistencies());
+        } else {
+            headerlessConfiguration = new FixedWidthConfiguration(FixedWidthConfiguration.NO_COLUMN_NAME_LINE,
+                    datastore.getEncoding(), datastore.getFixedValueWidth(), datastore.isFailOnInconsistencies());
+        }
+
+        return createFileSplits(resource, maxSplits, minSplitSize, query, table, false, first -> {
+            if (first) {
+                return r -> new FixedWidthDataContext(r, configuration);
+            }
+            return r -> new FixedWidthDataContext(r, headerlessConfiguration);
+        });
+    }
+
+    private static List<SourceTableSplit> createJsonSplits(final JsonDatastore datastore,
+            final DataContext dataContext, final Query query, final Table table, final int maxSplits,
+            final long minSplitSize) {
+        final Resource resource = datastore.getResource();
+        if (resource == null || dataContext.getDefaultSchema().getTableCount() != 1 || !isLineDelimitedJson(
+                resource)) {
+            return Collections.emptyList();
+        }
+
+        // the schema is fixed to the one of the original table, since
+        // inferring it from each split could yield different columns
+        final List<Column> columns = table.getColumns();
+        final String[] columnNames = new String[columns.size()];
+        final ColumnType[] columnTypes = new ColumnType[columns.size()];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = columns.get(i).getName();
+            columnTypes[i] = columns.get(i).getType();
+        }
+        final SimpleTableDef tableDef = new SimpleTableDef(table.getName(), columnNames, columnTypes);
+
+        return createFileSplits(resource, maxSplits, minSplitSize, query, table, true,
+                first -> r -> new JsonDataContext(r,
+                        new SimpleTableDefSchemaBuilder(table.getSchema().getName(), tableDef)));
+    }
+
+    private static List<SourceTableSplit> createFileSplits(final Resource resource, final int maxSplits,
+            final long minSplitSize, final Query query, final Table table, final boolean mapColumnsByName,
+            final Function<Boolean, Function<Resource, DataContext>> dataContextFactories) {
+        final long size = resource.getSize();
+        if (size <= 0) {
+            return Collections.emptyList();
+        }
+        final int splitCount = (int) Math.min(maxSplits, size / Math.max(1, minSplitSize));
+        if (splitCount <= 1) {
+            return Collections.emptyList();
+        }
+
+        final List<SelectItem> selectItems = query.getSelectClause().getItems();
+        final List<SourceTableSplit> splits = new ArrayList<>(splitCount);
+        for (int i = 0; i < splitCount; i++) {
+            final long start = size * i / splitCount;
+            final long end = size * (i + 1) / splitCount;
+            final LineRangeResource range = new LineRangeResource(resource, start, end);
+            splits.add(new FileSplit(range, dataContextFactories.apply(i == 0), table, selectItems,
+                    mapColumnsByName));
+        }
+        return splits;
+    }
+
+    private static List<SourceTableSplit> createKeyRangeSplits(final DataContext dataContext, final Query query,
+            final Table table, final int maxSplits) {
+        final List<Column> primaryKeys = table.getPrimaryKeys();
+        if (primaryKeys.size() != 1) {
+            return Collections.emptyList();
+        }
+        final Column key = primaryKeys.get(0);
+        if (!isIntegerType(key.getType())) {
+            return Collections.emptyList();
+        }
+
+        final Query boundsQuery = new Query().from(table);
+        boundsQuery.select(new SelectItem(FunctionType.MIN, key), new SelectItem(FunctionType.MAX, key));
+        for (final FilterItem filterItem : query.getWhereClause().getItems()) {
+            boundsQuery.where(filterItem);
+        }
+        final Row bounds = MetaModelHelper.executeSingleRowQuery(dataContext, boundsQuery);
+        if (bounds == null || !(bounds.getValue(0) instanceof Number) || !(bounds.getValue(1) instanceof Number)) {
+            return Collections.emptyList();
+        }
+
+        final BigInteger min = BigInteger.valueOf(((Number) bounds.getValue(0)).longValue());
+        final BigInteger max = BigInteger.valueOf(((Number) bounds.getValue(1)).longValue());
+        final BigInteger keyCount = max.subtract(min).add(BigInteger.ONE);
+        final int splitCount = keyCount.min(BigInteger.valueOf(maxSplits)).intValue();
+        if (splitCount <= 1) {
+            return Collections.emptyList();
+        }
+
+        final List<SourceTableSplit> splits = new ArrayList<>(splitCount);
+        for (int i = 0; i < splitCount; i++) {
+            final Query splitQuery = query.clone();
+            if (i > 0) {
+                splitQuery.where(key, OperatorType.GREATER_THAN_OR_EQUAL, getBound(min, keyCount, i, splitCount));
+            }
+            if (i < splitCount - 1) {
+                splitQuery.where(key, OperatorType.LESS_THAN, getBound(min, keyCount, i + 1, splitCount));
+            }
+            splits.add(new KeyRangeSplit(dataContext, splitQuery));
+        }
+        return splits;
+    }
+
+    private static long getBound(final BigInteger min, final BigInteger keyCount, final int index,
+            final int splitCount) {
+        return min.add(keyCount.multiply(BigInteger.valueOf(index)).divide(BigInteger.valueOf(splitCount)))
+                .longValue();
+    }
+
+    private static boolean isIntegerType(final ColumnType type) {
+        return type == ColumnType.INTEGER || type == ColumnType.BIGINT || type == ColumnType.SMALLINT
+                || type == ColumnType.TINYINT;
+    }
+
+    /**
+     * Determines if lines in an encoding can be found by looking for '\n'
+     * bytes, see {@link LineRangeResource}.
+     */
+    private static boolean isLineSplittable(final String encoding) {
+        final Charset charset;
+        try {
+            charset = Charset.forName(encoding == null ? FileHelper.UTF_8_ENCODING : encoding);
+        } catch (final RuntimeException e) {
+            return false;
+        }
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return true;
+        }
+        if (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1.0f) {
+            return false;
+        }
+        return Arrays.equals("\n".getBytes(charset), new byte[] { '\n' });
+    }
+
+    private static boolean isLineDelimitedJson(final Resource resource) {
+        try (BufferedReader reader = FileHelper.getBufferedReader(resource.read(), FileHelper.UTF_8_ENCODING)) {
+            final String line = reader.readLine();
+            if (line == null) {
+                return false;
+            }
+            final JsonNode node = OBJECT_MAPPER.readTree(line);
+            return node != null && node.isObject();
+        } catch (final IOException | RuntimeException e) {
+            logger.debug("JSON resource is not line-delimited: {}", resource, e);
+            return false;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.datacleaner.api.InputRow;
 import org.datacleaner.api.OutputRowCollector;
 import org.datacleaner.api.Transformer;
 import org.datacleaner.data.TransformedInputRow;
+import org.datacleaner.data.TransformedInputRowLayout;
 import org.datacleaner.descriptors.ProvidedPropertyDescriptor;
 import org.datacleaner.job.FilterOutcomes;
 import org.datacleaner.job.TransformerJob;
@@ -45,6 +46,7 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
     private final boolean _concurrent;
     private final Set<ProvidedPropertyDescriptor> _outputRowCollectorProperties;
     private RowIdGenerator _idGenerator;
+    private TransformedInputRowLayout _rowLayout;
 
     public TransformerConsumer(final Transformer transformer, final TransformerJob transformerJob,
             final InputColumn<?>[] inputColumns, final RowProcessingPublisher publisher) {
@@ -76,6 +78,26 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
         _idGenerator = idGenerator;
     }
 
+    /**
+     * Sets the {@link TransformedInputRowLayout} to use, when creating new
+     * transformed records.
+     *
+     * @param rowLayout
+     */
+    public void setRowLayout(final TransformedInputRowLayout rowLayout) {
+        _rowLayout = rowLayout;
+    }
+
+    /**
+     * Determines if the transformer may emit multiple rows per consumed row,
+     * ie. if it uses an {@link OutputRowCollector}.
+     *
+     * @return
+     */
+    public boolean isMultiRowEmitting() {
+        return !_outputRowCollectorProperties.isEmpty();
+    }
+
     @Override
     public boolean isConcurrent() {
         return _concurrent;
@@ -108,7 +130,7 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
             if (values == null) {
                 return;
             }
-            final TransformedInputRow resultRow = TransformedInputRow.of(row);
+            final TransformedInputRow resultRow = TransformedInputRow.of(row, _rowLayout);
             addValuesToRow(resultRow, outputColumns, values);
             chain.processNext(resultRow, distinctCount, outcomes);
         } finally {
@@ -142,9 +164,9 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
                 final TransformedInputRow resultRow;
                 if (isFirst) {
                     // retain the first record's id
-                    resultRow = TransformedInputRow.of(row);
+                    resultRow = TransformedInputRow.of(row, _rowLayout);
                 } else {
-                    resultRow = new TransformedInputRow(row, getNextVirtualRowId(row, recordNo));
+                    resultRow = new TransformedInputRow(row, getNextVirtualRowId(row, recordNo), _rowLayout);
                 }
 
                 addValuesToRow(resultRow, outputColumns, values);
@@ -0,0 +1,82 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.tasks;
+
+import java.util.List;
+
+import org.datacleaner.api.InputRow;
+import org.datacleaner.job.runner.AnalysisListener;
+import org.datacleaner.job.runner.ConsumeRowHandler;
+import org.datacleaner.job.runner.RowProcessingConsumer;
+import org.datacleaner.job.runner.RowProcessingMetrics;
+
+/**
+ * A {@link Task} that dispatches ("consumes") a batch of records to all
+ * relevant {@link RowProcessingConsumer}s. Compared to {@link ConsumeRowTask}
+ * this saves a task object, a queue handoff and a task listener callback per
+ * record, which is significant for very large source tables.
+ *
+ * Progress is reported to the {@link AnalysisListener} once per batch, using
+ * the last record of the batch.
+ */
+public final class ConsumeRowBatchTask implements Task {
+
+    private final RowProcessingMetrics _rowProcessingMetrics;
+    private final List<InputRow> _rows;
+    private final AnalysisListener _analysisListener;
+    private final ConsumeRowHandler _consumeRowHandler;
+    private final int _lastRowNumber;
+
+    /**
+     * Creates a {@link ConsumeRowBatchTask}.
+     *
+     * @param consumeRowHandler
+     * @param rowProcessingMetrics
+     * @param rows
+     *            the rows of the batch, in the order they were read
+     * @param analysisListener
+     * @param lastRowNumber
+     *            the row number of the last row in the batch
+     */
+    public ConsumeRowBatchTask(final ConsumeRowHandler consumeRowHandler,
+            final RowProcessingMetrics rowProcessingMetrics, final List<InputRow> rows,
+            final AnalysisListener analysisListener, final int lastRowNumber) {
+        _consumeRowHandler = consumeRowHandler;
+        _rowProcessingMetrics = rowProcessingMetrics;
+        _rows = rows;
+        _analysisListener = analysisListener;
+        _lastRowNumber = lastRowNumber;
+    }
+
+    @Override
+    public void execute() {
+        if (_rows.isEmpty()) {
+            return;
+        }
+
+        for (final InputRow row : _rows) {
+            _consumeRowHandler.consumeRow(row).getRows();
+        }
+
+        final InputRow lastRow = _rows.get(_rows.size() - 1);
+        _analysisListener.rowProcessingProgress(_rowProcessingMetrics.getAnalysisJobMetrics().getAnalysisJob(),
+                _rowProcessingMetrics, lastRow, _lastRowNumber);
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.reference;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * An immutable, compact {@link DictionaryConnection} over an in-memory set of
+ * values. The values are held in a single array, sorted by length (longest
+ * first), and indexed by an open addressing hash table of array positions.
+ * This takes a fraction of the memory of a {@link java.util.HashSet} and
+ * makes {@link #getLengthSortedValues()} free of any sorting.
+ *
+ * Since the connection holds no resources it is safe to share between any
+ * number of components and threads.
+ */
+final class CompactDictionaryConnection implements DictionaryConnection {
+
+    private final String[] _values;
+    private final int[] _table;
+    private final int _mask;
+    private final boolean _caseSensitive;
+
+    /**
+     * Creates a {@link CompactDictionaryConnection}.
+     *
+     * @param values
+     *            the distinct values of the dictionary, already lower-cased if
+     *            the dictionary is case-insensitive
+     * @param caseSensitive
+     */
+    public CompactDictionaryConnection(final Collection<String> values, final boolean caseSensitive) {
+        _caseSensitive = caseSensitive;
+        _values = values.toArray(new String[values.size()]);
+        Arrays.sort(_values, Comparator.comparingInt(String::length).reversed().thenComparing(String::compareTo));
+
+        // keep the load factor at or below 0.5 for short probe sequences
+        int capacity = 2;
+        while (capacity < _values.length * 2) {
+            capacity <<= 1;
+        }
+        _mask = capacity - 1;
+        _table = new int[capacity];
+        Arrays.fill(_table, -1);
+        for (int i = 0; i < _values.length; i++) {
+            int slot = slot(_values[i]);
+            while (_table[slot] != -1) {
+                slot = (slot + 1) & _mask;
+            }
+            _table[slot] = i;
+        }
+    }
+
+    private int slot(final String value) {
+        final int hash = value.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & _mask;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        if (value == null) {
+            return false;
+        }
+        if (!_caseSensitive) {
+            value = value.toLowerCase();
+        }
+        for (int slot = slot(value); _table[slot] != -1; slot = (slot + 1) & _mask) {
+            if (_values[_table[slot]].equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<String> getLengthSortedValues() {
+        return Arrays.asList(_values).iterator();
+    }
+
+    @Override
+    public Iterator<String> getAllValues() {
+        return getLengthSortedValues();
+    }
+
+    public int getSize() {
+        return _values.length;
+    }
+
+    /**
+     * Estimates the number of bytes used by this connection
+     *
+     * @return
+     */
+    public long getEstimatedMemoryUsage() {
+        long result = 16 + 4L * _table.length + 16 + 8L * _values.length;
+        for (final String value : _values) {
+            result += ReferenceDataCache.estimateMemoryUsage(value);
+        }
+        return result;
+    }
+
+    ReferenceDataCache.Entry toCacheEntry(final String name) {
+        return new ReferenceDataCache.Entry(name, this, getSize(), getEstimatedMemoryUsage());
+    }
+
+    @Override
+    public void close() {
+        // shared and immutable, nothing to close
+    }
+}
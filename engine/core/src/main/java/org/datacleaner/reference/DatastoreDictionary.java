@@ -21,6 +21,7 @@ package org.datacleaner.reference;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -110,17 +111,20 @@ public final class DatastoreDictionary extends AbstractReferenceData implements
             throw new NoSuchDatastoreException(_datastoreName);
         }
 
-        final DatastoreConnection datastoreConnection = datastore.openConnection();
-
         if (_loadIntoMemory) {
-            final SimpleDictionary simpleDictionary = loadIntoMemory(datastoreConnection);
-
-            // no need for the connection anymore
-            datastoreConnection.close();
-
-            return simpleDictionary.openConnection(configuration);
+            // the datastore cannot tell if it has been modified, so the
+            // loaded values expire or are invalidated with the datastore
+            final Object cacheKey = Arrays.asList(DatastoreDictionary.class, datastore, _qualifiedColumnName);
+            return ReferenceDataCache.get(configuration).getExpiring(cacheKey, () -> {
+                try (DatastoreConnection datastoreConnection = datastore.openConnection()) {
+                    final SimpleDictionary simpleDictionary = loadIntoMemory(datastoreConnection);
+                    return new CompactDictionaryConnection(simpleDictionary.getValueSet(),
+                            simpleDictionary.isCaseSensitive()).toCacheEntry(getName());
+                }
+            });
         }
 
+        final DatastoreConnection datastoreConnection = datastore.openConnection();
         return new DatastoreDictionaryConnection(this, datastoreConnection);
     }
 
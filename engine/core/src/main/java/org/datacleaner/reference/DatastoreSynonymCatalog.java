@@ -108,17 +108,19 @@ public final class DatastoreSynonymCatalog extends AbstractReferenceData impleme
             throw new NoSuchDatastoreException(_datastoreName);
         }
 
-        final DatastoreConnection datastoreConnection = datastore.openConnection();
-
         if (_loadIntoMemory) {
-            final SimpleSynonymCatalog simpleSynonymCatalog = loadIntoMemory(datastoreConnection);
-
-            // no need for the connection anymore
-            datastoreConnection.close();
-
-            return simpleSynonymCatalog.openConnection(configuration);
+            // the datastore cannot tell if it has been modified, so the
+            // loaded synonyms expire or are invalidated with the datastore
+            final Object cacheKey = Arrays.asList(DatastoreSynonymCatalog.class, datastore, _masterTermColumnPath,
+                    Arrays.asList(_synonymColumnPaths));
+            return ReferenceDataCache.get(configuration).getExpiring(cacheKey, () -> {
+                try (DatastoreConnection datastoreConnection = datastore.openConnection()) {
+                    return loadIntoMemory(datastoreConnection).toCacheEntry(configuration);
+                }
+            });
         }
 
+        final DatastoreConnection datastoreConnection = datastore.openConnection();
         return new DatastoreSynonymCatalogConnection(this, datastoreConnection);
     }
 
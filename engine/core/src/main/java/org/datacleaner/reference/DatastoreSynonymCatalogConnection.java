@@ -31,6 +31,7 @@ final class DatastoreSynonymCatalogConnection implements SynonymCatalogConnectio
 
     private final DatastoreConnection _datastoreConnection;
     private final DatastoreSynonymCatalog _synonymCatalog;
+    private volatile SynonymCatalogConnection _inMemoryConnection;
 
     public DatastoreSynonymCatalogConnection(final DatastoreSynonymCatalog synonymCatalog,
             final DatastoreConnection datastoreConnection) {
@@ -74,12 +75,37 @@ final class DatastoreSynonymCatalogConnection implements SynonymCatalogConnectio
 
     @Override
     public Replacement replaceInline(final String sentence) {
-        final SimpleSynonymCatalog simpleSynonymCatalog = _synonymCatalog.loadIntoMemory(_datastoreConnection);
-        return simpleSynonymCatalog.openConnection(null).replaceInline(sentence);
+        return getInMemoryConnection().replaceInline(sentence);
+    }
+
+    /**
+     * Gets a connection to an in-memory copy of the synonym catalog. The
+     * copy (and its synonym matching automaton) is loaded only once per
+     * connection, on first use.
+     */
+    private SynonymCatalogConnection getInMemoryConnection() {
+        SynonymCatalogConnection inMemoryConnection = _inMemoryConnection;
+        if (inMemoryConnection == null) {
+            synchronized (this) {
+                inMemoryConnection = _inMemoryConnection;
+                if (inMemoryConnection == null) {
+                    final SimpleSynonymCatalog simpleSynonymCatalog =
+                            _synonymCatalog.loadIntoMemory(_datastoreConnection);
+                    inMemoryConnection = simpleSynonymCatalog.openConnection(null);
+                    _inMemoryConnection = inMemoryConnection;
+                }
+            }
+        }
+        return inMemoryConnection;
     }
 
     @Override
     public void close() {
+        final SynonymCatalogConnection inMemoryConnection = _inMemoryConnection;
+        if (inMemoryConnection != null) {
+            inMemoryConnection.close();
+            _inMemoryConnection = null;
+        }
         _datastoreConnection.close();
     }
 
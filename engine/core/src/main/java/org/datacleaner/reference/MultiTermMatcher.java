@@ -0,0 +1,278 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.reference;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+
+/**
+ * An Aho-Corasick automaton over a set of terms (synonyms, dictionary values
+ * etc.), used to find all occurrences of the terms in a string in a single
+ * pass.
+ *
+ * The matching semantics are the same as searching for each term, in the
+ * order of the supplied map, with a regular expression of the form
+ * <code>\bterm\b</code>: Terms must start and end on word boundaries, terms
+ * that come first in the map (typically the longest ones) take precedence,
+ * and occurrences that overlap an occurrence of a preceding term are skipped.
+ * Unlike the regular expression, terms are always matched literally.
+ *
+ * Once built, the automaton is immutable and can be shared by any number of
+ * threads.
+ */
+public final class MultiTermMatcher {
+
+    /**
+     * An occurrence of a term in a string.
+     */
+    public static final class Match {
+
+        private final int _start;
+        private final int _end;
+        private final int _rank;
+        private final String _term;
+        private final String _value;
+        private final boolean _singleWord;
+
+        private Match(final int start, final int end, final int rank, final String term, final String value,
+                final boolean singleWord) {
+            _start = start;
+            _end = end;
+            _rank = rank;
+            _term = term;
+            _value = value;
+            _singleWord = singleWord;
+        }
+
+        public int getStart() {
+            return _start;
+        }
+
+        public int getEnd() {
+            return _end;
+        }
+
+        /**
+         * Gets the matched term, as it was specified when building the
+         * matcher.
+         *
+         * @return
+         */
+        public String getTerm() {
+            return _term;
+        }
+
+        /**
+         * Gets the value associated with the matched term.
+         *
+         * @return
+         */
+        public String getValue() {
+            return _value;
+        }
+
+        /**
+         * Determines if the matched term is a single word, ie. if it contains
+         * no word boundaries.
+         *
+         * @return
+         */
+        public boolean isSingleWord() {
+            return _singleWord;
+        }
+    }
+
+    private static final class Node {
+
+        private final Map<Character, Node> _children = new HashMap<>(4);
+        private Node _failure;
+        // the nearest node on the failure chain (excluding this) that ends a
+        // term
+        private Node _output;
+        // the rank of the term ending in this node, or -1
+        private int _rank = -1;
+    }
+
+    private final Node _root;
+    private final boolean _caseSensitive;
+    private final String[] _terms;
+    private final String[] _values;
+    private final boolean[] _singleWords;
+
+    /**
+     * Creates a {@link MultiTermMatcher}.
+     *
+     * @param termMap
+     *            a map of terms to associated values, iterating in order of
+     *            precedence (e.g. a {@link java.util.SortedMap} or a
+     *            {@link java.util.LinkedHashMap})
+     * @param caseSensitive
+     *            whether or not terms should be matched case-sensitively
+     */
+    public MultiTermMatcher(final Map<String, String> termMap, final boolean caseSensitive) {
+        _root = new Node();
+        _caseSensitive = caseSensitive;
+        _terms = new String[termMap.size()];
+        _values = new String[termMap.size()];
+        _singleWords = new boolean[termMap.size()];
+
+        int rank = 0;
+        for (final Entry<String, String> entry : termMap.entrySet()) {
+            final String term = entry.getKey();
+            _terms[rank] = term;
+            _values[rank] = entry.getValue();
+            _singleWords[rank] = isSingleWord(term);
+            if (!term.isEmpty()) {
+                final String matchTerm = caseSensitive ? term : toLowerCase(term);
+                Node node = _root;
+                for (int i = 0; i < matchTerm.length(); i++) {
+                    node = node._children.computeIfAbsent(matchTerm.charAt(i), c -> new Node());
+                }
+                if (node._rank == -1) {
+                    node._rank = rank;
+                }
+            }
+            rank++;
+        }
+
+        buildFailureLinks();
+    }
+
+    private void buildFailureLinks() {
+        final Queue<Node> queue = new ArrayDeque<>();
+        for (final Node child : _root._children.values()) {
+            child._failure = _root;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            final Node node = queue.poll();
+            for (final Entry<Character, Node> entry : node._children.entrySet()) {
+                final char c = entry.getKey();
+                final Node child = entry.getValue();
+
+                Node failure = node._failure;
+                while (failure != null && !failure._children.containsKey(c)) {
+                    failure = failure._failure;
+                }
+                child._failure = failure == null ? _root : failure._children.get(c);
+                child._output = child._failure._rank != -1 ? child._failure : child._failure._output;
+
+                queue.add(child);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return _root._children.isEmpty();
+    }
+
+    /**
+     * Finds the non-overlapping term occurrences of a string.
+     *
+     * @param str
+     *            the string to search
+     * @return the matches, in order of precedence of the matched terms and
+     *         secondly in order of occurrence
+     */
+    public List<Match> findMatches(final String str) {
+        final List<Match> candidates = new ArrayList<>();
+
+        // the text to match is lower-cased char by char to keep its indices
+        // aligned with the original string
+        final String text = _caseSensitive ? str : toLowerCase(str);
+
+        Node node = _root;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            Node next = node._children.get(c);
+            while (next == null && node != _root) {
+                node = node._failure;
+                next = node._children.get(c);
+            }
+            node = next == null ? _root : next;
+
+            for (Node output = node._rank != -1 ? node : node._output; output != null; output = output._output) {
+                final int end = i + 1;
+                final int rank = output._rank;
+                final int start = end - _terms[rank].length();
+                if (isWordBoundary(text, start) && isWordBoundary(text, end)) {
+                    candidates.add(new Match(start, end, rank, _terms[rank], _values[rank], _singleWords[rank]));
+                }
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        candidates.sort(Comparator.comparingInt((Match m) -> m._rank).thenComparingInt(m -> m._start));
+
+        final BitSet replaced = new BitSet(text.length());
+        final List<Match> matches = new ArrayList<>();
+        for (final Match candidate : candidates) {
+            final int nextReplaced = replaced.nextSetBit(candidate._start);
+            if (nextReplaced == -1 || nextReplaced >= candidate._end) {
+                replaced.set(candidate._start, candidate._end);
+                matches.add(candidate);
+            }
+        }
+        return matches;
+    }
+
+    private static String toLowerCase(final String str) {
+        final char[] chars = str.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static boolean isSingleWord(final String term) {
+        for (int i = 1; i < term.length(); i++) {
+            if (isWordBoundary(term, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines if there is a word boundary at an index of a string, using
+     * the same definition of word characters as the \b regular expression
+     * construct.
+     */
+    private static boolean isWordBoundary(final String text, final int index) {
+        final boolean wordBefore = index > 0 && isWordCharacter(text.charAt(index - 1));
+        final boolean wordAfter = index < text.length() && isWordCharacter(text.charAt(index));
+        return wordBefore != wordAfter;
+    }
+
+    private static boolean isWordCharacter(final char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+}
@@ -0,0 +1,299 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.reference;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.util.Resource;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.DataCleanerEnvironment;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.util.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * A cache of reference data (dictionaries, synonym catalogs) that has been
+ * loaded into memory. The cache is scoped to the {@link DataCleanerEnvironment}
+ * of a configuration, which means that a piece of reference data is loaded
+ * only once and then shared by all components, threads and jobs running in
+ * that environment.
+ *
+ * Cache keys are made up of the identity of the reference data source and, if
+ * available, its modification time and size, so that changes to e.g. a text
+ * file will cause it to be reloaded. Sources that cannot report modification
+ * (such as datastores) are kept in a separate cache which expires entries a
+ * while after they were loaded (see
+ * {@link SystemProperties#REFERENCE_DATA_CACHE_EXPIRY_SECONDS}), and which can
+ * be invalidated for a particular datastore using
+ * {@link #invalidateDatastore(String)} when it is changed or removed.
+ *
+ * Cached values are immutable and kept using soft references, so they can be
+ * reclaimed by the garbage collector if memory is needed.
+ */
+public final class ReferenceDataCache {
+
+    /**
+     * Represents a piece of reference data loaded into the cache.
+     */
+    public static final class Entry {
+
+        private final String _name;
+        private final Object _value;
+        private final int _size;
+        private final long _estimatedMemoryUsage;
+
+        Entry(final String name, final Object value, final int size, final long estimatedMemoryUsage) {
+            _name = name;
+            _value = value;
+            _size = size;
+            _estimatedMemoryUsage = estimatedMemoryUsage;
+        }
+
+        /**
+         * Gets the name of the reference data that was loaded
+         *
+         * @return
+         */
+        public String getName() {
+            return _name;
+        }
+
+        /**
+         * Gets the number of values (dictionary values or synonyms) loaded
+         *
+         * @return
+         */
+        public int getSize() {
+            return _size;
+        }
+
+        /**
+         * Gets the estimated number of bytes used by the loaded values
+         *
+         * @return
+         */
+        public long getEstimatedMemoryUsage() {
+            return _estimatedMemoryUsage;
+        }
+
+        Object getValue() {
+            return _value;
+        }
+
+        @Override
+        public String toString() {
+            return "ReferenceDataCache.Entry[name=" + _name + ",size=" + _size + ",estimatedMemoryUsage="
+                    + _estimatedMemoryUsage + "]";
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private static final Map<DataCleanerEnvironment, ReferenceDataCache> CACHES =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final long DEFAULT_EXPIRY_SECONDS = 300;
+
+    private final Cache<Object, Entry> _cache;
+    private final Cache<Object, Entry> _expiringCache;
+
+    private ReferenceDataCache() {
+        final long expirySeconds = Math.max(0, SystemProperties
+                .getLong(SystemProperties.REFERENCE_DATA_CACHE_EXPIRY_SECONDS, DEFAULT_EXPIRY_SECONDS));
+        _cache = CacheBuilder.newBuilder().softValues().build();
+        _expiringCache =
+                CacheBuilder.newBuilder().softValues().expireAfterWrite(expirySeconds, TimeUnit.SECONDS).build();
+    }
+
+    /**
+     * Gets the {@link ReferenceDataCache} of a configuration.
+     *
+     * @param configuration
+     *            the configuration, or null if no configuration is available,
+     *            in which case a new, unshared cache is returned.
+     * @return
+     */
+    public static ReferenceDataCache get(final DataCleanerConfiguration configuration) {
+        if (configuration == null || configuration.getEnvironment() == null) {
+            return new ReferenceDataCache();
+        }
+        return CACHES.computeIfAbsent(configuration.getEnvironment(), environment -> new ReferenceDataCache());
+    }
+
+    /**
+     * Estimates the number of bytes used by a string, including its char
+     * array.
+     *
+     * @param str
+     * @return
+     */
+    static long estimateMemoryUsage(final String str) {
+        // object header, fields and array header, padded to 8 bytes
+        return 40 + ((str.length() * 2L + 7) & ~7L);
+    }
+
+    /**
+     * Invalidates the reference data loaded from a datastore in all caches,
+     * causing it to be reloaded on next use. Should be invoked when a datastore
+     * is changed or removed.
+     *
+     * @param datastoreName
+     *            the name of the datastore
+     */
+    public static void invalidateDatastore(final String datastoreName) {
+        final List<ReferenceDataCache> caches;
+        synchronized (CACHES) {
+            caches = new ArrayList<>(CACHES.values());
+        }
+        for (final ReferenceDataCache cache : caches) {
+            cache._expiringCache.asMap().keySet().removeIf(key -> isLoadedFrom(key, datastoreName));
+        }
+    }
+
+    private static boolean isLoadedFrom(final Object key, final String datastoreName) {
+        if (key instanceof List) {
+            for (final Object element : (List<?>) key) {
+                if (element instanceof Datastore && datastoreName.equals(((Datastore) element).getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a cached value or loads it.
+     *
+     * @param key
+     *            the identity of the reference data source
+     * @param loader
+     *            a loader that will load the value if it is not cached
+     * @return
+     */
+    <T> T get(final Object key, final Callable<Entry> loader) {
+        return get(_cache, key, loader);
+    }
+
+    /**
+     * Gets a cached value or loads it, for reference data sources which cannot
+     * report if they have been modified. The value is reloaded when it has
+     * been cached for longer than the configured expiry time, or when the
+     * datastore it was loaded from is invalidated.
+     *
+     * @param key
+     *            the identity of the reference data source. If it is a
+     *            {@link List}, any {@link Datastore} in it is used to match
+     *            {@link #invalidateDatastore(String)}.
+     * @param loader
+     *            a loader that will load the value if it is not cached
+     * @return
+     */
+    <T> T getExpiring(final Object key, final Callable<Entry> loader) {
+        return get(_expiringCache, key, loader);
+    }
+
+    /**
+     * Gets a cached value or loads it from a {@link Resource}. If the resource
+     * cannot report when it was last modified, the value is kept in the
+     * expiring cache (see {@link #getExpiring(Object, Callable)}), since
+     * changes to it would otherwise never be picked up.
+     *
+     * @param resource
+     *            the resource that the value is loaded from
+     * @param key
+     *            the identity of the resource, including its modification
+     *            time and size
+     * @param loader
+     *            a loader that will load the value if it is not cached. A
+     *            loader that fails should throw an exception, which is not
+     *            cached.
+     * @return
+     */
+    <T> T get(final Resource resource, final Object key, final Callable<Entry> loader) {
+        if (resource.getLastModified() < 0) {
+            return getExpiring(key, loader);
+        }
+        return get(key, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T get(final Cache<Object, Entry> cache, final Object key, final Callable<Entry> loader) {
+        try {
+            return (T) cache.get(key, () -> {
+                final Entry entry = loader.call();
+                logger.info("Loaded reference data '{}' with {} values, estimated memory usage: {} bytes",
+                        entry.getName(), entry.getSize(), entry.getEstimatedMemoryUsage());
+                return entry;
+            }).getValue();
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Failed to load reference data", cause);
+        }
+    }
+
+    /**
+     * Gets the entries currently in the cache.
+     *
+     * @return
+     */
+    public Collection<Entry> getEntries() {
+        final List<Entry> entries = new ArrayList<>(_cache.asMap().values());
+        entries.addAll(_expiringCache.asMap().values());
+        return entries;
+    }
+
+    /**
+     * Gets the estimated number of bytes used by all the entries in the cache.
+     *
+     * @return
+     */
+    public long getEstimatedMemoryUsage() {
+        long result = 0;
+        for (final Entry entry : getEntries()) {
+            result += entry.getEstimatedMemoryUsage();
+        }
+        return result;
+    }
+
+    /**
+     * Invalidates all entries, causing reference data to be reloaded on next
+     * use.
+     */
+    public void invalidateAll() {
+        _cache.invalidateAll();
+        _expiringCache.invalidateAll();
+    }
+}
@@ -33,8 +33,6 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.datacleaner.configuration.DataCleanerConfiguration;
 import org.datacleaner.util.ReadObjectBuilder;
@@ -154,7 +152,9 @@ public final class SimpleSynonymCatalog extends AbstractReferenceData implements
     public SynonymCatalogConnection openConnection(final DataCleanerConfiguration configuration) {
         return new SynonymCatalogConnection() {
 
-            private final SortedMap<String, String> _sortedMultiWordSynonymMap = createMultiWordSynonymMap();
+            // built once per connection and shared by all threads using it
+            private final MultiTermMatcher _multiWordSynonymMatcher =
+                    new MultiTermMatcher(createMultiWordSynonymMap(), _caseSensitive);
             private final Map<String, String> _singleWordSynonymMap = createSingleWordSynonymMap();
 
             @Override
@@ -189,30 +189,30 @@ public final class SimpleSynonymCatalog extends AbstractReferenceData implements
                 final List<String> synonyms = new ArrayList<>();
                 final List<String> masterTerms = new ArrayList<>();
 
-                // matchString will contain a copy of "sentence" but potentially
-                // lower-cased for case-insensitive matching
-                String matchString;
-                if (!_caseSensitive) {
-                    matchString = sentence.toLowerCase();
-                } else {
-                    matchString = sentence;
-                }
+                if (!_multiWordSynonymMatcher.isEmpty()) {
+                    final List<MultiTermMatcher.Match> matches = _multiWordSynonymMatcher.findMatches(sentence);
+                    if (!matches.isEmpty()) {
+                        final String[] replacements = new String[sentence.length()];
+                        final int[] replacementEnds = new int[sentence.length()];
+                        for (final MultiTermMatcher.Match match : matches) {
+                            replacements[match.getStart()] = match.getValue();
+                            replacementEnds[match.getStart()] = match.getEnd();
+                            synonyms.add(match.getTerm());
+                            masterTerms.add(match.getValue());
+                        }
 
-                final Set<Entry<String, String>> entries = _sortedMultiWordSynonymMap.entrySet();
-                for (final Entry<String, String> entry : entries) {
-                    final String synonym = entry.getKey();
-                    final String masterTerm = entry.getValue();
-                    final Matcher matcher = Pattern.compile("\\b" + synonym + "\\b").matcher(matchString);
-                    while (matcher.find()) {
-                        sentence =
-                                sentence.substring(0, matcher.start()) + masterTerm + sentence.substring(matcher.end());
-                        if (_caseSensitive) {
-                            matchString = sentence.toLowerCase();
-                        } else {
-                            matchString = sentence;
+                        final StringBuilder sb = new StringBuilder(sentence.length());
+                        int i = 0;
+                        while (i < sentence.length()) {
+                            if (replacements[i] == null) {
+                                sb.append(sentence.charAt(i));
+                                i++;
+                            } else {
+                                sb.append(replacements[i]);
+                                i = replacementEnds[i];
+                            }
                         }
-                        synonyms.add(synonym);
-                        masterTerms.add(masterTerm);
+                        sentence = sb.toString();
                     }
                 }
 
@@ -263,6 +263,24 @@ public final class SimpleSynonymCatalog extends AbstractReferenceData implements
         };
     }
 
+    /**
+     * Opens a connection to this synonym catalog and wraps it as an entry of
+     * the {@link ReferenceDataCache}. The connection is immutable and thread
+     * safe and can thus be shared.
+     */
+    ReferenceDataCache.Entry toCacheEntry(final DataCleanerConfiguration configuration) {
+        // hash map entries and table slots, plus the strings themselves
+        long estimatedMemoryUsage = 16 + 48L * _synonymMap.size();
+        for (final Entry<String, String> entry : _synonymMap.entrySet()) {
+            estimatedMemoryUsage += ReferenceDataCache.estimateMemoryUsage(entry.getKey());
+            if (!entry.getKey().equals(entry.getValue())) {
+                estimatedMemoryUsage += ReferenceDataCache.estimateMemoryUsage(entry.getValue());
+            }
+        }
+        return new ReferenceDataCache.Entry(getName(), openConnection(configuration), _synonymMap.size(),
+                estimatedMemoryUsage);
+    }
+
     @Override
     public boolean isCaseSensitive() {
         return _caseSensitive;
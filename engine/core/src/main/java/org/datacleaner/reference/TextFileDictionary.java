@@ -23,6 +23,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -33,8 +34,6 @@ import org.datacleaner.configuration.DataCleanerConfiguration;
 import org.datacleaner.util.ReadObjectBuilder;
 import org.datacleaner.util.ReadObjectBuilder.Adaptor;
 import org.datacleaner.util.convert.ResourceConverter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Dictionary based on a simple text file containing the values of the
@@ -45,8 +44,6 @@ public final class TextFileDictionary extends AbstractReferenceData implements D
 
     private static final long serialVersionUID = 1L;
 
-    private static final Logger logger = LoggerFactory.getLogger(TextFileDictionary.class);
-
     private final String _filename;
     private final String _encoding;
     private final boolean _caseSensitive;
@@ -87,28 +84,32 @@ public final class TextFileDictionary extends AbstractReferenceData implements D
     public DictionaryConnection openConnection(final DataCleanerConfiguration configuration) {
         final ResourceConverter rc = new ResourceConverter(configuration);
         final Resource resource = rc.fromString(Resource.class, _filename);
-        final Set<String> values = resource.read(in -> {
-            final Set<String> values1 = new HashSet<>();
-            final BufferedReader reader = FileHelper.getBufferedReader(in, getEncoding());
-            try {
-                String line = reader.readLine();
-                while (line != null) {
-                    if (!_caseSensitive) {
-                        line = line.toLowerCase();
+
+        final Object cacheKey = Arrays.asList(TextFileDictionary.class, resource.getQualifiedPath(),
+                resource.getLastModified(), resource.getSize(), _encoding, _caseSensitive);
+        return ReferenceDataCache.get(configuration).get(resource, cacheKey, () -> {
+            final Set<String> values = resource.read(in -> {
+                final Set<String> values1 = new HashSet<>();
+                final BufferedReader reader = FileHelper.getBufferedReader(in, getEncoding());
+                try {
+                    String line = reader.readLine();
+                    while (line != null) {
+                        if (!_caseSensitive) {
+                            line = line.toLowerCase();
+                        }
+                        values1.add(line);
+                        line = reader.readLine();
                     }
-                    values1.add(line);
-                    line = reader.readLine();
+                } catch (final IOException e) {
+                    // fail the load rather than caching a partial dictionary
+                    throw new IllegalStateException("Failed to read line from resource: " + resource, e);
+                } finally {
+                    FileHelper.safeClose(reader);
                 }
-            } catch (final IOException e) {
-                logger.error("Failed to read line from resource: {}", resource, e);
-            } finally {
-                FileHelper.safeClose(reader);
-            }
-            return values1;
+                return values1;
+            });
+            return new CompactDictionaryConnection(values, _caseSensitive).toCacheEntry(getName());
         });
-
-        final SimpleDictionary simpleDictionary = new SimpleDictionary(getName(), values, _caseSensitive);
-        return simpleDictionary.openConnection(configuration);
     }
 
     @Override
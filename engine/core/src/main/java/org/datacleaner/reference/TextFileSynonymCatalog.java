@@ -23,6 +23,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -75,39 +76,43 @@ public final class TextFileSynonymCatalog extends AbstractReferenceData implemen
         final ResourceConverter rc = new ResourceConverter(configuration);
         final Resource resource = rc.fromString(Resource.class, _filename);
 
-        final Map<String, String> synonyms = resource.read(in -> {
-            final Map<String, String> synonyms1 = new HashMap<>();
-
-            final CSVParser parser = new CSVParser(',', '"', '\\');
-            final BufferedReader reader = FileHelper.getBufferedReader(in, _encoding);
-            try {
-                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                    line = line.trim();
-                    final String[] values;
-                    try {
-                        values = parser.parseLine(line);
-                    } catch (final Exception e) {
-                        throw new IllegalStateException("Failed to parse line: " + line, e);
-                    }
-                    if (values.length > 0) {
-                        synonyms1.put(values[0], values[0]);
-                    }
-                    if (values.length > 1) {
-                        for (int i = 1; i < values.length; i++) {
-                            synonyms1.put(values[i], values[0]);
+        final Object cacheKey = Arrays.asList(TextFileSynonymCatalog.class, resource.getQualifiedPath(),
+                resource.getLastModified(), resource.getSize(), _encoding, _caseSensitive);
+        return ReferenceDataCache.get(configuration).get(resource, cacheKey, () -> {
+            final Map<String, String> synonyms = resource.read(in -> {
+                final Map<String, String> synonyms1 = new HashMap<>();
+
+                final CSVParser parser = new CSVParser(',', '"', '\\');
+                final BufferedReader reader = FileHelper.getBufferedReader(in, _encoding);
+                try {
+                    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                        line = line.trim();
+                        final String[] values;
+                        try {
+                            values = parser.parseLine(line);
+                        } catch (final Exception e) {
+                            throw new IllegalStateException("Failed to parse line: " + line, e);
+                        }
+                        if (values.length > 0) {
+                            synonyms1.put(values[0], values[0]);
+                        }
+                        if (values.length > 1) {
+                            for (int i = 1; i < values.length; i++) {
+                                synonyms1.put(values[i], values[0]);
+                            }
                         }
                     }
+                } catch (final IOException e) {
+                    throw new IllegalStateException("Failed to read line from resource: " + resource, e);
+                } finally {
+                    FileHelper.safeClose(reader);
                 }
-            } catch (final IOException e) {
-                throw new IllegalStateException(e);
-            } finally {
-                FileHelper.safeClose(reader);
-            }
 
-            return synonyms1;
-        });
+                return synonyms1;
+            });
 
-        return new SimpleSynonymCatalog(getName(), synonyms, _caseSensitive).openConnection(configuration);
+            return new SimpleSynonymCatalog(getName(), synonyms, _caseSensitive).toCacheEntry(configuration);
+        });
     }
 
     private void readObject(final ObjectInputStream stream) throws IOException, ClassNotFoundException {
@@ -31,6 +31,11 @@ import org.datacleaner.api.InputRow;
  */
 public class DummyRowAnnotationFactory extends AbstractRowAnnotationFactory2 {
 
+    @Override
+    public void annotate(final InputRow row, final int distinctCount, final RowAnnotation annotation) {
+        ((RowAnnotationImpl) annotation).incrementRowCount(distinctCount);
+    }
+
     @Override
     public List<InputRow> getSampleRows(final RowAnnotation annotation) {
         return Collections.emptyList();
@@ -0,0 +1,569 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.SerializationException;
+import org.apache.commons.lang.SerializationUtils;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.data.MockInputRow;
+
+/**
+ * A {@link RowAnnotationFactory} which stores sample records outside of the
+ * java heap. Sampled rows are encoded into a compact binary form (column
+ * references and values only, no object graphs of eg. transformed rows) and
+ * appended to direct memory segments. {@link InputRow} objects are only
+ * materialized when {@link #getSampleRows(RowAnnotation)} is invoked.
+ *
+ * Values of common types (strings, numbers, booleans and dates) are encoded
+ * natively, other values using java serialization. Records of samples that
+ * are reset or transferred are freed: segments without live records are
+ * released (or reused, if it is the segment being appended to), and the live
+ * records are compacted into new segments when less than half of the
+ * allocated memory is in use.
+ */
+public final class OffHeapRowAnnotationFactory extends AbstractRowAnnotationFactory2
+        implements RowAnnotationFactory, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_DATE = 6;
+    private static final byte TYPE_BIG_DECIMAL = 7;
+    private static final byte TYPE_SERIALIZED = 8;
+
+    private final int _maxSampleSets;
+    private final int _maxSampleRecords;
+
+    // all fields below are written and read by writeObject/readObject
+    private transient ConcurrentHashMap<RowAnnotation, Sample> _storage;
+    private transient List<InputColumn<?>> _columns;
+    private transient Map<InputColumn<?>, Integer> _columnIndexes;
+    private transient RecordStore _records;
+
+    public OffHeapRowAnnotationFactory() {
+        this(InMemoryStorageProvider.DEFAULT_MAX_SAMPLE_SETS, InMemoryStorageProvider.DEFAULT_MAX_SAMPLE_RECORDS);
+    }
+
+    /**
+     *
+     * @param maxSampleSets
+     *            the maximum number of sample record collections to keep
+     * @param maxSampleRecords
+     *            the maximum number of records to keep in each collection
+     */
+    public OffHeapRowAnnotationFactory(final int maxSampleSets, final int maxSampleRecords) {
+        _maxSampleSets = Math.max(0, maxSampleSets);
+        _maxSampleRecords = Math.max(0, maxSampleRecords);
+        init();
+    }
+
+    private void init() {
+        _storage = new ConcurrentHashMap<>();
+        _columns = new ArrayList<>();
+        _columnIndexes = new HashMap<>();
+        _records = new RecordStore();
+    }
+
+    @Override
+    public void annotate(final InputRow row, final RowAnnotation annotation) {
+        super.annotate(row, annotation);
+
+        final Sample sample = getSample(annotation);
+        if (sample == null) {
+            return;
+        }
+
+        synchronized (sample) {
+            if (sample._discarded || sample._recordIds.size() >= _maxSampleRecords) {
+                return;
+            }
+            sample._recordIds.add(_records.write(encode(row)));
+        }
+    }
+
+    @Override
+    public void resetAnnotation(final RowAnnotation annotation) {
+        super.resetAnnotation(annotation);
+
+        final Sample sample = _storage.remove(annotation);
+        if (sample != null) {
+            freeRecords(discard(sample));
+        }
+    }
+
+    @Override
+    public void transferAnnotations(final RowAnnotation from, final RowAnnotation to) {
+        super.transferAnnotations(from, to);
+
+        final Sample fromSample = _storage.remove(from);
+        if (fromSample == null) {
+            return;
+        }
+        final List<Integer> recordIds = discard(fromSample);
+        if (recordIds.isEmpty()) {
+            return;
+        }
+
+        final Sample toSample = getSample(to);
+        int transferred = 0;
+        if (toSample != null) {
+            synchronized (toSample) {
+                while (!toSample._discarded && transferred < recordIds.size()
+                        && toSample._recordIds.size() < _maxSampleRecords) {
+                    toSample._recordIds.add(recordIds.get(transferred));
+                    transferred++;
+                }
+            }
+        }
+        freeRecords(recordIds.subList(transferred, recordIds.size()));
+    }
+
+    @Override
+    public List<InputRow> getSampleRows(final RowAnnotation annotation) {
+        final Sample sample = _storage.get(annotation);
+        if (sample == null) {
+            return Collections.emptyList();
+        }
+
+        final List<InputRow> rows = new ArrayList<>();
+        for (final byte[] record : readRecords(sample)) {
+            rows.add(decode(record));
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    @Override
+    public boolean hasSampleRows(final RowAnnotation annotation) {
+        return _storage.containsKey(annotation);
+    }
+
+    /**
+     * Gets the number of bytes of direct memory allocated for samples.
+     *
+     * @return
+     */
+    public long getAllocatedBytes() {
+        return _records.getAllocatedBytes();
+    }
+
+    private Sample getSample(final RowAnnotation annotation) {
+        Sample sample = _storage.get(annotation);
+        if (sample == null) {
+            if (_storage.size() >= _maxSampleSets) {
+                return null;
+            }
+            sample = new Sample();
+            final Sample existingSample = _storage.putIfAbsent(annotation, sample);
+            if (existingSample != null) {
+                sample = existingSample;
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * Marks a sample that has been removed from the storage as discarded, so
+     * that concurrent annotations will not add records to it.
+     *
+     * @param sample
+     * @return the ids of the records of the sample
+     */
+    private static List<Integer> discard(final Sample sample) {
+        synchronized (sample) {
+            sample._discarded = true;
+            final List<Integer> recordIds = new ArrayList<>(sample._recordIds);
+            sample._recordIds.clear();
+            return recordIds;
+        }
+    }
+
+    private void freeRecords(final List<Integer> recordIds) {
+        for (final Integer recordId : recordIds) {
+            _records.free(recordId);
+        }
+    }
+
+    private List<byte[]> readRecords(final Sample sample) {
+        final List<Integer> recordIds;
+        synchronized (sample) {
+            recordIds = new ArrayList<>(sample._recordIds);
+        }
+        final List<byte[]> records = new ArrayList<>(recordIds.size());
+        for (final Integer recordId : recordIds) {
+            final byte[] record = _records.read(recordId);
+            // null if the sample was reset meanwhile
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private int getColumnIndex(final InputColumn<?> column) {
+        synchronized (_columns) {
+            Integer index = _columnIndexes.get(column);
+            if (index == null) {
+                index = _columns.size();
+                _columns.add(column);
+                _columnIndexes.put(column, index);
+            }
+            return index;
+        }
+    }
+
+    private InputColumn<?> getColumn(final int index) {
+        synchronized (_columns) {
+            return _columns.get(index);
+        }
+    }
+
+    private byte[] encode(final InputRow row) {
+        final List<InputColumn<?>> columns = row.getInputColumns();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + columns.size() * 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(row.getId());
+            out.writeInt(columns.size());
+            for (final InputColumn<?> column : columns) {
+                out.writeInt(getColumnIndex(column));
+                writeValue(out, row.getValue(column));
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not encode sample row: " + row, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private InputRow decode(final byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            final long id = in.readLong();
+            final int columnCount = in.readInt();
+            final Map<InputColumn<?>, Object> values = new LinkedHashMap<>(columnCount * 2);
+            for (int i = 0; i < columnCount; i++) {
+                final InputColumn<?> column = getColumn(in.readInt());
+                values.put(column, readValue(in));
+            }
+            return new MockInputRow(id, values);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not decode sample row", e);
+        }
+    }
+
+    private static void writeValue(final DataOutputStream out, final Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value.getClass() == Date.class) {
+            out.writeByte(TYPE_DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(TYPE_BIG_DECIMAL);
+            writeString(out, value.toString());
+        } else {
+            final byte[] serialized = serialize(value);
+            if (serialized == null) {
+                // the sample keeps the string representation of values that
+                // cannot be serialized
+                out.writeByte(TYPE_STRING);
+                writeString(out, String.valueOf(value));
+            } else {
+                out.writeByte(TYPE_SERIALIZED);
+                out.writeInt(serialized.length);
+                out.write(serialized);
+            }
+        }
+    }
+
+    private static byte[] serialize(final Object value) {
+        if (!(value instanceof Serializable)) {
+            return null;
+        }
+        try {
+            return SerializationUtils.serialize((Serializable) value);
+        } catch (final SerializationException e) {
+            // eg. a serializable object with a non-serializable field
+            return null;
+        }
+    }
+
+    private static Object readValue(final DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+        case TYPE_NULL:
+            return null;
+        case TYPE_STRING:
+            return readString(in);
+        case TYPE_INTEGER:
+            return in.readInt();
+        case TYPE_LONG:
+            return in.readLong();
+        case TYPE_DOUBLE:
+            return in.readDouble();
+        case TYPE_BOOLEAN:
+            return in.readBoolean();
+        case TYPE_DATE:
+            return new Date(in.readLong());
+        case TYPE_BIG_DECIMAL:
+            return new BigDecimal(readString(in));
+        case TYPE_SERIALIZED:
+            final byte[] serialized = new byte[in.readInt()];
+            in.readFully(serialized);
+            return SerializationUtils.deserialize(serialized);
+        default:
+            throw new IllegalStateException("Unexpected value type: " + type);
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String str) throws IOException {
+        // not using writeUTF(...) since it is limited to 64k bytes
+        final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeObject(final ObjectOutputStream stream) throws IOException {
+        stream.defaultWriteObject();
+        synchronized (_columns) {
+            stream.writeObject(new ArrayList<>(_columns));
+        }
+        final Map<RowAnnotation, List<byte[]>> records = new HashMap<>();
+        for (final Map.Entry<RowAnnotation, Sample> entry : _storage.entrySet()) {
+            records.put(entry.getKey(), readRecords(entry.getValue()));
+        }
+        stream.writeObject(records);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        init();
+        final List<InputColumn<?>> columns = (List<InputColumn<?>>) stream.readObject();
+        for (final InputColumn<?> column : columns) {
+            getColumnIndex(column);
+        }
+        final Map<RowAnnotation, List<byte[]>> records = (Map<RowAnnotation, List<byte[]>>) stream.readObject();
+        for (final Map.Entry<RowAnnotation, List<byte[]>> entry : records.entrySet()) {
+            final Sample sample = new Sample();
+            for (final byte[] record : entry.getValue()) {
+                sample._recordIds.add(_records.write(record));
+            }
+            _storage.put(entry.getKey(), sample);
+        }
+    }
+
+    /**
+     * The ids of the records of an annotation. Guarded by its own lock.
+     */
+    private static final class Sample {
+
+        private final List<Integer> _recordIds = new ArrayList<>();
+        private boolean _discarded;
+    }
+
+    /**
+     * Stores encoded records in direct memory segments, referenced by record
+     * ids. Records are located through a table of ids, so that they can be
+     * moved when the segments are compacted.
+     */
+    private static final class RecordStore {
+
+        private static final long FREE = -1;
+
+        private final List<Segment> _segments = new ArrayList<>();
+        private long[] _locations = new long[64];
+        private int _locationCount;
+        private int[] _freeIds = new int[16];
+        private int _freeIdCount;
+        private long _allocatedBytes;
+        private long _liveBytes;
+
+        /**
+         * Appends a record to the segments.
+         *
+         * @param bytes
+         * @return the id of the record
+         */
+        public synchronized int write(final byte[] bytes) {
+            final int id;
+            if (_freeIdCount > 0) {
+                id = _freeIds[--_freeIdCount];
+            } else {
+                if (_locationCount == _locations.length) {
+                    _locations = Arrays.copyOf(_locations, _locations.length * 2);
+                }
+                id = _locationCount++;
+            }
+            _locations[id] = append(bytes);
+            return id;
+        }
+
+        /**
+         * @param id
+         * @return the record, or null if it has been freed
+         */
+        public synchronized byte[] read(final int id) {
+            final long location = _locations[id];
+            if (location == FREE) {
+                return null;
+            }
+            return read(_segments, location);
+        }
+
+        public synchronized void free(final int id) {
+            final long location = _locations[id];
+            if (location == FREE) {
+                return;
+            }
+            _locations[id] = FREE;
+            if (_freeIdCount == _freeIds.length) {
+                _freeIds = Arrays.copyOf(_freeIds, _freeIds.length * 2);
+            }
+            _freeIds[_freeIdCount++] = id;
+
+            final int segmentIndex = getSegmentIndex(location);
+            final Segment segment = _segments.get(segmentIndex);
+            final int recordSize = segment._buffer.getInt(getOffset(location)) + 4;
+            segment._liveBytes -= recordSize;
+            _liveBytes -= recordSize;
+
+            if (segment._liveBytes == 0) {
+                if (segmentIndex == _segments.size() - 1) {
+                    // reuse the segment being appended to
+                    segment._buffer.clear();
+                } else {
+                    _segments.set(segmentIndex, null);
+                    _allocatedBytes -= segment._buffer.capacity();
+                }
+            } else if (_allocatedBytes > 2 * _liveBytes + 2L * SEGMENT_SIZE) {
+                compact();
+            }
+        }
+
+        public synchronized long getAllocatedBytes() {
+            return _allocatedBytes;
+        }
+
+        private long append(final byte[] bytes) {
+            final int recordSize = bytes.length + 4;
+            Segment segment = _segments.isEmpty() ? null : _segments.get(_segments.size() - 1);
+            if (segment == null || segment._buffer.remaining() < recordSize) {
+                segment = new Segment(ByteBuffer.allocateDirect(Math.max(SEGMENT_SIZE, recordSize)));
+                _segments.add(segment);
+                _allocatedBytes += segment._buffer.capacity();
+            }
+            final int offset = segment._buffer.position();
+            segment._buffer.putInt(bytes.length);
+            segment._buffer.put(bytes);
+            segment._liveBytes += recordSize;
+            _liveBytes += recordSize;
+            return ((long) (_segments.size() - 1) << 32) | offset;
+        }
+
+        /**
+         * Moves all live records to new segments, releasing the old ones.
+         */
+        private void compact() {
+            final List<Segment> oldSegments = new ArrayList<>(_segments);
+            _segments.clear();
+            _allocatedBytes = 0;
+            _liveBytes = 0;
+            for (int id = 0; id < _locationCount; id++) {
+                if (_locations[id] != FREE) {
+                    _locations[id] = append(read(oldSegments, _locations[id]));
+                }
+            }
+        }
+
+        private static byte[] read(final List<Segment> segments, final long location) {
+            // duplicate to get an independent position
+            final ByteBuffer buffer = segments.get(getSegmentIndex(location))._buffer.duplicate();
+            buffer.position(getOffset(location));
+            final byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        private static int getSegmentIndex(final long location) {
+            return (int) (location >>> 32);
+        }
+
+        private static int getOffset(final long location) {
+            return (int) location;
+        }
+    }
+
+    private static final class Segment {
+
+        private final ByteBuffer _buffer;
+        private int _liveBytes;
+
+        private Segment(final ByteBuffer buffer) {
+            _buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.metamodel.util.AbstractResource;
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.Resource;
+import org.apache.metamodel.util.ResourceException;
+
+/**
+ * A read-only {@link Resource} holding the lines of another resource which
+ * start within a range of bytes. A line that starts within the range is
+ * included completely, even if it ends beyond the range, while a line that
+ * starts before the range is left out. Thus the ranges of a resource can be
+ * read independently, and each line will be part of exactly one range.
+ *
+ * Lines are separated by '\n' bytes, so the encoding of the resource must
+ * represent line feeds as a single byte that is not used in the encoding of
+ * other characters, such as UTF-8 or ISO-8859-1.
+ */
+public class LineRangeResource extends AbstractResource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Resource _resource;
+    private final long _start;
+    private final long _end;
+
+    /**
+     * Creates a {@link LineRangeResource}
+     *
+     * @param resource
+     *            the resource to read lines from
+     * @param start
+     *            the first byte of the range (inclusive)
+     * @param end
+     *            the last byte of the range (exclusive)
+     */
+    public LineRangeResource(final Resource resource, final long start, final long end) {
+        _resource = resource;
+        _start = start;
+        _end = end;
+    }
+
+    public long getStart() {
+        return _start;
+    }
+
+    public long getEnd() {
+        return _end;
+    }
+
+    @Override
+    public String toString() {
+        return "LineRangeResource[" + _resource + "," + _start + "-" + _end + "]";
+    }
+
+    @Override
+    public String getName() {
+        return _resource.getName();
+    }
+
+    @Override
+    public String getQualifiedPath() {
+        return _resource.getQualifiedPath();
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public boolean isExists() {
+        return _resource.isExists();
+    }
+
+    @Override
+    public long getSize() {
+        return _end - _start;
+    }
+
+    @Override
+    public long getLastModified() {
+        return _resource.getLastModified();
+    }
+
+    @Override
+    public InputStream read() throws ResourceException {
+        final InputStream in = new BufferedInputStream(_resource.read(), BUFFER_SIZE);
+        try {
+            final long position = seekLineStart(in);
+            return new LineRangeInputStream(in, position);
+        } catch (final IOException e) {
+            FileHelper.safeClose(in);
+            throw new ResourceException(this, e);
+        }
+    }
+
+    /**
+     * Positions the stream at the first line that starts at or after the
+     * start of the range.
+     *
+     * @return the position of the stream
+     */
+    private long seekLineStart(final InputStream in) throws IOException {
+        if (_start == 0) {
+            return 0;
+        }
+
+        // a line starts at the start of the range if the previous byte is a
+        // line feed
+        long position = skipFully(in, _start - 1);
+        while (true) {
+            final int b = in.read();
+            if (b == -1) {
+                return position;
+            }
+            position++;
+            if (b == '\n') {
+                return position;
+            }
+        }
+    }
+
+    private static long skipFully(final InputStream in, final long bytes) throws IOException {
+        long skipped = 0;
+        while (skipped < bytes) {
+            final long n = in.skip(bytes - skipped);
+            if (n > 0) {
+                skipped += n;
+            } else if (in.read() == -1) {
+                break;
+            } else {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    @Override
+    public OutputStream write() throws ResourceException {
+        throw new ResourceException(this, "Line ranges are read-only");
+    }
+
+    @Override
+    public OutputStream append() throws ResourceException {
+        throw new ResourceException(this, "Line ranges are read-only");
+    }
+
+    /**
+     * Stream that ends after the last line that starts within the range.
+     */
+    private final class LineRangeInputStream extends InputStream {
+
+        private final InputStream _in;
+        private long _position;
+        private boolean _ended;
+
+        private LineRangeInputStream(final InputStream in, final long position) {
+            _in = in;
+            _position = position;
+            _ended = position >= _end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (_ended) {
+                return -1;
+            }
+            final int b = _in.read();
+            if (b == -1) {
+                _ended = true;
+                return -1;
+            }
+            _position++;
+            if (b == '\n' && _position >= _end) {
+                // the next line starts beyond the range
+                _ended = true;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (_ended) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            int count = _in.read(buffer, offset, length);
+            if (count == -1) {
+                _ended = true;
+                return -1;
+            }
+            if (_position + count >= _end) {
+                // look for a line feed which ends the last line of the range
+                final int from = (int) Math.max(0, _end - 1 - _position);
+                for (int i = from; i < count; i++) {
+                    if (buffer[offset + i] == '\n') {
+                        count = i + 1;
+                        _ended = true;
+                        break;
+                    }
+                }
+            }
+            _position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            _in.close();
+        }
+    }
+}
@@ -19,7 +19,12 @@
  */
 package org.datacleaner.util;
 
+import org.datacleaner.api.AnalyzerResultReducer;
+import org.datacleaner.api.Concurrent;
+import org.datacleaner.api.OutputDataStream;
+import org.datacleaner.api.QueryAggregatableAnalyzer;
 import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.runner.ComponentMetrics;
 
 import com.google.common.base.Strings;
 
@@ -130,6 +135,83 @@ public class SystemProperties {
      */
     public static final String QUERY_SELECTCLAUSE_OPTIMIZE = "datacleaner.query.selectclause.optimize";
 
+    /**
+     * Determines the number of source records that are dispatched together in
+     * a single task when processing rows of a source table. The default value
+     * is 1, which means that every record is dispatched as a separate task.
+     */
+    public static final String ROW_PROCESSING_BATCH_SIZE = "datacleaner.rowprocessing.batchsize";
+
+    /**
+     * Determines if analyzers that are not marked as {@link Concurrent}, but
+     * which have an {@link AnalyzerResultReducer}, should be executed as a
+     * separate instance per worker thread instead of being synchronized. The
+     * results of the instances are combined using the reducer. Set to "true"
+     * to enable.
+     */
+    public static final String ANALYZER_PER_THREAD_INSTANCES = "datacleaner.analyzer.perthreadinstances";
+
+    /**
+     * Determines the number of records of an {@link OutputDataStream} that are
+     * dispatched together in a single task. The default value is 0, which means
+     * that the records are consumed synchronously, in the order they are
+     * produced, in the thread of the component that produces them. With a
+     * positive batch size the batches are consumed in parallel, so the order of
+     * the records is not preserved.
+     */
+    public static final String OUTPUT_DATA_STREAM_BATCH_SIZE = "datacleaner.outputdatastream.batchsize";
+
+    /**
+     * Determines the maximum number of batches of an {@link OutputDataStream}
+     * that may be queued for processing at the same time. When the queue is
+     * full, the component that produces the records will consume the next
+     * batch itself. The default value is 16.
+     */
+    public static final String OUTPUT_DATA_STREAM_QUEUE_SIZE = "datacleaner.outputdatastream.queuesize";
+
+    /**
+     * Determines if the row processing engine should record invocation counts,
+     * timings, emitted rows, lock waits and errors per component. Set to "true"
+     * to enable. The recorded values are available through the
+     * {@link ComponentMetrics} of each component.
+     */
+    public static final String ROW_PROCESSING_INSTRUMENTATION = "datacleaner.rowprocessing.instrumentation";
+
+    /**
+     * Determines if analyzers which implement {@link QueryAggregatableAnalyzer}
+     * may be fed from aggregate (GROUP BY) queries on datastores that prefer
+     * query optimization, instead of from every row of the source table. Since
+     * the rows of such queries only contain the analyzed columns, analyzers
+     * only allow this when they are configured not to record drill-down
+     * information (sample records). Set to "true" to enable.
+     */
+    public static final String QUERY_AGGREGATE_PUSHDOWN = "datacleaner.query.aggregate.pushdown";
+
+    /**
+     * Determines the number of splits that a source table may be divided into
+     * in order to read it concurrently. Splitting is supported for line based
+     * files (CSV, fixed width and JSON) and JDBC tables with a single integer
+     * primary key. The default value is 1, which means that tables are read by
+     * a single thread. Note that when a table is split, its rows are not
+     * processed in the order of the source.
+     */
+    public static final String ROW_PROCESSING_SPLITS = "datacleaner.rowprocessing.splits";
+
+    /**
+     * Determines the minimum size (in bytes) of the splits of a source file,
+     * see {@link #ROW_PROCESSING_SPLITS}. The default value is 16 MB.
+     */
+    public static final String ROW_PROCESSING_SPLIT_MIN_SIZE = "datacleaner.rowprocessing.splits.minsize";
+
+    /**
+     * Determines the number of seconds that reference data loaded from a
+     * datastore (which cannot report if it has been modified) is kept in memory
+     * before it is reloaded. The default value is 300. A value of 0 disables
+     * caching of such reference data.
+     */
+    public static final String REFERENCE_DATA_CACHE_EXPIRY_SECONDS =
+            "datacleaner.referencedata.cache.expiry.seconds";
+
     /**
      * Gets a system property string, or a replacement value if the property is
      * null or blank.
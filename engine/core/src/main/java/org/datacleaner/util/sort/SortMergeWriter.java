@@ -19,28 +19,37 @@
  */
 package org.datacleaner.util.sort;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
-import java.io.EOFException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
-import java.util.TreeMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
+import org.apache.commons.lang.SerializationUtils;
 import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.FileResource;
 import org.apache.metamodel.util.Resource;
-import org.datacleaner.util.ImmutableEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +57,15 @@ import org.slf4j.LoggerFactory;
  * Sorter, deduplicator and writer that uses temporary files as storage to
  * support high volume sorted data.
  *
+ * Appended rows are collected in an unsorted buffer. Full buffers are sorted
+ * and deduplicated ("collapsed") into runs by worker threads, while appending
+ * continues. The unsorted buffer, the buffers being sorted and the sorted runs
+ * all count against the buffer size: when appending would exceed it, the runs
+ * are merged and spilled to a temporary file in a compact, length-prefixed
+ * binary format (optionally compressed). When writing, temporary files are
+ * first merged in passes if there are too many to open at once, and then all
+ * runs are merged using a k-way heap merge.
+ *
  * @param <R>
  *            the row type, HAS to be serializable
  * @param <W>
@@ -56,41 +74,143 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class SortMergeWriter<R extends Serializable, W extends Closeable> {
 
+    /**
+     * A row and the number of times it occurred.
+     */
+    private static final class RowCount<R> {
+
+        private final R _row;
+        private int _count;
+
+        private RowCount(final R row, final int count) {
+            _row = row;
+            _count = count;
+        }
+    }
+
+    /**
+     * A sorted, collapsed sequence of rows which is read during a merge.
+     */
+    private interface Run<R> extends Closeable {
+
+        /**
+         * @return the next row of the run, or null if the run is exhausted
+         */
+        RowCount<R> next() throws IOException;
+    }
+
     private static final Logger logger = LoggerFactory.getLogger(SortMergeWriter.class);
 
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte RECORD_END = 0;
+    private static final byte RECORD_STRING = 1;
+    private static final byte RECORD_SERIALIZED = 2;
+
+    /**
+     * The maximum number of buffers being sorted by worker threads at any time.
+     * The buffer size is divided between these and the buffer being appended
+     * to.
+     */
+    private static final int MAX_PENDING_SORTS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * The maximum number of sorted runs kept in memory. Beyond that they are
+     * merged into a single run, which collapses the rows of low cardinality
+     * data.
+     */
+    private static final int MAX_MEMORY_RUNS = 32;
+
+    /**
+     * The maximum number of temporary files merged at once. When there are
+     * more, they are merged in passes into intermediate temporary files.
+     */
+    private static final int MAX_MERGE_FAN_IN = 64;
+
     /**
      * Size of the "records in memory" buffer
      */
     private final int _bufferSize;
 
+    /**
+     * Number of appended rows that are sorted together
+     */
+    private final int _sortBufferSize;
+
     /**
      * Comparator for row sorting
      */
     private final Comparator<? super R> _comparator;
 
     /**
-     * List of temporary files containing values
+     * List of temporary files containing sorted runs
      */
     private final List<File> _tempFiles;
 
     /**
-     * Buffer containing sorted rows in memory
+     * Sorted runs that are kept in memory
      */
-    private final Map<R, Integer> _buffer;
-    private AtomicInteger _nullCount;
+    private final List<List<RowCount<R>>> _memoryRuns;
+
+    /**
+     * Unsorted buffer of appended rows
+     */
+    private List<RowCount<R>> _buffer;
+
+    /**
+     * Number of rows in buffers being sorted and in sorted runs kept in memory
+     */
+    private final AtomicInteger _rowsInMemory;
+
+    private final List<CompletableFuture<Void>> _pendingSorts;
+    private final AtomicReference<Throwable> _sortError;
+    private final AtomicInteger _nullCount;
+    private boolean _compressTempFiles;
 
     public SortMergeWriter(final Comparator<? super R> comparator) {
         this(50000, comparator);
     }
 
+    /**
+     * Creates a {@link SortMergeWriter}.
+     *
+     * @param bufferSize
+     *            the maximum number of appended rows to keep in memory. This
+     *            includes the rows being sorted by worker threads and sorted
+     *            runs that have not been spilled to temporary files yet. Since
+     *            a row being sorted and a row being appended must fit, at
+     *            least 2 rows are kept.
+     * @param comparator
+     *            the comparator used to sort rows
+     */
     public SortMergeWriter(final int bufferSize, final Comparator<? super R> comparator) {
-        _bufferSize = bufferSize;
-        _tempFiles = new ArrayList<>();
-        _buffer = new TreeMap<>(comparator);
+        _bufferSize = Math.max(1, bufferSize);
+        _sortBufferSize = Math.max(1, _bufferSize / (MAX_PENDING_SORTS + 1));
         _comparator = comparator;
+        _tempFiles = new ArrayList<>();
+        _memoryRuns = new ArrayList<>();
+        _buffer = new ArrayList<>();
+        _rowsInMemory = new AtomicInteger();
+        _pendingSorts = new ArrayList<>();
+        _sortError = new AtomicReference<>();
         _nullCount = new AtomicInteger();
     }
 
+    /**
+     * Sets whether or not temporary files should be compressed. Compression
+     * trades CPU time for disk I/O, which may pay off for rows that compress
+     * well on slow disks.
+     *
+     * @param compressTempFiles
+     */
+    public void setCompressTempFiles(final boolean compressTempFiles) {
+        _compressTempFiles = compressTempFiles;
+    }
+
+    public boolean isCompressTempFiles() {
+        return _compressTempFiles;
+    }
+
     public void append(final R line) {
         append(line, 1);
     }
@@ -99,47 +219,184 @@ public abstract class SortMergeWriter<R extends Serializable, W extends Closeabl
         if (line == null) {
             // special handling of null
             _nullCount.addAndGet(frequency);
-        } else {
-            synchronized (this) {
-                Integer count = _buffer.get(line);
-                if (count == null) {
-                    if (_buffer.size() == _bufferSize) {
-                        flushBuffer();
-                    }
-                    count = 0;
+            return;
+        }
+
+        synchronized (this) {
+            _buffer.add(new RowCount<>(line, frequency));
+            if (_buffer.size() < _sortBufferSize) {
+                return;
+            }
+            final List<RowCount<R>> fullBuffer = _buffer;
+            _buffer = new ArrayList<>(_sortBufferSize);
+            submitSort(fullBuffer);
+        }
+    }
+
+    /**
+     * Submits a full buffer for sorting. Invoked while holding the lock of the
+     * appended buffer, so that appending waits while memory is being freed.
+     */
+    private void submitSort(final List<RowCount<R>> buffer) {
+        // the buffer and the next one to be appended must fit in memory
+        if (_rowsInMemory.get() + buffer.size() + _sortBufferSize > _bufferSize) {
+            awaitPendingSorts();
+            try {
+                spillMemoryRuns();
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        final int bufferSize = buffer.size();
+        _rowsInMemory.addAndGet(bufferSize);
+        final CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            try {
+                final List<RowCount<R>> run = sortAndCollapse(buffer);
+                final boolean tooManyRuns;
+                synchronized (_memoryRuns) {
+                    _memoryRuns.add(run);
+                    tooManyRuns = _memoryRuns.size() > MAX_MEMORY_RUNS;
+                }
+                // collapsed rows no longer take up memory
+                _rowsInMemory.addAndGet(run.size() - bufferSize);
+                if (tooManyRuns) {
+                    mergeMemoryRuns();
                 }
-                count += frequency;
-                _buffer.put(line, count);
+            } catch (final Throwable e) {
+                _sortError.compareAndSet(null, e);
             }
+        }, ForkJoinPool.commonPool());
+
+        synchronized (_pendingSorts) {
+            _pendingSorts.removeIf(CompletableFuture::isDone);
+            _pendingSorts.add(future);
         }
     }
 
-    private void flushBuffer() {
-        logger.debug("flushBuffer()");
-        ObjectOutputStream oos = null;
-        try {
-            final File file = createTempFile();
-            logger.info("Writing {} rows to temporary file: {}", _bufferSize, file);
+    private List<RowCount<R>> sortAndCollapse(final List<RowCount<R>> buffer) {
+        buffer.sort((o1, o2) -> _comparator.compare(o1._row, o2._row));
+
+        final List<RowCount<R>> run = new ArrayList<>(buffer.size());
+        RowCount<R> previous = null;
+        for (final RowCount<R> rowCount : buffer) {
+            if (previous != null && _comparator.compare(previous._row, rowCount._row) == 0) {
+                previous._count += rowCount._count;
+            } else {
+                run.add(rowCount);
+                previous = rowCount;
+            }
+        }
+        return run;
+    }
 
-            oos = new ObjectOutputStream(new FileOutputStream(file));
+    private void mergeMemoryRuns() throws IOException {
+        final List<List<RowCount<R>>> runsToMerge;
+        synchronized (_memoryRuns) {
+            if (_memoryRuns.size() <= MAX_MEMORY_RUNS) {
+                return;
+            }
+            runsToMerge = new ArrayList<>(_memoryRuns);
+            _memoryRuns.clear();
+        }
 
-            final List<Entry<R, Integer>> copyOfEntries;
-            synchronized (this) {
-                final Set<Entry<R, Integer>> entries = _buffer.entrySet();
-                copyOfEntries = new ArrayList<>(entries);
-                _buffer.clear();
-                _tempFiles.add(file);
+        final List<Run<R>> runs = new ArrayList<>(runsToMerge.size());
+        int rowCount = 0;
+        for (final List<RowCount<R>> run : runsToMerge) {
+            runs.add(createMemoryRun(run));
+            rowCount += run.size();
+        }
+        final List<RowCount<R>> mergedRun = new ArrayList<>();
+        merge(runs, (row, count) -> mergedRun.add(new RowCount<>(row, count)));
+
+        synchronized (_memoryRuns) {
+            _memoryRuns.add(mergedRun);
+        }
+        _rowsInMemory.addAndGet(mergedRun.size() - rowCount);
+    }
+
+    private void spillMemoryRuns() throws IOException {
+        final List<List<RowCount<R>>> runsToSpill;
+        synchronized (_memoryRuns) {
+            if (_memoryRuns.isEmpty()) {
+                return;
             }
+            runsToSpill = new ArrayList<>(_memoryRuns);
+            _memoryRuns.clear();
+        }
+        spill(runsToSpill);
+
+        int spilledRows = 0;
+        for (final List<RowCount<R>> run : runsToSpill) {
+            spilledRows += run.size();
+        }
+        _rowsInMemory.addAndGet(-spilledRows);
+    }
+
+    private void spill(final List<List<RowCount<R>>> runs) throws IOException {
+        final List<Run<R>> memoryRuns = new ArrayList<>(runs.size());
+        for (final List<RowCount<R>> run : runs) {
+            memoryRuns.add(createMemoryRun(run));
+        }
 
-            for (final Entry<R, Integer> entry : copyOfEntries) {
-                oos.writeObject(entry.getKey());
-                oos.writeInt(entry.getValue());
+        final File file = writeTempFile(memoryRuns);
+        synchronized (_tempFiles) {
+            _tempFiles.add(file);
+        }
+    }
+
+    /**
+     * Merges temporary files in passes of at most {@link #MAX_MERGE_FAN_IN}
+     * files, until no more than that number of files remain.
+     */
+    private void mergeTempFiles() throws IOException {
+        synchronized (_tempFiles) {
+            while (_tempFiles.size() > MAX_MERGE_FAN_IN) {
+                final List<File> files = new ArrayList<>(_tempFiles.subList(0, MAX_MERGE_FAN_IN));
+                _tempFiles.subList(0, MAX_MERGE_FAN_IN).clear();
+
+                final List<Run<R>> fileRuns = new ArrayList<>(files.size());
+                final File mergedFile;
+                try {
+                    for (final File file : files) {
+                        fileRuns.add(createFileRun(file));
+                    }
+                    mergedFile = writeTempFile(fileRuns);
+                } finally {
+                    for (final Run<R> run : fileRuns) {
+                        FileHelper.safeClose(run);
+                    }
+                }
+                for (final File file : files) {
+                    if (!file.delete()) {
+                        logger.debug("Could not delete merged temporary file: {}", file);
+                    }
+                }
+                _tempFiles.add(mergedFile);
             }
-        } catch (final IOException e) {
-            throw new IllegalStateException(e);
+        }
+    }
+
+    private File writeTempFile(final List<Run<R>> runs) throws IOException {
+        final File file = createTempFile();
+        logger.info("Writing {} sorted runs to temporary file: {}", runs.size(), file);
+
+        final OutputStream outputStream = new FileOutputStream(file);
+        final Deflater deflater = _compressTempFiles ? new Deflater(Deflater.BEST_SPEED) : null;
+        try (DataOutputStream out = new DataOutputStream(deflater == null
+                ? new BufferedOutputStream(outputStream, IO_BUFFER_SIZE)
+                : new DeflaterOutputStream(outputStream, deflater, IO_BUFFER_SIZE))) {
+            merge(runs, (row, count) -> {
+                writeRecord(out, row);
+                out.writeInt(count);
+            });
+            out.writeByte(RECORD_END);
         } finally {
-            FileHelper.safeClose(oos);
+            if (deflater != null) {
+                deflater.end();
+            }
         }
+        return file;
     }
 
     protected File createTempFile() throws IOException {
@@ -190,138 +447,213 @@ public abstract class SortMergeWriter<R extends Serializable, W extends Closeabl
      */
     public int write(final Resource resource) {
         W writer = null;
-        ObjectInputStream[] tempFileObjectInputStreams = null;
+        final List<Run<R>> runs = new ArrayList<>();
         try {
+            awaitPendingSorts();
+
+            final List<RowCount<R>> remainingBuffer;
+            synchronized (this) {
+                remainingBuffer = _buffer;
+                _buffer = new ArrayList<>();
+            }
+            if (!remainingBuffer.isEmpty()) {
+                runs.add(createMemoryRun(sortAndCollapse(remainingBuffer)));
+            }
+
+            synchronized (_memoryRuns) {
+                for (final List<RowCount<R>> memoryRun : _memoryRuns) {
+                    runs.add(createMemoryRun(memoryRun));
+                }
+                _memoryRuns.clear();
+                _rowsInMemory.set(0);
+            }
+            mergeTempFiles();
+            synchronized (_tempFiles) {
+                if (_tempFiles.isEmpty()) {
+                    logger.info("No temp files created, writing buffer directly to target: {}", resource);
+                }
+                for (final File tempFile : _tempFiles) {
+                    runs.add(createFileRun(tempFile));
+                }
+            }
+
             writer = createWriter(resource);
             writeHeader(writer);
 
-            int rowCount = 0;
-
             final boolean writeNullsFirst = writeNullsFirst();
-
             final int nullCount = _nullCount.get();
+
+            int rowCount = 0;
             if (nullCount > 0 && writeNullsFirst) {
                 writeNull(writer, nullCount);
                 rowCount++;
             }
 
-            if (_tempFiles.isEmpty()) {
-                logger.info("No temp files created yet, flushing buffer directly to target: {}", resource);
-                final Set<Entry<R, Integer>> entries = _buffer.entrySet();
-                for (final Entry<R, Integer> entry : entries) {
-                    writeRow(writer, entry.getKey(), entry.getValue());
-                    rowCount++;
-                }
-                _buffer.clear();
+            final W finalWriter = writer;
+            rowCount += merge(runs, (row, count) -> writeRow(finalWriter, row, count));
 
-                if (nullCount > 0 && !writeNullsFirst) {
-                    writeNull(writer, nullCount);
-                    rowCount++;
-                }
-
-                return rowCount;
+            if (nullCount > 0 && !writeNullsFirst) {
+                writeNull(writer, nullCount);
+                rowCount++;
             }
 
-            if (!_buffer.isEmpty()) {
-                flushBuffer();
+            return rowCount;
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            FileHelper.safeClose(writer);
+            for (final Run<R> run : runs) {
+                FileHelper.safeClose(run);
             }
+        }
+    }
+
+    private void awaitPendingSorts() {
+        final List<CompletableFuture<Void>> pendingSorts;
+        synchronized (_pendingSorts) {
+            pendingSorts = new ArrayList<>(_pendingSorts);
+            _pendingSorts.clear();
+        }
+        CompletableFuture.allOf(pendingSorts.toArray(new CompletableFuture[pendingSorts.size()])).join();
+
+        final Throwable sortError = _sortError.get();
+        if (sortError != null) {
+            throw new IllegalStateException("Sorting of buffered rows failed", sortError);
+        }
+    }
 
-            tempFileObjectInputStreams = createTempFileObjectInputStreams();
+    private interface MergeConsumer<R> {
+        void accept(R row, int count) throws IOException;
+    }
 
-            final List<Entry<R, Integer>> rowCandidates = new ArrayList<>(_tempFiles.size());
-            for (int i = 0; i < _tempFiles.size(); i++) {
-                rowCandidates.add(null);
+    /**
+     * Merges a number of runs, summing up the counts of equal rows.
+     *
+     * @return the number of (distinct) rows passed to the consumer
+     */
+    private int merge(final List<Run<R>> runs, final MergeConsumer<R> consumer) throws IOException {
+        final PriorityQueue<RunHead<R>> heap = new PriorityQueue<>(Math.max(1, runs.size()),
+                (o1, o2) -> _comparator.compare(o1._current._row, o2._current._row));
+        for (final Run<R> run : runs) {
+            final RowCount<R> first = run.next();
+            if (first != null) {
+                heap.add(new RunHead<>(run, first));
             }
+        }
 
-            while (true) {
-                readNextRows(rowCandidates, tempFileObjectInputStreams);
-
-                Entry<R, Integer> currentRow = null;
-
-                // find the next row to write
-                for (final Entry<R, Integer> rowCandidate : rowCandidates) {
-                    if (rowCandidate != null) {
-                        if (currentRow == null) {
-                            currentRow = rowCandidate;
-                        } else {
-                            if (_comparator.compare(rowCandidate.getKey(), currentRow.getKey()) < 0) {
-                                currentRow = rowCandidate;
-                            }
-                        }
-                    }
-                }
+        int rowCount = 0;
+        while (!heap.isEmpty()) {
+            final RunHead<R> head = heap.poll();
+            final R row = head._current._row;
+            int count = head._current._count;
+            advance(heap, head);
+
+            while (!heap.isEmpty() && _comparator.compare(heap.peek()._current._row, row) == 0) {
+                final RunHead<R> equalHead = heap.poll();
+                count += equalHead._current._count;
+                advance(heap, equalHead);
+            }
 
-                if (currentRow == null) {
-                    // the writing is done!
-                    break;
-                }
+            consumer.accept(row, count);
+            rowCount++;
+        }
+        return rowCount;
+    }
 
-                // set count to 0 (the next loop will increment it)
-                currentRow = new ImmutableEntry<>(currentRow.getKey(), 0);
-
-                for (int i = 0; i < rowCandidates.size(); i++) {
-                    final Entry<R, Integer> rowCandidate = rowCandidates.get(i);
-                    if (rowCandidate != null) {
-                        if (_comparator.compare(rowCandidate.getKey(), currentRow.getKey()) == 0) {
-                            // sum up a new count
-                            final int newCount = currentRow.getValue().intValue() + rowCandidate.getValue().intValue();
-                            currentRow = new ImmutableEntry<>(currentRow.getKey(), newCount);
-                            rowCandidates.set(i, null);
-                        }
-                    }
-                }
+    private void advance(final PriorityQueue<RunHead<R>> heap, final RunHead<R> head) throws IOException {
+        final RowCount<R> next = head._run.next();
+        if (next != null) {
+            head._current = next;
+            heap.add(head);
+        }
+    }
 
-                writeRow(writer, currentRow.getKey(), currentRow.getValue());
-                rowCount++;
+    private static final class RunHead<R> {
+
+        private final Run<R> _run;
+        private RowCount<R> _current;
+
+        private RunHead(final Run<R> run, final RowCount<R> current) {
+            _run = run;
+            _current = current;
+        }
+    }
+
+    private Run<R> createMemoryRun(final List<RowCount<R>> rows) {
+        final Iterator<RowCount<R>> iterator = rows.iterator();
+        return new Run<R>() {
+            @Override
+            public RowCount<R> next() {
+                return iterator.hasNext() ? iterator.next() : null;
             }
 
-            if (nullCount > 0 && !writeNullsFirst) {
-                writeNull(writer, nullCount);
-                rowCount++;
+            @Override
+            public void close() {
             }
+        };
+    }
 
-            return rowCount;
-        } catch (final Exception e) {
-            throw new IllegalStateException(e);
-        } finally {
-            FileHelper.safeClose(writer);
-            if (tempFileObjectInputStreams != null) {
-                for (int i = 0; i < tempFileObjectInputStreams.length; i++) {
-                    FileHelper.safeClose(tempFileObjectInputStreams[i]);
+    private Run<R> createFileRun(final File file) throws IOException {
+        final Inflater inflater = _compressTempFiles ? new Inflater() : null;
+        final InputStream inputStream = new FileInputStream(file);
+        final DataInputStream in = new DataInputStream(inflater == null
+                ? new BufferedInputStream(inputStream, IO_BUFFER_SIZE)
+                : new InflaterInputStream(inputStream, inflater, IO_BUFFER_SIZE));
+        return new Run<R>() {
+            private boolean _exhausted = false;
+
+            @Override
+            public RowCount<R> next() throws IOException {
+                if (_exhausted) {
+                    return null;
+                }
+                final R row = readRecord(in);
+                if (row == null) {
+                    _exhausted = true;
+                    return null;
                 }
+                return new RowCount<>(row, in.readInt());
             }
-        }
-    }
 
-    private void readNextRows(final List<Entry<R, Integer>> nextRows,
-            final ObjectInputStream[] tempFileObjectInputStreams) throws Exception {
-        for (int i = 0; i < tempFileObjectInputStreams.length; i++) {
-            if (tempFileObjectInputStreams[i] != null) {
-                if (nextRows.get(i) == null) {
-
-                    try {
-                        @SuppressWarnings("unchecked") final R row = (R) tempFileObjectInputStreams[i].readObject();
-                        final int count = tempFileObjectInputStreams[i].readInt();
-
-                        final Entry<R, Integer> entry = new ImmutableEntry<>(row, count);
-                        nextRows.set(i, entry);
-                    } catch (final EOFException e) {
-                        FileHelper.safeClose(tempFileObjectInputStreams[i]);
-                        tempFileObjectInputStreams[i] = null;
-                    }
+            @Override
+            public void close() {
+                FileHelper.safeClose(in);
+                if (inflater != null) {
+                    inflater.end();
                 }
             }
+        };
+    }
+
+    private void writeRecord(final DataOutputStream out, final R row) throws IOException {
+        if (row instanceof String) {
+            final byte[] bytes = ((String) row).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(RECORD_STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else {
+            final byte[] bytes = SerializationUtils.serialize(row);
+            out.writeByte(RECORD_SERIALIZED);
+            out.writeInt(bytes.length);
+            out.write(bytes);
         }
     }
 
-    @SuppressWarnings("resource")
-    private ObjectInputStream[] createTempFileObjectInputStreams() throws IOException {
-        final ObjectInputStream[] tempFileObjectInputStreams = new ObjectInputStream[_tempFiles.size()];
-        for (int i = 0; i < tempFileObjectInputStreams.length; i++) {
-            final File tempFile = _tempFiles.get(i);
-            final ObjectInputStream ois = new ObjectInputStream(new FileInputStream(tempFile));
-            tempFileObjectInputStreams[i] = ois;
+    @SuppressWarnings("unchecked")
+    private R readRecord(final DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        if (type == RECORD_END) {
+            return null;
+        }
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        switch (type) {
+        case RECORD_STRING:
+            return (R) new String(bytes, StandardCharsets.UTF_8);
+        case RECORD_SERIALIZED:
+            return (R) SerializationUtils.deserialize(bytes);
+        default:
+            throw new IllegalStateException("Unexpected record type in temporary file: " + type);
         }
-        return tempFileObjectInputStreams;
     }
 }
@@ -134,6 +134,48 @@ public class ConvertToDateTransformerTest extends TestCase {
         assertNotNull(date);
     }
 
+    public void testPreferredDateMaskPerColumn() throws Exception {
+        final ConvertToDateTransformer transformer = new ConvertToDateTransformer();
+        transformer.timeZone = TEST_TIMEZONE;
+        transformer.dateMasks = new String[] { "yyyy-MM-dd", "dd-MM-yyyy", "MM-dd-yyyy" };
+        final InputColumn<?> col1 = new MockInputColumn<>("col1");
+        final InputColumn<?> col2 = new MockInputColumn<>("col2");
+        transformer.input = new InputColumn[] { col1, col2 };
+        transformer.init();
+
+        Date[] result;
+
+        // only the last mask can parse the value of the first column
+        result = transformer.transform(new MockInputRow().put(col1, "12-31-2014").put(col2, "2014-01-02"));
+        assertEquals("2014-12-31", dateFormat.format(result[0]));
+        assertEquals("2014-01-02", dateFormat.format(result[1]));
+
+        // ambiguous values are still parsed by the first mask that can parse them
+        result = transformer.transform(new MockInputRow().put(col1, "01-02-2014").put(col2, "01-02-2014"));
+        assertEquals("2014-02-01", dateFormat.format(result[0]));
+        assertEquals("2014-02-01", dateFormat.format(result[1]));
+
+        result = transformer.transform(new MockInputRow().put(col1, "02-13-2014").put(col2, "2014-02-13"));
+        assertEquals("2014-02-13", dateFormat.format(result[0]));
+        assertEquals("2014-02-13", dateFormat.format(result[1]));
+
+        result = transformer.transform(new MockInputRow().put(col1, "foo").put(col2, "2014-02-30"));
+        assertNull(result[0]);
+        assertNull(result[1]);
+    }
+
+    public void testConvertShiftedToday() throws Exception {
+        final ConvertToDateTransformer transformer = new ConvertToDateTransformer();
+        transformer.timeZone = TEST_TIMEZONE;
+        transformer.init();
+
+        final Date now = new Date();
+        final Date tomorrow = new Date(now.getTime() + 24 * 60 * 60 * 1000);
+
+        assertEquals(format(tomorrow), format(transformer.convertFromString("shifted_today(+1d +0m +0y)")));
+        assertNull(transformer.convertFromString("shifted_today"));
+    }
+
     private String format(final Date date) {
         assertNotNull("date is null", date);
         return dateFormat.format(date);
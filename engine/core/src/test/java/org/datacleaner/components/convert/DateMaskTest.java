@@ -0,0 +1,78 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.convert;
+
+import org.joda.time.DateTimeZone;
+
+import junit.framework.TestCase;
+
+public class DateMaskTest extends TestCase {
+
+    public void testAcceptsBySeparatorsAndDigits() throws Exception {
+        final DateMask dateMask = new DateMask("yyyy-MM-dd", DateTimeZone.UTC);
+
+        assertTrue(dateMask.accepts("2014-01-31"));
+        assertTrue(dateMask.accepts("2014-1-5"));
+        assertTrue(dateMask.accepts("-2014-01-31"));
+
+        assertFalse(dateMask.accepts(""));
+        assertFalse(dateMask.accepts("2014/01/31"));
+        assertFalse(dateMask.accepts("2014-01-31 "));
+        assertFalse(dateMask.accepts("31-01-2014"));
+        assertFalse(dateMask.accepts("2014-001-31"));
+        assertFalse(dateMask.accepts("2014-Jan-31"));
+    }
+
+    public void testAcceptsByFieldRange() throws Exception {
+        final DateMask dateMask = new DateMask("dd/MM/yyyy HH:mm", DateTimeZone.UTC);
+
+        assertTrue(dateMask.accepts("29/3/2009 3:15"));
+        assertFalse(dateMask.accepts("29/13/2009 3:15"));
+        assertFalse(dateMask.accepts("00/03/2009 3:15"));
+        assertFalse(dateMask.accepts("29/03/2009 24:15"));
+        assertFalse(dateMask.accepts("29/03/2009 23:60"));
+    }
+
+    public void testAcceptsAdjacentFields() throws Exception {
+        final DateMask dateMask = new DateMask("yyyyMMddHHmmssZ", DateTimeZone.UTC);
+        assertTrue(dateMask.isNumberOnly());
+
+        assertTrue(dateMask.accepts("20140131101112+0100"));
+        assertFalse(dateMask.accepts("2014"));
+        assertFalse(dateMask.accepts("31-01-2014"));
+    }
+
+    public void testAcceptsAnythingAfterUncheckedPart() throws Exception {
+        final DateMask dateMask = new DateMask("yyyy-MM-dd'T'HH:mm", DateTimeZone.UTC);
+        assertFalse(dateMask.isNumberOnly());
+
+        assertTrue(dateMask.accepts("2014-01-31T10:11"));
+        assertTrue(dateMask.accepts("2014-01-31Tfoo"));
+        assertFalse(dateMask.accepts("2014-13-31T10:11"));
+    }
+
+    public void testParse() throws Exception {
+        final DateMask dateMask = new DateMask("dd-MM-yyyy", DateTimeZone.UTC);
+
+        assertEquals(1391126400000L, dateMask.parse("31-01-2014").getTime());
+        assertNull(dateMask.parse("31-02-2014"));
+        assertNull(dateMask.parse("foo"));
+    }
+}
@@ -26,12 +26,14 @@ import java.util.List;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.OutputColumns;
 import org.datacleaner.components.tablelookup.TableLookupTransformer.JoinSemantic;
+import org.datacleaner.components.tablelookup.TableLookupTransformer.LookupStrategy;
 import org.datacleaner.connection.CsvDatastore;
 import org.datacleaner.data.MockInputColumn;
 import org.datacleaner.data.MockInputRow;
 import org.datacleaner.descriptors.Descriptors;
 import org.datacleaner.descriptors.TransformerDescriptor;
 import org.datacleaner.job.AbstractOutputRowCollector;
+import org.datacleaner.result.CategorizationResult;
 import org.datacleaner.storage.RowAnnotationFactory;
 import org.datacleaner.storage.RowAnnotations;
 
@@ -69,6 +71,7 @@ public class TableLookupTransformerTest extends TestCase {
         t._cached = annotationFactory.createAnnotation();
         t._matches = annotationFactory.createAnnotation();
         t._misses = annotationFactory.createAnnotation();
+        t._queried = annotationFactory.createAnnotation();
         return t;
     }
 
@@ -210,6 +213,83 @@ public class TableLookupTransformerTest extends TestCase {
         trans.close();
     }
 
+    public void testQueryStrategyStatistics() throws Exception {
+        final TableLookupTransformer trans = createTransformer();
+        trans.datastore = new CsvDatastore("my ds", "src/test/resources/employees.csv");
+        trans.outputColumns = new String[] { "name" };
+        trans.conditionColumns = new String[] { "email" };
+        trans.lookupStrategy = LookupStrategy.QUERY;
+        final InputColumn<String> col1 = new MockInputColumn<>("my email col", String.class);
+        trans.conditionValues = new InputColumn[] { col1 };
+
+        trans.init();
+
+        assertEquals("[Jane Doe]",
+                Arrays.toString(trans.transform(new MockInputRow().put(col1, "jane.doe@company.com"))));
+        assertEquals("[Jane Doe]",
+                Arrays.toString(trans.transform(new MockInputRow().put(col1, "jane.doe@company.com"))));
+        assertEquals("[null]", Arrays.toString(trans.transform(new MockInputRow().put(col1, "foo bar"))));
+
+        final CategorizationResult result = trans.getResult();
+        assertEquals("[Match, Miss, Cached, Queried]", result.getCategoryNames().toString());
+        assertEquals(1, result.getCategoryCount("Match"));
+        assertEquals(1, result.getCategoryCount("Miss"));
+        assertEquals(1, result.getCategoryCount("Cached"));
+        assertEquals(2, result.getCategoryCount("Queried"));
+
+        trans.close();
+    }
+
+    public void testPreloadStrategy() throws Exception {
+        final TableLookupTransformer trans = createTransformer();
+        trans.datastore = new CsvDatastore("my ds", "src/test/resources/employees.csv");
+        trans.outputColumns = new String[] { "name" };
+        trans.conditionColumns = new String[] { "email" };
+        trans.lookupStrategy = LookupStrategy.PRELOAD;
+        final InputColumn<String> col1 = new MockInputColumn<>("my email col", String.class);
+        trans.conditionValues = new InputColumn[] { col1 };
+
+        trans.init();
+
+        assertEquals("[Jane Doe]",
+                Arrays.toString(trans.transform(new MockInputRow().put(col1, "jane.doe@company.com"))));
+        assertEquals("[Jane Doe]",
+                Arrays.toString(trans.transform(new MockInputRow().put(col1, "jane.doe@company.com"))));
+        assertEquals("[null]", Arrays.toString(trans.transform(new MockInputRow().put(col1, "foo bar"))));
+        assertEquals("[null]", Arrays.toString(trans.transform(new MockInputRow().put(col1, null))));
+
+        final CategorizationResult result = trans.getResult();
+        assertEquals("[Match, Miss]", result.getCategoryNames().toString());
+        assertEquals(2, result.getCategoryCount("Match"));
+        assertEquals(2, result.getCategoryCount("Miss"));
+
+        trans.close();
+    }
+
+    public void testAutomaticStrategyQueriesLargeTables() throws Exception {
+        final TableLookupTransformer trans = createTransformer();
+        trans.datastore = new CsvDatastore("my ds", "src/test/resources/employees.csv");
+        trans.outputColumns = new String[] { "name" };
+        trans.conditionColumns = new String[] { "email" };
+        trans.lookupStrategy = LookupStrategy.AUTO;
+        trans.preloadMaxRows = 5;
+        final InputColumn<String> col1 = new MockInputColumn<>("my email col", String.class);
+        trans.conditionValues = new InputColumn[] { col1 };
+
+        trans.init();
+        assertEquals("[Jane Doe]",
+                Arrays.toString(trans.transform(new MockInputRow().put(col1, "jane.doe@company.com"))));
+        assertEquals(1, trans.getResult().getCategoryCount("Queried"));
+        trans.close();
+
+        trans.preloadMaxRows = 7;
+        trans.init();
+        assertEquals("[Jane Doe]",
+                Arrays.toString(trans.transform(new MockInputRow().put(col1, "jane.doe@company.com"))));
+        assertEquals("[Match, Miss]", trans.getResult().getCategoryNames().toString());
+        trans.close();
+    }
+
     public void testIsDistributable() throws Exception {
         final TransformerDescriptor<TableLookupTransformer> descriptor =
                 Descriptors.ofTransformer(TableLookupTransformer.class);
@@ -19,11 +19,19 @@
  */
 package org.datacleaner.data;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.rowset.serial.SerialClob;
+
 import org.apache.metamodel.data.DataSetHeader;
 import org.apache.metamodel.data.DefaultRow;
 import org.apache.metamodel.data.SimpleDataSetHeader;
 import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.ColumnType;
 import org.apache.metamodel.schema.MutableColumn;
+import org.datacleaner.api.InputColumn;
 
 import junit.framework.TestCase;
 
@@ -41,4 +49,48 @@ public class MetaModelInputRowTest extends TestCase {
         assertTrue(row.containsInputColumn(new MetaModelInputColumn(new MutableColumn("bar"))));
         assertFalse(row.containsInputColumn(new MetaModelInputColumn(new MutableColumn("baz"))));
     }
+
+    public void testGetValueWithLayout() throws Exception {
+        final MutableColumn fooColumn = new MutableColumn("foo", ColumnType.VARCHAR);
+        final MutableColumn barColumn = new MutableColumn("bar", ColumnType.CLOB);
+        final MutableColumn bazColumn = new MutableColumn("baz", ColumnType.INTEGER);
+        final List<SelectItem> items =
+                Arrays.asList(new SelectItem(fooColumn), new SelectItem(barColumn), new SelectItem(bazColumn));
+        final InputColumn<?> fooInputColumn = new MetaModelInputColumn(fooColumn);
+        final InputColumn<?> barInputColumn = new MetaModelInputColumn(barColumn);
+
+        final MetaModelInputRowLayout layout =
+                new MetaModelInputRowLayout(items, Arrays.asList(fooInputColumn, barInputColumn));
+        assertEquals(0, layout.getIndex(fooInputColumn));
+        assertEquals(1, layout.getIndex(barInputColumn));
+        assertEquals(2, layout.getIndex(new MetaModelInputColumn(bazColumn)));
+        assertEquals(-1, layout.getIndex(new MetaModelInputColumn(new MutableColumn("qux"))));
+        assertFalse(layout.isLargeObject(0));
+        assertTrue(layout.isLargeObject(1));
+        assertFalse(layout.isLargeObject(2));
+
+        final DataSetHeader header = new SimpleDataSetHeader(items);
+        final Object[] values = new Object[] { "hello", new SerialClob("world".toCharArray()), 42 };
+        final MetaModelInputRow row = new MetaModelInputRow(1, new DefaultRow(header, values), layout);
+
+        assertEquals("hello", row.getValue(fooInputColumn));
+        assertEquals("world", row.getValue(barInputColumn));
+        assertEquals(Integer.valueOf(42), row.getValue(new MetaModelInputColumn(bazColumn)));
+        assertNull(row.getValue(new MetaModelInputColumn(new MutableColumn("qux"))));
+
+        assertTrue(row.containsInputColumn(new MetaModelInputColumn(bazColumn)));
+        assertFalse(row.containsInputColumn(new MetaModelInputColumn(new MutableColumn("qux"))));
+    }
+
+    public void testLayoutWithUnknownColumnType() throws Exception {
+        final MutableColumn column = new MutableColumn("foo");
+        final List<SelectItem> items = Collections.singletonList(new SelectItem(column));
+        final MetaModelInputRowLayout layout = new MetaModelInputRowLayout(items, Collections.emptyList());
+        assertTrue(layout.isLargeObject(0));
+
+        final Object[] values = new Object[] { new SerialClob("bar".toCharArray()) };
+        final MetaModelInputRow row =
+                new MetaModelInputRow(1, new DefaultRow(new SimpleDataSetHeader(items), values), layout);
+        assertEquals("bar", row.getValue(new MetaModelInputColumn(column)));
+    }
 }
@@ -19,6 +19,11 @@
  */
 package org.datacleaner.data;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang.SerializationUtils;
 import org.apache.metamodel.data.DataSetHeader;
 import org.apache.metamodel.data.DefaultRow;
 import org.apache.metamodel.data.SimpleDataSetHeader;
@@ -91,4 +96,50 @@ public class TransformedInputRowTest extends TestCase {
         assertNull(row1.getValue(inputColumn3));
         assertEquals("w", row2.getValue(inputColumn3));
     }
+
+    public void testGetValueWithLayout() throws Exception {
+        final InputColumn<String> inputColumn1 = new MockInputColumn<>("foo", String.class);
+        final InputColumn<String> inputColumn2 = new MockInputColumn<>("bar", String.class);
+        final InputColumn<String> inputColumn3 = new MockInputColumn<>("baz", String.class);
+
+        final TransformedInputRowLayout layout =
+                new TransformedInputRowLayout(Arrays.asList(inputColumn1, inputColumn2));
+        assertEquals(2, layout.getSlotCount());
+
+        final TransformedInputRow row = new TransformedInputRow(new MockInputRow(), 1, layout);
+        assertFalse(row.containsInputColumn(inputColumn1));
+
+        row.addValue(inputColumn2, "b");
+        row.addValue(inputColumn1, null);
+        row.addValue(inputColumn3, "w");
+
+        assertTrue(row.containsInputColumn(inputColumn1));
+        assertNull(row.getValue(inputColumn1));
+        assertEquals("b", row.getValue(inputColumn2));
+        assertEquals("w", row.getValue(inputColumn3));
+
+        final String str = row.toString();
+        assertTrue(str, str.startsWith("TransformedInputRow[values={MockInputColumn[name=foo]=null, "
+                + "MockInputColumn[name=bar]=b, MockInputColumn[name=baz]=w},delegate="));
+    }
+
+    public void testSerializeWithLayout() throws Exception {
+        final InputColumn<String> inputColumn1 = new MockInputColumn<>("foo", String.class);
+        final InputColumn<String> inputColumn2 = new MockInputColumn<>("bar", String.class);
+
+        final TransformedInputRowLayout layout = new TransformedInputRowLayout(Arrays.asList(inputColumn1));
+        final TransformedInputRow row = new TransformedInputRow(new MockInputRow(), 1, layout);
+        row.addValue(inputColumn1, "f");
+        row.addValue(inputColumn2, "b");
+
+        final TransformedInputRow copy =
+                (TransformedInputRow) SerializationUtils.deserialize(SerializationUtils.serialize(row));
+        assertEquals(1, copy.getId());
+        assertEquals(row.toString(), copy.toString());
+
+        final List<InputColumn<?>> copiedColumns = new ArrayList<>(copy.getTransformedInputColumns());
+        assertEquals(2, copiedColumns.size());
+        assertEquals("f", copy.getValue(copiedColumns.get(0)));
+        assertEquals("b", copy.getValue(copiedColumns.get(1)));
+    }
 }
@@ -0,0 +1,182 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Named;
+
+import org.datacleaner.api.Analyzer;
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.api.AnalyzerResultReducer;
+import org.datacleaner.api.Configured;
+import org.datacleaner.api.Distributed;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.DataCleanerConfigurationImpl;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.builder.AnalysisJobBuilder;
+import org.datacleaner.test.TestEnvironment;
+import org.datacleaner.test.TestHelper;
+import org.datacleaner.util.SystemProperties;
+
+import junit.framework.TestCase;
+
+public class AnalyzerConsumerTest extends TestCase {
+
+    public static class CountResult implements AnalyzerResult {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int _count;
+
+        public CountResult(final int count) {
+            _count = count;
+        }
+
+        public int getCount() {
+            return _count;
+        }
+    }
+
+    public static class CountResultReducer implements AnalyzerResultReducer<CountResult> {
+
+        @Override
+        public CountResult reduce(final Collection<? extends CountResult> results) {
+            REDUCED_RESULTS.addAndGet(results.size());
+            int sum = 0;
+            for (final CountResult result : results) {
+                sum += result.getCount();
+            }
+            return new CountResult(sum);
+        }
+    }
+
+    @Named("Non-concurrent counting analyzer")
+    @Distributed(reducer = CountResultReducer.class)
+    public static class NonConcurrentCountingAnalyzer implements Analyzer<CountResult> {
+
+        @Configured
+        InputColumn<?> column;
+
+        // deliberately not thread-safe
+        private int _count = 0;
+        private Thread _thread;
+
+        @Override
+        public void run(final InputRow row, final int distinctCount) {
+            final Thread thread = Thread.currentThread();
+            if (_thread == null) {
+                _thread = thread;
+                RUNNING_INSTANCES.add(this);
+                awaitSecondInstance();
+            } else if (_thread != thread) {
+                SHARED_BETWEEN_THREADS.set(true);
+            }
+            _count += distinctCount;
+        }
+
+        private void awaitSecondInstance() {
+            final CountDownLatch latch = secondInstanceLatch;
+            if (latch == null) {
+                return;
+            }
+            latch.countDown();
+            try {
+                // hold the first thread to make sure others get to process rows
+                latch.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public CountResult getResult() {
+            return new CountResult(_count);
+        }
+    }
+
+    static final Set<NonConcurrentCountingAnalyzer> RUNNING_INSTANCES = ConcurrentHashMap.newKeySet();
+    static final AtomicBoolean SHARED_BETWEEN_THREADS = new AtomicBoolean();
+    static final AtomicInteger REDUCED_RESULTS = new AtomicInteger();
+    static volatile CountDownLatch secondInstanceLatch;
+
+    private final Datastore datastore = TestHelper.createSampleDatabaseDatastore("orderdb");
+    private final DataCleanerConfiguration configuration = new DataCleanerConfigurationImpl().withDatastores(datastore)
+            .withEnvironment(TestEnvironment.getEnvironment());
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        RUNNING_INSTANCES.clear();
+        SHARED_BETWEEN_THREADS.set(false);
+        REDUCED_RESULTS.set(0);
+        secondInstanceLatch = null;
+    }
+
+    public void testPerThreadInstancesDisabledByDefault() throws Throwable {
+        assertEquals(2996, runCountingJob());
+        assertEquals(1, RUNNING_INSTANCES.size());
+        assertEquals(0, REDUCED_RESULTS.get());
+    }
+
+    public void testPerThreadInstancesReduced() throws Throwable {
+        secondInstanceLatch = new CountDownLatch(2);
+        System.setProperty(SystemProperties.ANALYZER_PER_THREAD_INSTANCES, "true");
+        try {
+            assertEquals(2996, runCountingJob());
+        } finally {
+            System.clearProperty(SystemProperties.ANALYZER_PER_THREAD_INSTANCES);
+        }
+
+        final int instances = RUNNING_INSTANCES.size();
+        assertTrue("Expected several per-thread instances, got " + instances, instances > 1);
+        assertFalse("An analyzer instance was shared between threads", SHARED_BETWEEN_THREADS.get());
+        assertEquals(instances, REDUCED_RESULTS.get());
+    }
+
+    private int runCountingJob() throws Throwable {
+        final AnalysisJob job;
+        try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(configuration)) {
+            jobBuilder.setDatastore(datastore);
+            jobBuilder.addSourceColumns("orderdetails.productcode");
+            jobBuilder.addAnalyzer(NonConcurrentCountingAnalyzer.class)
+                    .addInputColumn(jobBuilder.getSourceColumns().get(0));
+            job = jobBuilder.toAnalysisJob();
+        }
+
+        final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(configuration).run(job);
+        resultFuture.await();
+        if (resultFuture.isErrornous()) {
+            throw resultFuture.getErrors().get(0);
+        }
+
+        final CountResult result = (CountResult) resultFuture.getResults().get(0);
+        return result.getCount();
+    }
+}
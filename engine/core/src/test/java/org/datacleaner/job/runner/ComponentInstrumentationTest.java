@@ -0,0 +1,112 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datacleaner.components.convert.ConvertToStringTransformer;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.DataCleanerConfigurationImpl;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.job.builder.AnalysisJobBuilder;
+import org.datacleaner.job.builder.AnalyzerComponentBuilder;
+import org.datacleaner.job.builder.TransformerComponentBuilder;
+import org.datacleaner.job.runner.AnalyzerConsumerTest.NonConcurrentCountingAnalyzer;
+import org.datacleaner.test.TestEnvironment;
+import org.datacleaner.test.TestHelper;
+import org.datacleaner.util.SystemProperties;
+
+import junit.framework.TestCase;
+
+public class ComponentInstrumentationTest extends TestCase {
+
+    private final Datastore datastore = TestHelper.createSampleDatabaseDatastore("orderdb");
+    private final DataCleanerConfiguration configuration = new DataCleanerConfigurationImpl().withDatastores(datastore)
+            .withEnvironment(TestEnvironment.getEnvironment());
+
+    public void testNoMetricsWhenDisabled() throws Throwable {
+        final Map<String, ComponentMetrics> metrics = runJob();
+        assertTrue(metrics.isEmpty());
+    }
+
+    public void testMetricsWhenEnabled() throws Throwable {
+        System.setProperty(SystemProperties.ROW_PROCESSING_INSTRUMENTATION, "true");
+        final Map<String, ComponentMetrics> metrics;
+        try {
+            metrics = runJob();
+        } finally {
+            System.clearProperty(SystemProperties.ROW_PROCESSING_INSTRUMENTATION);
+        }
+
+        assertEquals(2, metrics.size());
+
+        final ComponentMetrics transformerMetrics = metrics.get("transformer");
+        assertTrue(transformerMetrics.isInstrumented());
+        assertEquals(2996, transformerMetrics.getInvocationCount());
+        assertEquals(2996, transformerMetrics.getEmittedRowCount());
+        assertEquals(0, transformerMetrics.getErrorCount());
+        assertTrue(transformerMetrics.getProcessingNanos() > 0);
+
+        final ComponentMetrics analyzerMetrics = metrics.get("analyzer");
+        assertTrue(analyzerMetrics.isInstrumented());
+        assertEquals(2996, analyzerMetrics.getInvocationCount());
+        assertEquals(0, analyzerMetrics.getErrorCount());
+        assertTrue(analyzerMetrics.getProcessingNanos() > 0);
+        assertTrue(analyzerMetrics.getLockWaitNanos() >= 0);
+    }
+
+    private Map<String, ComponentMetrics> runJob() throws Throwable {
+        final AnalysisJob job;
+        try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(configuration)) {
+            jobBuilder.setDatastore(datastore);
+            jobBuilder.addSourceColumns("orderdetails.productcode");
+
+            final TransformerComponentBuilder<ConvertToStringTransformer> transformer =
+                    jobBuilder.addTransformer(ConvertToStringTransformer.class);
+            transformer.setName("transformer");
+            transformer.addInputColumn(jobBuilder.getSourceColumns().get(0));
+
+            final AnalyzerComponentBuilder<NonConcurrentCountingAnalyzer> analyzer =
+                    jobBuilder.addAnalyzer(NonConcurrentCountingAnalyzer.class);
+            analyzer.setName("analyzer");
+            analyzer.addInputColumn(transformer.getOutputColumns().get(0));
+            job = jobBuilder.toAnalysisJob();
+        }
+
+        final Map<String, ComponentMetrics> metrics = new ConcurrentHashMap<>();
+        final AnalysisListener listener = new AnalysisListenerAdaptor() {
+            @Override
+            public void componentMetrics(final AnalysisJob job, final ComponentJob componentJob,
+                    final ComponentMetrics componentMetrics) {
+                metrics.put(componentJob.getName(), componentMetrics);
+            }
+        };
+
+        final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(configuration, listener).run(job);
+        resultFuture.await();
+        if (resultFuture.isErrornous()) {
+            throw resultFuture.getErrors().get(0);
+        }
+        return metrics;
+    }
+}
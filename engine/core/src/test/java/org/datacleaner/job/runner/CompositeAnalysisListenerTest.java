@@ -61,6 +61,12 @@ public class CompositeAnalysisListenerTest extends TestCase {
                 throw new RuntimeException("OUCH!");
             }
 
+            @Override
+            public void componentMetrics(final AnalysisJob job, final ComponentJob componentJob,
+                    final ComponentMetrics metrics) {
+                throw new RuntimeException("OUCH!");
+            }
+
             @Override
             public void rowProcessingSuccess(final AnalysisJob job, final RowProcessingMetrics metrics) {
                 throw new RuntimeException("OUCH!");
@@ -118,6 +124,12 @@ public class CompositeAnalysisListenerTest extends TestCase {
                 counter.incrementAndGet();
             }
 
+            @Override
+            public void componentMetrics(final AnalysisJob job, final ComponentJob componentJob,
+                    final ComponentMetrics metrics) {
+                counter.incrementAndGet();
+            }
+
             @Override
             public void rowProcessingSuccess(final AnalysisJob job, final RowProcessingMetrics metrics) {
                 counter.incrementAndGet();
@@ -171,5 +183,7 @@ public class CompositeAnalysisListenerTest extends TestCase {
         assertEquals(9, counter.get());
         compositeAnalysisListener.rowProcessingSuccess(null, null);
         assertEquals(10, counter.get());
+        compositeAnalysisListener.componentMetrics(null, null, null);
+        assertEquals(11, counter.get());
     }
 }
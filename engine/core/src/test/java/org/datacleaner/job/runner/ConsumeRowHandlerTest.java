@@ -35,11 +35,13 @@ import org.datacleaner.data.MockInputRow;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.builder.AnalysisJobBuilder;
 import org.datacleaner.job.builder.AnalyzerComponentBuilder;
+import org.datacleaner.job.builder.FilterComponentBuilder;
 import org.datacleaner.job.builder.TransformerComponentBuilder;
 import org.datacleaner.job.runner.ConsumeRowHandler.Configuration;
 import org.datacleaner.job.tasks.MockMultiRowTransformer;
 import org.datacleaner.test.MockAnalyzer;
 import org.datacleaner.test.MockTransformer;
+import org.datacleaner.test.mock.EvenOddFilter;
 
 import junit.framework.TestCase;
 
@@ -166,4 +168,36 @@ public class ConsumeRowHandlerTest extends TestCase {
         final List<InputColumn<?>> outputColumns = outputRow.getInputColumns();
         assertEquals(6, outputColumns.size());
     }
+
+    public void testFilteredRecordScenario() throws Exception {
+        final FilterComponentBuilder<EvenOddFilter, EvenOddFilter.Category> filter =
+                ajb.addFilter(EvenOddFilter.class);
+        filter.addInputColumn(nameColumn);
+
+        final TransformerComponentBuilder<MockTransformer> tr1 = ajb.addTransformer(MockTransformer.class);
+        tr1.addInputColumn(nameColumn);
+        tr1.setRequirement(filter, EvenOddFilter.Category.EVEN);
+
+        final AnalyzerComponentBuilder<MockAnalyzer> analyzer = ajb.addAnalyzer(MockAnalyzer.class);
+        analyzer.addInputColumns(sourceColumns);
+
+        final AnalysisJob job = ajb.toAnalysisJob(true);
+
+        final Configuration configuration = new Configuration();
+        configuration.includeAnalyzers = false;
+
+        final ConsumeRowHandler handler = new ConsumeRowHandler(job, _configuration, configuration);
+
+        // the first record is categorized as ODD and the transformer is skipped
+        final MockInputRow inputRow1 = new MockInputRow().put(nameColumn, "Kasper");
+        List<InputRow> result = handler.consumeRow(inputRow1).getRows();
+        assertEquals(1, result.size());
+        assertSame(inputRow1, result.get(0));
+
+        // the second record is categorized as EVEN and gets transformed
+        final MockInputRow inputRow2 = new MockInputRow().put(nameColumn, "Vera");
+        result = handler.consumeRow(inputRow2).getRows();
+        assertEquals(1, result.size());
+        assertEquals("mocked: Vera", result.get(0).getValue(tr1.getOutputColumns().get(0)));
+    }
 }
@@ -0,0 +1,198 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.metamodel.pojo.ArrayTableDataProvider;
+import org.apache.metamodel.util.SimpleTableDef;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.DataCleanerConfigurationImpl;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.connection.PojoDatastore;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.builder.AnalysisJobBuilder;
+import org.datacleaner.job.builder.AnalyzerComponentBuilder;
+import org.datacleaner.result.ListResult;
+import org.datacleaner.test.MockAnalyzer;
+import org.datacleaner.test.TestEnvironment;
+import org.datacleaner.test.TestHelper;
+
+import junit.framework.TestCase;
+
+public class SharedScanAnalysisRunnerTest extends TestCase {
+
+    private final Datastore datastore = TestHelper.createSampleDatabaseDatastore("orderdb");
+    private final DataCleanerConfiguration configuration = new DataCleanerConfigurationImpl().withDatastores(datastore)
+            .withEnvironment(TestEnvironment.getEnvironment());
+
+    public void testSameResultsAsSeparateRuns() throws Throwable {
+        final AnalysisJob job1 = createJob("CUSTOMERS.CUSTOMERNAME");
+        final AnalysisJob job2 = createJob("CUSTOMERS.PHONE", "CUSTOMERS.CITY");
+        final AnalysisJob job3 = createJob("EMPLOYEES.LASTNAME");
+        final List<AnalysisJob> jobs = Arrays.asList(job1, job2, job3);
+
+        final List<AnalysisResultFuture> resultFutures = new SharedScanAnalysisRunner(configuration).run(jobs);
+        assertEquals(3, resultFutures.size());
+
+        final AnalysisRunner runner = new AnalysisRunnerImpl(configuration);
+        for (int i = 0; i < jobs.size(); i++) {
+            final AnalysisJob job = jobs.get(i);
+            final List<String> expectedValues = getValues(job, runner.run(job));
+            final List<String> values = getValues(job, resultFutures.get(i));
+            assertFalse(values.isEmpty());
+            assertEquals(expectedValues, values);
+        }
+    }
+
+    public void testSingleScanPerSharedTable() throws Throwable {
+        // every query on the table iterates its rows once
+        final AtomicInteger scanCount = new AtomicInteger();
+        final List<Object[]> rows = new ArrayList<Object[]>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Iterator<Object[]> iterator() {
+                scanCount.incrementAndGet();
+                return super.iterator();
+            }
+        };
+        for (int i = 0; i < 100; i++) {
+            rows.add(new Object[] { "a" + i, "b" + i, "c" + i });
+        }
+        final Datastore pojoDatastore = new PojoDatastore("pojo", "sch",
+                new ArrayTableDataProvider(new SimpleTableDef("table", new String[] { "col1", "col2", "col3" }), rows));
+        final DataCleanerConfiguration pojoConfiguration = new DataCleanerConfigurationImpl()
+                .withDatastores(pojoDatastore).withEnvironment(TestEnvironment.getEnvironment());
+
+        final List<AnalysisJob> jobs = Arrays.asList(createJob(pojoConfiguration, pojoDatastore, "table.col1"),
+                createJob(pojoConfiguration, pojoDatastore, "table.col2", "table.col3"),
+                createJob(pojoConfiguration, pojoDatastore, "table.col1", "table.col3"));
+
+        final List<AnalysisResultFuture> resultFutures = new SharedScanAnalysisRunner(pojoConfiguration).run(jobs);
+        for (int i = 0; i < jobs.size(); i++) {
+            assertEquals(100, getValues(jobs.get(i), resultFutures.get(i)).size());
+        }
+
+        assertEquals(1, scanCount.get());
+    }
+
+    public void testInvalidJobPreventsAllJobsFromStarting() throws Throwable {
+        final AnalysisJob job1 = createJob("CUSTOMERS.CUSTOMERNAME");
+
+        // an analyzer with input from different tables
+        final AnalysisJob job2;
+        try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(configuration)) {
+            jobBuilder.setDatastore(datastore);
+            jobBuilder.addSourceColumns("CUSTOMERS.CONTACTLASTNAME", "EMPLOYEES.LASTNAME");
+            final AnalyzerComponentBuilder<MockAnalyzer> analyzer = jobBuilder.addAnalyzer(MockAnalyzer.class);
+            analyzer.addInputColumns(jobBuilder.getSourceColumns());
+            job2 = jobBuilder.toAnalysisJob(false);
+        }
+
+        final AtomicInteger jobBeginCount = new AtomicInteger();
+        final AnalysisListener listener = new AnalysisListenerAdaptor() {
+            @Override
+            public void jobBegin(final AnalysisJob job, final AnalysisJobMetrics metrics) {
+                jobBeginCount.incrementAndGet();
+            }
+        };
+
+        try {
+            new SharedScanAnalysisRunner(configuration, listener).run(Arrays.asList(job1, job2));
+            fail("Exception expected");
+        } catch (final RuntimeException e) {
+            // expected
+        }
+
+        // the valid job was not started, so it cannot be left waiting for the
+        // invalid job to join the shared scan of CUSTOMERS
+        assertEquals(0, jobBeginCount.get());
+    }
+
+    public void testErrorInOneJobDoesNotAffectOthers() throws Throwable {
+        final AnalysisJob job1 = createJob("CUSTOMERS.CUSTOMERNAME");
+
+        final AnalysisJob job2;
+        try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(configuration)) {
+            jobBuilder.setDatastore(datastore);
+            jobBuilder.addSourceColumns("CUSTOMERS.CUSTOMERNAME");
+            final AnalyzerComponentBuilder<AnalysisRunnerImplTest.TestAnalyzer> analyzer =
+                    jobBuilder.addAnalyzer(AnalysisRunnerImplTest.TestAnalyzer.class);
+            analyzer.addInputColumns(jobBuilder.getSourceColumns());
+            analyzer.setConfiguredProperty("Produce an error", true);
+            job2 = jobBuilder.toAnalysisJob();
+        }
+
+        final List<AnalysisResultFuture> resultFutures =
+                new SharedScanAnalysisRunner(configuration).run(Arrays.asList(job1, job2));
+
+        final AnalysisResultFuture resultFuture2 = resultFutures.get(1);
+        resultFuture2.await();
+        assertFalse(resultFuture2.isSuccessful());
+        assertEquals("produceAnError=true", resultFuture2.getErrors().get(0).getMessage());
+
+        final List<String> expectedValues = getValues(job1, new AnalysisRunnerImpl(configuration).run(job1));
+        assertEquals(expectedValues, getValues(job1, resultFutures.get(0)));
+    }
+
+    private AnalysisJob createJob(final String... columnNames) {
+        return createJob(configuration, datastore, columnNames);
+    }
+
+    private AnalysisJob createJob(final DataCleanerConfiguration jobConfiguration, final Datastore jobDatastore,
+            final String... columnNames) {
+        try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(jobConfiguration)) {
+            jobBuilder.setDatastore(jobDatastore);
+            jobBuilder.addSourceColumns(columnNames);
+            final AnalyzerComponentBuilder<MockAnalyzer> analyzer = jobBuilder.addAnalyzer(MockAnalyzer.class);
+            analyzer.addInputColumns(jobBuilder.getSourceColumns());
+            return jobBuilder.toAnalysisJob();
+        }
+    }
+
+    private List<String> getValues(final AnalysisJob job, final AnalysisResultFuture resultFuture) throws Throwable {
+        resultFuture.await();
+        if (resultFuture.isErrornous()) {
+            throw resultFuture.getErrors().get(0);
+        }
+
+        @SuppressWarnings("unchecked") final ListResult<InputRow> result =
+                (ListResult<InputRow>) resultFuture.getResult(job.getAnalyzerJobs().get(0));
+
+        final List<String> values = new ArrayList<>();
+        for (final InputRow row : result.getValues()) {
+            final List<Object> rowValues = new ArrayList<>();
+            for (final InputColumn<?> column : job.getSourceColumns()) {
+                rowValues.add(row.getValue(column));
+            }
+            values.add(rowValues.toString());
+        }
+        Collections.sort(values);
+        return values;
+    }
+}
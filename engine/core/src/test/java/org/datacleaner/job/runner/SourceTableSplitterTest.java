@@ -0,0 +1,128 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.csv.CsvConfiguration;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.util.InMemoryResource;
+import org.datacleaner.connection.CsvDatastore;
+import org.datacleaner.connection.DatastoreConnection;
+
+import junit.framework.TestCase;
+
+public class SourceTableSplitterTest extends TestCase {
+
+    private static final String CSV = "id,name\n1,foo\n2,bar\n3,baz\n4,qux\n5,quux\n6,corge\n7,grault\n";
+
+    public void testCsvSplitsContainAllRows() throws Exception {
+        final CsvDatastore datastore = createCsvDatastore(false);
+        try (DatastoreConnection con = datastore.openConnection()) {
+            final DataContext dataContext = con.getDataContext();
+            final Query query = createQuery(dataContext);
+
+            final List<SourceTableSplit> splits = SourceTableSplitter.createSplits(datastore, dataContext, query, 4, 1);
+            assertEquals(4, splits.size());
+
+            final List<String> splitRows = new ArrayList<>();
+            for (final SourceTableSplit split : splits) {
+                try (DataSet dataSet = split.execute()) {
+                    assertEquals(query.getSelectClause().getItems(), dataSet.getSelectItems());
+                    splitRows.addAll(readRows(dataSet));
+                }
+            }
+
+            try (DataSet dataSet = dataContext.executeQuery(query)) {
+                assertEquals(readRows(dataSet), splitRows);
+            }
+            assertEquals(7, splitRows.size());
+        }
+    }
+
+    public void testSplitCountLimitedByMinSize() throws Exception {
+        final CsvDatastore datastore = createCsvDatastore(false);
+        try (DatastoreConnection con = datastore.openConnection()) {
+            final DataContext dataContext = con.getDataContext();
+            final Query query = createQuery(dataContext);
+
+            final long size = CSV.getBytes(StandardCharsets.UTF_8).length;
+            assertEquals(2, SourceTableSplitter.createSplits(datastore, dataContext, query, 4, size / 2).size());
+            assertEquals(0, SourceTableSplitter.createSplits(datastore, dataContext, query, 4, size).size());
+        }
+    }
+
+    public void testNoSplitsForUnsplittableQueries() throws Exception {
+        final CsvDatastore datastore = createCsvDatastore(false);
+        try (DatastoreConnection con = datastore.openConnection()) {
+            final DataContext dataContext = con.getDataContext();
+
+            assertEquals(0, SourceTableSplitter.createSplits(datastore, dataContext, createQuery(dataContext), 1, 1)
+                    .size());
+
+            final Query maxRowsQuery = createQuery(dataContext).setMaxRows(3);
+            assertEquals(0, SourceTableSplitter.createSplits(datastore, dataContext, maxRowsQuery, 4, 1).size());
+
+            final Query whereQuery = createQuery(dataContext);
+            whereQuery.where(whereQuery.getSelectClause().getItem(0).getColumn(), OperatorType.EQUALS_TO, "1");
+            assertEquals(0, SourceTableSplitter.createSplits(datastore, dataContext, whereQuery, 4, 1).size());
+        }
+    }
+
+    public void testNoSplitsForMultilineValues() throws Exception {
+        final CsvDatastore datastore = createCsvDatastore(true);
+        try (DatastoreConnection con = datastore.openConnection()) {
+            final DataContext dataContext = con.getDataContext();
+            assertEquals(0, SourceTableSplitter.createSplits(datastore, dataContext, createQuery(dataContext), 4, 1)
+                    .size());
+        }
+    }
+
+    private CsvDatastore createCsvDatastore(final boolean multilineValues) {
+        final InMemoryResource resource =
+                new InMemoryResource("foo.csv", CSV.getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+        final CsvConfiguration configuration =
+                new CsvConfiguration(CsvConfiguration.DEFAULT_COLUMN_NAME_LINE, "UTF-8", ',', '"', '\\', false,
+                        multilineValues);
+        return new CsvDatastore("foo", resource, configuration);
+    }
+
+    private Query createQuery(final DataContext dataContext) {
+        final Table table = dataContext.getDefaultSchema().getTable(0);
+        final List<Column> columns = table.getColumns();
+        return new Query().from(table).select(columns.toArray(new Column[columns.size()]));
+    }
+
+    private List<String> readRows(final DataSet dataSet) {
+        final List<String> rows = new ArrayList<>();
+        while (dataSet.next()) {
+            rows.add(Arrays.asList(dataSet.getRow().getValues()).toString());
+        }
+        return rows;
+    }
+}
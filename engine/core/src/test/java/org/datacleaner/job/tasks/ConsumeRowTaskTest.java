@@ -40,6 +40,7 @@ import org.datacleaner.job.runner.AnalysisRunner;
 import org.datacleaner.job.runner.AnalysisRunnerImpl;
 import org.datacleaner.result.ListResult;
 import org.datacleaner.test.MockAnalyzer;
+import org.datacleaner.util.SystemProperties;
 
 import junit.framework.TestCase;
 
@@ -160,4 +161,37 @@ public class ConsumeRowTaskTest extends TestCase {
         assertEquals(10, list.size());
     }
 
+    @SuppressWarnings("unchecked")
+    public void testBatchedRowDispatch() throws Throwable {
+        final DataCleanerConfiguration configuration = new DataCleanerConfigurationImpl();
+        final AnalysisJob job;
+        try (AnalysisJobBuilder builder = new AnalysisJobBuilder(configuration)) {
+            builder.setDatastore(new CsvDatastore("Names", "src/test/resources/example-name-lengths.csv"));
+            builder.addSourceColumns("name");
+            builder.addAnalyzer(MockAnalyzer.class).addInputColumns(builder.getSourceColumnByName("name"));
+            job = builder.toAnalysisJob();
+        }
+
+        System.setProperty(SystemProperties.ROW_PROCESSING_BATCH_SIZE, "5");
+        try {
+            final AnalysisRunner runner = new AnalysisRunnerImpl(configuration);
+            final AnalysisResultFuture resultFuture = runner.run(job);
+            if (resultFuture.isErrornous()) {
+                throw resultFuture.getErrors().get(0);
+            }
+            final ListResult<InputRow> result = (ListResult<InputRow>) resultFuture.getResults().get(0);
+
+            // 12 records dispatched in batches of 5, 5 and 2
+            final List<InputRow> list = result.getValues();
+            assertEquals(12, list.size());
+
+            final Set<Long> ids = new HashSet<>();
+            for (final InputRow row : list) {
+                ids.add(row.getId());
+            }
+            assertEquals(12, ids.size());
+        } finally {
+            System.clearProperty(SystemProperties.ROW_PROCESSING_BATCH_SIZE);
+        }
+    }
 }
@@ -0,0 +1,136 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.reference;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import org.apache.metamodel.util.FileHelper;
+import org.datacleaner.configuration.DataCleanerConfigurationImpl;
+import org.datacleaner.connection.CsvDatastore;
+import org.datacleaner.connection.DatastoreCatalogImpl;
+
+import junit.framework.TestCase;
+
+public class ReferenceDataCacheTest extends TestCase {
+
+    private final DataCleanerConfigurationImpl configuration = new DataCleanerConfigurationImpl();
+
+    public void testDictionaryIsLoadedOnceAndShared() throws Exception {
+        final TextFileDictionary dict1 = new TextFileDictionary("dict1", "src/test/resources/lastnames.txt", "UTF-8");
+        final TextFileDictionary dict2 = new TextFileDictionary("dict2", "src/test/resources/lastnames.txt", "UTF-8");
+
+        final ReferenceDataCache cache = ReferenceDataCache.get(configuration);
+        assertSame(cache,
+                ReferenceDataCache.get(configuration.withReferenceDataCatalog(new ReferenceDataCatalogImpl())));
+
+        try (DictionaryConnection con1 = dict1.openConnection(configuration);
+                DictionaryConnection con2 = dict2.openConnection(configuration)) {
+            assertSame(con1, con2);
+            assertTrue(con1.containsValue("Ellison"));
+        }
+
+        final Collection<ReferenceDataCache.Entry> entries = cache.getEntries();
+        assertEquals(1, entries.size());
+        final ReferenceDataCache.Entry entry = entries.iterator().next();
+        assertEquals("dict1", entry.getName());
+        assertTrue(entry.getSize() > 0);
+        assertTrue(entry.getEstimatedMemoryUsage() > 0);
+        assertEquals(entry.getEstimatedMemoryUsage(), cache.getEstimatedMemoryUsage());
+
+        cache.invalidateAll();
+        assertTrue(cache.getEntries().isEmpty());
+    }
+
+    public void testReloadWhenFileIsModified() throws Exception {
+        final File file = new File("target/ReferenceDataCacheTest-synonyms.txt");
+        FileHelper.writeStringAsFile(file, "DNK,Denmark");
+
+        final TextFileSynonymCatalog catalog = new TextFileSynonymCatalog("catalog", file, true, "UTF-8");
+        try (SynonymCatalogConnection connection = catalog.openConnection(configuration)) {
+            assertEquals("DNK", connection.getMasterTerm("Denmark"));
+            assertNull(connection.getMasterTerm("Holland"));
+        }
+
+        FileHelper.writeStringAsFile(file, "DNK,Denmark\nNLD,Holland");
+
+        try (SynonymCatalogConnection connection = catalog.openConnection(configuration)) {
+            assertEquals("DNK", connection.getMasterTerm("Denmark"));
+            assertEquals("NLD", connection.getMasterTerm("Holland"));
+        }
+    }
+
+    public void testFailedLoadIsNotCached() throws Exception {
+        final ReferenceDataCache cache = ReferenceDataCache.get(configuration);
+        final Object key = Arrays.asList(ReferenceDataCacheTest.class, "failing");
+        try {
+            cache.get(key, () -> {
+                throw new IllegalStateException("Failed to read line from resource");
+            });
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("Failed to read line from resource", e.getMessage());
+        }
+
+        final DictionaryConnection connection = cache.get(key,
+                () -> new CompactDictionaryConnection(Arrays.asList("foo", "bar"), true).toCacheEntry("dict"));
+        assertTrue(connection.containsValue("foo"));
+        cache.invalidateAll();
+    }
+
+    public void testDatastoreReferenceDataIsInvalidatedWithDatastore() throws Exception {
+        final CsvDatastore datastore =
+                new CsvDatastore("region datastore", "src/test/resources/datastore-synonym-countries.csv");
+        final DataCleanerConfigurationImpl datastoreConfiguration =
+                configuration.withDatastoreCatalog(new DatastoreCatalogImpl(datastore));
+        final DatastoreSynonymCatalog catalog = new DatastoreSynonymCatalog("catalog", "region datastore", "region",
+                new String[] { "firstsynonym", "secondsynonym", "thirdsynonym" });
+
+        final ReferenceDataCache cache = ReferenceDataCache.get(datastoreConfiguration);
+        cache.invalidateAll();
+
+        try (SynonymCatalogConnection connection = catalog.openConnection(datastoreConfiguration)) {
+            assertEquals("DNK", connection.getMasterTerm("Denmark"));
+        }
+        assertEquals(1, cache.getEntries().size());
+
+        ReferenceDataCache.invalidateDatastore("other datastore");
+        assertEquals(1, cache.getEntries().size());
+
+        ReferenceDataCache.invalidateDatastore("region datastore");
+        assertTrue(cache.getEntries().isEmpty());
+    }
+
+    public void testCompactDictionaryConnection() throws Exception {
+        final SimpleDictionary dictionary = new SimpleDictionary("dict", false, "Foo", "bar", "foobar", "");
+        final CompactDictionaryConnection connection =
+                new CompactDictionaryConnection(dictionary.getValueSet(), dictionary.isCaseSensitive());
+
+        assertEquals(4, connection.getSize());
+        assertTrue(connection.containsValue("FOO"));
+        assertTrue(connection.containsValue("Bar"));
+        assertTrue(connection.containsValue(""));
+        assertFalse(connection.containsValue("baz"));
+        assertFalse(connection.containsValue(null));
+        assertEquals("[foobar, bar, foo, ]", connection.lengthSortedStream().collect(Collectors.toList()).toString());
+    }
+}
@@ -21,7 +21,9 @@ package org.datacleaner.reference;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.TreeSet;
 
 import junit.framework.TestCase;
@@ -59,6 +61,41 @@ public class SimpleSynonymCatalogTest extends TestCase {
 
     }
 
+    public void testReplaceInlineOverlappingMultiWordSynonyms() {
+        final SimpleSynonymCatalog sc = new SimpleSynonymCatalog("cities", Arrays.asList(
+                new Synonym[] { new SimpleSynonym("NYC", "New York City", "New York"),
+                        new SimpleSynonym("YC", "York City"), new SimpleSynonym("STL", "St. Louis") }));
+
+        try (SynonymCatalogConnection connection = sc.openConnection(null)) {
+            SynonymCatalogConnection.Replacement replacement =
+                    connection.replaceInline("New York City, York City and New York Citys");
+            assertEquals("NYC, YC and NYC Citys", replacement.getReplacedString());
+            assertEquals("[New York City, York City, New York]", replacement.getSynonyms().toString());
+            assertEquals("[NYC, YC, NYC]", replacement.getMasterTerms().toString());
+
+            // synonyms are matched literally and only on word boundaries
+            replacement = connection.replaceInline("St. Louis, StX Louis, ASt. Louis");
+            assertEquals("STL, StX Louis, ASt. Louis", replacement.getReplacedString());
+            assertEquals("[St. Louis]", replacement.getSynonyms().toString());
+        }
+    }
+
+    public void testReplaceInlineCaseInsensitive() {
+        final Map<String, String> synonymMap = new HashMap<>();
+        synonymMap.put("The Netherlands", "NLD");
+        synonymMap.put("Holland", "NLD");
+        synonymMap.put("Great Britain", "GBR");
+        final SimpleSynonymCatalog sc = new SimpleSynonymCatalog("countries", synonymMap, false);
+
+        try (SynonymCatalogConnection connection = sc.openConnection(null)) {
+            final SynonymCatalogConnection.Replacement replacement =
+                    connection.replaceInline("the NETHERLANDS, holland and great britain");
+            assertEquals("NLD, NLD and GBR", replacement.getReplacedString());
+            assertEquals("[the netherlands, great britain, holland]", replacement.getSynonyms().toString());
+            assertEquals("[NLD, GBR, NLD]", replacement.getMasterTerms().toString());
+        }
+    }
+
     public void testGetSynonyms() throws Exception {
         final SimpleSynonymCatalog sc = new SimpleSynonymCatalog("countries", Arrays.asList(
                 new Synonym[] { new SimpleSynonym("DNK", "Denmark", "Danmark"),
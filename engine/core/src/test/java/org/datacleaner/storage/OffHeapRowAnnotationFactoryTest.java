@@ -0,0 +1,175 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.storage;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.metamodel.util.HasName;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.data.TransformedInputRow;
+
+import junit.framework.TestCase;
+
+public class OffHeapRowAnnotationFactoryTest extends TestCase {
+
+    private final InputColumn<String> col1 = new MockInputColumn<>("str", String.class);
+    private final InputColumn<Object> col2 = new MockInputColumn<>("obj", Object.class);
+
+    public void testRunningOutOfStorage() throws Exception {
+        final OffHeapRowAnnotationFactory f = new OffHeapRowAnnotationFactory(1, 3);
+
+        final RowAnnotation a1 = f.createAnnotation();
+        assertFalse(f.hasSampleRows(a1));
+        for (int i = 0; i < 5; i++) {
+            f.annotate(new MockInputRow(i).put(col1, "foo" + i), a1);
+        }
+        assertTrue(f.hasSampleRows(a1));
+        assertEquals(5, a1.getRowCount());
+        assertEquals(3, f.getSampleRows(a1).size());
+
+        final RowAnnotation a2 = f.createAnnotation();
+        f.annotate(new MockInputRow(), a2);
+        assertFalse(f.hasSampleRows(a2));
+        assertEquals(1, a2.getRowCount());
+    }
+
+    public void testMaterializeSampleRows() throws Exception {
+        final OffHeapRowAnnotationFactory f = new OffHeapRowAnnotationFactory(10, 10);
+        final RowAnnotation annotation = f.createAnnotation();
+
+        final Date date = new Date(1234567890L);
+        final MockInputRow sourceRow = new MockInputRow(42).put(col1, "hello world");
+        final TransformedInputRow row = new TransformedInputRow(sourceRow, 42L);
+        row.addValue(col2, date);
+        f.annotate(row, annotation);
+        f.annotate(new MockInputRow(43).put(col1, null).put(col2, new BigDecimal("1.50")), annotation);
+        f.annotate(new MockInputRow(44).put(col1, "").put(col2, 123L), annotation);
+        f.annotate(new MockInputRow(45).put(col2, HasNameValue.INSTANCE), annotation);
+
+        final List<InputRow> sampleRows = f.getSampleRows(annotation);
+        assertEquals(4, sampleRows.size());
+
+        final InputRow row1 = sampleRows.get(0);
+        assertEquals(42, row1.getId());
+        assertEquals("hello world", row1.getValue(col1));
+        assertEquals(date, row1.getValue(col2));
+        assertEquals(2, row1.getInputColumns().size());
+
+        assertNull(sampleRows.get(1).getValue(col1));
+        assertEquals(new BigDecimal("1.50"), sampleRows.get(1).getValue(col2));
+        assertEquals("", sampleRows.get(2).getValue(col1));
+        assertEquals(123L, sampleRows.get(2).getValue(col2));
+        assertEquals(HasNameValue.INSTANCE, sampleRows.get(3).getValue(col2));
+
+        assertTrue(f.getAllocatedBytes() > 0);
+    }
+
+    public void testNonSerializableValue() throws Exception {
+        final OffHeapRowAnnotationFactory f = new OffHeapRowAnnotationFactory(10, 10);
+        final RowAnnotation annotation = f.createAnnotation();
+
+        final Object value = new Object() {
+            @Override
+            public String toString() {
+                return "not serializable";
+            }
+        };
+        f.annotate(new MockInputRow(1).put(col1, "foo").put(col2, value), annotation);
+
+        final List<InputRow> sampleRows = f.getSampleRows(annotation);
+        assertEquals(1, sampleRows.size());
+        assertEquals("foo", sampleRows.get(0).getValue(col1));
+        assertEquals("not serializable", sampleRows.get(0).getValue(col2));
+    }
+
+    public void testTransferAndReset() throws Exception {
+        final OffHeapRowAnnotationFactory f = new OffHeapRowAnnotationFactory(10, 10);
+        final RowAnnotation a1 = f.createAnnotation();
+        final RowAnnotation a2 = f.createAnnotation();
+
+        f.annotate(new MockInputRow(1).put(col1, "a"), a1);
+        f.annotate(new MockInputRow(2).put(col1, "b"), a1);
+        f.annotate(new MockInputRow(3).put(col1, "c"), a2);
+
+        f.transferAnnotations(a1, a2);
+        assertEquals(0, a1.getRowCount());
+        assertFalse(f.hasSampleRows(a1));
+        assertEquals(3, a2.getRowCount());
+        assertEquals(3, f.getSampleRows(a2).size());
+
+        f.resetAnnotation(a2);
+        assertEquals(0, a2.getRowCount());
+        assertFalse(f.hasSampleRows(a2));
+    }
+
+    public void testResetReclaimsMemory() throws Exception {
+        final OffHeapRowAnnotationFactory f = new OffHeapRowAnnotationFactory(10, 10);
+        final RowAnnotation min = f.createAnnotation();
+        final RowAnnotation max = f.createAnnotation();
+        final String padding = "0123456789012345678901234567890123456789012345678901234567890123456789";
+
+        f.annotate(new MockInputRow(0).put(col1, padding), min);
+
+        // like the max value annotation of an ascending column
+        for (int i = 1; i <= 100000; i++) {
+            f.resetAnnotation(max);
+            f.annotate(new MockInputRow(i).put(col1, padding + i), max);
+        }
+
+        assertTrue("Allocated bytes: " + f.getAllocatedBytes(), f.getAllocatedBytes() <= 3 * 1024 * 1024);
+        assertEquals(padding, f.getSampleRows(min).get(0).getValue(col1));
+        final List<InputRow> maxRows = f.getSampleRows(max);
+        assertEquals(1, maxRows.size());
+        assertEquals(padding + 100000, maxRows.get(0).getValue(col1));
+    }
+
+    public void testSerialize() throws Exception {
+        final OffHeapRowAnnotationFactory f = new OffHeapRowAnnotationFactory(10, 10);
+        final RowAnnotation annotation = f.createAnnotation();
+        f.annotate(new MockInputRow(1).put(col1, "foo").put(col2, 3.14), annotation);
+
+        final Object[] copy = (Object[]) SerializationUtils.clone(new Object[] { f, annotation });
+        final OffHeapRowAnnotationFactory factoryCopy = (OffHeapRowAnnotationFactory) copy[0];
+        final RowAnnotation annotationCopy = (RowAnnotation) copy[1];
+
+        final List<InputRow> sampleRows = factoryCopy.getSampleRows(annotationCopy);
+        assertEquals(1, sampleRows.size());
+        final InputRow row = sampleRows.get(0);
+        assertEquals(1, row.getId());
+        assertEquals(2, row.getInputColumns().size());
+        assertEquals("foo", row.getValue(row.getInputColumns().get(0)));
+        assertEquals(3.14, row.getValue(row.getInputColumns().get(1)));
+    }
+
+    private enum HasNameValue implements HasName {
+        INSTANCE;
+
+        @Override
+        public String getName() {
+            return "foo";
+        }
+    }
+}
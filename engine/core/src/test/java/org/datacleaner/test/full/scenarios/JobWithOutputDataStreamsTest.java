@@ -43,6 +43,7 @@ import org.datacleaner.test.MockAnalyzer;
 import org.datacleaner.test.MockOutputDataStreamAnalyzer;
 import org.datacleaner.test.TestEnvironment;
 import org.datacleaner.test.TestHelper;
+import org.datacleaner.util.SystemProperties;
 import org.junit.Test;
 
 /**
@@ -162,4 +163,47 @@ public class JobWithOutputDataStreamsTest {
         final Object lastElement = result2.getValues().get(result2.getValues().size() - 1);
         assertEquals("MetaModelInputRow[Row[values=[baz, null]]]", lastElement.toString());
     }
+
+    @Test(timeout = 30 * 1000)
+    public void testExecuteWithSmallBatchesAndFullQueue() throws Throwable {
+        final AnalysisJob job;
+        try (AnalysisJobBuilder ajb = new AnalysisJobBuilder(configuration)) {
+            ajb.setDatastore(datastore);
+            ajb.addSourceColumns("customers.contactfirstname");
+
+            final AnalyzerComponentBuilder<MockOutputDataStreamAnalyzer> analyzer1 =
+                    ajb.addAnalyzer(MockOutputDataStreamAnalyzer.class);
+            analyzer1.addInputColumn(ajb.getSourceColumns().get(0));
+
+            final AnalysisJobBuilder outputDataStreamJobBuilder =
+                    analyzer1.getOutputDataStreamJobBuilder("foo bar records");
+            final AnalyzerComponentBuilder<MockAnalyzer> analyzer2 =
+                    outputDataStreamJobBuilder.addAnalyzer(MockAnalyzer.class);
+            analyzer2.addInputColumns(outputDataStreamJobBuilder.getSourceColumns());
+            analyzer2.setName("analyzer2");
+
+            job = ajb.toAnalysisJob();
+        }
+
+        // a queue of a single batch forces most batches to be consumed by the
+        // producing thread
+        System.setProperty(SystemProperties.OUTPUT_DATA_STREAM_BATCH_SIZE, "7");
+        System.setProperty(SystemProperties.OUTPUT_DATA_STREAM_QUEUE_SIZE, "1");
+        try {
+            final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(configuration).run(job);
+            resultFuture.await();
+
+            if (resultFuture.isErrornous()) {
+                throw resultFuture.getErrors().get(0);
+            }
+
+            final AnalyzerJob analyzerJob2 =
+                    job.getAnalyzerJobs().get(0).getOutputDataStreamJobs()[0].getJob().getAnalyzerJobs().get(0);
+            final ListResult<?> result2 = (ListResult<?>) resultFuture.getResult(analyzerJob2);
+            assertEquals(144, result2.getValues().size());
+        } finally {
+            System.clearProperty(SystemProperties.OUTPUT_DATA_STREAM_BATCH_SIZE);
+            System.clearProperty(SystemProperties.OUTPUT_DATA_STREAM_QUEUE_SIZE);
+        }
+    }
 }
@@ -0,0 +1,81 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.util;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.InMemoryResource;
+import org.apache.metamodel.util.Resource;
+import org.apache.metamodel.util.ResourceException;
+
+import junit.framework.TestCase;
+
+public class LineRangeResourceTest extends TestCase {
+
+    private static final String CONTENT = "a\nbb\n\nccc\ndddd\ne";
+
+    private final Resource _resource =
+            new InMemoryResource("foo.txt", CONTENT.getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+
+    public void testReadRange() throws Exception {
+        assertEquals("a\nbb\n", read(0, 3));
+        assertEquals("\n", read(3, 6));
+        assertEquals("ccc\ndddd\ne", read(6, CONTENT.length()));
+    }
+
+    public void testRangeStartingAtLineStart() throws Exception {
+        assertEquals("a\n", read(0, 2));
+        assertEquals("bb\n", read(2, 5));
+        assertEquals("\nccc\n", read(5, 10));
+    }
+
+    public void testEmptyRange() throws Exception {
+        assertEquals("", read(7, 9));
+        assertEquals("", read(CONTENT.length(), CONTENT.length()));
+    }
+
+    public void testEachLineInExactlyOneRange() throws Exception {
+        final int length = CONTENT.length();
+        for (int i = 0; i <= length; i++) {
+            for (int j = i; j <= length; j++) {
+                final String result = read(0, i) + read(i, j) + read(j, length);
+                assertEquals("Split at " + i + " and " + j, CONTENT, result);
+            }
+        }
+    }
+
+    public void testReadOnly() throws Exception {
+        final LineRangeResource range = new LineRangeResource(_resource, 0, 3);
+        assertTrue(range.isReadOnly());
+        assertEquals("foo.txt", range.getName());
+        try {
+            range.write();
+            fail("Exception expected");
+        } catch (final ResourceException e) {
+            // expected
+        }
+    }
+
+    private String read(final long start, final long end) {
+        final LineRangeResource range = new LineRangeResource(_resource, start, end);
+        return FileHelper.readInputStreamAsString(range.read(), "UTF-8");
+    }
+}
@@ -23,7 +23,12 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.Resource;
@@ -237,6 +242,158 @@ public class SortMergeWriterTest extends TestCase {
         }
     }
 
+    public void testPendingSortsCountAgainstBufferSize() throws Exception {
+        final List<File> tempFiles = new ArrayList<>();
+        final SortMergeWriter<String, Writer> sorter =
+                new SortMergeWriter<String, Writer>(10, ToStringComparator.getComparator()) {
+
+                    @Override
+                    protected Writer createWriter(final Resource file) {
+                        return FileHelper.getWriter(file.write(), FileHelper.DEFAULT_ENCODING);
+                    }
+
+                    @Override
+                    protected void writeRow(final Writer writer, final String row, final int count) throws IOException {
+                        writer.write(row + "," + count + "\n");
+                    }
+
+                    @Override
+                    protected void writeHeader(final Writer writer) throws IOException {
+                        // do nothing
+                    }
+
+                    @Override
+                    protected File createTempFile() throws IOException {
+                        final File file = super.createTempFile();
+                        synchronized (tempFiles) {
+                            tempFiles.add(file);
+                        }
+                        return file;
+                    }
+                };
+
+        for (int i = 0; i < 10; i++) {
+            sorter.append("value" + (9 - i));
+        }
+
+        // the rows being appended and sorted may not exceed the buffer size
+        synchronized (tempFiles) {
+            assertFalse(tempFiles.isEmpty());
+        }
+
+        final File file = sorter.write("target/sort_merge_pending_sorts.txt");
+        try (BufferedReader br = FileHelper.getBufferedReader(file)) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals("value" + i + ",1", br.readLine());
+            }
+            assertNull(br.readLine());
+        }
+    }
+
+    public void testMergeManyTempFilesInPasses() throws Exception {
+        final List<File> tempFiles = new ArrayList<>();
+        final SortMergeWriter<String, Writer> sorter =
+                new SortMergeWriter<String, Writer>(2, ToStringComparator.getComparator()) {
+
+                    @Override
+                    protected Writer createWriter(final Resource file) {
+                        return FileHelper.getWriter(file.write(), FileHelper.DEFAULT_ENCODING);
+                    }
+
+                    @Override
+                    protected void writeRow(final Writer writer, final String row, final int count) throws IOException {
+                        writer.write(row + "," + count + "\n");
+                    }
+
+                    @Override
+                    protected void writeHeader(final Writer writer) throws IOException {
+                        // do nothing
+                    }
+
+                    @Override
+                    protected File createTempFile() throws IOException {
+                        final File file = super.createTempFile();
+                        tempFiles.add(file);
+                        return file;
+                    }
+                };
+
+        for (int i = 0; i < 1000; i++) {
+            sorter.append("value" + String.format("%04d", (i * 7) % 500));
+        }
+
+        final File file = sorter.write("target/sort_merge_passes.txt");
+        assertTrue(tempFiles.size() > 64);
+
+        try (BufferedReader br = FileHelper.getBufferedReader(file)) {
+            for (int i = 0; i < 500; i++) {
+                assertEquals("value" + String.format("%04d", i) + ",2", br.readLine());
+            }
+            assertNull(br.readLine());
+        }
+    }
+
+    public void testConcurrentAppendWithCompressedTempFiles() throws Exception {
+        final List<File> tempFiles = new ArrayList<>();
+        final SortMergeWriter<String, Writer> sorter =
+                new SortMergeWriter<String, Writer>(100, ToStringComparator.getComparator()) {
+
+                    @Override
+                    protected Writer createWriter(final Resource file) {
+                        return FileHelper.getWriter(file.write(), FileHelper.DEFAULT_ENCODING);
+                    }
+
+                    @Override
+                    protected void writeRow(final Writer writer, final String row, final int count) throws IOException {
+                        writer.write(row + "," + count + "\n");
+                    }
+
+                    @Override
+                    protected void writeHeader(final Writer writer) throws IOException {
+                        // do nothing
+                    }
+
+                    @Override
+                    protected File createTempFile() throws IOException {
+                        final File file = super.createTempFile();
+                        synchronized (tempFiles) {
+                            tempFiles.add(file);
+                        }
+                        return file;
+                    }
+                };
+        sorter.setCompressTempFiles(true);
+
+        final int threads = 4;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        // every value is appended once by each thread
+                        sorter.append("value" + String.format("%05d", (i * 7919) % 5000));
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        final File file = sorter.write("target/sort_merge_concurrent.txt");
+        assertFalse(tempFiles.isEmpty());
+
+        try (BufferedReader br = FileHelper.getBufferedReader(file)) {
+            for (int i = 0; i < 5000; i++) {
+                assertEquals("value" + String.format("%05d", i) + "," + threads, br.readLine());
+            }
+            assertNull(br.readLine());
+        }
+    }
+
     private void doSortTests(final int threshold) throws Exception {
         final SortMergeWriter<String, Writer> sorter =
                 new SortMergeWriter<String, Writer>(threshold, ToStringComparator.getComparator()) {
@@ -173,6 +173,7 @@ import org.datacleaner.server.EnvironmentBasedHadoopClusterInformation;
 import org.datacleaner.storage.BerkeleyDbStorageProvider;
 import org.datacleaner.storage.CombinedStorageProvider;
 import org.datacleaner.storage.InMemoryStorageProvider;
+import org.datacleaner.storage.OffHeapStorageProvider;
 import org.datacleaner.storage.StorageProvider;
 import org.datacleaner.util.CollectionUtils2;
 import org.datacleaner.util.HadoopResource;
@@ -506,6 +507,13 @@ public final class JaxbConfigurationReader implements ConfigurationReader<InputS
             return new InMemoryStorageProvider(maxSetsThreshold, maxRowsThreshold);
         }
 
+        final InMemoryStorageProviderType offHeapStorageProvider = storageProviderType.getOffHeap();
+        if (offHeapStorageProvider != null) {
+            final int maxRowsThreshold = offHeapStorageProvider.getMaxRowsThreshold();
+            final int maxSetsThreshold = offHeapStorageProvider.getMaxSetsThreshold();
+            return new OffHeapStorageProvider(maxSetsThreshold, maxRowsThreshold);
+        }
+
         final CustomElementType customStorageProvider = storageProviderType.getCustomStorageProvider();
         if (customStorageProvider != null) {
             return createCustomElement(customStorageProvider, StorageProvider.class, temporaryConfiguration, true);
@@ -79,6 +79,8 @@ import org.datacleaner.storage.BerkeleyDbStorageProvider;
 import org.datacleaner.storage.CombinedStorageProvider;
 import org.datacleaner.storage.InMemoryRowAnnotationFactory2;
 import org.datacleaner.storage.InMemoryStorageProvider;
+import org.datacleaner.storage.OffHeapRowAnnotationFactory;
+import org.datacleaner.storage.OffHeapStorageProvider;
 import org.datacleaner.storage.RowAnnotationFactory;
 import org.datacleaner.storage.StorageProvider;
 import org.junit.Assert;
@@ -225,6 +227,17 @@ public class JaxbConfigurationReaderTest extends TestCase {
         assertEquals(InMemoryRowAnnotationFactory2.class, rowAnnotationFactory.getClass());
     }
 
+    public void testOffHeapStorage() throws Exception {
+        final DataCleanerConfiguration configuration =
+                reader.create(new File("src/test/resources/example-configuration-off-heap-storage.xml"));
+        final StorageProvider storageProvider = configuration.getEnvironment().getStorageProvider();
+
+        assertEquals(OffHeapStorageProvider.class, storageProvider.getClass());
+
+        final RowAnnotationFactory rowAnnotationFactory = storageProvider.createRowAnnotationFactory();
+        assertEquals(OffHeapRowAnnotationFactory.class, rowAnnotationFactory.getClass());
+    }
+
     @SuppressWarnings("deprecation")
     public void testAllDatastoreTypes() throws Exception {
         final DatastoreCatalog datastoreCatalog = getDataStoreCatalog(getConfiguration());